@@ -0,0 +1,109 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.modelbuilder.MemorizedResultSet;
+
+/**
+ * Synthetic data and environment shared by the benchmarks.
+ * <br>
+ * The benchmarks must be executed in the base folder of the distribution,
+ * where the demo databases and the data models are located.
+ *
+ * @author Ralf Wisser
+ */
+class BenchmarkSupport {
+
+	/**
+	 * Column names of the synthetic result set, same as table "EMPLOYEE" of the Demo-Scott model.
+	 */
+	static final String[] EMPLOYEE_COLUMNS = new String[] { "EMPNO", "NAME", "JOB", "BOSS", "HIREDATE", "SALARY", "COMM", "DEPTNO" };
+
+	private static final int[] EMPLOYEE_TYPES = new int[] { Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR, Types.DECIMAL, Types.DECIMAL, Types.INTEGER };
+
+	private static final String[] EMPLOYEE_TYPE_NAMES = new String[] { "INTEGER", "VARCHAR", "VARCHAR", "INTEGER", "VARCHAR", "DECIMAL", "DECIMAL", "INTEGER" };
+
+	private static final String[] JOBS = new String[] { "CLERK", "SALESMAN", "MANAGER", "ANALYST", "PRESIDENT" };
+
+	/**
+	 * Creates a result set with synthetic rows of table "EMPLOYEE".
+	 * The rows are generated with a fixed seed, so that all runs read the same data.
+	 *
+	 * @param numberOfRows number of rows
+	 * @return the result set, can be re-read after {@link MemorizedResultSet#reset()}
+	 */
+	static MemorizedResultSet createEmployeeResultSet(int numberOfRows) {
+		Random random = new Random(4711);
+		List<Object[]> rows = new ArrayList<Object[]>(numberOfRows);
+		for (int i = 0; i < numberOfRows; ++i) {
+			rows.add(new Object[] {
+					i + 1,
+					"Emp'" + Integer.toString(random.nextInt(1000000), 36),
+					JOBS[random.nextInt(JOBS.length)],
+					i == 0? null : Integer.valueOf(random.nextInt(i) + 1),
+					String.format("%04d-%02d-%02d", 1980 + random.nextInt(40), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+					new BigDecimal(random.nextInt(1000000)).movePointLeft(2),
+					random.nextBoolean()? null : new BigDecimal(random.nextInt(100000)).movePointLeft(2),
+					10 * (1 + random.nextInt(4))
+			});
+		}
+		return new MemorizedResultSet(rows, EMPLOYEE_COLUMNS.length, EMPLOYEE_COLUMNS, EMPLOYEE_TYPES, EMPLOYEE_TYPE_NAMES);
+	}
+
+	/**
+	 * Creates a session for an in-memory H2 database.
+	 */
+	static Session createInMemorySession(String name) throws SQLException {
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:" + name, "sa", "", 1, (File) null);
+		return new Session(dataSource, dataSource.dbms, null);
+	}
+
+	/**
+	 * Loads the data model "Demo-Scott".
+	 */
+	static DataModel loadScottDataModel(ExecutionContext executionContext) throws IOException {
+		executionContext.setDatamodelFolder(new File("datamodel" + File.separator + "Demo-Scott").getAbsolutePath());
+		return new DataModel(executionContext);
+	}
+
+	/**
+	 * Stream which discards all data.
+	 */
+	static class NullOutputStream extends OutputStream {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.jailer.database.Session;
+import net.sf.jailer.modelbuilder.MemorizedResultSet;
+import net.sf.jailer.util.CellContentConverter;
+
+/**
+ * Benchmarks {@link CellContentConverter#getObject(java.sql.ResultSet, int)} and {@link CellContentConverter#toSql(Object)}.
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CellContentConverterBenchmark {
+
+	@Param({ "1000" })
+	public int rows;
+
+	private Session session;
+	private MemorizedResultSet resultSet;
+	private CellContentConverter cellContentConverter;
+	private Object[][] values;
+
+	@Setup
+	public void setUp() throws SQLException {
+		session = BenchmarkSupport.createInMemorySession("ccc");
+		resultSet = BenchmarkSupport.createEmployeeResultSet(rows);
+		cellContentConverter = new CellContentConverter(resultSet.getMetaData(), session, session.dbms);
+		int numCol = BenchmarkSupport.EMPLOYEE_COLUMNS.length;
+		values = new Object[rows][];
+		for (int r = 0; resultSet.next(); ++r) {
+			values[r] = new Object[numCol];
+			for (int i = 1; i <= numCol; ++i) {
+				values[r][i - 1] = cellContentConverter.getObject(resultSet, i);
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		session.shutDown();
+	}
+
+	@Benchmark
+	public void getObject(Blackhole blackhole) throws SQLException {
+		resultSet.reset();
+		int numCol = BenchmarkSupport.EMPLOYEE_COLUMNS.length;
+		while (resultSet.next()) {
+			for (int i = 1; i <= numCol; ++i) {
+				blackhole.consume(cellContentConverter.getObject(resultSet, i));
+			}
+		}
+	}
+
+	@Benchmark
+	public void toSql(Blackhole blackhole) {
+		for (Object[] row: values) {
+			for (Object value: row) {
+				blackhole.consume(cellContentConverter.toSql(value));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jailer.util.CsvFile;
+
+/**
+ * Benchmarks parsing of CSV files, such as the files of a data model.
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CsvFileBenchmark {
+
+	@Param({ "10000" })
+	public int lines;
+
+	private byte[] content;
+
+	@Setup
+	public void setUp() throws IOException {
+		StringBuilder sb = new StringBuilder("# Name; Columns\n");
+		for (int i = 0; i < lines; ++i) {
+			sb.append("SCHEMA.TABLE_" + i + "; ID INTEGER; NAME VARCHAR(100) null; \"QUOTED; NAME\" DECIMAL(10, 2) null; CREATED TIMESTAMP; ; \n");
+		}
+		content = sb.toString().getBytes("UTF-8");
+	}
+
+	@Benchmark
+	public int parse() throws IOException {
+		return new CsvFile(new ByteArrayInputStream(content), null, "benchmark", null).getLines().size();
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.DMLTransformer;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.modelbuilder.MemorizedResultSet;
+
+/**
+ * Benchmarks {@link DMLTransformer#readCurrentRow(java.sql.ResultSet)}, which renders the rows
+ * of table "EMPLOYEE" into insert statements.
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DMLTransformerBenchmark {
+
+	@Param({ "10000" })
+	public int rows;
+
+	@Param({ "false", "true" })
+	public boolean upsertOnly;
+
+	private Session session;
+	private MemorizedResultSet resultSet;
+	private Table table;
+	private DMLTransformer.Factory factory;
+
+	@Setup
+	public void setUp() throws IOException, SQLException {
+		ExecutionContext executionContext = new ExecutionContext();
+		DataModel dataModel = BenchmarkSupport.loadScottDataModel(executionContext);
+		table = dataModel.getTable("EMPLOYEE");
+		session = BenchmarkSupport.createInMemorySession("dml");
+		resultSet = BenchmarkSupport.createEmployeeResultSet(rows);
+		OutputStreamWriter out = new OutputStreamWriter(new BenchmarkSupport.NullOutputStream(), "UTF-8");
+		factory = new DMLTransformer.Factory(out, upsertOnly, 10, session, session.dbms, executionContext);
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		session.shutDown();
+	}
+
+	@Benchmark
+	public void readCurrentRow() throws SQLException {
+		resultSet.reset();
+		ResultSetReader transformer = factory.create(table);
+		while (resultSet.next()) {
+			transformer.readCurrentRow(resultSet);
+		}
+		transformer.close();
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.subsetting.ExportStatistic;
+import net.sf.jailer.subsetting.ScriptFormat;
+
+/**
+ * End-to-end export benchmark against copies of the demo databases.
+ * <br>
+ * Must be executed in the base folder of the distribution.
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ExportBenchmark {
+
+	@Param({ "Demo-Scott", "Demo-Sakila" })
+	public String database;
+
+	@Param({ "SQL", "XML" })
+	public String format;
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private File workFolder;
+	private BasicDataSource dataSource;
+	private Subsetter subsetter;
+	private File exportFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		workFolder = Files.createTempDirectory("jailer-benchmark").toFile();
+		String dbName = database.toLowerCase();
+		Files.copy(new File(dbName + ".mv.db").toPath(), new File(workFolder, dbName + ".mv.db").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:" + new File(workFolder, dbName).getAbsolutePath(), "sa", "", 10, (File) null);
+
+		File extractionModel;
+		if ("Demo-Scott".equals(database)) {
+			extractionModel = new File("extractionmodel" + File.separator + "Demo-Scott.jm");
+		} else {
+			extractionModel = new File(workFolder, database + ".jm");
+			PrintWriter out = new PrintWriter(new FileOutputStream(extractionModel));
+			out.println("# subject; condition");
+			out.println("CUSTOMER; T.CUSTOMER_ID <= 100");
+			out.close();
+		}
+		subsetter = new Subsetter(dataSource, dataSource.dbms, new File("datamodel" + File.separator + database), extractionModel, ScriptFormat.valueOf(format));
+		subsetter.setNumberOfThreads(threads);
+		exportFile = new File(workFolder, "export." + format.toLowerCase());
+	}
+
+	@TearDown
+	public void tearDown() {
+		dataSource.close();
+		for (File file: workFolder.listFiles()) {
+			file.delete();
+		}
+		workFolder.delete();
+	}
+
+	@Benchmark
+	public long export() throws SQLException, IOException {
+		ExportStatistic exportStatistic = subsetter.execute(null, exportFile);
+		return exportStatistic.getTotal();
+	}
+
+}
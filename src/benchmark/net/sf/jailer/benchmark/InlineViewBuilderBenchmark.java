@@ -0,0 +1,92 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.jailer.database.InlineViewBuilder;
+import net.sf.jailer.database.InlineViewStyle;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.modelbuilder.MemorizedResultSet;
+import net.sf.jailer.util.CellContentConverter;
+
+/**
+ * Benchmarks {@link InlineViewBuilder}, which renders rows into inline views
+ * (used for instance when rows are transferred to a remote or local entity-graph).
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InlineViewBuilderBenchmark {
+
+	@Param({ "10000" })
+	public int rows;
+
+	private Session session;
+	private MemorizedResultSet resultSet;
+
+	@Setup
+	public void setUp() throws SQLException {
+		session = BenchmarkSupport.createInMemorySession("iv");
+		resultSet = BenchmarkSupport.createEmployeeResultSet(rows);
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		session.shutDown();
+	}
+
+	@Benchmark
+	public void readCurrentRow(final Blackhole blackhole) throws SQLException {
+		resultSet.reset();
+		InlineViewBuilder inlineViewBuilder = new InlineViewBuilder(InlineViewStyle.forSession(session), session, BenchmarkSupport.EMPLOYEE_COLUMNS) {
+			@Override
+			protected CellContentConverter createCellContentConverter() {
+				return new CellContentConverter(resultSetMetaData, session, session.dbms);
+			}
+
+			@Override
+			protected void process(String inlineView) throws SQLException {
+				blackhole.consume(inlineView);
+			}
+		};
+		while (resultSet.next()) {
+			inlineViewBuilder.readCurrentRow(resultSet);
+		}
+		inlineViewBuilder.close();
+	}
+
+}
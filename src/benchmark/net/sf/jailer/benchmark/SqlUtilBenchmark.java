@@ -0,0 +1,59 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jailer.util.SqlUtil;
+
+/**
+ * Benchmarks {@link SqlUtil#resolvePseudoColumns(String, String, String, int, int, boolean)},
+ * which is called for each association on each day of the collection.
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SqlUtilBenchmark {
+
+	private String joinCondition = "A.DEPTNO = B.DEPTNO and A.JOB = 'MANAGER'";
+	private String restrictionCondition = "A.$IS_SUBJECT or (B.$DISTANCE < 3 and not $IN_DELETE_MODE)";
+
+	@Benchmark
+	public String resolvePseudoColumnsWithoutPseudoColumns() {
+		return SqlUtil.resolvePseudoColumns(joinCondition, "E1", "E2", 5, 1, false);
+	}
+
+	@Benchmark
+	public String resolvePseudoColumns() {
+		return SqlUtil.resolvePseudoColumns(restrictionCondition, "E1", "E2", 5, 1, false);
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.jailer.database.StatementBuilder;
+
+/**
+ * Benchmarks {@link StatementBuilder}, which combines rows into multi-row statements.
+ *
+ * @author Ralf Wisser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StatementBuilderBenchmark {
+
+	private static final String HEAD = "Insert into EMPLOYEE(EMPNO, NAME, JOB, BOSS, HIREDATE, SALARY, COMM, DEPTNO) values ";
+
+	@Param({ "10000" })
+	public int rows;
+
+	@Param({ "10", "100" })
+	public int maxBodySize;
+
+	private String[] items;
+
+	@Setup
+	public void setUp() {
+		items = new String[rows];
+		for (int i = 0; i < rows; ++i) {
+			items[i] = "(" + i + ", 'NAME" + i + "', 'CLERK', " + (i / 10) + ", '1981-01-01', 1234.56, null, 20)";
+		}
+	}
+
+	@Benchmark
+	public void build(Blackhole blackhole) {
+		StatementBuilder statementBuilder = new StatementBuilder(maxBodySize);
+		for (String item: items) {
+			if (!statementBuilder.isAppendable(HEAD)) {
+				blackhole.consume(statementBuilder.build());
+			}
+			statementBuilder.append(HEAD, item, ",\n  ", ";\n");
+		}
+		blackhole.consume(statementBuilder.build());
+	}
+
+}
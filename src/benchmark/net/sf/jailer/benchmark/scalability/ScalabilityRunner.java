@@ -0,0 +1,212 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark.scalability;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.api.Subsetter;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.datamodel.ModelElement;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.progress.ProgressListener;
+import net.sf.jailer.subsetting.CollectedRowsCounter;
+import net.sf.jailer.subsetting.ExportStatistic;
+import net.sf.jailer.subsetting.ScriptFormat;
+import net.sf.jailer.util.CancellationException;
+
+/**
+ * Measures how the export scales with the size of the database.
+ * <br>
+ * For each size, a {@link SyntheticSchema} is generated and exported.
+ * The duration of the stages of the export and the numbers of collected and exported rows
+ * are appended to <code>scalability-result.csv</code> in the work folder.
+ * <br>
+ * Usage: <code>ScalabilityRunner &lt;work folder&gt; -sizes 1e4,1e5,1e6 [-threads n] [-format SQL] [-keep] [shape options]</code>,
+ * see {@link SyntheticSchema#parse(String[])} for the shape options.
+ *
+ * @author Ralf Wisser
+ */
+public class ScalabilityRunner {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(ScalabilityRunner.class);
+
+	private static final String RESULT_HEADER = "# Rows; Shape; Threads; Format; Stage; Millis; Collected rows; Exported rows";
+
+	/**
+	 * Records the duration of the stages of an export.
+	 */
+	private static class StageTimer implements ProgressListener {
+		private final Map<String, Long> durations = new LinkedHashMap<String, Long>();
+		private String currentStage = "initializing";
+		private long stageStart = System.currentTimeMillis();
+
+		private void enter(String stage) {
+			long now = System.currentTimeMillis();
+			Long duration = durations.get(currentStage);
+			durations.put(currentStage, (duration == null? 0 : duration) + now - stageStart);
+			currentStage = stage;
+			stageStart = now;
+		}
+
+		@Override
+		public void newStage(String stage, boolean isErrorStage, boolean isFinalStage) {
+			enter(stage);
+		}
+
+		@Override
+		public void prepareExport() throws CancellationException {
+			enter("preparing export");
+		}
+
+		@Override
+		public void collectionJobEnqueued(int day, ModelElement modelElement) {
+		}
+
+		@Override
+		public void collectionJobStarted(int day, ModelElement modelElement) {
+		}
+
+		@Override
+		public void collected(int day, ModelElement modelElement, long numberOfRows) {
+		}
+
+		@Override
+		public void exported(Table table, long numberOfRows) {
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1) {
+			System.out.println("usage: ScalabilityRunner <work folder> -sizes 1e4,1e5,1e6 [-threads n] [-format SQL] [-keep] [-tables n] [-branching n] [-fan-out n] [-cycles] [-self-references] [-composite-keys] [-lobs] [-lob-size n] [-subject-fraction f]");
+			return;
+		}
+		File workFolder = new File(args[0]);
+		List<Long> sizes = new ArrayList<Long>();
+		int threads = 1;
+		ScriptFormat format = ScriptFormat.SQL;
+		boolean keep = false;
+		for (int i = 1; i < args.length; ++i) {
+			if ("-sizes".equals(args[i])) {
+				for (String size: args[++i].split(",")) {
+					sizes.add((long) Double.parseDouble(size.trim()));
+				}
+			} else if ("-threads".equals(args[i])) {
+				threads = Integer.parseInt(args[++i]);
+			} else if ("-format".equals(args[i])) {
+				format = ScriptFormat.valueOf(args[++i]);
+			} else if ("-keep".equals(args[i])) {
+				keep = true;
+			}
+		}
+		if (sizes.isEmpty()) {
+			sizes.add(10000L);
+		}
+		SyntheticSchema schema = new SyntheticSchema();
+		schema.parse(args);
+
+		workFolder.mkdirs();
+		File resultFile = new File(workFolder, "scalability-result.csv");
+		boolean newResultFile = !resultFile.exists();
+		PrintWriter result = new PrintWriter(new FileOutputStream(resultFile, true));
+		try {
+			if (newResultFile) {
+				result.println(RESULT_HEADER);
+			}
+			for (long size: sizes) {
+				schema.setRows(size);
+				run(schema, new File(workFolder, "rows-" + size), threads, format, keep, result);
+				result.flush();
+			}
+		} finally {
+			result.close();
+		}
+		_log.info("results written into " + resultFile);
+	}
+
+	private static void run(SyntheticSchema schema, File folder, int threads, ScriptFormat format, boolean keep, PrintWriter result) throws SQLException, IOException {
+		folder.mkdirs();
+		File dataModelFolder = new File(folder, "datamodel");
+		File extractionModel = new File(folder, "extractionmodel.jm");
+		File exportFile = new File(folder, "export" + format.getFileExtension());
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:" + new File(folder, "db").getAbsolutePath(), "sa", "", threads + 2, (File) null);
+		try {
+			_log.info("generating " + schema.getTotalRows() + " rows, " + schema.getDescription());
+			Session session = new Session(dataSource, dataSource.dbms, null);
+			try {
+				schema.createDatabase(session);
+			} finally {
+				session.shutDown();
+			}
+			schema.writeDataModel(dataModelFolder);
+			schema.writeExtractionModel(extractionModel);
+
+			Subsetter subsetter = new Subsetter(dataSource, dataSource.dbms, dataModelFolder, extractionModel, format);
+			subsetter.setNumberOfThreads(threads);
+			StageTimer stageTimer = new StageTimer();
+			CollectedRowsCounter collectedRowsCounter = new CollectedRowsCounter();
+			subsetter.getExecutionContext().getProgressListenerRegistry().addProgressListener(stageTimer);
+			subsetter.getExecutionContext().getProgressListenerRegistry().addProgressListener(collectedRowsCounter);
+
+			long startTime = System.currentTimeMillis();
+			ExportStatistic exportStatistic = subsetter.execute(null, exportFile);
+			long total = System.currentTimeMillis() - startTime;
+			subsetter.getExecutionContext().getProgressListenerRegistry().flush();
+			stageTimer.enter("finished");
+
+			long collected = 0;
+			for (Long rc: collectedRowsCounter.getCollectedRowsCount().values()) {
+				collected += rc;
+			}
+			String prefix = schema.getTotalRows() + "; " + schema.getDescription() + "; " + threads + "; " + format + "; ";
+			for (Map.Entry<String, Long> e: stageTimer.durations.entrySet()) {
+				result.println(prefix + e.getKey() + "; " + e.getValue() + "; " + collected + "; " + exportStatistic.getTotal());
+			}
+			result.println(prefix + "total; " + total + "; " + collected + "; " + exportStatistic.getTotal());
+			_log.info(schema.getTotalRows() + " rows: " + total + " ms, " + collected + " rows collected, " + exportStatistic.getTotal() + " rows exported");
+		} finally {
+			dataSource.close();
+			if (!keep) {
+				deleteRecursively(folder);
+			}
+		}
+	}
+
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child: children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.benchmark.scalability;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.database.Session;
+
+/**
+ * Generates a synthetic H2 database together with a matching data model and extraction model.
+ * <br>
+ * The tables <code>T0 .. T(n-1)</code> form a tree: the parent of table <code>Ti</code> is table <code>T((i - 1) / branching)</code>.
+ * Each row references a row of the parent table, each row of a parent table is referenced by
+ * <code>fanOut</code> rows of each child table (as far as the number of rows allows).
+ * Optionally:
+ * <ul>
+ * <li>the root table references the last table, which closes a cycle,</li>
+ * <li>each table has a self-reference forming chains of 10 rows,</li>
+ * <li>the primary keys are composite (ID, TENANT),</li>
+ * <li>each table has a CLOB and a BLOB column.</li>
+ * </ul>
+ * The database has no foreign key constraints, the associations are defined by the data model only.
+ *
+ * @author Ralf Wisser
+ */
+public class SyntheticSchema {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(SyntheticSchema.class);
+
+	/**
+	 * Length of the self-reference chains.
+	 */
+	private static final int CHAIN_LENGTH = 10;
+
+	private int tables = 10;
+	private long rows = 10000;
+	private int branching = 2;
+	private int fanOut = 3;
+	private boolean cycles = false;
+	private boolean selfReferences = false;
+	private boolean compositeKeys = false;
+	private boolean lobs = false;
+	private int lobSize = 1000;
+	private double subjectFraction = 0.01;
+
+	/**
+	 * Number of rows per table.
+	 */
+	private long[] rowsPerTable;
+
+	/**
+	 * Parses the shape from command line options. Unknown options are ignored.
+	 *
+	 * @param args options, such as <code>-tables 20 -cycles</code>
+	 */
+	public void parse(String[] args) {
+		for (int i = 0; i < args.length; ++i) {
+			String arg = args[i];
+			if ("-tables".equals(arg)) {
+				tables = Integer.parseInt(args[++i]);
+			} else if ("-branching".equals(arg)) {
+				branching = Integer.parseInt(args[++i]);
+			} else if ("-fan-out".equals(arg)) {
+				fanOut = Integer.parseInt(args[++i]);
+			} else if ("-cycles".equals(arg)) {
+				cycles = true;
+			} else if ("-self-references".equals(arg)) {
+				selfReferences = true;
+			} else if ("-composite-keys".equals(arg)) {
+				compositeKeys = true;
+			} else if ("-lobs".equals(arg)) {
+				lobs = true;
+			} else if ("-lob-size".equals(arg)) {
+				lobSize = Integer.parseInt(args[++i]);
+			} else if ("-subject-fraction".equals(arg)) {
+				subjectFraction = Double.parseDouble(args[++i]);
+			}
+		}
+		if (tables < 1 || branching < 1 || fanOut < 1) {
+			throw new IllegalArgumentException("tables, branching and fan-out must be positive");
+		}
+	}
+
+	/**
+	 * Sets the total number of rows.
+	 */
+	public void setRows(long rows) {
+		this.rows = rows;
+		this.rowsPerTable = null;
+	}
+
+	/**
+	 * Gets the number of tables.
+	 */
+	public int getTables() {
+		return tables;
+	}
+
+	/**
+	 * Describes the shape.
+	 */
+	public String getDescription() {
+		return "tables=" + tables + " branching=" + branching + " fan-out=" + fanOut
+				+ (cycles? " cycles" : "") + (selfReferences? " self-references" : "") + (compositeKeys? " composite-keys" : "")
+				+ (lobs? " lobs(" + lobSize + ")" : "");
+	}
+
+	/**
+	 * Gets the name of a table.
+	 */
+	public static String getTableName(int i) {
+		return "T" + i;
+	}
+
+	private int parent(int i) {
+		return (i - 1) / branching;
+	}
+
+	private int depth(int i) {
+		int depth = 0;
+		while (i > 0) {
+			i = parent(i);
+			++depth;
+		}
+		return depth;
+	}
+
+	/**
+	 * Distributes the rows over the tables, the number of rows grows with <code>fanOut</code> per level.
+	 */
+	private long[] getRowsPerTable() {
+		if (rowsPerTable == null) {
+			double[] weight = new double[tables];
+			double sum = 0;
+			for (int i = 0; i < tables; ++i) {
+				weight[i] = Math.pow(fanOut, depth(i));
+				sum += weight[i];
+			}
+			rowsPerTable = new long[tables];
+			for (int i = 0; i < tables; ++i) {
+				rowsPerTable[i] = Math.max(1, Math.round(rows * weight[i] / sum));
+			}
+		}
+		return rowsPerTable;
+	}
+
+	/**
+	 * Gets the total number of generated rows.
+	 */
+	public long getTotalRows() {
+		long total = 0;
+		for (long r: getRowsPerTable()) {
+			total += r;
+		}
+		return total;
+	}
+
+	private String keyColumns(String prefix) {
+		return prefix + "ID" + (compositeKeys? ", " + prefix + "TENANT" : "");
+	}
+
+	private String joinCondition(String prefix) {
+		return "A." + prefix + "ID=B.ID" + (compositeKeys? " and A." + prefix + "TENANT=B.TENANT" : "");
+	}
+
+	/**
+	 * Tenant of the row with a given ID.
+	 */
+	private static String tenant(String id) {
+		return "MOD(" + id + ", 7)";
+	}
+
+	/**
+	 * Creates and fills the tables.
+	 *
+	 * @param session session of the H2 database
+	 */
+	public void createDatabase(Session session) throws SQLException {
+		long[] rowCount = getRowsPerTable();
+		for (int i = 0; i < tables; ++i) {
+			String table = getTableName(i);
+			session.executeUpdate("DROP TABLE IF EXISTS " + table);
+			StringBuilder ddl = new StringBuilder("CREATE TABLE " + table + "(ID BIGINT NOT NULL");
+			StringBuilder columns = new StringBuilder("ID");
+			StringBuilder values = new StringBuilder("X");
+			if (compositeKeys) {
+				ddl.append(", TENANT INTEGER NOT NULL");
+				columns.append(", TENANT");
+				values.append(", " + tenant("X"));
+			}
+			if (i > 0) {
+				String parentId = "(X - 1) / " + fanOut + " % " + rowCount[parent(i)] + " + 1";
+				appendReference(ddl, columns, values, "PARENT_", parentId);
+			}
+			if (selfReferences) {
+				appendReference(ddl, columns, values, "SELF_", "CASE WHEN MOD(X, " + CHAIN_LENGTH + ") = 1 THEN NULL ELSE X - 1 END");
+			}
+			if (cycles && i == 0 && tables > 1) {
+				appendReference(ddl, columns, values, "CYCLE_", "(X - 1) % " + rowCount[tables - 1] + " + 1");
+			}
+			ddl.append(", NAME VARCHAR(100), AMOUNT DECIMAL(12, 2), CREATED TIMESTAMP");
+			columns.append(", NAME, AMOUNT, CREATED");
+			values.append(", '" + table + "-' || X, MOD(X, 100000) / 100.0, DATEADD(SECOND, X, TIMESTAMP '2020-01-01 00:00:00')");
+			if (lobs) {
+				ddl.append(", TEXT CLOB, DATA BLOB");
+				columns.append(", TEXT, DATA");
+				values.append(", CAST(X || REPEAT('x', " + lobSize + ") AS CLOB), CAST(STRINGTOUTF8(X || REPEAT('b', " + lobSize + ")) AS BLOB)");
+			}
+			ddl.append(", PRIMARY KEY(" + keyColumns("") + "))");
+			session.executeUpdate(ddl.toString());
+			long startTime = System.currentTimeMillis();
+			session.executeUpdate("INSERT INTO " + table + "(" + columns + ") SELECT " + values + " FROM SYSTEM_RANGE(1, " + rowCount[i] + ")");
+			_log.info(table + ": " + rowCount[i] + " rows, " + (System.currentTimeMillis() - startTime) + " ms");
+		}
+	}
+
+	private void appendReference(StringBuilder ddl, StringBuilder columns, StringBuilder values, String prefix, String id) {
+		ddl.append(", " + prefix + "ID BIGINT");
+		columns.append(", " + prefix + "ID");
+		values.append(", " + id);
+		if (compositeKeys) {
+			ddl.append(", " + prefix + "TENANT INTEGER");
+			columns.append(", " + prefix + "TENANT");
+			values.append(", " + tenant("(" + id + ")"));
+		}
+	}
+
+	/**
+	 * Writes the data model.
+	 *
+	 * @param folder the data model folder
+	 */
+	public void writeDataModel(File folder) throws IOException {
+		folder.mkdirs();
+		String pkType = "ID BIGINT" + (compositeKeys? "; TENANT INTEGER" : "");
+		StringBuilder tableCsv = new StringBuilder("# Name; Upsert; Primary Key; ; Author\n");
+		StringBuilder columnCsv = new StringBuilder("# Table; Columns\n");
+		StringBuilder associationCsv = new StringBuilder("# Table A; Table B; First-insert; Cardinality (opt); Join-condition; Name; Author\n");
+		for (int i = 0; i < tables; ++i) {
+			String table = getTableName(i);
+			tableCsv.append(table + "; N; " + pkType + "; ; Generator; ; \n");
+			columnCsv.append(table + "; " + pkType);
+			if (i > 0) {
+				appendReferenceColumns(columnCsv, "PARENT_");
+				appendAssociation(associationCsv, table, getTableName(parent(i)), "PARENT_");
+			}
+			if (selfReferences) {
+				appendReferenceColumns(columnCsv, "SELF_");
+				appendAssociation(associationCsv, table, table, "SELF_");
+			}
+			if (cycles && i == 0 && tables > 1) {
+				appendReferenceColumns(columnCsv, "CYCLE_");
+				appendAssociation(associationCsv, table, getTableName(tables - 1), "CYCLE_");
+			}
+			columnCsv.append("; NAME VARCHAR(100) null; AMOUNT DECIMAL(12, 2) null; CREATED TIMESTAMP null");
+			if (lobs) {
+				columnCsv.append("; TEXT CLOB null; DATA BLOB null");
+			}
+			columnCsv.append("; ; \n");
+		}
+		write(new File(folder, "table.csv"), tableCsv.toString());
+		write(new File(folder, "column.csv"), columnCsv.toString());
+		write(new File(folder, "association.csv"), associationCsv.toString());
+		write(new File(folder, "modelname.csv"), "# name; last modification\nSynthetic " + getDescription() + "; \n");
+	}
+
+	private void appendReferenceColumns(StringBuilder columnCsv, String prefix) {
+		columnCsv.append("; " + prefix + "ID BIGINT null");
+		if (compositeKeys) {
+			columnCsv.append("; " + prefix + "TENANT INTEGER null");
+		}
+	}
+
+	private void appendAssociation(StringBuilder associationCsv, String tableA, String tableB, String prefix) {
+		associationCsv.append(tableA + "; " + tableB + "; B; n:1; " + joinCondition(prefix) + "; " + tableA + "_" + prefix + "REF; Generator; ; \n");
+	}
+
+	/**
+	 * Writes the extraction model. The subject is a fraction of the rows of the root table.
+	 *
+	 * @param file the extraction model file
+	 */
+	public void writeExtractionModel(File file) throws IOException {
+		long subjectRows = Math.max(1, (long) (getRowsPerTable()[0] * subjectFraction));
+		write(file, "# subject; condition\n" + getTableName(0) + "; " + String.format(Locale.ENGLISH, "T.ID <= %d", subjectRows) + "\n\n"
+				+ "#! block export modus\nSQL\n");
+	}
+
+	private static void write(File file, String content) throws IOException {
+		PrintWriter out = new PrintWriter(new FileOutputStream(file));
+		try {
+			out.print(content);
+		} finally {
+			out.close();
+		}
+	}
+
+}
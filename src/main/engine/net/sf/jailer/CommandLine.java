@@ -163,6 +163,39 @@ public class CommandLine {
 	@Option(name="-local-database-storage", usage="the folder where the local database will be stored. \nDefault temp folder is used if this is not specified.")
 	public String localDatabaseStorage = null;
 
+	@Option(name="-pipelined-collection", usage="resolve associations as soon as the rows they depend on are collected instead of day by day (only effective with more than one thread)")
+	public boolean pipelinedCollection = false;
+
+	@Option(name="-batch-transport", usage="transfer rows from the source database into the local database (-scope LOCAL_DATABASE) with batched prepared statements instead of inline views")
+	public boolean batchTransport = false;
+
+	@Option(name="-import-by-table", usage="import: group the statements between synchronization points by table and execute each group on its own connection in JDBC batches (use with -threads)")
+	public boolean importByTable = false;
+
+	@Option(name="-sort-in-memory", usage="sort rows of tables with cyclic dependencies topologically in memory instead of peeling off independent rows round by round")
+	public boolean sortInMemory = false;
+
+	@Option(name="-use-datamodel-cache", usage="keep a binary snapshot of the parsed data model files in the temp folder and load the model from it as long as the files are unchanged")
+	public boolean useDataModelCache = false;
+
+	@Option(name="-incremental-model-build", usage="build-model: analyze only tables whose catalog state (columns, keys, DDL time) has changed since the last run")
+	public boolean incrementalModelBuild = false;
+
+	@Option(name="-lob-files", usage="write the content of CLOB, BLOB and XML columns into side-car files next to the export-script (in folder '<script>.lobs') instead of embedding it into the script")
+	public boolean lobFiles = false;
+
+	@Option(name="-intra-database-chunk-size", usage="copies the rows of a table within the same database in chunks of the given number of rows, in parallel and with one commit per chunk (0: off)")
+	public int intraDatabaseChunkSize = 0;
+
+	@Option(name="-statistic-renewal-thresholds", usage="renew the DB statistics of a working table in the background whenever the given number of rows have been inserted into it since the last renewal", metaVar="<working-table>=<rows>[','<working-table>=<rows>]*")
+	public String statisticRenewalThresholds = null;
+
+	@Option(name="-max-rows-to-sort-in-memory", usage="maximum number of rows sorted in memory with -sort-in-memory. If there are more rows, they are written round by round (default is 4000000)")
+	public int maxRowsToSortInMemory = 4000000;
+
+	@Option(name="-max-connections", usage="export, delete and import: maximum number of database connections used at the same time. Further threads wait up to 10 seconds for a connection and then share an existing one (0: no limit)")
+	public int maxConnections = 0;
+
 	@Option(name="-", usage="do not interpret the next word as an option, even if it begins with a '-'. E.g. if the username is: \"-abc\", use: \"- -abc\".")
 	public List<String> escapedWords = new ArrayList<String>();
 
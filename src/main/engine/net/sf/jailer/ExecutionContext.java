@@ -93,6 +93,17 @@ public class ExecutionContext {
 		this.upkDomain = other.upkDomain;
 		this.currentConnectionAlias = other.currentConnectionAlias;
 		this.limit = other.limit;
+		this.pipelinedCollection = other.pipelinedCollection;
+		this.batchTransport = other.batchTransport;
+		this.importByTable = other.importByTable;
+		this.sortInMemory = other.sortInMemory;
+		this.useDataModelCache = other.useDataModelCache;
+		this.incrementalModelBuild = other.incrementalModelBuild;
+		this.lobFiles = other.lobFiles;
+		this.intraDatabaseChunkSize = other.intraDatabaseChunkSize;
+		this.statisticRenewalThresholds = other.statisticRenewalThresholds;
+		this.maxRowsToSortInMemory = other.maxRowsToSortInMemory;
+		this.maxConnections = other.maxConnections;
 // don't share progressListenerRegistry, was: this.progressListenerRegistry = other.progressListenerRegistry;
 	}
 
@@ -927,6 +938,39 @@ public class ExecutionContext {
 	// the folder where the local database will be stored. Default temp folder is used if this is not specified.
 	private String localDatabaseStorage = null;
 
+	// if <code>true</code>, associations of the next collection day are resolved as soon as the rows they depend on are collected
+	private boolean pipelinedCollection = false;
+
+	// if <code>true</code>, rows are transferred into the local database with batched prepared statements
+	private boolean batchTransport = false;
+
+	// if <code>true</code>, statements of an imported script are grouped by table and executed in batches
+	private boolean importByTable = false;
+
+	// if <code>true</code>, rows of tables with cyclic dependencies are sorted topologically in memory
+	private boolean sortInMemory = false;
+
+	// if <code>true</code>, data models are loaded from binary snapshots cached in the temp folder
+	private boolean useDataModelCache = false;
+
+	// if <code>true</code>, build-model analyzes only tables whose catalog state has changed since the last run
+	private boolean incrementalModelBuild = false;
+
+	// whether the content of LOBs is written into side-car files next to the export-script
+	private boolean lobFiles = false;
+
+	// number of rows per chunk when copying rows within the same database (0: no chunking)
+	private int intraDatabaseChunkSize = 0;
+
+	// thresholds for the renewal of the DB statistics of the working tables
+	private String statisticRenewalThresholds = null;
+
+	// maximum number of rows to be sorted in memory
+	private int maxRowsToSortInMemory = 4000000;
+
+	// maximum number of database connections used at the same time (0: no limit)
+	private int maxConnections = 0;
+
 	private WorkingTableScope scope = WorkingTableScope.GLOBAL;
 
 	private String rawparameters;
@@ -1026,6 +1070,160 @@ public class ExecutionContext {
 		this.localDatabaseStorage = localDatabaseStorage;
 	}
 
+	/**
+	 * If <code>true</code>, associations of the next collection day are resolved as soon as the rows they depend on are collected.
+	 */
+	public boolean isPipelinedCollection() {
+		return pipelinedCollection;
+	}
+
+	/**
+	 * If <code>true</code>, associations of the next collection day are resolved as soon as the rows they depend on are collected.
+	 */
+	public void setPipelinedCollection(boolean pipelinedCollection) {
+		this.pipelinedCollection = pipelinedCollection;
+	}
+
+	/**
+	 * If <code>true</code>, rows are transferred into the local database with batched prepared statements.
+	 */
+	public boolean isBatchTransport() {
+		return batchTransport;
+	}
+
+	/**
+	 * If <code>true</code>, rows are transferred into the local database with batched prepared statements.
+	 */
+	public void setBatchTransport(boolean batchTransport) {
+		this.batchTransport = batchTransport;
+	}
+
+	/**
+	 * If <code>true</code>, statements of an imported script are grouped by table and executed in batches.
+	 */
+	public boolean isImportByTable() {
+		return importByTable;
+	}
+
+	/**
+	 * If <code>true</code>, statements of an imported script are grouped by table and executed in batches.
+	 */
+	public void setImportByTable(boolean importByTable) {
+		this.importByTable = importByTable;
+	}
+
+	/**
+	 * If <code>true</code>, rows of tables with cyclic dependencies are sorted topologically in memory.
+	 */
+	public boolean isSortInMemory() {
+		return sortInMemory;
+	}
+
+	/**
+	 * If <code>true</code>, rows of tables with cyclic dependencies are sorted topologically in memory.
+	 */
+	public void setSortInMemory(boolean sortInMemory) {
+		this.sortInMemory = sortInMemory;
+	}
+
+	/**
+	 * If <code>true</code>, data models are loaded from binary snapshots cached in the temp folder.
+	 */
+	public boolean isUseDataModelCache() {
+		return useDataModelCache;
+	}
+
+	/**
+	 * If <code>true</code>, data models are loaded from binary snapshots cached in the temp folder.
+	 */
+	public void setUseDataModelCache(boolean useDataModelCache) {
+		this.useDataModelCache = useDataModelCache;
+	}
+
+	/**
+	 * If <code>true</code>, build-model analyzes only tables whose catalog state has changed since the last run.
+	 */
+	public boolean isIncrementalModelBuild() {
+		return incrementalModelBuild;
+	}
+
+	/**
+	 * If <code>true</code>, build-model analyzes only tables whose catalog state has changed since the last run.
+	 */
+	public void setIncrementalModelBuild(boolean incrementalModelBuild) {
+		this.incrementalModelBuild = incrementalModelBuild;
+	}
+
+	/**
+	 * Whether the content of LOBs is written into side-car files next to the export-script.
+	 */
+	public boolean isLobFiles() {
+		return lobFiles;
+	}
+
+	/**
+	 * Whether the content of LOBs is written into side-car files next to the export-script.
+	 */
+	public void setLobFiles(boolean lobFiles) {
+		this.lobFiles = lobFiles;
+	}
+
+	/**
+	 * Number of rows per chunk when copying rows within the same database (0: no chunking).
+	 */
+	public int getIntraDatabaseChunkSize() {
+		return intraDatabaseChunkSize;
+	}
+
+	/**
+	 * Number of rows per chunk when copying rows within the same database (0: no chunking).
+	 */
+	public void setIntraDatabaseChunkSize(int intraDatabaseChunkSize) {
+		this.intraDatabaseChunkSize = intraDatabaseChunkSize;
+	}
+
+	/**
+	 * Thresholds for the renewal of the DB statistics of the working tables.
+	 */
+	public String getStatisticRenewalThresholds() {
+		return statisticRenewalThresholds;
+	}
+
+	/**
+	 * Thresholds for the renewal of the DB statistics of the working tables.
+	 */
+	public void setStatisticRenewalThresholds(String statisticRenewalThresholds) {
+		this.statisticRenewalThresholds = statisticRenewalThresholds;
+	}
+
+	/**
+	 * Gets the maximum number of rows to be sorted in memory (see {@link #isSortInMemory()}). Larger sets are written round by round.
+	 */
+	public int getMaxRowsToSortInMemory() {
+		return maxRowsToSortInMemory;
+	}
+
+	/**
+	 * Sets the maximum number of rows to be sorted in memory (see {@link #isSortInMemory()}). Larger sets are written round by round.
+	 */
+	public void setMaxRowsToSortInMemory(int maxRowsToSortInMemory) {
+		this.maxRowsToSortInMemory = maxRowsToSortInMemory;
+	}
+
+	/**
+	 * Gets the maximum number of database connections used at the same time (0: no limit).
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Sets the maximum number of database connections used at the same time (0: no limit).
+	 */
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = maxConnections;
+	}
+
 	private void copyCommandLineFields(CommandLine commandLine) {
 		uTF8 = commandLine.uTF8;
 		format = commandLine.format;
@@ -1075,6 +1273,17 @@ public class ExecutionContext {
 			}
 		}
 		localDatabaseStorage = commandLine.localDatabaseStorage;
+		maxConnections = commandLine.maxConnections;
+		maxRowsToSortInMemory = commandLine.maxRowsToSortInMemory;
+		statisticRenewalThresholds = commandLine.statisticRenewalThresholds;
+		intraDatabaseChunkSize = commandLine.intraDatabaseChunkSize;
+		lobFiles = commandLine.lobFiles;
+		incrementalModelBuild = commandLine.incrementalModelBuild;
+		useDataModelCache = commandLine.useDataModelCache;
+		sortInMemory = commandLine.sortInMemory;
+		importByTable = commandLine.importByTable;
+		batchTransport = commandLine.batchTransport;
+		pipelinedCollection = commandLine.pipelinedCollection;
 	}
 
 	private Map<String, String> copy(Map<String, String> map) {
@@ -80,6 +80,12 @@ public class Jailer {
 	 */
 	private static Logger logger;
 
+	/**
+	 * Maximum time (in milliseconds) to wait for a database connection if the number of connections is limited.
+	 * After that, the connection of another thread is shared.
+	 */
+	private static final long MAX_CONNECTION_WAIT_TIME = 10000;
+
 	/**
 	 * Gets the logger.
 	 */
@@ -203,15 +209,17 @@ public class Jailer {
 				} else {
 					BasicDataSource dataSource = new BasicDataSource(commandLine.arguments.get(2), commandLine.arguments.get(3), commandLine.arguments.get(4),
 							pw = commandLine.arguments.get(5), 0, jdbcJarURLs);
+					dataSource.setMaxActiveConnections(commandLine.maxConnections, MAX_CONNECTION_WAIT_TIME);
 					Session session = new Session(dataSource, dataSource.dbms, commandLine.isolationLevel, null, commandLine.transactional);
 					try {
-						new SqlScriptExecutor(session, commandLine.numberOfThreads, false).executeScript(commandLine.arguments.get(1), commandLine.transactional);
+						new SqlScriptExecutor(session, commandLine.numberOfThreads, false, commandLine.importByTable).executeScript(commandLine.arguments.get(1), commandLine.transactional);
 					} finally {
 						try {
 							session.shutDown();
 						} catch (Exception e) {
 							// ignore
 						}
+						getLogger().info("connections: " + dataSource.getPoolStatistics());
 					}
 				}
 			} else if ("export".equalsIgnoreCase(command)) {
@@ -232,9 +240,11 @@ public class Jailer {
 
 						BasicDataSource dataSource = new BasicDataSource(commandLine.arguments.get(2), commandLine.arguments.get(3),
 								commandLine.arguments.get(4), commandLine.arguments.get(5), 0, jdbcJarURLs);
+						dataSource.setMaxActiveConnections(executionContext.getMaxConnections(), MAX_CONNECTION_WAIT_TIME);
 						URL modelURL = new File(commandLine.arguments.get(1)).toURI().toURL();
 						new SubsettingEngine(executionContext).export(commandLine.where, modelURL, commandLine.exportScriptFileName, commandLine.deleteScriptFileName,
 								dataSource, dataSource.dbms, executionContext.getScriptFormat(), 0);
+						getLogger().info("connections: " + dataSource.getPoolStatistics());
 					}
 				}
 			} else if ("delete".equalsIgnoreCase(command)) {
@@ -250,6 +260,7 @@ public class Jailer {
 						updateDataModelFolder(commandLine, commandLine.arguments.get(1), executionContext);
 						BasicDataSource dataSource = new BasicDataSource(commandLine.arguments.get(2), commandLine.arguments.get(3),
 								commandLine.arguments.get(4), commandLine.arguments.get(5), 0, jdbcJarURLs);
+						dataSource.setMaxActiveConnections(executionContext.getMaxConnections(), MAX_CONNECTION_WAIT_TIME);
 						// note we are passing null for script format and the export script name, as we are using the export tool
 						// to generate the delete script only.
 						if (!commandLine.independentWorkingTables) {
@@ -258,6 +269,7 @@ public class Jailer {
 						URL modelURL = new File(commandLine.arguments.get(1)).toURI().toURL();
 						new SubsettingEngine(executionContext).export(commandLine.where, modelURL, /* clp.exportScriptFileName*/ null, commandLine.deleteScriptFileName,
 								dataSource, dataSource.dbms, /*scriptFormat*/ null, 0);
+						getLogger().info("connections: " + dataSource.getPoolStatistics());
 					}
 				}
 			} else if ("print-closure".equalsIgnoreCase(command)) {
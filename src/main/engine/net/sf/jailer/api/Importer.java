@@ -54,7 +54,7 @@ public class Importer {
 	 */
 	public void execute(File inputScript) throws IOException, SQLException {
 		Session session = new Session(getDataSource(), null, isolationLevel, null, getTransactional());
-		new SqlScriptExecutor(session, getNumberOfThreads(), false).executeScript(inputScript.getPath(), getTransactional());
+		new SqlScriptExecutor(session, getNumberOfThreads(), false, getImportByTable()).executeScript(inputScript.getPath(), getTransactional());
 	}
 	
 	/**
@@ -113,6 +113,26 @@ public class Importer {
 		this.transactional = transactional;
 	}
 
+	/**
+	 * If <code>true</code>, statements are grouped by table and executed in batches, each batch on its own connection. (default is false)
+	 *
+	 * @return <code>true</code> if statements are grouped by table
+	 */
+	public boolean getImportByTable() {
+		return importByTable;
+	}
+
+	/**
+	 * If <code>true</code>, statements are grouped by table and executed in batches, each batch on its own connection. (default is false)
+	 * Requires more than one thread.
+	 *
+	 * @param importByTable
+	 *            <code>true</code> if statements are grouped by table
+	 */
+	public void setImportByTable(boolean importByTable) {
+		this.importByTable = importByTable;
+	}
+
 	/**
 	 * Gets IsolationLevel.
 	 * 
@@ -134,6 +154,7 @@ public class Importer {
 	private DataSource dataSource;
 	private int numberOfThreads = 1;
 	private boolean transactional = true;
+	private boolean importByTable = false;
 	private Integer isolationLevel;
 
 }
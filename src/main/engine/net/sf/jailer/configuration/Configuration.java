@@ -45,6 +45,10 @@ import net.sf.jailer.render.HtmlDataModelRenderer;
 	"additionalSQLKeywords",
 	"urlRewriteRule",
 	"databaseConnectionInteractiveTimeout",
+	"metaDataCacheTimeToLive",
+	"primaryKeyValidationSamplingMinRows",
+	"primaryKeyValidationSamplingBuckets",
+	"primaryKeyValidationResultCacheFile",
 	"generateUpsertStatementsWithoutNulls"
 })
 @JsonIgnoreProperties({
@@ -53,7 +57,11 @@ import net.sf.jailer.render.HtmlDataModelRenderer;
 	"commentRenderer",
 	"commentAdditionalSQLKeywords",
 	"commentDatabaseConnectionInteractiveTimeout",
-	"commentColumnsPerIFMTable"
+	"commentColumnsPerIFMTable",
+	"commentValuesPerIFMColumn",
+	"commentMetaDataCacheTimeToLive",
+	"commentPrimaryKeyValidationSampling",
+	"commentPrimaryKeyValidationResultCacheFile"
 })
 public class Configuration {
 	
@@ -167,11 +175,36 @@ public class Configuration {
 
 	private int columnsPerIFMTable = 8;
 
+	/**
+	 * Maximum number of values per import-filter-mapping column which are remembered in order to avoid inserting duplicates.
+	 */
+	private int valuesPerIFMColumn = 100000;
+
 	/**
 	 * Time in seconds waiting for an idle database connection to be tested if it is still valid.
 	 */
 	private int databaseConnectionInteractiveTimeout = 240;
 
+	/**
+	 * Time in seconds a meta data cache can be shared with other sessions to the same database and user.
+	 */
+	private int metaDataCacheTimeToLive = 600;
+
+	/**
+	 * Tables having at least this number of rows are checked approximately by the primary key validation.
+	 */
+	private long primaryKeyValidationSamplingMinRows = 10000000;
+
+	/**
+	 * The primary key validation checks one of this number of buckets of huge tables (1 to check all rows).
+	 */
+	private int primaryKeyValidationSamplingBuckets = 1;
+
+	/**
+	 * File in which the primary key validation remembers the valid tables, <code>null</code> to check all tables.
+	 */
+	private String primaryKeyValidationResultCacheFile = null;
+
 	private String additionalSQLKeywords;
 
 	public String getAdditionalSQLKeywords() {
@@ -212,6 +245,66 @@ public class Configuration {
 		this.databaseConnectionInteractiveTimeout = databaseConnectionInteractiveTimeout;
 	}
 
+	/**
+	 * Gets time in seconds a meta data cache can be shared with other sessions to the same database and user.
+	 * Sharing is disabled if it's not positive.
+	 */
+	public int getMetaDataCacheTimeToLive() {
+		return metaDataCacheTimeToLive;
+	}
+
+	/**
+	 * Sets time in seconds a meta data cache can be shared with other sessions to the same database and user.
+	 */
+	public void setMetaDataCacheTimeToLive(int metaDataCacheTimeToLive) {
+		this.metaDataCacheTimeToLive = metaDataCacheTimeToLive;
+	}
+
+	/**
+	 * Gets the number of rows from which on tables are checked approximately by the primary key validation.
+	 */
+	public long getPrimaryKeyValidationSamplingMinRows() {
+		return primaryKeyValidationSamplingMinRows;
+	}
+
+	/**
+	 * Sets the number of rows from which on tables are checked approximately by the primary key validation.
+	 */
+	public void setPrimaryKeyValidationSamplingMinRows(long primaryKeyValidationSamplingMinRows) {
+		this.primaryKeyValidationSamplingMinRows = primaryKeyValidationSamplingMinRows;
+	}
+
+	/**
+	 * Gets the number of buckets of which the primary key validation checks one for huge tables.
+	 * Sampling is disabled if it's 1.
+	 */
+	public int getPrimaryKeyValidationSamplingBuckets() {
+		return primaryKeyValidationSamplingBuckets;
+	}
+
+	/**
+	 * Sets the number of buckets of which the primary key validation checks one for huge tables.
+	 */
+	public void setPrimaryKeyValidationSamplingBuckets(int primaryKeyValidationSamplingBuckets) {
+		this.primaryKeyValidationSamplingBuckets = primaryKeyValidationSamplingBuckets;
+	}
+
+	/**
+	 * Gets the file in which the primary key validation remembers the valid tables.
+	 * 
+	 * @return the file name (relative to the working folder) or <code>null</code> if all tables are checked
+	 */
+	public String getPrimaryKeyValidationResultCacheFile() {
+		return primaryKeyValidationResultCacheFile;
+	}
+
+	/**
+	 * Sets the file in which the primary key validation remembers the valid tables.
+	 */
+	public void setPrimaryKeyValidationResultCacheFile(String primaryKeyValidationResultCacheFile) {
+		this.primaryKeyValidationResultCacheFile = primaryKeyValidationResultCacheFile;
+	}
+
 	/**
 	 * The configuration.
 	 */
@@ -334,6 +427,22 @@ public class Configuration {
 		this.columnsPerIFMTable = columnsPerIFMTable;
 	}
 
+	/**
+	 * Gets the maximum number of values per import-filter-mapping column which are remembered in order to avoid
+	 * inserting duplicates into the local mapping tables. Values which are no longer remembered can be inserted again.
+	 * Such duplicates only take space in the local database, they are removed when the mapping tables are written out.
+	 */
+	public int getValuesPerIFMColumn() {
+		return valuesPerIFMColumn;
+	}
+
+	/**
+	 * Sets the maximum number of values per import-filter-mapping column which are remembered in order to avoid inserting duplicates.
+	 */
+	public void setValuesPerIFMColumn(int valuesPerIFMColumn) {
+		this.valuesPerIFMColumn = valuesPerIFMColumn;
+	}
+
 	/**
 	 * @return generate upsert statements without nulls?
 	 */
@@ -293,6 +293,8 @@ public class DBMS {
 	private String virtualColumnsQuery = null;
 	private String identityColumnsQuery = null;
 	private String partitionsQuery = null;
+	private String lastDDLTimeQuery = null;
+	private String tableModificationQuery = null;
 	private String synonymTableQuery;
 	private String viewTextOrDDLQuery = "SELECT VIEW_DEFINITION FROM INFORMATION_SCHEMA.VIEWS WHERE TABLE_SCHEMA = '%1$s' and TABLE_NAME = '%2$s'";
 	private String estimatedRowCountQuery = null;
@@ -314,6 +316,8 @@ public class DBMS {
 	private String defaultSchemaQuery;
 
 	private Integer fetchSize = null;
+	private Integer inlineViewMaxRows = null;
+	private Integer inlineViewMaxLength = null;
 
 	private List<DatabaseObjectRenderingDescription> objectRenderers = new ArrayList<DatabaseObjectRenderingDescription>();
 	private boolean procedureDetailNeedsSpecificName = false;
@@ -990,6 +994,29 @@ public class DBMS {
 		this.partitionsQuery = partitionsQuery;
 	}
 
+	/**
+	 * Query returning the name and the time of the last DDL statement of each table of the schema '${SCHEMA}'.
+	 */
+	public String getLastDDLTimeQuery() {
+		return lastDDLTimeQuery;
+	}
+
+	public void setLastDDLTimeQuery(String lastDDLTimeQuery) {
+		this.lastDDLTimeQuery = lastDDLTimeQuery;
+	}
+
+	/**
+	 * Query returning the name and a modification marker of each table of the schema '${SCHEMA}'.
+	 * The marker changes when rows of the table are inserted, updated or deleted.
+	 */
+	public String getTableModificationQuery() {
+		return tableModificationQuery;
+	}
+
+	public void setTableModificationQuery(String tableModificationQuery) {
+		this.tableModificationQuery = tableModificationQuery;
+	}
+
 	private String identityColumnInsertClause;
 
 	public String getIdentityColumnInsertClause() {
@@ -1327,6 +1354,42 @@ public class DBMS {
 		this.fetchSize = fetchSize;
 	}
 
+	/**
+	 * Gets maximum number of rows per inline-view.
+	 *
+	 * @return maximum number of rows per inline-view, <code>null</code> for default
+	 */
+	public Integer getInlineViewMaxRows() {
+		return inlineViewMaxRows;
+	}
+
+	/**
+	 * Sets maximum number of rows per inline-view.
+	 *
+	 * @param inlineViewMaxRows maximum number of rows per inline-view, <code>null</code> for default
+	 */
+	public void setInlineViewMaxRows(Integer inlineViewMaxRows) {
+		this.inlineViewMaxRows = inlineViewMaxRows;
+	}
+
+	/**
+	 * Gets maximum length (in characters) of an inline-view.
+	 *
+	 * @return maximum length of an inline-view, <code>null</code> for default
+	 */
+	public Integer getInlineViewMaxLength() {
+		return inlineViewMaxLength;
+	}
+
+	/**
+	 * Sets maximum length (in characters) of an inline-view.
+	 *
+	 * @param inlineViewMaxLength maximum length of an inline-view, <code>null</code> for default
+	 */
+	public void setInlineViewMaxLength(Integer inlineViewMaxLength) {
+		this.inlineViewMaxLength = inlineViewMaxLength;
+	}
+
 	public Map<String, String> getSqlExpressionRule() {
 		return sqlExpressionRule;
 	}
@@ -2,10 +2,6 @@ package net.sf.jailer.database;
 
 import java.io.File;
 import java.io.PrintWriter;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -22,12 +18,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import javax.sql.DataSource;
@@ -41,6 +42,10 @@ import net.sf.jailer.configuration.DBMS;
 
 /**
  * Basic implementation of {@link DataSource}. Uses {@link DriverManager} to create connections.
+ * <br>
+ * Closed connections are kept in a lock-free pool of idle connections (up to <code>maxPoolSize</code>).
+ * Connections that have been idle for a while are validated before they are reused.
+ * The number of active connections can be limited (see {@link #setMaxActiveConnections(int, long)}).
  * 
  * @author Ralf Wisser
  */
@@ -152,15 +157,14 @@ public class BasicDataSource implements DataSource {
 	 * Closes all pooled connections.
 	 */
 	public void close() {
-		synchronized (pool) {
-			for (Connection connection: pool) {
-				try {
-					connection.close();
-				} catch (SQLException e) {
-					// ignore
-				}
+		IdleConnection idle;
+		while ((idle = pool.pollFirst()) != null) {
+			idleConnections.decrementAndGet();
+			try {
+				idle.connection.close();
+			} catch (SQLException e) {
+				// ignore
 			}
-			pool.clear();
 		}
 	}
 	
@@ -302,8 +306,55 @@ public class BasicDataSource implements DataSource {
 		return defaultDBMS;
 	}
 
-	private final List<Connection> pool = Collections.synchronizedList(new LinkedList<Connection>());
-	
+	/**
+	 * A pooled connection that is not in use.
+	 */
+	private static class IdleConnection {
+		final Connection connection;
+		final long idleSince;
+
+		IdleConnection(Connection connection, long idleSince) {
+			this.connection = connection;
+			this.idleSince = idleSince;
+		}
+	}
+
+	/**
+	 * Idle connections. The most recently closed connection is at the head.
+	 */
+	private final ConcurrentLinkedDeque<IdleConnection> pool = new ConcurrentLinkedDeque<IdleConnection>();
+
+	/**
+	 * Connections that have been idle longer than this (in nanoseconds) are validated before they are reused.
+	 */
+	private static final long VALIDATION_IDLE_TIME = TimeUnit.SECONDS.toNanos(30);
+
+	/**
+	 * Timeout (in seconds) for validating a connection.
+	 */
+	private static final int VALIDATION_TIMEOUT = 10;
+
+	/**
+	 * Permits for active connections, <code>null</code> if the number of active connections is not limited.
+	 */
+	private volatile Semaphore activeConnectionPermits;
+	private volatile int maxActiveConnections;
+
+	/**
+	 * Maximum time (in milliseconds) to wait for an active connection to be closed.
+	 */
+	private volatile long maxWaitTime;
+
+	// pool statistics
+	private final long creationTime = System.nanoTime();
+	private final AtomicInteger idleConnections = new AtomicInteger();
+	private final AtomicInteger activeConnections = new AtomicInteger();
+	private final AtomicLong createdConnections = new AtomicLong();
+	private final AtomicLong borrowedConnections = new AtomicLong();
+	private final AtomicLong totalBorrowTime = new AtomicLong();
+	private final AtomicLong invalidatedConnections = new AtomicLong();
+	private final AtomicLong waitTimeouts = new AtomicLong();
+
 	public static boolean findDBMSNeedsConnection(String dbUrl) {
 		if (perUrl.containsKey(dbUrl)) {
 			return false;
@@ -333,92 +384,269 @@ public class BasicDataSource implements DataSource {
 	}
 
 	/**
-	 * Creates a new connection.
+	 * Gets a connection.
 	 * 
 	 * @param theDbms the DBMS to use
-	 * @return new connection
+	 * @param usePool whether to reuse an idle connection
+	 * @return connection
 	 */
 	private Connection getConnection(DBMS theDbms, boolean usePool) throws SQLException {
+		long startTime = System.nanoTime();
+		Semaphore permits = activeConnectionPermits;
+		if (permits != null) {
+			acquirePermit(permits);
+		}
 		Connection con = null;
-
-		if (usePool) {
-			synchronized (pool) {
-				if (pool.size() > 0) {
-					con = pool.remove(0);
-				}
+		try {
+			if (usePool) {
+				con = pollIdleConnection();
+			}
+			if (con == null) {
+				con = createConnection(theDbms);
+			}
+		} finally {
+			if (con == null && permits != null) {
+				permits.release();
 			}
 		}
+		borrowedConnections.incrementAndGet();
+		totalBorrowTime.addAndGet(System.nanoTime() - startTime);
+
+		if (maxPoolSize == 0 && permits == null) {
+			return con;
+		}
+		activeConnections.incrementAndGet();
+		return new PooledConnection(con, this, permits);
+	}
 
+	/**
+	 * Creates a new physical connection.
+	 * 
+	 * @param theDbms the DBMS to use
+	 * @return new connection
+	 */
+	private Connection createConnection(DBMS theDbms) throws SQLException {
+		Connection con = null;
 		Map<String, String> jdbcProperties = theDbms.getJdbcProperties();
-		if (con == null) {
-			java.util.Properties info = new java.util.Properties();
-			if (dbUser != null) {
-				info.put("user", dbUser);
+		java.util.Properties info = new java.util.Properties();
+		if (dbUser != null) {
+			info.put("user", dbUser);
+		}
+		if (dbPassword != null) {
+			info.put("password", dbPassword);
+		}
+		if (jdbcProperties != null) {
+			for (Map.Entry<String, String> entry: jdbcProperties.entrySet()) {
+				info.put(entry.getKey(), entry.getValue());
 			}
-			if (dbPassword != null) {
-				info.put("password", dbPassword);
+		}
+		try {
+			if (currentDriver != null) {
+				con = currentDriver.connect(dbUrl, info);
 			}
-			if (jdbcProperties != null) {
-				for (Map.Entry<String, String> entry: jdbcProperties.entrySet()) {
-					info.put(entry.getKey(), entry.getValue());
-				}
+		} catch (SQLException e) {
+			boolean acceptsURL = true;
+			try {
+				acceptsURL = currentDriver.acceptsURL(dbUrl);
+			} catch (SQLException e2) {
+				// fall back
+			}
+			if (acceptsURL) {
+				throw e;
 			}
+		}
+		if (con == null) {
+			con = DriverManager.getConnection(dbUrl, info);
+		}
+		createdConnections.incrementAndGet();
+		return con;
+	}
+
+	/**
+	 * Waits for a permit for an active connection.
+	 */
+	private void acquirePermit(Semaphore permits) throws SQLException {
+		try {
+			if (!permits.tryAcquire(maxWaitTime, TimeUnit.MILLISECONDS)) {
+				waitTimeouts.incrementAndGet();
+				throw new SQLException("Timeout waiting for a connection (" + maxActiveConnections + " active connections, waited " + maxWaitTime + " ms)");
+			}
+		} catch (InterruptedException e) {
+			throw new SQLException("Interrupted while waiting for a connection", e);
+		}
+	}
+
+	/**
+	 * Takes a connection from the pool of idle connections.
+	 * 
+	 * @return idle connection or <code>null</code> if there is no valid idle connection
+	 */
+	private Connection pollIdleConnection() {
+		IdleConnection idle;
+		while ((idle = pool.pollFirst()) != null) {
+			idleConnections.decrementAndGet();
+			if (System.nanoTime() - idle.idleSince < VALIDATION_IDLE_TIME || isValid(idle.connection)) {
+				return idle.connection;
+			}
+			invalidatedConnections.incrementAndGet();
 			try {
-				if (currentDriver != null) {
-					con = currentDriver.connect(dbUrl, info);
-				}
+				idle.connection.close();
 			} catch (SQLException e) {
-				boolean acceptsURL = true;
-				try {
-					acceptsURL = currentDriver.acceptsURL(dbUrl);
-				} catch (SQLException e2) {
-					// fall back
-				}
-				if (acceptsURL) {
-					throw e;
-				}
-			}
-			if (con == null) {
-				con = DriverManager.getConnection(dbUrl, info);
+				// ignore
 			}
 		}
+		return null;
+	}
 
-		if (maxPoolSize == 0) {
-			return con;
+	private boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT);
+		} catch (SQLException e) {
+			return false;
+		} catch (Throwable t) {
+			// not supported by the driver
+			return true;
 		}
-		
-		final Connection finalCon = con;
-		return (Connection) Proxy.newProxyInstance(con.getClass().getClassLoader(), new Class[] { Connection.class } /* con.getClass().getInterfaces() */, new InvocationHandler() {
-			private volatile boolean valid = true;
-			@Override
-			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-				if ("close".equals(method.getName())) {
-					if (valid && pool.size() < maxPoolSize) {
-						try {
-							finalCon.rollback();
-							pool.add(finalCon);
-							return null;
-						} catch (SQLException e) {
-							// ignore
-						}
-					}
-				}
-				try {
-					return method.invoke(finalCon, args);
-				} catch (InvocationTargetException e) {
-					if (e.getCause() instanceof SQLException) {
-						try {
-							valid = finalCon.isValid(10);
-						} catch (SQLException e2) {
-							valid = false;
-						} catch (Throwable t) {
-							valid = true;
+	}
+
+	/**
+	 * Gives a closed connection back to the pool or closes the physical connection if the pool is full.
+	 * 
+	 * @param pooledConnection the connection
+	 */
+	void release(PooledConnection pooledConnection) throws SQLException {
+		Connection con = pooledConnection.getPhysicalConnection();
+		activeConnections.decrementAndGet();
+		try {
+			if (isReusable(pooledConnection)) {
+				if (idleConnections.incrementAndGet() <= maxPoolSize) {
+					try {
+						if (!con.getAutoCommit()) {
+							con.rollback();
 						}
+						pool.addFirst(new IdleConnection(con, System.nanoTime()));
+						return;
+					} catch (SQLException e) {
+						// ignore
 					}
-					throw e;
 				}
+				idleConnections.decrementAndGet();
 			}
-		});
+			con.close();
+		} finally {
+			if (pooledConnection.permits != null) {
+				pooledConnection.permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a closed connection may be given back to the pool.
+	 * Connections known to be broken are discarded, connections on which an operation has failed are validated.
+	 * 
+	 * @param pooledConnection the connection
+	 */
+	private boolean isReusable(PooledConnection pooledConnection) {
+		if (pooledConnection.isInvalidated() || (pooledConnection.hasFailed() && !isValid(pooledConnection.getPhysicalConnection()))) {
+			invalidatedConnections.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Forgets an aborted connection.
+	 * 
+	 * @param pooledConnection the connection
+	 */
+	void discard(PooledConnection pooledConnection) {
+		activeConnections.decrementAndGet();
+		if (pooledConnection.permits != null) {
+			pooledConnection.permits.release();
+		}
+	}
+
+	/**
+	 * Limits the number of active connections.
+	 * If the limit is reached, {@link #getConnection()} waits until a connection is closed
+	 * and fails with an {@link SQLException} after the given time.
+	 * 
+	 * @param maxActiveConnections maximum number of active connections, <code>0</code> for no limit
+	 * @param maxWaitTime maximum time (in milliseconds) to wait for a connection
+	 */
+	public void setMaxActiveConnections(int maxActiveConnections, long maxWaitTime) {
+		this.maxActiveConnections = maxActiveConnections;
+		this.maxWaitTime = maxWaitTime;
+		this.activeConnectionPermits = maxActiveConnections > 0? new Semaphore(maxActiveConnections) : null;
+	}
+
+	/**
+	 * Gets the number of connections that are in use.
+	 * Only connections that are pooled or limited are counted.
+	 */
+	public int getActiveConnectionCount() {
+		return activeConnections.get();
+	}
+
+	/**
+	 * Gets the number of idle pooled connections.
+	 */
+	public int getIdleConnectionCount() {
+		return Math.max(0, idleConnections.get());
+	}
+
+	/**
+	 * Gets the number of physical connections created so far.
+	 */
+	public long getCreatedConnectionCount() {
+		return createdConnections.get();
+	}
+
+	/**
+	 * Gets the number of physical connections created per second since the data source has been created.
+	 */
+	public double getConnectionCreationRate() {
+		double seconds = (System.nanoTime() - creationTime) / 1e9;
+		return seconds > 0? createdConnections.get() / seconds : 0;
+	}
+
+	/**
+	 * Gets the number of connections handed out so far.
+	 */
+	public long getBorrowedConnectionCount() {
+		return borrowedConnections.get();
+	}
+
+	/**
+	 * Gets the total time (in nanoseconds) spent to hand out connections, including waiting and creating.
+	 */
+	public long getTotalBorrowTime() {
+		return totalBorrowTime.get();
+	}
+
+	/**
+	 * Gets the number of pooled connections that were found to be invalid.
+	 */
+	public long getInvalidatedConnectionCount() {
+		return invalidatedConnections.get();
+	}
+
+	/**
+	 * Gets the number of requests for a connection that failed because of a timeout.
+	 */
+	public long getWaitTimeoutCount() {
+		return waitTimeouts.get();
+	}
+
+	/**
+	 * Gets the pool statistics as human readable text.
+	 */
+	public String getPoolStatistics() {
+		long borrowed = getBorrowedConnectionCount();
+		return "active: " + getActiveConnectionCount() + ", idle: " + getIdleConnectionCount()
+			+ ", created: " + getCreatedConnectionCount() + String.format(Locale.ENGLISH, " (%.2f/s)", getConnectionCreationRate())
+			+ ", borrowed: " + borrowed + String.format(Locale.ENGLISH, " (avg. %.3f ms)", borrowed == 0? 0.0 : getTotalBorrowTime() / 1e6 / borrowed)
+			+ ", invalidated: " + getInvalidatedConnectionCount() + ", timeouts: " + getWaitTimeoutCount();
 	}
 
 	/**
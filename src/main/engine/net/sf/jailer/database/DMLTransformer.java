@@ -16,10 +16,19 @@
 
 package net.sf.jailer.database;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.Writer;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.ResultSet;
@@ -34,6 +43,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -109,9 +119,46 @@ public class DMLTransformer extends AbstractResultSetReader {
 	private String labelCSL;
 
 	/**
-	 * For building compact insert-statements.
+	 * The insert-statement currently being built. Rows are appended directly.
 	 */
-	private final StatementBuilder insertStatementBuilder;
+	private final StringBuilder insertStatement = new StringBuilder();
+
+	/**
+	 * Number of rows in {@link #insertStatement}.
+	 */
+	private int insertStatementRows = 0;
+
+	/**
+	 * Maximum number of rows per insert-statement.
+	 */
+	private final int insertStatementMaxRows;
+
+	/**
+	 * Head, row separator and terminator of insert-statements. Computed when the first row is read.
+	 */
+	private String insertStatementHead;
+	private String insertSeparator;
+	private String insertTerminator;
+
+	/**
+	 * Identity column insert clause, computed when the first row is read.
+	 */
+	private String identityColumnInsertClause;
+
+	/**
+	 * Values of the current row (reused for each row).
+	 */
+	private final StringBuilder valueList = new StringBuilder();
+
+	/**
+	 * Values of the current row followed by the column labels (reused for each row).
+	 */
+	private final StringBuilder namedValues = new StringBuilder();
+
+	/**
+	 * Small LOBs of the current row (reused for each row).
+	 */
+	private final Map<Integer, String> smallLobsPerIndex = new HashMap<Integer, String>();
 
 	/**
 	 * For building compact update-statements.
@@ -193,6 +240,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 		private final DBMS targetDBMSConfiguration;
 		private ImportFilterTransformer importFilterTransformer;
 		private final AtomicReference<Table> identityInsertTable = new AtomicReference<Table>();
+		private File lobFolder;
 
 		/**
 		 * The execution context.
@@ -224,7 +272,18 @@ public class DMLTransformer extends AbstractResultSetReader {
 		 */
 		@Override
 		public ResultSetReader create(Table table) throws SQLException {
-			return new DMLTransformer(table, scriptFileWriter, upsertOnly, maxBodySize, session, targetDBMSConfiguration, importFilterTransformer, identityInsertTable, executionContext);
+			DMLTransformer transformer = new DMLTransformer(table, scriptFileWriter, upsertOnly, maxBodySize, session, targetDBMSConfiguration, importFilterTransformer, identityInsertTable, executionContext);
+			transformer.lobFolder = lobFolder;
+			return transformer;
+		}
+
+		/**
+		 * Sets the folder into which the content of LOBs is written.
+		 *
+		 * @param lobFolder the folder, <code>null</code> to embed the content of LOBs into the script
+		 */
+		public void setLobFolder(File lobFolder) {
+			this.lobFolder = lobFolder;
 		}
 
 		/**
@@ -238,6 +297,16 @@ public class DMLTransformer extends AbstractResultSetReader {
 
 	private final List<Column> selectionClause;
 
+	/**
+	 * Folder into which the content of LOBs is written, <code>null</code> if it is embedded into the script.
+	 */
+	private File lobFolder;
+
+	/**
+	 * Indexes of the non-virtual primary key columns in the result set (0 if not selected).
+	 */
+	private int[] pkColumnIndexes;
+
 	/**
 	 * Constructor.
 	 *
@@ -257,7 +326,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 		this.table = table;
 		this.scriptFileWriter = scriptFileWriter;
 		this.currentDialect = targetDBMSConfiguration.getSqlDialect();
-		this.insertStatementBuilder = new StatementBuilder(currentDialect.isSupportsMultiRowInserts() || DBMS.ORACLE.equals(targetDBMSConfiguration) || DBMS.SQLITE.equals(targetDBMSConfiguration)? maxBodySize : 1);
+		this.insertStatementMaxRows = currentDialect.isSupportsMultiRowInserts() || DBMS.ORACLE.equals(targetDBMSConfiguration) || DBMS.SQLITE.equals(targetDBMSConfiguration)? maxBodySize : 1;
 		this.updateStatementBuilder = new StatementBuilder(maxBodySize);
 		this.quoting = createQuoting(session);
 		this.importFilterTransformer = importFilterTransformer;
@@ -334,12 +403,22 @@ public class DMLTransformer extends AbstractResultSetReader {
 				}
 				labelCSL += columnLabel[i];
 			}
+			identityColumnInsertClause = tableHasIdentityColumn && session.dbms != null && session.dbms.getIdentityColumnInsertClause() != null? session.dbms.getIdentityColumnInsertClause() + " ": "";
+			insertStatementHead = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") " + identityColumnInsertClause;
+			insertTerminator = ";" + PrintUtil.LINE_SEPARATOR;
+			if ((DBMS.DB2_ZOS.equals(targetDBMSConfiguration) || DBMS.ORACLE.equals(targetDBMSConfiguration) || DBMS.SQLITE.equals(targetDBMSConfiguration)) && maxBodySize > 1) {
+				insertSeparator = " Union all ";
+			} else {
+				insertStatementHead += "values ";
+				insertSeparator = ", ";
+			}
 		}
 		try {
-			StringBuffer valueList = new StringBuffer("");
-			StringBuffer namedValues = new StringBuffer("");
+			boolean withNamedValues = table.getUpsert() || upsertOnly || (DBMS.ORACLE.equals(targetDBMSConfiguration) && maxBodySize > 1);
+			valueList.setLength(0);
+			namedValues.setLength(0);
+			smallLobsPerIndex.clear();
 			boolean f = true;
-			Map<Integer, String> smallLobsPerIndex = new HashMap<Integer, String>();
 			CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, targetDBMSConfiguration);
 			for (int i = 1; i <= columnCount; ++i) {
 				Object content = null;
@@ -361,8 +440,10 @@ public class DMLTransformer extends AbstractResultSetReader {
 					}
 				}
 				if (!f) {
-					namedValues.append(", ");
 					valueList.append(", ");
+					if (withNamedValues) {
+						namedValues.append(", ");
+					}
 				}
 				f = false;
 				String cVal = isSmallLob? (String) content :
@@ -371,9 +452,10 @@ public class DMLTransformer extends AbstractResultSetReader {
 					cVal = emptyLobValue[i];
 				}
 				valueList.append(cVal);
-				namedValues.append(cVal + " " + columnLabel[i]);
+				if (withNamedValues) {
+					namedValues.append(cVal).append(' ').append(columnLabel[i]);
+				}
 			}
-			String identityColumnInsertClause = tableHasIdentityColumn && session.dbms != null && session.dbms.getIdentityColumnInsertClause() != null? session.dbms.getIdentityColumnInsertClause() + " ": "";
 			if (table.getUpsert() || upsertOnly) {
 				if (table.getNonVirtualPKColumns(session).isEmpty()) {
 					throw new DataModel.NoPrimaryKeyException(table, "has no " +
@@ -728,39 +810,18 @@ public class DMLTransformer extends AbstractResultSetReader {
 					}
 				}
 			} else {
+				boolean firstRow = appendInsertRow();
 				if (DBMS.DB2_ZOS.equals(targetDBMSConfiguration) && maxBodySize > 1) {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") " + identityColumnInsertClause;
-					String item = PrintUtil.LINE_SEPARATOR + " Select " + valueList + " From sysibm.sysdummy1";
-					if (!insertStatementBuilder.isAppendable(insertSchema)) {
-						writeToScriptFile(insertStatementBuilder.build(), true);
-					}
-					insertStatementBuilder.append(insertSchema, item, " Union all ", ";" + PrintUtil.LINE_SEPARATOR);
+					insertStatement.append(PrintUtil.LINE_SEPARATOR).append(" Select ").append(valueList).append(" From sysibm.sysdummy1");
 				} else if (DBMS.ORACLE.equals(targetDBMSConfiguration) && maxBodySize > 1) {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") " + identityColumnInsertClause;
-					if (!insertStatementBuilder.isAppendable(insertSchema)) {
-						writeToScriptFile(insertStatementBuilder.build(), true);
-					}
-					String item;
-					if (insertStatementBuilder.isEmpty()) {
-						item = PrintUtil.LINE_SEPARATOR + " Select " + namedValues + " From DUAL";
-					} else {
-						item = PrintUtil.LINE_SEPARATOR + " Select " + valueList + " From DUAL";
-					}
-					insertStatementBuilder.append(insertSchema, item, " Union all ", ";" + PrintUtil.LINE_SEPARATOR);
+					insertStatement.append(PrintUtil.LINE_SEPARATOR).append(" Select ").append(firstRow? namedValues : valueList).append(" From DUAL");
 				} else if (DBMS.SQLITE.equals(targetDBMSConfiguration) && maxBodySize > 1) {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") " + identityColumnInsertClause;
-					String item = PrintUtil.LINE_SEPARATOR + " Select " + valueList + " ";
-					if (!insertStatementBuilder.isAppendable(insertSchema)) {
-						writeToScriptFile(insertStatementBuilder.build(), true);
-					}
-					insertStatementBuilder.append(insertSchema, item, " Union all ", ";" + PrintUtil.LINE_SEPARATOR);
+					insertStatement.append(PrintUtil.LINE_SEPARATOR).append(" Select ").append(valueList).append(" ");
 				} else {
-					String insertSchema = "Insert into " + qualifiedTableName(table) + "(" + labelCSL + ") " + identityColumnInsertClause + "values ";
-					String item = (maxBodySize > 1? PrintUtil.LINE_SEPARATOR + " " : "") + "(" + valueList + ")";
-					if (!insertStatementBuilder.isAppendable(insertSchema)) {
-						writeToScriptFile(insertStatementBuilder.build(), true);
+					if (maxBodySize > 1) {
+						insertStatement.append(PrintUtil.LINE_SEPARATOR).append(" ");
 					}
-					insertStatementBuilder.append(insertSchema, item, ", ", ";" + PrintUtil.LINE_SEPARATOR);
+					insertStatement.append("(").append(valueList).append(")");
 				}
 			}
 
@@ -770,6 +831,36 @@ public class DMLTransformer extends AbstractResultSetReader {
 		}
 	}
 
+	/**
+	 * Starts a new row of the current insert-statement.
+	 * Writes the statement into the script first if it is full.
+	 *
+	 * @return <code>true</code> if the row is the first one of the statement
+	 */
+	private boolean appendInsertRow() throws IOException {
+		if (insertStatementRows >= insertStatementMaxRows) {
+			writeInsertStatement();
+		}
+		if (insertStatementRows == 0) {
+			insertStatement.append(insertStatementHead);
+		} else {
+			insertStatement.append(insertSeparator);
+		}
+		return ++insertStatementRows == 1;
+	}
+
+	/**
+	 * Writes the current insert-statement into the script and resets it.
+	 */
+	private void writeInsertStatement() throws IOException {
+		if (insertStatementRows > 0) {
+			insertStatement.append(insertTerminator);
+			writeToScriptFile(insertStatement.toString(), true);
+			insertStatement.setLength(0);
+			insertStatementRows = 0;
+		}
+	}
+
 	/**
 	 * Converts cell content to SQL literals.
 	 *
@@ -854,6 +945,10 @@ public class DMLTransformer extends AbstractResultSetReader {
 	 * @param resultSet export current row
 	 */
 	private void exportLobs(Table table, ResultSet resultSet, Set<Integer> smallLobsIndexes) throws IOException, SQLException {
+		if (lobFolder != null) {
+			exportLobsIntoFiles(table, resultSet, smallLobsIndexes);
+			return;
+		}
 		synchronized (scriptFileWriter) {
 			CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, targetDBMSConfiguration);
 			for (int i = 0; i < lobColumnIndexes.size(); ++i) {
@@ -861,38 +956,13 @@ public class DMLTransformer extends AbstractResultSetReader {
 					continue;
 				}
 				Object lob = cellContentConverter.getObject(resultSet, lobColumnIndexes.get(i));
-				Map<String, String> val = new HashMap<String, String>();
-				for (int j = 1; j <= columnCount; ++j) {
-					if (columnLabel[j] == null) {
-						continue;
-					}
-					Object content = cellContentConverter.getObject(resultSet, j);
-					if (resultSet.wasNull()) {
-						content = null;
-					}
-					String cVal = cellContentConverter.toSql(content);
-					val.put(columnLabel[j], cVal);
-				}
-				boolean f = true;
-				StringBuffer where = new StringBuffer("");
-				if (table.getNonVirtualPKColumns(session).isEmpty()) {
-					throw new DataModel.NoPrimaryKeyException(table, "has no " +
-							(table.primaryKey != null && table.primaryKey.getColumns() != null && !table.primaryKey.getColumns().isEmpty()? "non-virtual " : "") +
-							"primary key. Update statement to import CLOB/BLOB/XML can not be generated.");
-				}
-				for (Column pk: table.getNonVirtualPKColumns(session)) {
-					if (!f) {
-						where.append(" and ");
-					}
-					f = false;
-					where.append(quoting.requote(pk.name) + "=" + val.get(pk.name));
-				}
+				String where = lobRowCondition(table, resultSet, cellContentConverter);
 				if (lob instanceof SQLXML) {
 					numberOfExportedLOBs.incrementAndGet();
 					flush();
 					SQLXML xml = (SQLXML) lob;
 					writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "XML " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + PrintUtil.LINE_SEPARATOR, false);
-					Reader in = xml.getCharacterStream();
+					Reader in = new BufferedReader(xml.getCharacterStream(), LOB_BUFFER_SIZE);
 					int c;
 					StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
 					while ((c = in.read()) != -1) {
@@ -922,7 +992,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 					flush();
 					Clob clob = (Clob) lob;
 					writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "CLOB " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + "" + PrintUtil.LINE_SEPARATOR + "", false);
-					Reader in = clob.getCharacterStream();
+					Reader in = new BufferedReader(clob.getCharacterStream(), LOB_BUFFER_SIZE);
 					int c;
 					StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
 					while ((c = in.read()) != -1) {
@@ -952,7 +1022,7 @@ public class DMLTransformer extends AbstractResultSetReader {
 					flush();
 					Blob blob = (Blob) lob;
 					writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + "BLOB " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + "" + PrintUtil.LINE_SEPARATOR + "", false);
-					InputStream in = blob.getBinaryStream();
+					InputStream in = new BufferedInputStream(blob.getBinaryStream(), LOB_BUFFER_SIZE);
 					int b;
 					StringBuffer line = new StringBuffer(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT);
 					byte[] buffer = new byte[64];
@@ -972,12 +1042,136 @@ public class DMLTransformer extends AbstractResultSetReader {
 		}
 	}
 
+	private static final int LOB_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Creates the condition which identifies the current row in the statements that import its LOBs.
+	 */
+	private String lobRowCondition(Table table, ResultSet resultSet, CellContentConverter cellContentConverter) throws SQLException {
+		List<Column> pkColumns = table.getNonVirtualPKColumns(session);
+		if (pkColumns.isEmpty()) {
+			throw new DataModel.NoPrimaryKeyException(table, "has no " +
+					(table.primaryKey != null && table.primaryKey.getColumns() != null && !table.primaryKey.getColumns().isEmpty()? "non-virtual " : "") +
+					"primary key. Update statement to import CLOB/BLOB/XML can not be generated.");
+		}
+		if (pkColumnIndexes == null) {
+			pkColumnIndexes = new int[pkColumns.size()];
+			for (int k = 0; k < pkColumns.size(); ++k) {
+				for (int j = 1; j <= columnCount; ++j) {
+					if (pkColumns.get(k).name.equals(columnLabel[j])) {
+						pkColumnIndexes[k] = j;
+					}
+				}
+			}
+		}
+		StringBuilder where = new StringBuilder();
+		for (int k = 0; k < pkColumns.size(); ++k) {
+			if (k > 0) {
+				where.append(" and ");
+			}
+			String value = null;
+			if (pkColumnIndexes[k] > 0) {
+				Object content = cellContentConverter.getObject(resultSet, pkColumnIndexes[k]);
+				if (resultSet.wasNull()) {
+					content = null;
+				}
+				value = cellContentConverter.toSql(content);
+			}
+			where.append(quoting.requote(pkColumns.get(k).name) + "=" + value);
+		}
+		return where.toString();
+	}
+
+	/**
+	 * Exports the (c|b)lob content into content-addressed files in the {@link #lobFolder}.
+	 * The content is streamed without holding the lock of the script writer,
+	 * only the reference to the file is written into the script.
+	 *
+	 * @param resultSet export current row
+	 */
+	private void exportLobsIntoFiles(Table table, ResultSet resultSet, Set<Integer> smallLobsIndexes) throws IOException, SQLException {
+		CellContentConverter cellContentConverter = getCellContentConverter(resultSet, session, targetDBMSConfiguration);
+		for (int i = 0; i < lobColumnIndexes.size(); ++i) {
+			if (smallLobsIndexes.contains(lobColumnIndexes.get(i))) {
+				continue;
+			}
+			Object lob = cellContentConverter.getObject(resultSet, lobColumnIndexes.get(i));
+			String type;
+			if (lob instanceof SQLXML) {
+				type = "XML";
+			} else if (lob instanceof Clob) {
+				type = "CLOB";
+			} else if (lob instanceof Blob) {
+				type = "BLOB";
+			} else {
+				// null
+				continue;
+			}
+			long length = 0;
+			lobFolder.mkdirs();
+			File tmpFile = new File(lobFolder, UUID.randomUUID() + ".tmp");
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new RuntimeException(e);
+			}
+			OutputStream out = new DigestOutputStream(new FileOutputStream(tmpFile), digest);
+			boolean written = false;
+			try {
+				if (lob instanceof SQLXML || lob instanceof Clob) {
+					Reader in = lob instanceof SQLXML? ((SQLXML) lob).getCharacterStream() : ((Clob) lob).getCharacterStream();
+					Writer writer = new OutputStreamWriter(out, "UTF-8");
+					char[] buffer = new char[LOB_BUFFER_SIZE];
+					int n;
+					while ((n = in.read(buffer)) > 0) {
+						writer.write(buffer, 0, n);
+						length += n;
+					}
+					in.close();
+					writer.flush();
+				} else {
+					InputStream in = ((Blob) lob).getBinaryStream();
+					byte[] buffer = new byte[LOB_BUFFER_SIZE];
+					int n;
+					while ((n = in.read(buffer)) > 0) {
+						out.write(buffer, 0, n);
+						length += n;
+					}
+					in.close();
+				}
+				written = true;
+			} finally {
+				out.close();
+				if (!written) {
+					tmpFile.delete();
+				}
+			}
+			numberOfExportedLOBs.getAndIncrement();
+			StringBuilder name = new StringBuilder();
+			for (byte b: digest.digest()) {
+				name.append(String.format("%02x", b & 0xff));
+			}
+			name.append("." + type.toLowerCase(Locale.ENGLISH));
+			File lobFile = new File(lobFolder, name.toString());
+			if (lobFile.exists() || !tmpFile.renameTo(lobFile)) {
+				// same content has already been exported
+				tmpFile.delete();
+			}
+			String where = lobRowCondition(table, resultSet, cellContentConverter);
+			synchronized (scriptFileWriter) {
+				flush();
+				writeToScriptFile(SqlScriptExecutor.UNFINISHED_MULTILINE_COMMENT + SqlScriptExecutor.LOB_FILE + " " + type + " " + length + " " + SqlScriptExecutor.quoteLobFileName(lobFolder.getName() + "/" + lobFile.getName()) + ", " + qualifiedTableName(table) + ", " + lobColumns.get(i) + ", " + where + PrintUtil.LINE_SEPARATOR, false);
+			}
+		}
+	}
+
 	/**
 	 * Flushes the export-reader.
 	 */
 	public void flush() {
 		try {
-			writeToScriptFile(insertStatementBuilder.build(), true);
+			writeInsertStatement();
 			writeToScriptFile(updateStatementBuilder.build(), true);
 			for (StatementBuilder sb: upsertInsertStatementBuilder.values()) {
 				writeToScriptFile(sb.build(), true);
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.jailer.configuration.DBMS;
+
+/**
+ * Adaptive number of rows per inline-view (block size).
+ * <br>
+ * Starts with a small block size and doubles it as long as the statements
+ * using the inline-views are processed fast. The size is halved if a statement takes too long.
+ * The block size is limited by the DBMS specific maximum number of rows and
+ * the maximum length of an inline-view.
+ *
+ * @author Ralf Wisser
+ */
+public class InlineViewBlockSize {
+
+	/**
+	 * Initial block size.
+	 */
+	public static final int INITIAL_SIZE = 35;
+
+	/**
+	 * Minimum block size.
+	 */
+	private static final int MIN_SIZE = 10;
+
+	/**
+	 * Default maximum block size.
+	 */
+	private static final int DEFAULT_MAX_ROWS = 1000;
+
+	/**
+	 * Default maximum length of an inline-view in characters.
+	 */
+	private static final int DEFAULT_MAX_LENGTH = 64000;
+
+	/**
+	 * Statements faster than this lead to larger blocks.
+	 */
+	private static final long FAST_STATEMENT = TimeUnit.MILLISECONDS.toNanos(200);
+
+	/**
+	 * Statements slower than this lead to smaller blocks.
+	 */
+	private static final long SLOW_STATEMENT = TimeUnit.MILLISECONDS.toNanos(2000);
+
+	private final int maxRows;
+	private final int maxLength;
+	private int size = INITIAL_SIZE;
+
+	/**
+	 * Number of processed blocks per block size.
+	 */
+	private final Map<Integer, Long> blocksPerSize = new TreeMap<Integer, Long>();
+	private long rows;
+	private long time;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param dbms the DBMS processing the inline-views
+	 */
+	public InlineViewBlockSize(DBMS dbms) {
+		this.maxRows = dbms != null && dbms.getInlineViewMaxRows() != null? Math.max(1, dbms.getInlineViewMaxRows()) : DEFAULT_MAX_ROWS;
+		this.maxLength = dbms != null && dbms.getInlineViewMaxLength() != null? dbms.getInlineViewMaxLength() : DEFAULT_MAX_LENGTH;
+		this.size = Math.min(INITIAL_SIZE, maxRows);
+	}
+
+	/**
+	 * Gets the block size for inline-views processed by a session.
+	 *
+	 * @param session the session
+	 * @return the block size
+	 */
+	public static InlineViewBlockSize forSession(Session session) {
+		synchronized (session) {
+			InlineViewBlockSize blockSize = (InlineViewBlockSize) session.getSessionProperty(InlineViewBlockSize.class, "blockSize");
+			if (blockSize == null) {
+				blockSize = new InlineViewBlockSize(session.dbms);
+				session.setSessionProperty(InlineViewBlockSize.class, "blockSize", blockSize);
+			}
+			return blockSize;
+		}
+	}
+
+	/**
+	 * Gets the current block size.
+	 *
+	 * @return the number of rows per inline-view
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the maximum length of an inline-view in characters.
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Adapts the block size after a block has been processed.
+	 *
+	 * @param blockRows number of rows of the block
+	 * @param length length of the inline-view
+	 * @param elapsedTime time (in nanoseconds) needed to process the block
+	 */
+	public synchronized void blockProcessed(int blockRows, int length, long elapsedTime) {
+		Long blocks = blocksPerSize.get(blockRows);
+		blocksPerSize.put(blockRows, blocks == null? 1 : blocks + 1);
+		rows += blockRows;
+		time += elapsedTime;
+
+		if (blockRows <= 0) {
+			return;
+		}
+		int lengthLimit = (int) Math.max(MIN_SIZE, (long) maxLength * blockRows / Math.max(1, length));
+		if (blockRows >= size && elapsedTime < FAST_STATEMENT) {
+			size = Math.min(size * 2, maxRows);
+		} else if (elapsedTime > SLOW_STATEMENT) {
+			size = Math.max(Math.min(size, blockRows) / 2, MIN_SIZE);
+		}
+		size = Math.max(1, Math.min(Math.min(size, lengthLimit), maxRows));
+	}
+
+	/**
+	 * Whether any block has been processed.
+	 */
+	public synchronized boolean isUsed() {
+		return !blocksPerSize.isEmpty();
+	}
+
+	/**
+	 * Gets the number of processed blocks per block size.
+	 */
+	public synchronized Map<Integer, Long> getBlocksPerSize() {
+		return new TreeMap<Integer, Long>(blocksPerSize);
+	}
+
+	@Override
+	public synchronized String toString() {
+		long blocks = 0;
+		int largest = 0;
+		for (Map.Entry<Integer, Long> e: blocksPerSize.entrySet()) {
+			blocks += e.getValue();
+			largest = Math.max(largest, e.getKey());
+		}
+		return blocks + " blocks, " + rows + " rows, " + (blocks == 0? 0 : rows / blocks) + " rows per block (max " + largest + ", current " + size + "), "
+				+ TimeUnit.NANOSECONDS.toMillis(time) + " ms";
+	}
+
+}
@@ -37,7 +37,15 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 
 	public static final String DEFAULT_NAME = "JAILER_IV";
 
-	private static final int MAX_SIZE = 35;
+	/**
+	 * The number of rows per inline-view.
+	 */
+	private final InlineViewBlockSize blockSize;
+
+	/**
+	 * Length of the current inline-view.
+	 */
+	private int length = 0;
 
 	/**
 	 * The name of the Inline-View.
@@ -69,7 +77,8 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 		this.style = style;
 		this.session = session;
 		this.columnNames = columnNames;
-		statementBuilder = new StatementBuilder(MAX_SIZE);
+		blockSize = InlineViewBlockSize.forSession(session);
+		statementBuilder = new StatementBuilder(blockSize.getSize());
 	}
 
 	/**
@@ -95,18 +104,20 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 		}
 		
 		String head = style.head(columnNames);
+		String item = style.item(values, columnNames, statementBuilder.size());
 		
-		if (!statementBuilder.isAppendable(head)) {
+		if (!statementBuilder.isAppendable(head) || (!statementBuilder.isEmpty() && length + item.length() > blockSize.getMaxLength())) {
 			boolean wasLogging = session.getLogStatements();
 			try {
 				session.setLogStatements(false);
-				process(statementBuilder.build());
+				processBlock();
 			} finally {
 				session.setLogStatements(wasLogging);
 			}
+			item = style.item(values, columnNames, statementBuilder.size());
 		}
 
-		String item = style.item(values, columnNames, statementBuilder.size());
+		length += item.length();
 		statementBuilder.append(
 				head,
 				item,
@@ -120,10 +131,23 @@ public abstract class InlineViewBuilder implements Session.ResultSetReader {
 		return cellContentConverter.toSql(cellContentConverter.getObject(resultSet, i));
 	}
 
+	/**
+	 * Processes the current inline-view and adapts the block size.
+	 */
+	private void processBlock() throws SQLException {
+		int rows = statementBuilder.size();
+		String inlineView = statementBuilder.build();
+		length = 0;
+		long startTime = System.nanoTime();
+		process(inlineView);
+		blockSize.blockProcessed(rows, inlineView.length(), System.nanoTime() - startTime);
+		statementBuilder.setMaxBodySize(blockSize.getSize());
+	}
+
 	@Override
 	public void close() throws SQLException {
 		if (!statementBuilder.isEmpty()) {
-			process(statementBuilder.build());
+			processBlock();
 		}
 	}
 
@@ -0,0 +1,618 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection handed out by a {@link BasicDataSource}.
+ * Delegates to the physical connection and gives it back to the data source on {@link #close()}.
+ * Statements are wrapped so that {@link Statement#getConnection()} returns this connection.
+ *
+ * @author Ralf Wisser
+ */
+class PooledConnection implements Connection {
+
+	/**
+	 * The physical connection.
+	 */
+	private final Connection connection;
+
+	/**
+	 * The data source.
+	 */
+	private final BasicDataSource dataSource;
+
+	/**
+	 * Permit for this connection, <code>null</code> if number of active connections is not limited.
+	 */
+	final Semaphore permits;
+
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	/**
+	 * Whether an operation on the connection has failed.
+	 */
+	private volatile boolean failed = false;
+
+	/**
+	 * Whether the connection is known to be broken.
+	 */
+	private volatile boolean invalidated = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param connection the physical connection
+	 * @param dataSource the data source
+	 * @param permits permit for this connection or <code>null</code>
+	 */
+	PooledConnection(Connection connection, BasicDataSource dataSource, Semaphore permits) {
+		this.connection = connection;
+		this.dataSource = dataSource;
+		this.permits = permits;
+	}
+
+	/**
+	 * Gets the physical connection.
+	 */
+	Connection getPhysicalConnection() {
+		return connection;
+	}
+
+	/**
+	 * Prevents a connection from being given back to the pool when it is closed.
+	 *
+	 * @param connection the connection
+	 */
+	static void invalidate(Connection connection) {
+		if (connection instanceof PooledConnection) {
+			((PooledConnection) connection).invalidated = true;
+		}
+	}
+
+	/**
+	 * Whether an operation on the connection has failed.
+	 */
+	boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * Whether the connection is known to be broken.
+	 */
+	boolean isInvalidated() {
+		return invalidated;
+	}
+
+	/**
+	 * Remembers that an operation on the connection has failed.
+	 *
+	 * @param e the failure
+	 * @return the failure
+	 */
+	SQLException failed(SQLException e) {
+		if (!closed.get()) {
+			failed = true;
+		}
+		return e;
+	}
+
+	private Connection con() throws SQLException {
+		if (closed.get()) {
+			throw new SQLException("Connection is closed");
+		}
+		return connection;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (closed.compareAndSet(false, true)) {
+			dataSource.release(this);
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed.get() || connection.isClosed();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return con().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || con().isWrapperFor(iface);
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		try {
+			return new PooledStatement(con().createStatement(), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		try {
+			return new PooledPreparedStatement(con().prepareStatement(sql), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException {
+		try {
+			return new PooledCallableStatement(con().prepareCall(sql), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public String nativeSQL(String sql) throws SQLException {
+		try {
+			return con().nativeSQL(sql);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		try {
+			con().setAutoCommit(autoCommit);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		try {
+			return con().getAutoCommit();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		try {
+			con().commit();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		try {
+			con().rollback();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException {
+		try {
+			return con().getMetaData();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		try {
+			con().setReadOnly(readOnly);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		try {
+			return con().isReadOnly();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setCatalog(String catalog) throws SQLException {
+		try {
+			con().setCatalog(catalog);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public String getCatalog() throws SQLException {
+		try {
+			return con().getCatalog();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException {
+		try {
+			con().setTransactionIsolation(level);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		try {
+			return con().getTransactionIsolation();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		try {
+			return con().getWarnings();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		try {
+			con().clearWarnings();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+		try {
+			return new PooledStatement(con().createStatement(resultSetType, resultSetConcurrency), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		try {
+			return new PooledPreparedStatement(con().prepareStatement(sql, resultSetType, resultSetConcurrency), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+		try {
+			return new PooledCallableStatement(con().prepareCall(sql, resultSetType, resultSetConcurrency), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException {
+		try {
+			return con().getTypeMap();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+		try {
+			con().setTypeMap(map);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setHoldability(int holdability) throws SQLException {
+		try {
+			con().setHoldability(holdability);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		try {
+			return con().getHoldability();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		try {
+			return con().setSavepoint();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException {
+		try {
+			return con().setSavepoint(name);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException {
+		try {
+			con().rollback(savepoint);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		try {
+			con().releaseSavepoint(savepoint);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		try {
+			return new PooledStatement(con().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		try {
+			return new PooledPreparedStatement(con().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		try {
+			return new PooledCallableStatement(con().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return new PooledPreparedStatement(con().prepareStatement(sql, autoGeneratedKeys), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return new PooledPreparedStatement(con().prepareStatement(sql, columnIndexes), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+		try {
+			return new PooledPreparedStatement(con().prepareStatement(sql, columnNames), this);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Clob createClob() throws SQLException {
+		try {
+			return con().createClob();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException {
+		try {
+			return con().createBlob();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException {
+		try {
+			return con().createNClob();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException {
+		try {
+			return con().createSQLXML();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException {
+		if (closed.get()) {
+			return false;
+		}
+		boolean valid;
+		try {
+			valid = connection.isValid(timeout);
+		} catch (SQLException e) {
+			invalidated = true;
+			throw e;
+		}
+		if (!valid) {
+			invalidated = true;
+		}
+		return valid;
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) throws SQLClientInfoException {
+		connection.setClientInfo(name, value);
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) throws SQLClientInfoException {
+		connection.setClientInfo(properties);
+	}
+
+	@Override
+	public String getClientInfo(String name) throws SQLException {
+		try {
+			return con().getClientInfo(name);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Properties getClientInfo() throws SQLException {
+		try {
+			return con().getClientInfo();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+		try {
+			return con().createArrayOf(typeName, elements);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+		try {
+			return con().createStruct(typeName, attributes);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void setSchema(String schema) throws SQLException {
+		try {
+			con().setSchema(schema);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public String getSchema() throws SQLException {
+		try {
+			return con().getSchema();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public void abort(Executor executor) throws SQLException {
+		if (closed.compareAndSet(false, true)) {
+			try {
+				connection.abort(executor);
+			} finally {
+				dataSource.discard(this);
+			}
+		}
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+		try {
+			con().setNetworkTimeout(executor, milliseconds);
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException {
+		try {
+			return con().getNetworkTimeout();
+		} catch (SQLException e) {
+			throw failed(e);
+		}
+	}
+
+}
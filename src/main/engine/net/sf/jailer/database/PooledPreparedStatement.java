@@ -0,0 +1,370 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * Prepared statement created by a {@link PooledConnection} (see {@link PooledStatement}).
+ *
+ * @author Ralf Wisser
+ */
+class PooledPreparedStatement extends PooledStatement implements PreparedStatement {
+
+	/**
+	 * The statement of the physical connection.
+	 */
+	private final PreparedStatement preparedStatement;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param preparedStatement the statement of the physical connection
+	 * @param connection the connection that created the statement
+	 */
+	PooledPreparedStatement(PreparedStatement preparedStatement, PooledConnection connection) {
+		super(preparedStatement, connection);
+		this.preparedStatement = preparedStatement;
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		try {
+			return preparedStatement.executeQuery();
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		try {
+			return preparedStatement.executeUpdate();
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		preparedStatement.setNull(parameterIndex, sqlType);
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		preparedStatement.setBoolean(parameterIndex, x);
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		preparedStatement.setByte(parameterIndex, x);
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		preparedStatement.setShort(parameterIndex, x);
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		preparedStatement.setInt(parameterIndex, x);
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		preparedStatement.setLong(parameterIndex, x);
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		preparedStatement.setFloat(parameterIndex, x);
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		preparedStatement.setDouble(parameterIndex, x);
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		preparedStatement.setBigDecimal(parameterIndex, x);
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		preparedStatement.setString(parameterIndex, x);
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		preparedStatement.setBytes(parameterIndex, x);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, java.sql.Date x) throws SQLException {
+		preparedStatement.setDate(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, java.sql.Time x) throws SQLException {
+		preparedStatement.setTime(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, java.sql.Timestamp x) throws SQLException {
+		preparedStatement.setTimestamp(parameterIndex, x);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+		preparedStatement.setAsciiStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setUnicodeStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+		preparedStatement.setUnicodeStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, java.io.InputStream x, int length) throws SQLException {
+		preparedStatement.setBinaryStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		preparedStatement.clearParameters();
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		preparedStatement.setObject(parameterIndex, x, targetSqlType);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		preparedStatement.setObject(parameterIndex, x);
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		try {
+			return preparedStatement.execute();
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		preparedStatement.addBatch();
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, java.io.Reader reader, int length) throws SQLException {
+		preparedStatement.setCharacterStream(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) throws SQLException {
+		preparedStatement.setRef(parameterIndex, x);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) throws SQLException {
+		preparedStatement.setBlob(parameterIndex, x);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) throws SQLException {
+		preparedStatement.setClob(parameterIndex, x);
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) throws SQLException {
+		preparedStatement.setArray(parameterIndex, x);
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return preparedStatement.getMetaData();
+	}
+
+	@Override
+	public void setDate(int parameterIndex, java.sql.Date x, Calendar cal) throws SQLException {
+		preparedStatement.setDate(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
+		preparedStatement.setTime(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
+		preparedStatement.setTimestamp(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		preparedStatement.setNull(parameterIndex, sqlType, typeName);
+	}
+
+	@Override
+	public void setURL(int parameterIndex, java.net.URL x) throws SQLException {
+		preparedStatement.setURL(parameterIndex, x);
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		return preparedStatement.getParameterMetaData();
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) throws SQLException {
+		preparedStatement.setRowId(parameterIndex, x);
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) throws SQLException {
+		preparedStatement.setNString(parameterIndex, value);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+		preparedStatement.setNCharacterStream(parameterIndex, value, length);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob value) throws SQLException {
+		preparedStatement.setNClob(parameterIndex, value);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		preparedStatement.setClob(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+		preparedStatement.setBlob(parameterIndex, inputStream, length);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		preparedStatement.setNClob(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+		preparedStatement.setSQLXML(parameterIndex, xmlObject);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		preparedStatement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, java.io.InputStream x, long length) throws SQLException {
+		preparedStatement.setAsciiStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, java.io.InputStream x, long length) throws SQLException {
+		preparedStatement.setBinaryStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, java.io.Reader reader, long length) throws SQLException {
+		preparedStatement.setCharacterStream(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, java.io.InputStream x) throws SQLException {
+		preparedStatement.setAsciiStream(parameterIndex, x);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, java.io.InputStream x) throws SQLException {
+		preparedStatement.setBinaryStream(parameterIndex, x);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, java.io.Reader reader) throws SQLException {
+		preparedStatement.setCharacterStream(parameterIndex, reader);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+		preparedStatement.setNCharacterStream(parameterIndex, value);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader) throws SQLException {
+		preparedStatement.setClob(parameterIndex, reader);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+		preparedStatement.setBlob(parameterIndex, inputStream);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+		preparedStatement.setNClob(parameterIndex, reader);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+		preparedStatement.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+		preparedStatement.setObject(parameterIndex, x, targetSqlType);
+	}
+
+	@Override
+	public long executeLargeUpdate() throws SQLException {
+		try {
+			return preparedStatement.executeLargeUpdate();
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * Statement created by a {@link PooledConnection}.
+ * Delegates to the statement of the physical connection, but returns the pooled connection
+ * from {@link #getConnection()} so that the connection is always given back to the pool.
+ * Failures of the execute-methods are reported to the pooled connection.
+ *
+ * @author Ralf Wisser
+ */
+class PooledStatement implements Statement {
+
+	/**
+	 * The statement of the physical connection.
+	 */
+	private final Statement statement;
+
+	/**
+	 * The connection that created the statement.
+	 */
+	final PooledConnection connection;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statement the statement of the physical connection
+	 * @param connection the connection that created the statement
+	 */
+	PooledStatement(Statement statement, PooledConnection connection) {
+		this.statement = statement;
+		this.connection = connection;
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return statement.unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || statement.isWrapperFor(iface);
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		try {
+			return statement.executeQuery(sql);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		try {
+			return statement.executeUpdate(sql);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		statement.close();
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		return statement.getMaxFieldSize();
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		statement.setMaxFieldSize(max);
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		return statement.getMaxRows();
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		statement.setMaxRows(max);
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		statement.setEscapeProcessing(enable);
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		return statement.getQueryTimeout();
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		statement.setQueryTimeout(seconds);
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		statement.cancel();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return statement.getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		statement.clearWarnings();
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		statement.setCursorName(name);
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		try {
+			return statement.execute(sql);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		return statement.getResultSet();
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return statement.getUpdateCount();
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		return statement.getMoreResults();
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		statement.setFetchDirection(direction);
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		return statement.getFetchDirection();
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		statement.setFetchSize(rows);
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return statement.getFetchSize();
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		return statement.getResultSetConcurrency();
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		return statement.getResultSetType();
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		statement.addBatch(sql);
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		statement.clearBatch();
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		try {
+			return statement.executeBatch();
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return connection;
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException {
+		return statement.getMoreResults(current);
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		return statement.getGeneratedKeys();
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return statement.executeUpdate(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return statement.executeUpdate(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		try {
+			return statement.executeUpdate(sql, columnNames);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return statement.execute(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return statement.execute(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		try {
+			return statement.execute(sql, columnNames);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		return statement.getResultSetHoldability();
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return statement.isClosed();
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		statement.setPoolable(poolable);
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		return statement.isPoolable();
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		statement.closeOnCompletion();
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		return statement.isCloseOnCompletion();
+	}
+
+	@Override
+	public long getLargeUpdateCount() throws SQLException {
+		return statement.getLargeUpdateCount();
+	}
+
+	@Override
+	public void setLargeMaxRows(long max) throws SQLException {
+		statement.setLargeMaxRows(max);
+	}
+
+	@Override
+	public long getLargeMaxRows() throws SQLException {
+		return statement.getLargeMaxRows();
+	}
+
+	@Override
+	public long[] executeLargeBatch() throws SQLException {
+		try {
+			return statement.executeLargeBatch();
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql) throws SQLException {
+		try {
+			return statement.executeLargeUpdate(sql);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return statement.executeLargeUpdate(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return statement.executeLargeUpdate(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+		try {
+			return statement.executeLargeUpdate(sql, columnNames);
+		} catch (SQLException e) {
+			throw connection.failed(e);
+		}
+	}
+
+
+}
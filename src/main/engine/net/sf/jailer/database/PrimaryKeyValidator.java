@@ -15,16 +15,31 @@
  */
 package net.sf.jailer.database;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.datamodel.Column;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.modelbuilder.JDBCMetaDataBasedModelElementFinder;
@@ -36,6 +51,10 @@ import net.sf.jailer.util.Quoting;
 
 /**
  * Validates all primary keys of a set of tables.
+ * <br>
+ * Uniqueness and absence of nulls are checked with one aggregate scan per table.
+ * Optionally, huge tables are checked approximately using a sample of the keys (see {@link #setSampling(long, int)})
+ * and valid results are remembered as long as the tables don't change (see {@link #setResultCacheFile(File)}).
  *
  * @author Ralf Wisser
  */
@@ -43,10 +62,55 @@ public abstract class PrimaryKeyValidator {
 
 	private final Object cancellationContext;
 
+	/**
+	 * Tables having at least this number of rows (according to the table statistics) are checked approximately.
+	 */
+	private long samplingMinRows = 0;
+
+	/**
+	 * Only the rows whose hashed keys fall in one of this number of buckets are checked approximately.
+	 */
+	private int samplingBuckets = 1;
+
+	/**
+	 * File containing the fingerprints of the tables which are known to have valid primary keys.
+	 */
+	private File resultCacheFile;
+
 	public PrimaryKeyValidator(Object cancellationContext) {
 		this.cancellationContext = cancellationContext;
 	}
 
+	/**
+	 * Enables the approximate check of huge tables.
+	 * Only the rows whose hashed key falls in one of <code>buckets</code> buckets are checked.
+	 * Duplicate keys always fall in the same bucket, so that a sample doesn't contain partial groups of duplicates.
+	 * <br>
+	 * Sampling is supported for Oracle, PostgreSQL, SQL Server, MySQL and H2. Tables in other databases are checked completely.
+	 *
+	 * @param minRows tables having at least this number of rows (according to the table statistics) are checked approximately
+	 * @param buckets number of buckets, one bucket is checked (1 to check all rows)
+	 */
+	public void setSampling(long minRows, int buckets) {
+		this.samplingMinRows = minRows;
+		this.samplingBuckets = Math.max(1, buckets);
+	}
+
+	/**
+	 * Sets the file in which the valid results are remembered.
+	 * A table is not checked again as long as its primary key, its statistics (number of rows and pages),
+	 * the time of its last DDL statement and its modification marker (see {@link DBMS#getTableModificationQuery()}) are unchanged.
+	 * Tables without statistics are always checked.
+	 * <br>
+	 * If the DBMS doesn't provide a modification marker, modifications are only detected after the statistics have been renewed
+	 * (for example by ANALYZE). Stale statistics then give stale results.
+	 *
+	 * @param resultCacheFile the file, <code>null</code> to check all tables
+	 */
+	public void setResultCacheFile(File resultCacheFile) {
+		this.resultCacheFile = resultCacheFile;
+	}
+
 	/**
 	 * Validates all primary keys of a set of tables.
 	 *
@@ -63,15 +127,41 @@ public abstract class PrimaryKeyValidator {
 		String defaultSchema = JDBCMetaDataBasedModelElementFinder.getDefaultSchema(session, session.getSchema());
 		List<JobManager.Job> jobsUDPK = new ArrayList<JobManager.Job>();
 		List<JobManager.Job> jobsRealPK = new ArrayList<JobManager.Job>();
+		final Set<String> validFingerprints = readResultCache();
+		Map<String, Map<String, String>> lastDDLTimes = new HashMap<String, Map<String, String>>();
+		Map<String, Map<String, String>> modifications = new HashMap<String, Map<String, String>>();
 		
 		List<Table> tablesWPK = new ArrayList<Table>(tables);
 		tablesWPK.removeIf(table -> table.primaryKey == null || table.primaryKey.getColumns().isEmpty());
 		tablesWPK.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
-		numTotal.set(tablesWPK.size() * 3);
+		numTotal.set(tablesWPK.size() * 2);
 		updateProgressBar();
 		
 		for (final Table table: tablesWPK) {
 			CancellationHandler.checkForCancellation(cancellationContext);
+			long[] statistics = null;
+			if (resultCacheFile != null || samplingBuckets > 1) {
+				statistics = readStatistics(session, defaultSchema, table);
+			}
+			final int buckets = statistics != null && statistics[0] >= samplingMinRows && isSamplingSupported(session)? samplingBuckets : 1;
+			String changes = null;
+			if (validFingerprints != null && statistics != null) {
+				String schema = Quoting.staticUnquote(table.getSchema(defaultSchema));
+				if (!lastDDLTimes.containsKey(schema)) {
+					lastDDLTimes.put(schema, JDBCMetaDataBasedModelElementFinder.findLastDDLTimes(session, schema));
+					modifications.put(schema, JDBCMetaDataBasedModelElementFinder.findTableModifications(session, schema));
+				}
+				String unqualifiedName = Quoting.staticUnquote(table.getUnqualifiedName());
+				Map<String, String> tableModifications = modifications.get(schema);
+				changes = lastDDLTimes.get(schema).get(unqualifiedName) + "|" + (tableModifications == null? "" : tableModifications.get(unqualifiedName));
+			}
+			final String fingerprint = changes != null? fingerprint(session, table, statistics, changes, buckets) : null;
+			if (fingerprint != null && validFingerprints.contains(fingerprint)) {
+				numDone.addAndGet(2);
+				updateProgressBar();
+				onTableChecked(table, true, true, buckets > 1);
+				continue;
+			}
 			boolean realPK = false;
 			try {
 				ResultSet resultSet = JDBCMetaDataBasedModelElementFinder.getPrimaryKeys(
@@ -108,14 +198,16 @@ public abstract class PrimaryKeyValidator {
 			updateProgressBar();
 			
 			jobListToAddTo.add(() -> {
-				checkUniqueness(session, table, Quoting.getQuoting(session));
-				numDone.getAndIncrement();
-				updateProgressBar();
-			});
-			jobListToAddTo.add(() -> {
-				checkNoNull(session, table, Quoting.getQuoting(session));
+				boolean[] sampled = new boolean[1];
+				boolean valid = checkPrimaryKey(session, table, Quoting.getQuoting(session), buckets, sampled);
+				if (valid && fingerprint != null) {
+					synchronized (validFingerprints) {
+						validFingerprints.add(fingerprint);
+					}
+				}
 				numDone.getAndIncrement();
 				updateProgressBar();
+				onTableChecked(table, valid, false, sampled[0]);
 			});
 		}
 
@@ -126,12 +218,236 @@ public abstract class PrimaryKeyValidator {
 		try {
 			jobManager.executeJobs(jobs);
 		} catch (CancellationException e) {
+			writeResultCache(validFingerprints);
 			throwIfErrorFound();
 		}
+		writeResultCache(validFingerprints);
 		throwIfErrorFound();
 		CancellationHandler.checkForCancellation(cancellationContext);
 	}
 
+	/**
+	 * Called after the primary key of a table has been checked.
+	 *
+	 * @param table the table
+	 * @param valid <code>true</code> if no error has been found
+	 * @param fromCache <code>true</code> if the table hasn't been checked again because it is unchanged
+	 * @param sampled <code>true</code> if only a sample of the keys has been checked
+	 */
+	protected void onTableChecked(Table table, boolean valid, boolean fromCache, boolean sampled) {
+	}
+
+	/**
+	 * Checks uniqueness and absence of nulls of the primary key of a table with a single aggregate scan.
+	 * Falls back to separate checks if the DBMS doesn't support the aggregate query.
+	 *
+	 * @param buckets if greater than 1, check only the rows whose hashed key falls in one of that many buckets
+	 * @param sampled set to <code>true</code> if only a sample of the keys has been checked
+	 * @return <code>true</code> if no error has been found
+	 */
+	private boolean checkPrimaryKey(Session session, final Table table, Quoting quoting, int buckets, boolean[] sampled) throws SQLException {
+		StringBuilder pks = new StringBuilder();
+		List<String> pkColumns = new ArrayList<String>();
+		for (Column pkCol: table.primaryKey.getColumns()) {
+			if (pks.length() > 0) {
+				pks.append(", ");
+			}
+			pks.append(quoting.requote(pkCol.name));
+			pkColumns.add(quoting.requote(pkCol.name));
+		}
+		StringBuilder hasNull = new StringBuilder();
+		for (Column pkCol: table.primaryKey.getColumns()) {
+			if (!pkCol.isNullable) {
+				if (hasNull.length() > 0) {
+					hasNull.append(" or ");
+				}
+				hasNull.append(quoting.requote(pkCol.name) + " is null");
+			}
+		}
+		String sample = buckets > 1? samplingCondition(session, pkColumns, buckets) : null;
+		String tableName = quoting.requote(table.getName());
+		String where = sample == null? "" : " Where " + sample;
+		final String sql = "Select max(Q.JL_COUNT), max(Q.JL_NULL) From (" +
+				"Select count(*) JL_COUNT, " + (hasNull.length() > 0? "max(case when " + hasNull + " then 1 else 0 end)" : "0") + " JL_NULL " +
+				"From " + tableName + where + " Group by " + pks + ") Q";
+		final String uniquenessSql = "Select " + pks + " from " + tableName + where + " " +
+				"Group by " + pks + " having count(*) > 1";
+		final String noNullSql = "Select * from " + tableName + " " +
+				"Where " + (sample == null? "" : sample + " and (") + hasNull + (sample == null? "" : ")");
+		final boolean[] valid = new boolean[] { true };
+		boolean silent = session.getSilent();
+		try {
+			session.setSilent(true);
+			session.executeQuery(sql, new Session.AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					if (resultSet.getLong(1) > 1) {
+						valid[0] = false;
+						addError(null, "Primary key of table \"" + table.getName() + "\" is not unique.", uniquenessSql);
+					}
+					if (resultSet.getLong(2) > 0) {
+						valid[0] = false;
+						addError(null, "Primary key of table \"" + table.getName() + "\" contains null.", noNullSql);
+					}
+				}
+			}, null, cancellationContext, 1, true);
+			sampled[0] = sample != null;
+		} catch (SqlException e) {
+			// aggregate query or sampling not supported
+			session.setSilent(silent);
+			int numErrorsBefore = numErrors.get();
+			checkUniqueness(session, table, quoting);
+			checkNoNull(session, table, quoting);
+			return numErrors.get() == numErrorsBefore;
+		} finally {
+			session.setSilent(silent);
+		}
+		return valid[0];
+	}
+
+	/**
+	 * Whether the keys of tables can be sampled (see {@link #samplingCondition(Session, List, int)}).
+	 */
+	private boolean isSamplingSupported(Session session) {
+		return samplingCondition(session, Collections.<String>emptyList(), 2) != null;
+	}
+
+	/**
+	 * Gets a condition which selects the rows whose hashed key falls in the first of some buckets.
+	 *
+	 * @return the condition or <code>null</code> if the DBMS is not supported
+	 */
+	private String samplingCondition(Session session, List<String> pkColumns, int buckets) {
+		String csl = String.join(", ", pkColumns);
+		if (DBMS.ORACLE.equals(session.dbms)) {
+			return "ORA_HASH(" + String.join(" || '|' || ", pkColumns) + ", " + (buckets - 1) + ")=0";
+		}
+		if (DBMS.H2.equals(session.dbms)) {
+			return "ORA_HASH(CONCAT_WS('|', " + csl + ", ''), " + (buckets - 1) + ")=0";
+		}
+		if (DBMS.POSTGRESQL.equals(session.dbms)) {
+			return "mod(abs(hashtext(concat_ws('|', " + csl + "))::bigint), " + buckets + ")=0";
+		}
+		if (DBMS.MSSQL.equals(session.dbms)) {
+			return "abs(cast(checksum(" + csl + ") as bigint)) % " + buckets + "=0";
+		}
+		if (DBMS.MySQL.equals(session.dbms)) {
+			return "mod(crc32(concat_ws('|', " + csl + ")), " + buckets + ")=0";
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the statistics of a table. Uses the statistics of the largest index
+	 * if the driver doesn't provide table statistics.
+	 *
+	 * @return number of rows and pages, or <code>null</code> if there are no statistics
+	 */
+	private long[] readStatistics(Session session, String defaultSchema, Table table) {
+		long[] indexStatistics = null;
+		try {
+			ResultSet resultSet = JDBCMetaDataBasedModelElementFinder.getIndexes(
+					session,
+					Quoting.staticUnquote(table.getSchema(defaultSchema)),
+					Quoting.staticUnquote(table.getUnqualifiedName()));
+			try {
+				while (resultSet.next()) {
+					long[] statistics = new long[] { resultSet.getLong(11), resultSet.getLong(12) };
+					if (resultSet.getShort(7) == DatabaseMetaData.tableIndexStatistic) {
+						return statistics;
+					}
+					if (indexStatistics == null || indexStatistics[0] < statistics[0]) {
+						indexStatistics = statistics;
+					}
+				}
+			} finally {
+				resultSet.close();
+			}
+		} catch (Exception e) {
+			// ignore
+		}
+		return indexStatistics;
+	}
+
+	/**
+	 * Gets a fingerprint of the state of a table.
+	 *
+	 * @param changes the time of the last DDL statement and the modification marker of the table
+	 */
+	private String fingerprint(Session session, Table table, long[] statistics, String changes, int buckets) {
+		StringBuilder description = new StringBuilder(session.dbUrl + "|" + session.getSchema() + "|" + table.getName());
+		for (Column pkCol: table.primaryKey.getColumns()) {
+			description.append("|" + pkCol.name + (pkCol.isNullable? "?" : ""));
+		}
+		description.append("|" + statistics[0] + "|" + statistics[1] + "|" + changes + "|" + buckets);
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			StringBuilder result = new StringBuilder();
+			for (byte b: digest.digest(description.toString().getBytes(Charset.forName("UTF-8")))) {
+				result.append(String.format("%02x", b & 0xff));
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Reads the fingerprints of the tables which are known to be valid.
+	 *
+	 * @return the fingerprints or <code>null</code> if no result cache file is set
+	 */
+	private Set<String> readResultCache() {
+		if (resultCacheFile == null) {
+			return null;
+		}
+		Set<String> result = new TreeSet<String>();
+		if (resultCacheFile.exists()) {
+			try {
+				BufferedReader in = new BufferedReader(new FileReader(resultCacheFile));
+				try {
+					String line;
+					while ((line = in.readLine()) != null) {
+						if (line.trim().length() > 0) {
+							result.add(line.trim());
+						}
+					}
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the fingerprints of the tables which are known to be valid.
+	 */
+	private void writeResultCache(Set<String> validFingerprints) {
+		if (resultCacheFile == null || validFingerprints == null) {
+			return;
+		}
+		try {
+			if (resultCacheFile.getAbsoluteFile().getParentFile() != null) {
+				resultCacheFile.getAbsoluteFile().getParentFile().mkdirs();
+			}
+			PrintWriter out = new PrintWriter(new FileOutputStream(resultCacheFile));
+			try {
+				synchronized (validFingerprints) {
+					for (String fingerprint: validFingerprints) {
+						out.println(fingerprint);
+					}
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
 	private synchronized void throwIfErrorFound() throws SqlException {
 		errorMessage.addAll(errorMessageLowPrio);
 		errorStatements.addAll(errorStatementsLowPrio);
@@ -21,12 +21,14 @@ import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -441,6 +443,7 @@ public class Session {
 					// ignore
 				}
 			}
+			PooledConnection.invalidate(con);
 			try {
 				con.close();
 			// catch all because ucanaccess throws non-SQLException
@@ -461,6 +464,7 @@ public class Session {
 					// ignore
 				}
 			}
+			PooledConnection.invalidate(temporaryTableSession);
 			try {
 				temporaryTableSession.close();
 				// catch all because ucanaccess throws non-SQLException
@@ -948,6 +952,171 @@ public class Session {
 		}
 	}
 
+	/**
+	 * Executes a list of SQL-Updates as a single JDBC batch.
+	 * <br>
+	 * The batch is executed atomically. In auto-commit mode it is committed as a whole,
+	 * else a savepoint is set before. If a statement of the batch fails, all statements of the batch
+	 * are rolled back and <code>null</code> is returned. If that is not possible,
+	 * the failure is thrown.
+	 *
+	 * @param sqlUpdates the updates in SQL
+	 *
+	 * @return update-count per statement or <code>null</code> if the batch has been rolled back
+	 */
+	public int[] executeBatch(List<String> sqlUpdates) throws SQLException {
+		if (getLogStatements()) {
+			_log.info(logPrefix + "batch of " + sqlUpdates.size() + " statements");
+		}
+		Statement statement = null;
+		Connection con = null;
+		try {
+			CancellationHandler.checkForCancellation(null);
+			int[] counts = new int[sqlUpdates.size()];
+			long startTime = System.currentTimeMillis();
+			try {
+				con = connectionFactory.getConnection();
+				boolean autoCommit = con.getAutoCommit();
+				Savepoint savepoint = null;
+				if (autoCommit) {
+					con.setAutoCommit(false);
+				} else {
+					try {
+						savepoint = con.setSavepoint();
+					} catch (SQLException e) {
+						// savepoints not supported, a failure can't be undone
+					}
+				}
+				try {
+					statement = con.createStatement();
+					begin(statement, null);
+					for (String sqlUpdate: sqlUpdates) {
+						statement.addBatch(sqlUpdate);
+					}
+					int[] result;
+					try {
+						result = statement.executeBatch();
+					} catch (BatchUpdateException e) {
+						if (!autoCommit && savepoint == null) {
+							throw e;
+						}
+						_log.info(logPrefix + "\"" + e.getMessage() + "\" in batch, rolling back");
+						try {
+							if (autoCommit) {
+								con.rollback();
+							} else {
+								con.rollback(savepoint);
+							}
+						} catch (SQLException e2) {
+							e.addSuppressed(e2);
+							throw e;
+						}
+						end(statement, null);
+						releaseConnection(con);
+						return null;
+					}
+					if (autoCommit) {
+						con.commit();
+					} else if (savepoint != null) {
+						try {
+							con.releaseSavepoint(savepoint);
+						} catch (SQLException e) {
+							// ignore
+						}
+					}
+					System.arraycopy(result, 0, counts, 0, Math.min(result.length, counts.length));
+				} finally {
+					if (autoCommit) {
+						con.setAutoCommit(true);
+					}
+				}
+				lastUpdateTS = System.currentTimeMillis();
+				end(statement, null);
+				releaseConnection(con);
+				if (getLogStatements()) {
+					_log.info(logPrefix + "batch of " + counts.length + " statements in " + (System.currentTimeMillis() - startTime) + " ms");
+				}
+			} finally {
+				if (statement != null) {
+					try { statement.close(); } catch (SQLException e) { }
+				}
+			}
+			return counts;
+		} catch (SQLException e) {
+			if (con != null) {
+				markConnectionAsPotentiallyInvalid(con);
+			}
+			checkKilled();
+			CancellationHandler.checkForCancellation(null);
+			if (!silent) {
+				_log.error(logPrefix + "Error executing statement", e);
+			}
+			String sql = sqlUpdates.isEmpty()? "" : sqlUpdates.get(0);
+			throw new SqlException("\"" + e.getMessage() + "\" in batch starting with statement \"" + sql + "\"", sql, e);
+		}
+	}
+
+	/**
+	 * Executes a SQL-Update (INSERT, DELETE or UPDATE) once for each parameter row
+	 * using a single batched prepared statement.
+	 *
+	 * @param sqlUpdate the update in SQL
+	 * @param parameters the parameter rows
+	 *
+	 * @return update-count
+	 */
+	public int executeBatchUpdate(String sqlUpdate, List<Object[]> parameters) throws SQLException {
+		if (getLogStatements()) {
+			_log.info(logPrefix + sqlUpdate + " (" + parameters.size() + " rows)");
+		}
+		PreparedStatement statement = null;
+		Connection con = null;
+		try {
+			CancellationHandler.checkForCancellation(null);
+			int rowCount = 0;
+			long startTime = System.currentTimeMillis();
+			try {
+				con = connectionFactory.getConnection();
+				statement = con.prepareStatement(sqlUpdate);
+				begin(statement, null);
+				for (Object[] parameter: parameters) {
+					int i = 1;
+					for (Object p: parameter) {
+						statement.setObject(i++, p);
+					}
+					statement.addBatch();
+				}
+				for (int count: statement.executeBatch()) {
+					if (count > 0) {
+						rowCount += count;
+					} else if (count == Statement.SUCCESS_NO_INFO) {
+						++rowCount;
+					}
+				}
+				end(statement, null);
+				releaseConnection(con);
+				if (getLogStatements()) {
+					_log.info(logPrefix + "" + rowCount + " row(s) in " + (System.currentTimeMillis() - startTime) + " ms");
+				}
+			} finally {
+				if (statement != null) {
+					try { statement.close(); } catch (SQLException e) { }
+				}
+			}
+			return rowCount;
+		} catch (SQLException e) {
+			if (con != null) {
+				markConnectionAsPotentiallyInvalid(con);
+			}
+			checkKilled();
+			CancellationHandler.checkForCancellation(null);
+			if (!silent) {
+				_log.error(logPrefix + "Error executing statement", e);
+			}
+			throw new SqlException("\"" + e.getMessage() + "\" in statement \"" + sqlUpdate + "\"", sqlUpdate, e);
+		}
+	}
+
 	/**
 	 * Inserts a CLob.
 	 */
@@ -1258,6 +1427,32 @@ public class Session {
 		_log.info(logPrefix + "connection closed");
 	}
 
+	/**
+	 * Closes the connection of the current thread (if any).
+	 * The thread gets a new connection when it executes the next statement.
+	 */
+	public void closeConnection() {
+		Connection con = connection.get();
+		if (con == null || con == temporaryTableSession || con == globalFallbackConnection) {
+			return;
+		}
+		setConnection(null);
+		synchronized (connections) {
+			connections.remove(con);
+			if (con == defaultConnection) {
+				defaultConnection = connections.isEmpty()? null : connections.get(0);
+			}
+		}
+		lastConnectionActiviyTimeStamp.remove(con);
+		metaData.remove(con);
+		try {
+			con.close();
+		// catch all because ucanaccess throws non-SQLException
+		} catch (Throwable e) {
+			// ignore
+		}
+	}
+
 	public boolean isDown() {
 		return down.get();
 	}
@@ -22,6 +22,7 @@ import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
@@ -36,6 +37,11 @@ import net.sf.jailer.util.SqlScriptExecutor;
  */
 public class SqlScriptBasedStatisticRenovator implements StatisticRenovator {
 
+	/**
+	 * Placeholder for the tables whose statistics are not renewed.
+	 */
+	private static final String SKIPPED_TABLE = "$SKIPPED_TABLE$";
+
 	/**
 	 * Name of SQL-script file.
 	 */
@@ -82,6 +88,17 @@ public class SqlScriptBasedStatisticRenovator implements StatisticRenovator {
 	 */
 	@Override
 	public void renew(Session session, ExecutionContext executionContext) throws Exception {
+		renew(session, executionContext, null);
+	}
+
+	/**
+	 * Renews the DB table statistics for some of the working-tables
+	 * by executing the lines of the SQL-script which refer to these tables.
+	 * 
+	 * @param session for execution of SQL-statements
+	 * @param workingTables names of the working-tables (like "JAILER_ENTITY"), <code>null</code> for all
+	 */
+	public void renew(Session session, ExecutionContext executionContext, Set<String> workingTables) throws Exception {
 		Map<String, String> arguments = new HashMap<String, String>();
 		arguments.put("JAILER_ENTITY", SQLDialect.dmlTableReference("JAILER_ENTITY", session, executionContext));
 		arguments.put("JAILER_GRAPH", SQLDialect.dmlTableReference("JAILER_GRAPH", session, executionContext));
@@ -104,9 +121,22 @@ public class SqlScriptBasedStatisticRenovator implements StatisticRenovator {
 			splittedArguments.put("TABLE_" + e.getKey(), tab);
 		}
 		arguments.putAll(splittedArguments);
+		if (workingTables != null) {
+			for (Entry<String, String> e: arguments.entrySet()) {
+				if (!workingTables.contains(e.getKey().replaceFirst("^(SCHEMA_|TABLE_)", ""))) {
+					e.setValue(SKIPPED_TABLE);
+				}
+			}
+		}
+		String script = new PrintUtil().applyTemplate(scriptFileName.replace('/', File.separatorChar), arguments, null);
 		File file = Configuration.getInstance().createTempFile();
 		PrintWriter out = new PrintWriter(new FileOutputStream(file));
-		out.print(new PrintUtil().applyTemplate(scriptFileName.replace('/', File.separatorChar), arguments, null));
+		for (String line: script.split("\\n")) {
+			// each statement of the script refers to one table
+			if (!line.contains(SKIPPED_TABLE)) {
+				out.println(line);
+			}
+		}
 		out.close();
 		boolean silent = session.getSilent();
 		session.setSilent(true);
@@ -32,7 +32,7 @@ public class StatementBuilder {
 	/**
 	 * The maximal size of a body-list.
 	 */
-	private final int maxBodySize;
+	private int maxBodySize;
 
 	/**
 	 * The head of the statement.
@@ -157,5 +157,14 @@ public class StatementBuilder {
 	public int getMaxBodySize() {
 		return maxBodySize;
 	}
+
+	/**
+	 * Sets the maximal size of a body-list.
+	 *
+	 * @param maxBodySize the maximal size of a body-list
+	 */
+	public void setMaxBodySize(int maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
 	
 }
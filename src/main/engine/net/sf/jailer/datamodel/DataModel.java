@@ -16,6 +16,8 @@
 
 package net.sf.jailer.datamodel;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -392,41 +394,25 @@ public class DataModel {
 			List<String> excludeFromDeletion = new ArrayList<String>();
 			PrintUtil.loadTableList(excludeFromDeletion, openModelFile(new File(DataModel.getExcludeFromDeletionFile(executionContext)), executionContext));
 
+			DataModelSnapshot snapshot = loadSnapshot(failOnMissingTables, assocFilter);
+
 			// tables
-			File tabFile = new File(getTablesFile(executionContext));
-			StringBuilder resourceName = new StringBuilder();
-			InputStream nTablesFile = openModelFile(tabFile, resourceName, false, executionContext);
-			if (failOnMissingTables && nTablesFile == null) {
-				throw new RuntimeException("Data model not found: " + resourceName);
-			}
-			CsvFile tablesFile = new CsvFile(nTablesFile, null, tabFile.getPath(), null);
-			List<CsvFile.Line> tableList = new ArrayList<CsvFile.Line>(tablesFile.getLines());
+			List<DataModelSnapshot.TableDefinition> tableList = new ArrayList<DataModelSnapshot.TableDefinition>(snapshot.tables);
 			if (additionalTablesFile != null) {
-				tableList.addAll(new CsvFile(new File(additionalTablesFile)).getLines());
+				DataModelSnapshot additionalTables = new DataModelSnapshot();
+				additionalTables.addTables(new CsvFile(new File(additionalTablesFile)).getLines());
+				tableList.addAll(additionalTables.tables);
 			}
-			for (CsvFile.Line line: tableList) {
-				boolean defaultUpsert = "Y".equalsIgnoreCase(line.cells.get(1));
+			for (DataModelSnapshot.TableDefinition definition: tableList) {
+				boolean defaultUpsert = definition.upsert;
 				List<Column> pk = new ArrayList<Column>();
-				int j;
-				for (j = 2; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
-					String col = line.cells.get(j).trim();
-					String newName = null;
+				for (Column column: definition.primaryKey) {
 					if (knownIdentifiers != null) {
-						try {
-							Column c = Column.parse(col);
-							newName = knownIdentifiers.getColumnName(line.cells.get(0), c.name);
-						} catch (Exception e) {
-							// ignore
-						}
-					}
-					try {
-						pk.add(Column.parse(newName, col));
-					} catch (Exception e) {
-						_log.warn("", e);
-						// ignore, was throw new RuntimeException("unable to load table '" + line.cells.get(0) + "'. " + line.location, e);
+						column = renamed(column, knownIdentifiers.getColumnName(definition.name, column.name));
 					}
+					pk.add(column);
 				}
-				String tabName = line.cells.get(0);
+				String tabName = definition.name;
 				if (knownIdentifiers != null) {
 					String newName = knownIdentifiers.getTableName(tabName);
 					if (newName != null) {
@@ -435,8 +421,8 @@ public class DataModel {
 				}
 				String mappedSchemaTableName = SqlUtil.mappedSchema(sourceSchemaMapping, tabName);
 				Table table = new Table(mappedSchemaTableName, primaryKeyFactory.createPrimaryKey(pk, mappedSchemaTableName), defaultUpsert, excludeFromDeletion.contains(mappedSchemaTableName));
-				table.setAuthor(line.cells.get(j + 1));
-				table.setOriginalName(line.cells.get(0));
+				table.setAuthor(definition.author);
+				table.setOriginalName(definition.name);
 				if (tables.containsKey(mappedSchemaTableName)) {
 					if (additionalTablesFile == null && knownIdentifiers == null) {
 						throw new RuntimeException("Duplicate table name '" + mappedSchemaTableName + "'");
@@ -462,122 +448,106 @@ public class DataModel {
 			}
 
 			// columns
-			File colFile = new File(getColumnsFile(executionContext));
-			InputStream is = openModelFile(colFile, executionContext);
-			if (is != null) {
-				CsvFile columnsFile = new CsvFile(is, null, colFile.getPath(), null);
-				List<CsvFile.Line> columnsList = new ArrayList<CsvFile.Line>(columnsFile.getLines());
-				for (CsvFile.Line line: columnsList) {
-					List<Column> columns = new ArrayList<Column>();
-					for (int j = 1; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
-						String col = line.cells.get(j).trim();
-						String newName = null;
-						if (knownIdentifiers != null) {
-							try {
-								Column c = Column.parse(col);
-								newName = knownIdentifiers.getColumnName(Quoting.normalizeIdentifier(line.cells.get(0)), c.name);
-							} catch (Exception e) {
-								// ignore
-							}
-						}
-						try {
-							columns.add(Column.parse(newName, col));
-						} catch (Throwable e) {
-							e.printStackTrace();
-							// ignore
-						}
+			for (DataModelSnapshot.ColumnsDefinition definition: snapshot.columns) {
+				List<Column> columns = new ArrayList<Column>();
+				for (Column column: definition.columns) {
+					if (knownIdentifiers != null) {
+						column = renamed(column, knownIdentifiers.getColumnName(Quoting.normalizeIdentifier(definition.table), column.name));
 					}
-					// order columns
-					if (!columnOrderPrio.isEmpty()) {
-						final Map<Column, ColumnOrderPriority> prio = new IdentityHashMap<>();
-						String prefix = line.cells.get(0).trim().length() == 0? "" : (line.cells.get(0).trim() + ".");
-						for (Column column: columns) {
-							ColumnOrderPriority columnOrderPriority = columnOrderPrio.get(prefix + Quoting.normalizeIdentifier(column.name));
-							if (columnOrderPriority == null) {
-								columnOrderPriority = columnOrderPrio.get(Quoting.normalizeIdentifier(column.name));
-							}
-							prio.put(column, columnOrderPriority);
+					columns.add(column);
+				}
+				// order columns
+				if (!columnOrderPrio.isEmpty()) {
+					final Map<Column, ColumnOrderPriority> prio = new IdentityHashMap<>();
+					String prefix = definition.table.trim().length() == 0? "" : (definition.table.trim() + ".");
+					for (Column column: columns) {
+						ColumnOrderPriority columnOrderPriority = columnOrderPrio.get(prefix + Quoting.normalizeIdentifier(column.name));
+						if (columnOrderPriority == null) {
+							columnOrderPriority = columnOrderPrio.get(Quoting.normalizeIdentifier(column.name));
 						}
-						Collections.sort(columns, new Comparator<Column>() {
-							@Override
-							public int compare(Column a, Column b) {
-								ColumnOrderPriority prioA = prio.get(a);
-								ColumnOrderPriority prioB = prio.get(b);
-								if (prioA != prioB) {
-									if (prioA == ColumnOrderPriority.HI) {
-											return -1;
-									} else if (prioA == ColumnOrderPriority.LO) {
-										return 1;
-									} else {
-										return prioB == ColumnOrderPriority.HI? 1 : -1;
-									}
+						prio.put(column, columnOrderPriority);
+					}
+					Collections.sort(columns, new Comparator<Column>() {
+						@Override
+						public int compare(Column a, Column b) {
+							ColumnOrderPriority prioA = prio.get(a);
+							ColumnOrderPriority prioB = prio.get(b);
+							if (prioA != prioB) {
+								if (prioA == ColumnOrderPriority.HI) {
+										return -1;
+								} else if (prioA == ColumnOrderPriority.LO) {
+									return 1;
+								} else {
+									return prioB == ColumnOrderPriority.HI? 1 : -1;
 								}
-								return 0;
 							}
-						});
-					}
-					Table table = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, line.cells.get(0)));
-					if (table != null) {
-						table.setColumns(columns);
-					}
+							return 0;
+						}
+					});
+				}
+				Table table = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, definition.table));
+				if (table != null) {
+					table.setColumns(columns);
 				}
 			}
 
 			// associations
-			File assFile = new File(getAssociationsFile(executionContext));
-			List<CsvFile.Line> associationList = new ArrayList<CsvFile.Line>(new CsvFile(openModelFile(assFile, executionContext), null, assFile.getPath(), assocFilter).getLines());
+			List<DataModelSnapshot.AssociationDefinition> associationList = new ArrayList<DataModelSnapshot.AssociationDefinition>(snapshot.associations);
 			if (additionalAssociationsFile != null) {
-				associationList.addAll(new CsvFile(new File(additionalAssociationsFile)).getLines());
+				DataModelSnapshot additionalAssociations = new DataModelSnapshot();
+				additionalAssociations.addAssociations(new CsvFile(new File(additionalAssociationsFile)).getLines());
+				associationList.addAll(additionalAssociations.associations);
 			}
-			for (CsvFile.Line line: associationList) {
-				String location = line.location;
+			for (DataModelSnapshot.AssociationDefinition definition: associationList) {
+				String location = definition.location;
+				String[] cells = definition.cells;
 				try {
-					String associationLoadFailedMessage = "Unable to load association from " + line.cells.get(0) + " to " + line.cells.get(1) + " on " + line.cells.get(4) + " because: ";
-					String aName = line.cells.get(0);
+					String associationLoadFailedMessage = "Unable to load association from " + cells[0] + " to " + cells[1] + " on " + cells[4] + " because: ";
+					String aName = cells[0];
 					if (knownIdentifiers != null) {
 						aName = knownIdentifiers.getTableName(aName);
 						if (aName == null) {
-							aName = line.cells.get(0);
+							aName = cells[0];
 						}
 					}
 					Table tableA = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, aName));
 					if (tableA == null) {
 						 continue;
-//	                     throw new RuntimeException(associationLoadFailedMessage + "Table '" + line.cells.get(0) + "' not found");
+//	                     throw new RuntimeException(associationLoadFailedMessage + "Table '" + cells[0] + "' not found");
 					}
-					String bName = line.cells.get(1);
+					String bName = cells[1];
 					if (knownIdentifiers != null) {
 						bName = knownIdentifiers.getTableName(bName);
 						if (bName == null) {
-							bName = line.cells.get(1);
+							bName = cells[1];
 						}
 					}
 					Table tableB = tables.get(SqlUtil.mappedSchema(sourceSchemaMapping, bName));
 					if (tableB == null) {
 						continue;
-//	                	throw new RuntimeException(associationLoadFailedMessage + "Table '" + line.cells.get(1) + "' not found");
+//	                	throw new RuntimeException(associationLoadFailedMessage + "Table '" + cells[1] + "' not found");
 					}
-					boolean insertSourceBeforeDestination = "A".equalsIgnoreCase(line.cells.get(2));
-					boolean insertDestinationBeforeSource = "B".equalsIgnoreCase(line.cells.get(2));
-					Cardinality cardinality = Cardinality.parse(line.cells.get(3).trim());
+					boolean insertSourceBeforeDestination = "A".equalsIgnoreCase(cells[2]);
+					boolean insertDestinationBeforeSource = "B".equalsIgnoreCase(cells[2]);
+					Cardinality cardinality = Cardinality.parse(cells[3].trim());
 					if (cardinality == null) {
 						cardinality = Cardinality.MANY_TO_MANY;
 					}
 					String joinCondition = null;
 					if (knownIdentifiers != null) {
-						joinCondition = knownIdentifiers.getCondition(line.cells.get(4));
+						joinCondition = knownIdentifiers.getCondition(cells[4]);
 					}
 					if (joinCondition == null) {
-						joinCondition = line.cells.get(4);
+						joinCondition = cells[4];
 					}
-					String name = line.cells.get(5);
+					String name = cells[5];
 					if ("".equals(name)) {
 						name = null;
 					}
 					if (name == null) {
 						throw new RuntimeException(associationLoadFailedMessage + "Association name missing (column 6 is empty, each association must have an unique name)");
 					}
-					String author = line.cells.get(6);
+					String author = cells[6];
 					Association associationA = new Association(tableA, tableB, insertSourceBeforeDestination, insertDestinationBeforeSource, joinCondition, this, false, cardinality, author);
 					Association associationB = new Association(tableB, tableA, insertDestinationBeforeSource, insertSourceBeforeDestination, joinCondition, this, true, cardinality.reverse(), author);
 					associationA.reversalAssociation = associationB;
@@ -633,6 +603,83 @@ public class DataModel {
 		}
 	}
 
+	/**
+	 * Gets the parsed content of the files <code>table.csv</code>, <code>column.csv</code> and <code>association.csv</code>.
+	 * Uses a cached snapshot if {@link ExecutionContext#isUseDataModelCache()} is set.
+	 */
+	private DataModelSnapshot loadSnapshot(boolean failOnMissingTables, LineFilter assocFilter) throws IOException {
+		File tabFile = new File(getTablesFile(executionContext));
+		StringBuilder resourceName = new StringBuilder();
+		byte[] tablesContent = readModelFile(tabFile, resourceName);
+		if (failOnMissingTables && tablesContent == null) {
+			throw new RuntimeException("Data model not found: " + resourceName);
+		}
+		File colFile = new File(getColumnsFile(executionContext));
+		byte[] columnsContent = readModelFile(colFile, new StringBuilder());
+		File assFile = new File(getAssociationsFile(executionContext));
+		byte[] associationsContent = readModelFile(assFile, new StringBuilder());
+
+		File cacheFile = null;
+		if (executionContext.isUseDataModelCache() && assocFilter == null) {
+			cacheFile = DataModelSnapshot.getCacheFile(assFile.getPath(), tablesContent, columnsContent, associationsContent);
+			DataModelSnapshot snapshot = DataModelSnapshot.read(cacheFile);
+			if (snapshot != null) {
+				return snapshot;
+			}
+		}
+		DataModelSnapshot snapshot = new DataModelSnapshot();
+		snapshot.addTables(new CsvFile(asStream(tablesContent), null, tabFile.getPath(), null).getLines());
+		snapshot.addColumns(new CsvFile(asStream(columnsContent), null, colFile.getPath(), null).getLines());
+		snapshot.addAssociations(new CsvFile(asStream(associationsContent), null, assFile.getPath(), assocFilter).getLines());
+		if (cacheFile != null) {
+			snapshot.write(cacheFile);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Reads the content of a model file.
+	 *
+	 * @return the content or <code>null</code> if the file does not exist
+	 */
+	private byte[] readModelFile(File file, StringBuilder resourceName) throws IOException {
+		InputStream in = openModelFile(file, resourceName, false, executionContext);
+		if (in == null) {
+			return null;
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[64 * 1024];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static InputStream asStream(byte[] content) {
+		return content == null? null : new ByteArrayInputStream(content);
+	}
+
+	/**
+	 * Gets a copy of a column having another name.
+	 *
+	 * @param newName the new name or <code>null</code> to keep the name
+	 */
+	private static Column renamed(Column column, String newName) {
+		if (newName == null) {
+			return column;
+		}
+		Column result = new Column(newName, column.type, column.length, column.precision);
+		result.isNullable = column.isNullable;
+		result.isIdentityColumn = column.isIdentityColumn;
+		result.isVirtual = column.isVirtual;
+		return result;
+	}
+
 	private final List<Table> tableList = new ArrayList<Table>();
 	private final List<FilterTemplate> filterTemplates = new ArrayList<FilterTemplate>();
 
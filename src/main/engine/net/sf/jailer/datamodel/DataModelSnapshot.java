@@ -0,0 +1,383 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.datamodel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.JailerVersion;
+import net.sf.jailer.configuration.Configuration;
+import net.sf.jailer.util.CsvFile;
+import net.sf.jailer.util.Unmapper;
+
+/**
+ * Parsed content of the files <code>table.csv</code>, <code>column.csv</code> and <code>association.csv</code>.
+ * <br>
+ * Can be stored in a binary cache file which is keyed by the content of the files,
+ * so that a data model can be loaded without parsing the CSV files and the column declarations again.
+ *
+ * @author Ralf Wisser
+ */
+class DataModelSnapshot {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(DataModelSnapshot.class);
+
+	/**
+	 * Version of the file format. Must be incremented on each modification of the format or of the parsing.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x4A444D53;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int NULLABLE = 1;
+	private static final int IDENTITY = 2;
+	private static final int VIRTUAL = 4;
+
+	/**
+	 * Line of <code>table.csv</code>.
+	 */
+	static class TableDefinition {
+		final String name;
+		final boolean upsert;
+		final List<Column> primaryKey;
+		final String author;
+
+		TableDefinition(String name, boolean upsert, List<Column> primaryKey, String author) {
+			this.name = name;
+			this.upsert = upsert;
+			this.primaryKey = primaryKey;
+			this.author = author;
+		}
+	}
+
+	/**
+	 * Line of <code>column.csv</code>.
+	 */
+	static class ColumnsDefinition {
+		final String table;
+		final List<Column> columns;
+
+		ColumnsDefinition(String table, List<Column> columns) {
+			this.table = table;
+			this.columns = columns;
+		}
+	}
+
+	/**
+	 * Line of <code>association.csv</code>.
+	 */
+	static class AssociationDefinition {
+		/**
+		 * Table A, table B, first-insert, cardinality, join-condition, name and author.
+		 */
+		final String[] cells;
+		final String location;
+
+		AssociationDefinition(String[] cells, String location) {
+			this.cells = cells;
+			this.location = location;
+		}
+	}
+
+	final List<TableDefinition> tables = new ArrayList<TableDefinition>();
+	final List<ColumnsDefinition> columns = new ArrayList<ColumnsDefinition>();
+	final List<AssociationDefinition> associations = new ArrayList<AssociationDefinition>();
+
+	/**
+	 * Adds lines of <code>table.csv</code>.
+	 */
+	void addTables(List<CsvFile.Line> lines) {
+		for (CsvFile.Line line: lines) {
+			boolean upsert = "Y".equalsIgnoreCase(line.cells.get(1));
+			List<Column> pk = new ArrayList<Column>();
+			int j;
+			for (j = 2; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
+				try {
+					pk.add(Column.parse(line.cells.get(j).trim()));
+				} catch (Exception e) {
+					_log.warn("", e);
+					// ignore, was throw new RuntimeException("unable to load table '" + line.cells.get(0) + "'. " + line.location, e);
+				}
+			}
+			tables.add(new TableDefinition(line.cells.get(0), upsert, pk, line.cells.get(j + 1)));
+		}
+	}
+
+	/**
+	 * Adds lines of <code>column.csv</code>.
+	 */
+	void addColumns(List<CsvFile.Line> lines) {
+		for (CsvFile.Line line: lines) {
+			List<Column> tableColumns = new ArrayList<Column>();
+			for (int j = 1; j < line.cells.size() && line.cells.get(j).toString().length() > 0; ++j) {
+				try {
+					tableColumns.add(Column.parse(line.cells.get(j).trim()));
+				} catch (Throwable e) {
+					e.printStackTrace();
+					// ignore
+				}
+			}
+			columns.add(new ColumnsDefinition(line.cells.get(0), tableColumns));
+		}
+	}
+
+	/**
+	 * Adds lines of <code>association.csv</code>.
+	 */
+	void addAssociations(List<CsvFile.Line> lines) {
+		for (CsvFile.Line line: lines) {
+			String[] cells = new String[7];
+			for (int i = 0; i < cells.length; ++i) {
+				cells[i] = line.cells.get(i);
+			}
+			associations.add(new AssociationDefinition(cells, line.location));
+		}
+	}
+
+	/**
+	 * Gets the cache file for a snapshot of given model files.
+	 * The locations of the associations refer to the association file, so that its path is part of the key.
+	 *
+	 * @param associationsFile path of the association file
+	 * @param contents the contents of the model files, <code>null</code> for non-existing files
+	 * @return the cache file
+	 */
+	static File getCacheFile(String associationsFile, byte[]... contents) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update((FORMAT_VERSION + "/" + JailerVersion.VERSION + "/").getBytes(UTF8));
+			byte[] path = associationsFile.getBytes(UTF8);
+			digest.update((path.length + ":").getBytes(UTF8));
+			digest.update(path);
+			for (byte[] content: contents) {
+				digest.update((content == null? "-" : content.length + ":").getBytes(UTF8));
+				if (content != null) {
+					digest.update(content);
+				}
+			}
+			StringBuilder key = new StringBuilder();
+			for (byte b: digest.digest()) {
+				key.append(String.format("%02x", b & 0xff));
+			}
+			return new File(new File(Configuration.getInstance().getTempFileFolder(), "datamodel-cache"), key + ".bin");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Reads a snapshot from a cache file. The file is unmapped after reading.
+	 *
+	 * @param file the file
+	 * @return the snapshot or <code>null</code> if the file does not exist or cannot be read
+	 */
+	static DataModelSnapshot read(File file) {
+		if (!file.exists()) {
+			return null;
+		}
+		try {
+			RandomAccessFile in = new RandomAccessFile(file, "r");
+			ByteBuffer buffer = null;
+			try {
+				FileChannel channel = in.getChannel();
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+					return null;
+				}
+				String[] strings = new String[buffer.getInt()];
+				for (int i = 0; i < strings.length; ++i) {
+					int length = buffer.getInt();
+					if (length >= 0) {
+						byte[] bytes = new byte[length];
+						buffer.get(bytes);
+						strings[i] = new String(bytes, UTF8);
+					}
+				}
+				DataModelSnapshot snapshot = new DataModelSnapshot();
+				for (int n = buffer.getInt(); n > 0; --n) {
+					String name = strings[buffer.getInt()];
+					boolean upsert = buffer.get() != 0;
+					String author = strings[buffer.getInt()];
+					snapshot.tables.add(new TableDefinition(name, upsert, readColumns(buffer, strings), author));
+				}
+				for (int n = buffer.getInt(); n > 0; --n) {
+					String table = strings[buffer.getInt()];
+					snapshot.columns.add(new ColumnsDefinition(table, readColumns(buffer, strings)));
+				}
+				for (int n = buffer.getInt(); n > 0; --n) {
+					String[] cells = new String[7];
+					for (int i = 0; i < cells.length; ++i) {
+						cells[i] = strings[buffer.getInt()];
+					}
+					snapshot.associations.add(new AssociationDefinition(cells, strings[buffer.getInt()]));
+				}
+				return snapshot;
+			} finally {
+				in.close();
+				if (buffer != null) {
+					Unmapper.unmap(buffer);
+				}
+			}
+		} catch (Exception e) {
+			_log.warn("can't read data model cache file " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	private static List<Column> readColumns(ByteBuffer buffer, String[] strings) {
+		int n = buffer.getInt();
+		List<Column> result = new ArrayList<Column>(n);
+		for (int i = 0; i < n; ++i) {
+			Column column = new Column(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(), buffer.getInt());
+			int flags = buffer.get();
+			column.isNullable = (flags & NULLABLE) != 0;
+			column.isIdentityColumn = (flags & IDENTITY) != 0;
+			column.isVirtual = (flags & VIRTUAL) != 0;
+			result.add(column);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the snapshot into a cache file. The file is written under a temporary name and renamed afterwards,
+	 * so that concurrent readers never see an incomplete file.
+	 *
+	 * @param file the file
+	 */
+	void write(File file) {
+		File tmpFile = new File(file.getParentFile(), file.getName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			file.getParentFile().mkdirs();
+			final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+			final List<String> strings = new ArrayList<String>();
+			StringIndex index = new StringIndex() {
+				@Override
+				public int of(String s) {
+					Integer i = stringIndex.get(s);
+					if (i == null) {
+						i = strings.size();
+						stringIndex.put(s, i);
+						strings.add(s);
+					}
+					return i;
+				}
+			};
+			index.of(null);
+			for (TableDefinition table: tables) {
+				index.of(table.name);
+				index.of(table.author);
+				for (Column column: table.primaryKey) {
+					index.of(column.name);
+					index.of(column.type);
+				}
+			}
+			for (ColumnsDefinition definition: columns) {
+				index.of(definition.table);
+				for (Column column: definition.columns) {
+					index.of(column.name);
+					index.of(column.type);
+				}
+			}
+			for (AssociationDefinition association: associations) {
+				for (String cell: association.cells) {
+					index.of(cell);
+				}
+				index.of(association.location);
+			}
+
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(strings.size());
+				for (String s: strings) {
+					if (s == null) {
+						out.writeInt(-1);
+					} else {
+						byte[] bytes = s.getBytes(UTF8);
+						out.writeInt(bytes.length);
+						out.write(bytes);
+					}
+				}
+				out.writeInt(tables.size());
+				for (TableDefinition table: tables) {
+					out.writeInt(index.of(table.name));
+					out.writeByte(table.upsert? 1 : 0);
+					out.writeInt(index.of(table.author));
+					writeColumns(out, table.primaryKey, index);
+				}
+				out.writeInt(columns.size());
+				for (ColumnsDefinition definition: columns) {
+					out.writeInt(index.of(definition.table));
+					writeColumns(out, definition.columns, index);
+				}
+				out.writeInt(associations.size());
+				for (AssociationDefinition association: associations) {
+					for (String cell: association.cells) {
+						out.writeInt(index.of(cell));
+					}
+					out.writeInt(index.of(association.location));
+				}
+			} finally {
+				out.close();
+			}
+			if (!tmpFile.renameTo(file)) {
+				tmpFile.delete();
+			}
+		} catch (IOException e) {
+			tmpFile.delete();
+			_log.warn("can't write data model cache file " + file + ": " + e.getMessage());
+		}
+	}
+
+	private interface StringIndex {
+		int of(String s);
+	}
+
+	private static void writeColumns(DataOutputStream out, List<Column> columns, StringIndex index) throws IOException {
+		out.writeInt(columns.size());
+		for (Column column: columns) {
+			out.writeInt(index.of(column.name));
+			out.writeInt(index.of(column.type));
+			out.writeInt(column.length);
+			out.writeInt(column.precision);
+			out.writeByte((column.isNullable? NULLABLE : 0) | (column.isIdentityColumn? IDENTITY : 0) | (column.isVirtual? VIRTUAL : 0));
+		}
+	}
+
+}
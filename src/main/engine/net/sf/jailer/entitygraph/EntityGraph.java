@@ -18,8 +18,12 @@ package net.sf.jailer.entitygraph;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,6 +32,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.configuration.LimitTransactionSizeInfo;
+import net.sf.jailer.database.InlineViewBlockSize;
 import net.sf.jailer.database.SQLDialect;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.Session.ResultSetReader;
@@ -40,6 +45,7 @@ import net.sf.jailer.extractionmodel.SubjectLimitDefinition;
 import net.sf.jailer.importfilter.ImportFilterManager;
 import net.sf.jailer.subsetting.TransformerFactory;
 import net.sf.jailer.util.JobManager;
+import net.sf.jailer.util.TopologicalLevels;
 
 /**
  * Persistent graph of entities.
@@ -68,6 +74,13 @@ public abstract class EntityGraph {
 	 */
 	public static final String DEPENDENCY = "JAILER_DEPENDENCY";
 
+	/**
+	 * Alias of the column holding the index of the entity on which a dependent entity depends.
+	 *
+	 * @see #readDependentEntities(Table, Association, List, ResultSetReader, String, String)
+	 */
+	public static final String PARENT_INDEX = "J_PARENT_INDEX";
+
 	/**
 	 * Sets birthday of subject rows.
 	 *
@@ -171,6 +184,338 @@ public abstract class EntityGraph {
 		return total[0];
 	}
 
+	/**
+	 * Birthday of entities which have been written by level.
+	 *
+	 * @see #markWrittenEntities(Table)
+	 */
+	private static final int WRITTEN_BIRTHDAY = -1;
+
+	/**
+	 * Maximum number of parameters of an update marking entities with their insertion level.
+	 */
+	private static final int MAX_UPDATE_PARAMETERS = 1000;
+
+	/**
+	 * Gets the (negative) birthday marking entities of a given insertion level.
+	 */
+	private static int levelBirthday(int level) {
+		return WRITTEN_BIRTHDAY - 1 - level;
+	}
+
+	/**
+	 * Maps the primary keys of entities to the ids <code>0 .. n-1</code>.
+	 * The keys are kept in flat arrays and found by open addressing, so that no object is created per entity.
+	 */
+	private static class EntityIndex {
+		private final int keyLength;
+		private int size = 0;
+		private int[] types = new int[1024];
+		private int[] hashCodes = new int[1024];
+		private Object[] values;
+		private int[] slots = new int[2048];
+
+		EntityIndex(int keyLength) {
+			this.keyLength = keyLength;
+			this.values = new Object[1024 * keyLength];
+		}
+
+		int size() {
+			return size;
+		}
+
+		int getType(int id) {
+			return types[id];
+		}
+
+		Object getValue(int id, int column) {
+			return values[id * keyLength + column];
+		}
+
+		/**
+		 * Adds an entity.
+		 *
+		 * @return the id of the entity
+		 */
+		int add(int type, Object[] key) {
+			if (size == types.length) {
+				types = Arrays.copyOf(types, 2 * size);
+				hashCodes = Arrays.copyOf(hashCodes, 2 * size);
+				values = Arrays.copyOf(values, 2 * size * keyLength);
+			}
+			if (2 * (size + 1) > slots.length) {
+				slots = new int[2 * slots.length];
+				for (int id = 0; id < size; ++id) {
+					slots[freeSlot(hashCodes[id])] = id + 1;
+				}
+			}
+			int hashCode = hashCode(type, key);
+			types[size] = type;
+			hashCodes[size] = hashCode;
+			System.arraycopy(key, 0, values, size * keyLength, keyLength);
+			slots[freeSlot(hashCode)] = size + 1;
+			return size++;
+		}
+
+		/**
+		 * Gets the id of an entity.
+		 *
+		 * @return the id or <code>-1</code> if the entity is unknown
+		 */
+		int indexOf(int type, Object[] key) {
+			int hashCode = hashCode(type, key);
+			for (int slot = hashCode & (slots.length - 1); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+				int id = slots[slot] - 1;
+				if (hashCodes[id] == hashCode && types[id] == type && keyEquals(id, key)) {
+					return id;
+				}
+			}
+			return -1;
+		}
+
+		private int freeSlot(int hashCode) {
+			int slot = hashCode & (slots.length - 1);
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & (slots.length - 1);
+			}
+			return slot;
+		}
+
+		private boolean keyEquals(int id, Object[] key) {
+			for (int i = 0; i < keyLength; ++i) {
+				Object value = values[id * keyLength + i];
+				if (value == null? key[i] != null : !value.equals(key[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int hashCode(int type, Object[] key) {
+			int hashCode = 31 * type + Arrays.hashCode(key);
+			return hashCode ^ (hashCode >>> 16);
+		}
+	}
+
+	/**
+	 * Sorts the entities of given tables topologically in memory according to the dependencies between them
+	 * and marks each entity with its insertion level. Level 0 contains the independent entities,
+	 * entities of level <code>n</code> depend on entities of lower levels only.
+	 * Entities which are part of a cycle (or depend on such an entity) are not marked.
+	 * <br>
+	 * The dependencies are read once, so that the levels can be written without
+	 * re-evaluating the dependencies per level (see {@link #markIndependentEntities(Table)}).
+	 * The entities of a level are marked with updates listing up to {@value #MAX_UPDATE_PARAMETERS} key values each.
+	 *
+	 * @param tables the tables
+	 * @param maxEntities maximum number of entities to be sorted in memory
+	 * @return for each level the tables having entities of this level, or <code>null</code> if the entities cannot be sorted this way
+	 */
+	public List<Set<Table>> markInsertionLevels(final Set<Table> tables, final long maxEntities) throws SQLException {
+		final List<Column> columns = getUniversalPrimaryKey().getColumns();
+		final EntityIndex entities = new EntityIndex(columns.size());
+		final boolean[] rejected = new boolean[1];
+		StringBuilder types = new StringBuilder();
+		StringBuilder entityColumns = new StringBuilder();
+		StringBuilder dependencyColumns = new StringBuilder();
+		for (Table table: tables) {
+			if (types.length() > 0) {
+				types.append(", ");
+			}
+			types.append(typeName(table));
+		}
+		for (Column column: columns) {
+			entityColumns.append(", " + column.name);
+			dependencyColumns.append(", FROM_" + column.name);
+		}
+		dependencyColumns.append(", to_type");
+		for (Column column: columns) {
+			dependencyColumns.append(", TO_" + column.name);
+		}
+
+		getSession().executeQuery("Select type, birthday" + entityColumns + " From " + dmlTableReference(ENTITY, getSession()) +
+				" Where r_entitygraph=" + graphID + " and type in (" + types + ")", new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				if (resultSet.getInt(2) <= 0 || entities.size() >= maxEntities) {
+					// entities are marked otherwise or too many entities
+					rejected[0] = true;
+				}
+				if (!rejected[0]) {
+					entities.add(resultSet.getInt(1), readKey(resultSet, 3));
+				}
+			}
+		}, null, null, maxEntities < Integer.MAX_VALUE? maxEntities + 1 : 0, false);
+		if (rejected[0]) {
+			return null;
+		}
+
+		final TopologicalLevels graph = new TopologicalLevels(entities.size());
+		getSession().executeQuery("Select from_type" + dependencyColumns + " From " + dmlTableReference(DEPENDENCY, getSession()) +
+				" Where r_entitygraph=" + graphID + " and assoc=0 and from_type in (" + types + ")", new Session.AbstractResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				int from = entities.indexOf(resultSet.getInt(1), readKey(resultSet, 2));
+				if (from >= 0) {
+					int toType = resultSet.getInt(columns.size() + 2);
+					int to = resultSet.wasNull()? -1 : entities.indexOf(toType, readKey(resultSet, columns.size() + 3));
+					if (to >= 0) {
+						graph.addEdge(from, to);
+					} else {
+						graph.addEdgeToUnknownNode(from);
+					}
+				}
+			}
+		});
+		int[] level = graph.computeLevels();
+
+		// group the entities by level, table and the key columns being null
+		List<Set<Table>> levelTables = new ArrayList<Set<Table>>();
+		Map<String, Integer> groups = new LinkedHashMap<String, Integer>();
+		int[] groupOf = new int[level.length];
+		int[] groupSize = new int[16];
+		for (int i = 0; i < level.length; ++i) {
+			if (level[i] == TopologicalLevels.NO_LEVEL) {
+				groupOf[i] = -1;
+				continue;
+			}
+			while (levelTables.size() <= level[i]) {
+				levelTables.add(new HashSet<Table>());
+			}
+			levelTables.get(level[i]).add(dataModel.getTableByOrdinal(entities.getType(i)));
+			StringBuilder groupKey = new StringBuilder(level[i] + " " + entities.getType(i) + " ");
+			for (int c = 0; c < columns.size(); ++c) {
+				groupKey.append(entities.getValue(i, c) == null? '0' : '1');
+			}
+			Integer group = groups.get(groupKey.toString());
+			if (group == null) {
+				group = groups.size();
+				groups.put(groupKey.toString(), group);
+				if (group == groupSize.length) {
+					groupSize = Arrays.copyOf(groupSize, 2 * group);
+				}
+			}
+			groupOf[i] = group;
+			++groupSize[group];
+		}
+		int[] groupStart = new int[groups.size() + 1];
+		for (int group = 0; group < groups.size(); ++group) {
+			groupStart[group + 1] = groupStart[group] + groupSize[group];
+		}
+		int[] ids = new int[groupStart[groups.size()]];
+		int[] next = Arrays.copyOf(groupStart, groups.size());
+		for (int i = 0; i < level.length; ++i) {
+			if (groupOf[i] >= 0) {
+				ids[next[groupOf[i]]++] = i;
+			}
+		}
+		for (int group = 0; group < groups.size(); ++group) {
+			markInsertionLevel(entities, ids, groupStart[group], groupStart[group + 1], level[ids[groupStart[group]]], columns);
+		}
+		return levelTables;
+	}
+
+	/**
+	 * Marks entities of the same level and table whose keys are null in the same columns with their insertion level.
+	 *
+	 * @param entities the entities
+	 * @param ids the ids of the entities
+	 * @param from index of the first id of the entities to mark
+	 * @param to index after the last id of the entities to mark
+	 * @param level the level
+	 * @param columns the universal primary key columns
+	 */
+	private void markInsertionLevel(EntityIndex entities, int[] ids, int from, int to, int level, List<Column> columns) throws SQLException {
+		StringBuilder update = new StringBuilder("Update " + dmlTableReference(ENTITY, getSession()) + " set birthday=" + levelBirthday(level) +
+				" Where r_entitygraph=" + graphID + " and type=" + typeName(dataModel.getTableByOrdinal(entities.getType(ids[from]))));
+		List<Integer> keyColumns = new ArrayList<Integer>();
+		for (int c = 0; c < columns.size(); ++c) {
+			if (entities.getValue(ids[from], c) == null) {
+				update.append(" and " + columns.get(c).name + " is null");
+			} else {
+				keyColumns.add(c);
+			}
+		}
+		if (keyColumns.isEmpty()) {
+			getSession().executeUpdate(update.toString());
+			return;
+		}
+		int keysPerUpdate = Math.max(1, MAX_UPDATE_PARAMETERS / keyColumns.size());
+		for (int start = from; start < to; start += keysPerUpdate) {
+			int end = Math.min(to, start + keysPerUpdate);
+			StringBuilder condition = new StringBuilder();
+			Object[] parameter = new Object[(end - start) * keyColumns.size()];
+			int p = 0;
+			for (int i = start; i < end; ++i) {
+				if (keyColumns.size() == 1) {
+					condition.append(i > start? ", ?" : "?");
+				} else {
+					condition.append(i > start? " or (" : "(");
+					for (int k = 0; k < keyColumns.size(); ++k) {
+						condition.append((k > 0? " and " : "") + columns.get(keyColumns.get(k)).name + "=?");
+					}
+					condition.append(")");
+				}
+				for (int c: keyColumns) {
+					parameter[p++] = entities.getValue(ids[i], c);
+				}
+			}
+			if (keyColumns.size() == 1) {
+				getSession().executeUpdate(update + " and " + columns.get(keyColumns.get(0)).name + " in (" + condition + ")", parameter);
+			} else {
+				getSession().executeUpdate(update + " and (" + condition + ")", parameter);
+			}
+		}
+	}
+
+	/**
+	 * Reads the universal primary key from a result set.
+	 */
+	private Object[] readKey(ResultSet resultSet, int firstColumn) throws SQLException {
+		int n = getUniversalPrimaryKey().getColumns().size();
+		Object[] key = new Object[n];
+		for (int i = 0; i < n; ++i) {
+			key[i] = resultSet.getObject(firstColumn + i);
+		}
+		return key;
+	}
+
+	/**
+	 * Marks the entities of given table and insertion level as independent.
+	 *
+	 * @param table the table
+	 * @param level the level
+	 * @see #markInsertionLevels(Set, long)
+	 */
+	public void markEntitiesOfInsertionLevel(Table table, int level) throws SQLException {
+		changeBirthday(table, levelBirthday(level), 0);
+	}
+
+	/**
+	 * Marks the independent entities of given table as written.
+	 * Written entities are ignored by {@link #readMarkedEntities(Table, boolean)} and {@link #getSize(Set)}.
+	 *
+	 * @param table the table
+	 */
+	public void markWrittenEntities(Table table) throws SQLException {
+		changeBirthday(table, 0, WRITTEN_BIRTHDAY);
+	}
+
+	/**
+	 * Marks the written entities of given table as independent again
+	 * so that they can be deleted using {@link #deleteIndependentEntities(Table)}.
+	 *
+	 * @param table the table
+	 */
+	public void unmarkWrittenEntities(Table table) throws SQLException {
+		changeBirthday(table, WRITTEN_BIRTHDAY, 0);
+	}
+
+	private void changeBirthday(Table table, int oldBirthday, int newBirthday) throws SQLException {
+		getSession().executeUpdate("Update " + dmlTableReference(ENTITY, getSession()) + " set birthday=" + newBirthday +
+				" Where r_entitygraph=" + graphID + " and type=" + typeName(table) + " and birthday=" + oldBirthday);
+	}
+
 	/**
 	 * Deletes the graph.
 	 */
@@ -336,23 +681,24 @@ public abstract class EntityGraph {
 	public abstract long removeAssociatedDestinations(Association association, boolean deletedEntitiesAreMarked, Set<Table> allTables) throws SQLException;
 
 	/**
-	 * Reads all entities which depends on given entity.
+	 * Reads all entities which depend on one of a block of given entities with a single query.
+	 * Each row read contains the index (within the block) of the given entity it depends on in column {@link #PARENT_INDEX}.
 	 *
 	 * @param table the table from which to read entities
 	 * @param association the dependency
-	 * @param resultSet current row is given entity
+	 * @param parentKeys primary key values of the given entities, ordered like the primary key columns of the association's source
 	 * @param reader reads the entities
 	 * @param selectionSchema the selection schema
 	 */
-	public abstract void readDependentEntities(Table table, Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, ResultSetReader reader, Map<String, Integer> typeCache, String selectionSchema, String originalPKAliasPrefix) throws SQLException;
+	public abstract void readDependentEntities(Table table, Association association, List<Object[]> parentKeys, ResultSetReader reader, String selectionSchema, String originalPKAliasPrefix) throws SQLException;
 
 	/**
-	 * Marks all entities which depends on given entity as traversed.
+	 * Marks all entities which depend on one of a block of given entities as traversed.
 	 *
 	 * @param association the dependency
-	 * @param resultSet current row is given entity
+	 * @param parentKeys primary key values of the given entities, ordered like the primary key columns of the association's source
 	 */
-	public abstract void markDependentEntitiesAsTraversed(Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, Map<String, Integer> typeCache) throws SQLException;
+	public abstract void markDependentEntitiesAsTraversed(Association association, List<Object[]> parentKeys) throws SQLException;
 
 	/**
 	 * Reads all non-traversed dependencies.
@@ -376,6 +722,16 @@ public abstract class EntityGraph {
 	 */
 	public abstract long getTotalRowcount();
 
+	/**
+	 * Gets the number of rows inserted into the dependency table.
+	 * These rows are included in the {@link #getTotalRowcount() total row-count}.
+	 *
+	 * @return number of rows inserted into the dependency table
+	 */
+	public long getDependencyRowcount() {
+		return 0;
+	}
+
 	/**
 	 * Gets the universal primary key.
 	 *
@@ -422,6 +778,15 @@ public abstract class EntityGraph {
 	 */
 	abstract public void close() throws SQLException;
 
+	/**
+	 * Gets the sizes of the inline-views used for transferring rows between databases.
+	 *
+	 * @return block sizes per database
+	 */
+	public Map<String, InlineViewBlockSize> getInlineViewBlockSizes() {
+		return Collections.emptyMap();
+	}
+
 	/**
 	 * Removes all dependencies for a given association.
 	 *
@@ -19,10 +19,22 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
@@ -32,6 +44,7 @@ import net.sf.jailer.database.Session;
 import net.sf.jailer.database.SqlException;
 import net.sf.jailer.database.StatementBuilder;
 import net.sf.jailer.database.UpdateTransformer;
+import net.sf.jailer.database.WorkingTableScope;
 import net.sf.jailer.datamodel.Column;
 import net.sf.jailer.datamodel.DataModel;
 import net.sf.jailer.datamodel.Filter;
@@ -39,6 +52,8 @@ import net.sf.jailer.datamodel.PrimaryKey;
 import net.sf.jailer.datamodel.Table;
 import net.sf.jailer.entitygraph.EntityGraph;
 import net.sf.jailer.entitygraph.remote.RemoteEntityGraph;
+import net.sf.jailer.util.CancellationException;
+import net.sf.jailer.util.CellContentConverter;
 import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.LogUtil;
 import net.sf.jailer.util.Quoting;
@@ -55,6 +70,11 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 
 	private boolean upsertOnly;
 
+	/**
+	 * Maximum number of attempts to copy a chunk of rows.
+	 */
+	private static final int MAX_CHUNK_ATTEMPTS = 3;
+
 	/**
 	 * Constructor.
 	 *
@@ -85,6 +105,7 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 			}
 		}
 		quoting = Quoting.getQuoting(session);
+		chunkExecutor = new ChunkExecutor(session, executionContext.getNumberOfThreads());
 	}
 
 	private Quoting quoting = null;
@@ -123,6 +144,9 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 		IntraDatabaseEntityGraph entityGraph = create(dataModel, newGraphID,
 				session, universalPrimaryKey, null, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
+		if (entityGraph.session == this.session) {
+			entityGraph.chunkExecutor = chunkExecutor;
+		}
 		session.executeUpdate("Insert into "
 				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext)
 				+ "(r_entitygraph, " + universalPrimaryKey.columnList(null)
@@ -142,6 +166,7 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 		IntraDatabaseEntityGraph entityGraph = create(dataModel, createUniqueGraphID(),
 				session, universalPrimaryKey, null, executionContext);
 		entityGraph.setBirthdayOfSubject(birthdayOfSubject);
+		entityGraph.chunkExecutor = chunkExecutor;
 		return entityGraph;
 	}
 
@@ -159,13 +184,11 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 	@Override
 	public void readMarkedEntities(Table table, boolean orderByPK)
 			throws SQLException {
-		String selectionSchema = filteredSelectionClause(table, COLUMN_PREFIX, quoting, true);
-		readEntitiesByQuery(table, "Select " + selectionSchema + " From "
-				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E join "
-				+ quoting.requote(table.getName()) + " T on "
-				+ pkEqualsEntityID(table, "T", "E")
-				+ " Where (E.birthday=0 and E.r_entitygraph=" + graphID
-				+ " and E.type=" + typeName(table) + ")");
+		String entityCondition = "E.birthday=0 and E.r_entitygraph=" + graphID
+				+ " and E.type=" + typeName(table);
+		if (!readEntitiesInChunks(table, entityCondition)) {
+			readEntitiesByQuery(table, entitiesQuery(table, entityCondition));
+		}
 	}
 
 	/**
@@ -202,13 +225,421 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 				}
 			}
 		} else {
-			readEntitiesByQuery(table, "Select " + filteredSelectionClause(table, COLUMN_PREFIX, quoting, true) + " From "
+			String entityCondition = "E.birthday>=0 and E.r_entitygraph=" + graphID
+					+ " and E.type=" + typeName(table);
+			if (!readEntitiesInChunks(table, entityCondition)) {
+				readEntitiesByQuery(table, entitiesQuery(table, entityCondition));
+			}
+		}
+	}
+
+	/**
+	 * Gets the query which selects the rows of a table for the entities fulfilling a condition.
+	 *
+	 * @param table the table
+	 * @param entityCondition condition on the entities (alias "E")
+	 */
+	private String entitiesQuery(Table table, String entityCondition) throws SQLException {
+		return "Select " + filteredSelectionClause(table, COLUMN_PREFIX, quoting, true) + " From "
 				+ SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E join "
 				+ quoting.requote(table.getName()) + " T on "
 				+ pkEqualsEntityID(table, "T", "E")
-				+ " Where (E.birthday>=0 and E.r_entitygraph=" + graphID
-				+ " and E.type=" + typeName(table) + ")");
+				+ " Where (" + entityCondition + ")";
+	}
+
+	/**
+	 * Copies the rows of a table in chunks of at most {@link ExecutionContext#getIntraDatabaseChunkSize()} rows.
+	 * The entities are split into ranges of the universal primary key. The chunks are copied in parallel by the
+	 * {@link ChunkExecutor} of the export, each with a single statement in its own transaction.
+	 * Chunks are not used if the working tables are temporary tables, because all threads then share one connection.
+	 *
+	 * @param table the table
+	 * @param entityCondition condition on the entities (alias "E")
+	 * @return <code>false</code> if the rows cannot or need not to be copied in chunks
+	 */
+	private boolean readEntitiesInChunks(final Table table, String entityCondition) throws SQLException {
+		int chunkSize = executionContext.getIntraDatabaseChunkSize();
+		if (chunkSize <= 0 || executionContext.getTransactional() || hasIdentityColumn(table)) {
+			return false;
+		}
+		if (session.scope == WorkingTableScope.SESSION_LOCAL || session.scope == WorkingTableScope.TRANSACTION_LOCAL) {
+			return false;
+		}
+		List<Column> keyColumns = new ArrayList<Column>();
+		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
+		for (Column column: universalPrimaryKey.getColumns()) {
+			if (match.get(column) != null) {
+				keyColumns.add(column);
+			}
+		}
+		if (keyColumns.isEmpty()) {
+			return false;
+		}
+		String from = " From " + SQLDialect.dmlTableReference(ENTITY, session, executionContext) + " E Where (" + entityCondition + ")";
+		List<String[]> bounds = readChunkBounds(session, keyColumns, from, chunkSize);
+		if (bounds == null || bounds.isEmpty()) {
+			return false;
+		}
+
+		List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+		for (String chunkCondition: chunkConditions(keyColumns, bounds, entityCondition)) {
+			final String sql = entitiesQuery(table, chunkCondition);
+			jobs.add(new JobManager.Job() {
+				@Override
+				public void run() throws SQLException {
+					readChunk(table, sql);
+				}
+			});
+		}
+		chunkExecutor.executeJobs(jobs);
+		return true;
+	}
+
+	/**
+	 * Executes the chunk-copying jobs of all tables of an export. The threads (and with them the connections)
+	 * are bounded by {@link ExecutionContext#getNumberOfThreads()} and are shared by all graphs derived from the same graph.
+	 * Each thread closes its connection when the executor is shut down.
+	 */
+	private static class ChunkExecutor {
+		private final Session session;
+		private final int numberOfThreads;
+		private ExecutorService executor;
+		private final List<Thread> threads = new ArrayList<Thread>();
+
+		ChunkExecutor(Session session, int numberOfThreads) {
+			this.session = session;
+			this.numberOfThreads = Math.max(1, numberOfThreads);
+		}
+
+		/**
+		 * Executes jobs and waits until all of them are finished.
+		 *
+		 * @param jobs the jobs
+		 */
+		void executeJobs(List<JobManager.Job> jobs) throws SQLException {
+			ExecutorService theExecutor = getExecutor();
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final JobManager.Job job: jobs) {
+				futures.add(theExecutor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						job.run();
+						return null;
+					}
+				}));
+			}
+			Throwable error = null;
+			for (Future<?> future: futures) {
+				try {
+					if (error != null) {
+						future.cancel(false);
+					}
+					future.get();
+				} catch (java.util.concurrent.CancellationException e) {
+					// job skipped after an error
+				} catch (ExecutionException e) {
+					if (error == null) {
+						error = e.getCause();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new CancellationException();
+				}
+			}
+			if (error != null) {
+				if (error instanceof SQLException) {
+					throw (SQLException) error;
+				}
+				if (error instanceof RuntimeException) {
+					throw (RuntimeException) error;
+				}
+				throw new RuntimeException(error);
+			}
+		}
+
+		private synchronized ExecutorService getExecutor() {
+			if (executor == null) {
+				executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+					@Override
+					public Thread newThread(final Runnable r) {
+						Thread thread = new Thread(new Runnable() {
+							@Override
+							public void run() {
+								try {
+									r.run();
+								} finally {
+									session.closeConnection();
+								}
+							}
+						}, "chunk-copier-" + threads.size());
+						thread.setDaemon(true);
+						threads.add(thread);
+						return thread;
+					}
+				});
+			}
+			return executor;
+		}
+
+		/**
+		 * Stops the threads and waits until they have closed their connections.
+		 */
+		void shutDown() {
+			ExecutorService theExecutor;
+			List<Thread> theThreads;
+			synchronized (this) {
+				theExecutor = executor;
+				theThreads = new ArrayList<Thread>(threads);
+				executor = null;
+				threads.clear();
+			}
+			if (theExecutor != null) {
+				theExecutor.shutdown();
+				try {
+					for (Thread thread: theThreads) {
+						thread.join();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private ChunkExecutor chunkExecutor;
+
+	/**
+	 * Stops the threads copying chunks of rows and closes their connections.
+	 */
+	@Override
+	public void close() throws SQLException {
+		chunkExecutor.shutDown();
+		super.close();
+	}
+
+	/**
+	 * Copies one chunk of rows. The chunk is copied with a single statement in its own transaction,
+	 * so a failed attempt leaves nothing behind. Only attempts which failed because of a transient error are repeated.
+	 *
+	 * @param table the table
+	 * @param sql retrieves the rows of the chunk
+	 */
+	private void readChunk(Table table, String sql) throws SQLException {
+		boolean upsert = table.getUpsert() || upsertOnly;
+		for (int attempt = 1; ; ++attempt) {
+			try {
+				long rc;
+				if (upsert) {
+					rc = upsertRows(table, sql, true);
+				} else {
+					rc = insertRows(table, sql);
+				}
+				executionContext.getProgressListenerRegistry().fireExported(table, rc);
+				addExportedCount(rc);
+				return;
+			} catch (SQLException e) {
+				if (attempt >= MAX_CHUNK_ATTEMPTS || !isTransient(e)) {
+					throw e;
+				}
+				Session._log.warn("failed to copy chunk of table " + table.getName() + " (attempt " + attempt + "): " + e.getMessage());
+				if (isConnectionLost(e)) {
+					session.closeConnection();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks whether an error is transient (deadlock, serialization failure, timeout or lost connection),
+	 * so that the failed statement can be repeated.
+	 */
+	static boolean isTransient(SQLException e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+				return true;
+			}
+			if (t instanceof SQLException) {
+				String sqlState = ((SQLException) t).getSQLState();
+				if (sqlState != null && (sqlState.startsWith("40") || sqlState.startsWith("08") || "HYT00".equals(sqlState) || "HYT01".equals(sqlState))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether an error is caused by a lost connection.
+	 */
+	private static boolean isConnectionLost(SQLException e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof SQLRecoverableException || t instanceof SQLNonTransientConnectionException || t instanceof SQLTransientConnectionException) {
+				return true;
+			}
+			if (t instanceof SQLException && ((SQLException) t).getSQLState() != null && ((SQLException) t).getSQLState().startsWith("08")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the conditions selecting the entities of the chunks. The first chunk has no lower bound, the last one no upper bound.
+	 *
+	 * @param keyColumns the universal primary key columns of the table
+	 * @param bounds the upper bounds (inclusive) of the chunks except the last one
+	 * @param entityCondition condition on the entities (alias "E")
+	 * @return one condition per chunk
+	 */
+	static List<String> chunkConditions(List<Column> keyColumns, List<String[]> bounds, String entityCondition) {
+		List<String> conditions = new ArrayList<String>();
+		for (int i = 0; i <= bounds.size(); ++i) {
+			String chunkCondition = entityCondition;
+			if (i > 0) {
+				chunkCondition += " and " + keyComparison(keyColumns, bounds.get(i - 1), true);
+			}
+			if (i < bounds.size()) {
+				chunkCondition += " and " + keyComparison(keyColumns, bounds.get(i), false);
+			}
+			conditions.add(chunkCondition);
 		}
+		return conditions;
+	}
+
+	/**
+	 * Reads the upper bounds (inclusive) of the key ranges of the chunks. The last chunk has no upper bound.
+	 * Tries to let the database compute the bounds using the row number, otherwise reads all keys.
+	 *
+	 * @param session the session
+	 * @param keyColumns the universal primary key columns of the table
+	 * @param from from- and where-clause selecting the entities (alias "E")
+	 * @param chunkSize number of rows per chunk
+	 * @return the bounds as SQL literals, or <code>null</code> if a key is <code>null</code>
+	 */
+	static List<String[]> readChunkBounds(final Session session, final List<Column> keyColumns, String from, final int chunkSize) throws SQLException {
+		StringBuilder entityKeys = new StringBuilder();
+		StringBuilder keys = new StringBuilder();
+		StringBuilder nullKey = new StringBuilder();
+		for (Column column: keyColumns) {
+			if (keys.length() > 0) {
+				entityKeys.append(", ");
+				keys.append(", ");
+				nullKey.append(" or ");
+			}
+			entityKeys.append("E." + column.name);
+			keys.append("Q." + column.name);
+			nullKey.append("E." + column.name + " is null");
+		}
+		final List<String[]> bounds = new ArrayList<String[]>();
+		final boolean[] hasNull = new boolean[1];
+		class BoundsReader implements Session.ResultSetReader {
+			final boolean filter;
+			long rowNumber = 0;
+			CellContentConverter cellContentConverter;
+
+			BoundsReader(boolean filter) {
+				this.filter = filter;
+			}
+
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				if (cellContentConverter == null) {
+					cellContentConverter = new CellContentConverter(resultSet.getMetaData(), session, session.dbms);
+				}
+				String[] bound = new String[keyColumns.size()];
+				for (int i = 0; i < bound.length; ++i) {
+					Object value = cellContentConverter.getObject(resultSet, i + 1);
+					if (value == null) {
+						hasNull[0] = true;
+					}
+					bound[i] = cellContentConverter.toSql(value);
+				}
+				if (!filter) {
+					// number of entities having a null key
+					if (resultSet.getLong(bound.length + 1) > 0) {
+						hasNull[0] = true;
+					}
+				} else if (++rowNumber % chunkSize != 0) {
+					return;
+				}
+				bounds.add(bound);
+			}
+
+			@Override
+			public void close() {
+			}
+		}
+
+		boolean silent = session.getSilent();
+		session.setSilent(true);
+		try {
+			session.executeQuery("Select " + keys + ", Q.JL_NULLS From (Select " + entityKeys + ", row_number() over (order by " + entityKeys + ") JL_RN, "
+					+ "count(*) over () JL_COUNT, sum(case when " + nullKey + " then 1 else 0 end) over () JL_NULLS"
+					+ from + ") Q Where mod(Q.JL_RN, " + chunkSize + ")=0 and Q.JL_RN<Q.JL_COUNT Order by " + keys, new BoundsReader(false));
+		} catch (SQLException e) {
+			// window functions or "mod" not supported
+			bounds.clear();
+			hasNull[0] = false;
+			session.setSilent(silent);
+			BoundsReader reader = new BoundsReader(true);
+			session.executeQuery("Select " + entityKeys + from + " Order by " + entityKeys, reader);
+			// the last chunk must not be empty
+			if (!bounds.isEmpty() && reader.rowNumber % chunkSize == 0) {
+				bounds.remove(bounds.size() - 1);
+			}
+		} finally {
+			session.setSilent(silent);
+		}
+		if (hasNull[0]) {
+			return null;
+		}
+		return bounds;
+	}
+
+	/**
+	 * Compares the universal primary key of an entity (alias "E") with a bound in lexicographical order.
+	 *
+	 * @param keyColumns the universal primary key columns of the table
+	 * @param bound the bound
+	 * @param greater if <code>true</code>, the key must be greater than the bound, else less than or equal to the bound
+	 */
+	private static String keyComparison(List<Column> keyColumns, String[] bound, boolean greater) {
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < keyColumns.size(); ++i) {
+			if (i > 0) {
+				sb.append(" or ");
+			}
+			sb.append("(");
+			for (int j = 0; j < i; ++j) {
+				sb.append("E." + keyColumns.get(j).name + "=" + bound[j] + " and ");
+			}
+			sb.append("E." + keyColumns.get(i).name + (greater? ">" : "<") + bound[i] + ")");
+		}
+		if (!greater) {
+			sb.append(" or (");
+			for (int i = 0; i < keyColumns.size(); ++i) {
+				if (i > 0) {
+					sb.append(" and ");
+				}
+				sb.append("E." + keyColumns.get(i).name + "=" + bound[i]);
+			}
+			sb.append(")");
+		}
+		return sb.append(")").toString();
+	}
+
+	/**
+	 * Checks whether identity inserts must be enabled for a table.
+	 */
+	private boolean hasIdentityColumn(Table table) {
+		if (session.dbms.isIdentityInserts()) {
+			for (Column c: table.getColumns()) {
+				if (c.isIdentityColumn) {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
 
 	/**
@@ -243,15 +674,7 @@ public class IntraDatabaseEntityGraph extends RemoteEntityGraph {
 	 * @param sql retrieves the entities
 	 */
 	private void readEntitiesByQuery(Table table, String sql) throws SQLException {
-		boolean tableHasIdentityColumn = false;
-		if (session.dbms.isIdentityInserts()) {
-			for (Column c: table.getColumns()) {
-				if (c.isIdentityColumn) {
-					tableHasIdentityColumn = true;
-					break;
-				}
-			}
-		}
+		boolean tableHasIdentityColumn = hasIdentityColumn(table);
 		long rc;
 		if (tableHasIdentityColumn) {
 			synchronized (session.getConnection()) {
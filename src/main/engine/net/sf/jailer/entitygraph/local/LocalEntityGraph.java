@@ -22,17 +22,21 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.configuration.LocalDatabaseConfiguration;
+import net.sf.jailer.database.InlineViewBlockSize;
 import net.sf.jailer.database.InlineViewBuilder;
 import net.sf.jailer.database.InlineViewStyle;
 import net.sf.jailer.database.LocalDatabase;
@@ -82,6 +86,25 @@ public class LocalEntityGraph extends EntityGraph {
 
 	private InlineViewStyle remoteInlineViewStyle;
 
+	/**
+	 * Table for transferring rows into the local database (batch transport).
+	 */
+	private static final String TRANSPORT = "JAILER_TRANSPORT";
+
+	/**
+	 * Maximum number of rows per transport batch.
+	 */
+	private static final int TRANSPORT_BATCH_SIZE = 1000;
+
+	/**
+	 * Next transport batch ID.
+	 */
+	private static final AtomicInteger nextTransportID = new AtomicInteger(1);
+
+	private static int nextTransportID() {
+		return nextTransportID.getAndIncrement();
+	}
+
 	private abstract class RemoteInlineViewBuilder extends InlineViewBuilder {
 
 		public RemoteInlineViewBuilder(String name, String columnList) {
@@ -106,6 +129,10 @@ public class LocalEntityGraph extends EntityGraph {
 					value = prefix + value;
 				}
 			}
+			if (value != null && !(value instanceof String)) {
+				// column that is not part of the universal primary key
+				value = cellContentConverter.toSql(value);
+			}
 			return (String) value;
 		}
 
@@ -135,17 +162,91 @@ public class LocalEntityGraph extends EntityGraph {
 			super(localInlineViewStyle, name, localSession, columnList.split(", *"));
 			this.allUPK = allUPK;
 			this.localDBMSConfiguration = localSession.dbms;
+			this.batchTransport = executionContext.isBatchTransport() && areUPKColumns(columnNames);
 		}
 
 		private final boolean allUPK;
 		private final DBMS localDBMSConfiguration;
 
+		/**
+		 * Whether the rows are transferred via the transport table.
+		 */
+		private final boolean batchTransport;
+
+		/**
+		 * Rows not yet transferred (batch transport).
+		 */
+		private List<Object[]> batch;
+
 		@Override
-		protected String sqlValue(ResultSet resultSet, int i) throws SQLException {
+		public void readCurrentRow(ResultSet resultSet) throws SQLException {
+			if (!batchTransport) {
+				super.readCurrentRow(resultSet);
+				return;
+			}
+			if (resultSetMetaData == null) {
+				resultSetMetaData = resultSet.getMetaData();
+				cellContentConverter = createCellContentConverter();
+				batch = new ArrayList<Object[]>(TRANSPORT_BATCH_SIZE);
+			}
+			Object[] row = new Object[columnNames.length + 1];
+			for (int i = 1; i <= columnNames.length; ++i) {
+				row[i] = upkValue(resultSet, i);
+			}
+			batch.add(row);
+			if (batch.size() >= TRANSPORT_BATCH_SIZE) {
+				boolean wasLogging = session.getLogStatements();
+				try {
+					session.setLogStatements(false);
+					transport();
+				} finally {
+					session.setLogStatements(wasLogging);
+				}
+			}
+		}
+
+		/**
+		 * Inserts the batch into the transport table and processes it.
+		 */
+		private void transport() throws SQLException {
+			int transportID = nextTransportID();
+			for (Object[] row: batch) {
+				row[0] = transportID;
+			}
+			String columnList = String.join(", ", columnNames);
+			localSession.executeBatchUpdate(
+					"Insert into " + dmlTableReference(TRANSPORT, localSession) + " (transport_id, " + columnList + ") values (" + String.join(", ", Collections.nCopies(columnNames.length + 1, "?")) + ")", batch);
+			batch.clear();
+			try {
+				process("(Select " + columnList + " From " + dmlTableReference(TRANSPORT, localSession) + " Where transport_id=" + transportID + ") " + name);
+			} finally {
+				localSession.executeUpdate("Delete From " + dmlTableReference(TRANSPORT, localSession) + " Where transport_id=" + transportID);
+			}
+		}
+
+		@Override
+		public void close() throws SQLException {
+			if (!batchTransport) {
+				super.close();
+			} else if (batch != null && !batch.isEmpty()) {
+				transport();
+			}
+		}
+
+		/**
+		 * Gets the value of a UPK-column as it is stored in the local database.
+		 */
+		private String upkValue(ResultSet resultSet, int i) throws SQLException {
 			String value = cellContentConverter.toSql(cellContentConverter.getObject(resultSet, i));
 			if (DBMS.POSTGRESQL.equals(remoteSession.dbms) && "null".equalsIgnoreCase(value)) {
 				value += "::" + resultSetMetaData.getColumnTypeName(i);
 			}
+			return value;
+		}
+
+		@Override
+		protected String sqlValue(ResultSet resultSet, int i) throws SQLException {
+			String value = upkValue(resultSet, i);
 			if (allUPK || isUPKColumn(columnNames[i - 1])) {
 				String ncharPrefix = localDBMSConfiguration.getNcharPrefix();
 				String literal = (ncharPrefix != null? ncharPrefix : "") + "'" + localDBMSConfiguration.convertToStringLiteral(value, ncharPrefix) + "'";
@@ -174,6 +275,15 @@ public class LocalEntityGraph extends EntityGraph {
 		return upkColumnNames.contains(columnName);
 	}
 
+	private boolean areUPKColumns(String[] columnNames) {
+		for (String columnName: columnNames) {
+			if (!isUPKColumn(columnName)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private synchronized boolean isNUPKColumn(String columnName) {
 		if (nupkColumnNames == null) {
 			nupkColumnNames = new HashSet<String>();
@@ -256,6 +366,10 @@ public class LocalEntityGraph extends EntityGraph {
 		this.localInlineViewStyle = InlineViewStyle.forSession(localSession);
 		this.remoteInlineViewStyle = InlineViewStyle.forSession(remoteSession);
 		new DDLCreator(executionContext).createDDL(getDatamodel(), localSession, WorkingTableScope.GLOBAL, rowIdSupport, null);
+		if (executionContext.isBatchTransport()) {
+			localSession.executeUpdate("Create table " + dmlTableReference(TRANSPORT, localSession) + " (transport_id INTEGER NOT NULL, " + universalPrimaryKey.toSQL(null, false) + ")");
+			localSession.executeUpdate("Create index jlr_transport_id on " + dmlTableReference(TRANSPORT, localSession) + " (transport_id)");
+		}
 	}
 
 	/**
@@ -279,6 +393,25 @@ public class LocalEntityGraph extends EntityGraph {
 		localDatabase.shutDown();
 	}
 
+	/**
+	 * Gets the sizes of the inline-views used for transferring rows between databases.
+	 *
+	 * @return block sizes per database
+	 */
+	@Override
+	public Map<String, InlineViewBlockSize> getInlineViewBlockSizes() {
+		Map<String, InlineViewBlockSize> blockSizes = new LinkedHashMap<String, InlineViewBlockSize>();
+		InlineViewBlockSize remote = InlineViewBlockSize.forSession(remoteSession);
+		if (remote.isUsed()) {
+			blockSizes.put("source database", remote);
+		}
+		InlineViewBlockSize local = InlineViewBlockSize.forSession(localSession);
+		if (local.isUsed()) {
+			blockSizes.put("local database", local);
+		}
+		return blockSizes;
+	}
+
 	/**
 	 * The universal primary key.
 	 */
@@ -1363,24 +1496,25 @@ public class LocalEntityGraph extends EntityGraph {
 	}
 
 	/**
-	 * Reads all entities which depends on given entity.
+	 * Reads all entities which depend on one of a block of given entities.
 	 *
 	 * @param table the table from which to read entities
 	 * @param association the dependency
-	 * @param resultSet current row is given entity
+	 * @param parentKeys primary key values of the given entities
 	 * @param reader reads the entities
 	 * @param selectionSchema the selection schema
 	 */
 	@Override
-	public void readDependentEntities(final Table table, final Association association, final ResultSet resultSet, ResultSetMetaData resultSetMetaData, final ResultSetReader reader, final Map<String, Integer> theTypeCache, final String selectionSchema, final String originalPKAliasPrefix) throws SQLException {
-		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, localSession, localSession.dbms);
-		String select = "Select " + upkColumnList(table, "TO_") + " from " + dmlTableReference(DEPENDENCY, localSession) + " D" +
-				 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
+	public void readDependentEntities(final Table table, final Association association, final List<Object[]> parentKeys, final ResultSetReader reader, final String selectionSchema, final String originalPKAliasPrefix) throws SQLException {
+		CellContentConverter cellContentConverter = new CellContentConverter(null, localSession, localSession.dbms);
+		String select = "Select " + upkColumnList(table, "TO_") + ", " + parentIndex(association.source, parentKeys, "D", "FROM_", cellContentConverter) + " as " + PARENT_INDEX +
+				 " from " + dmlTableReference(DEPENDENCY, localSession) + " D" +
+				 " Where " + pkEqualsEntityID(association.source, parentKeys, "D", "FROM_", cellContentConverter) +
 				 " and D.to_type=" + typeName(table) + "" +
 				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 				 " and D.r_entitygraph=" + graphID;
 
-		localSession.executeQuery(select, new RemoteInlineViewBuilder("D", upkColumnList(table, "TO_"), true) {
+		localSession.executeQuery(select, new RemoteInlineViewBuilder("D", upkColumnList(table, "TO_") + ", " + PARENT_INDEX, true) {
 			@Override
 			protected void process(String inlineView) throws SQLException {
 				String select;
@@ -1394,11 +1528,11 @@ public class LocalEntityGraph extends EntityGraph {
 						selectOPK.append("T." + quoting.requote(pkColumns.get(i).name) + " as " + originalPKAliasPrefix + i);
 					}
 					select =
-						"Select " + selectionSchema + " from (" +
-						"Select " + selectOPK + ", " + filteredSelectionClause(table) + " from " + quoting.requote(table.getName()) + " T join " + inlineView + " on " +
+						"Select " + selectionSchema + ", T." + PARENT_INDEX + " from (" +
+						"Select " + selectOPK + ", " + filteredSelectionClause(table) + ", D." + PARENT_INDEX + " from " + quoting.requote(table.getName()) + " T join " + inlineView + " on " +
 						 pkEqualsEntityID(table, "T", "D", "TO_", false) + ") T";
 				} else {
-					select = "Select " + selectionSchema + " from " + quoting.requote(table.getName()) + " T join " + inlineView + " on " +
+					select = "Select " + selectionSchema + ", D." + PARENT_INDEX + " from " + quoting.requote(table.getName()) + " T join " + inlineView + " on " +
 						 pkEqualsEntityID(table, "T", "D", "TO_", false) + "";
 				}
 				long rc = remoteSession.executeQuery(select, reader, withExplicitCommit());
@@ -1409,24 +1543,23 @@ public class LocalEntityGraph extends EntityGraph {
 	}
 
 	/**
-	 * Marks all entities which depends on given entity as traversed.
+	 * Marks all entities which depend on one of a block of given entities as traversed.
 	 *
 	 * @param association the dependency
-	 * 
-	 * @param resultSet current row is given entity
+	 * @param parentKeys primary key values of the given entities
 	 */
 	@Override
-	public void markDependentEntitiesAsTraversed(Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, Map<String, Integer> typeCache) throws SQLException {
+	public void markDependentEntitiesAsTraversed(Association association, List<Object[]> parentKeys) throws SQLException {
 		String update;
-		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, localSession, localSession.dbms);
+		CellContentConverter cellContentConverter = new CellContentConverter(null, localSession, localSession.dbms);
 		if (DBMS.SYBASE.equals(localSession.dbms)) {
 			update = "Update " + dmlTableReference(DEPENDENCY, localSession) + " set traversed=1" +
-			 " Where " + pkEqualsEntityID(association.source, resultSet, dmlTableReference(DEPENDENCY, localSession), "FROM_", cellContentConverter) +
+			 " Where " + pkEqualsEntityID(association.source, parentKeys, dmlTableReference(DEPENDENCY, localSession), "FROM_", cellContentConverter) +
 			 " and " + dmlTableReference(DEPENDENCY, localSession) + ".from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 			 " and " + dmlTableReference(DEPENDENCY, localSession) + ".r_entitygraph=" + graphID;
 		} else {
 			update = "Update " + dmlTableReference(DEPENDENCY, localSession) + " D set traversed=1" +
-			 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
+			 " Where " + pkEqualsEntityID(association.source, parentKeys, "D", "FROM_", cellContentConverter) +
 			 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 			 " and D.r_entitygraph=" + graphID;
 		}
@@ -1485,10 +1618,10 @@ public class LocalEntityGraph extends EntityGraph {
 	 * Gets a SQL comparison expression for comparing rows with given entity.
 	 *
 	 * @param table the table
-	 * @param resultSet
-	 * @return a SQL comparison expression for comparing rows of <code>table</code> with current row of resultSet
+	 * @param key primary key values of the entity
+	 * @return a SQL comparison expression for comparing rows of <code>table</code> with the entity
 	 */
-	private String pkEqualsEntityID(Table table, ResultSet resultSet, String alias, String columnPrefix, CellContentConverter cellContentConverter) throws SQLException {
+	private String pkEqualsEntityID(Table table, Object[] key, String alias, String columnPrefix, CellContentConverter cellContentConverter) {
 		Map<Column, Column> match = upkMatch(table);
 		StringBuffer sb = new StringBuffer();
 		for (Column column: universalPrimaryKey.getColumns()) {
@@ -1505,7 +1638,7 @@ public class LocalEntityGraph extends EntityGraph {
 					}
 					++i;
 				}
-				Object object = cellContentConverter.getObject(resultSet, "PK" + i);
+				Object object = key[i];
 				if (object == null) {
 					sb.append(" is 'null'");
 				} else {
@@ -1518,6 +1651,39 @@ public class LocalEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets a SQL comparison expression for comparing rows with a block of given entities.
+	 *
+	 * @param table the table
+	 * @param keys primary key values of the entities
+	 * @return a SQL comparison expression which is true for rows of <code>table</code> that are equal to one of the entities
+	 */
+	private String pkEqualsEntityID(Table table, List<Object[]> keys, String alias, String columnPrefix, CellContentConverter cellContentConverter) {
+		StringBuilder sb = new StringBuilder("(");
+		for (Object[] key: keys) {
+			if (sb.length() > 1) {
+				sb.append(" or ");
+			}
+			sb.append("(" + pkEqualsEntityID(table, key, alias, columnPrefix, cellContentConverter) + ")");
+		}
+		return sb.append(")").toString();
+	}
+
+	/**
+	 * Gets a SQL expression for the index of the entity (within a block of given entities) which is equal to a row.
+	 *
+	 * @param table the table
+	 * @param keys primary key values of the entities
+	 * @return SQL expression for the index of the entity
+	 */
+	private String parentIndex(Table table, List<Object[]> keys, String alias, String columnPrefix, CellContentConverter cellContentConverter) {
+		StringBuilder sb = new StringBuilder("case");
+		for (int i = 0; i < keys.size(); ++i) {
+			sb.append(" when " + pkEqualsEntityID(table, keys.get(i), alias, columnPrefix, cellContentConverter) + " then " + i);
+		}
+		return sb.append(" end").toString();
+	}
+
 	/**
 	 * Gets a SQL comparison expression for comparing rows with entities.
 	 *
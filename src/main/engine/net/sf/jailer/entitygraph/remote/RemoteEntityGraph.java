@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.configuration.DBMS;
@@ -649,7 +650,9 @@ public class RemoteEntityGraph extends EntityGraph {
 			" and E1.type=" + typeName(from) + " and E2.type=" + typeName(to) + "" +
 			" and " + pkEqualsEntityID(from, fromAlias, "E1") +
 			" and " + pkEqualsEntityID(to, toAlias, "E2");
-		totalRowcount += session.executeUpdate(insert);
+		long rc = session.executeUpdate(insert);
+		totalRowcount += rc;
+		dependencyRowcount.addAndGet(rc);
 	}
 
 	/**
@@ -1132,18 +1135,19 @@ public class RemoteEntityGraph extends EntityGraph {
 	}
 
 	/**
-	 * Reads all entities which depends on given entity.
+	 * Reads all entities which depend on one of a block of given entities.
 	 *
 	 * @param table the table from which to read entities
 	 * @param association the dependency
-	 * @param resultSet current row is given entity
+	 * @param parentKeys primary key values of the given entities
 	 * @param reader reads the entities
 	 * @param selectionSchema the selection schema
 	 */
 	@Override
-	public void readDependentEntities(Table table, Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, ResultSetReader reader, Map<String, Integer> typeCache, String selectionSchema, String originalPKAliasPrefix) throws SQLException {
+	public void readDependentEntities(Table table, Association association, List<Object[]> parentKeys, ResultSetReader reader, String selectionSchema, String originalPKAliasPrefix) throws SQLException {
 		String select;
-		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, session, session.dbms);
+		CellContentConverter cellContentConverter = new CellContentConverter(null, session, session.dbms);
+		String parentIndex = parentIndex(association.source, parentKeys, "D", "FROM_", cellContentConverter) + " as " + PARENT_INDEX;
 		if (originalPKAliasPrefix != null) {
 			StringBuffer selectOPK = new StringBuffer();
 			List<Column> pkColumns = rowIdSupport.getPrimaryKey(table).getColumns();
@@ -1154,16 +1158,16 @@ public class RemoteEntityGraph extends EntityGraph {
 				selectOPK.append("T." + quoting.requote(pkColumns.get(i).name) + " as " + originalPKAliasPrefix + i);
 			}
 			select =
-				"Select " + selectionSchema + " from (" +
-				"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + " from " + quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
+				"Select " + selectionSchema + ", T." + PARENT_INDEX + " from (" +
+				"Select " + selectOPK + ", " + filteredSelectionClause(table, false) + ", " + parentIndex + " from " + quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
 				 pkEqualsEntityID(table, "T", "D", "TO_") + " and D.to_type=" + typeName(table) + "" +
-				 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
+				 " Where " + pkEqualsEntityID(association.source, parentKeys, "D", "FROM_", cellContentConverter) +
 				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 				 " and D.r_entitygraph=" + graphID + ") T";
 		} else {
-			select = "Select " + selectionSchema + " from " + quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
+			select = "Select " + selectionSchema + ", " + parentIndex + " from " + quoting.requote(table.getName()) + " T join " + dmlTableReference(DEPENDENCY, session) + " D on " +
 				 pkEqualsEntityID(table, "T", "D", "TO_") + " and D.to_type=" + typeName(table) + "" +
-				 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
+				 " Where " + pkEqualsEntityID(association.source, parentKeys, "D", "FROM_", cellContentConverter) +
 				 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 				 " and D.r_entitygraph=" + graphID;
 		}
@@ -1173,23 +1177,23 @@ public class RemoteEntityGraph extends EntityGraph {
 	}
 
 	/**
-	 * Marks all entities which depends on given entity as traversed.
+	 * Marks all entities which depend on one of a block of given entities as traversed.
 	 *
 	 * @param association the dependency
-	 * @param resultSet current row is given entity
+	 * @param parentKeys primary key values of the given entities
 	 */
 	@Override
-	public void markDependentEntitiesAsTraversed(Association association, ResultSet resultSet, ResultSetMetaData resultSetMetaData, Map<String, Integer> typeCache) throws SQLException {
+	public void markDependentEntitiesAsTraversed(Association association, List<Object[]> parentKeys) throws SQLException {
 		String update;
-		CellContentConverter cellContentConverter = new CellContentConverter(resultSetMetaData, session, session.dbms);
+		CellContentConverter cellContentConverter = new CellContentConverter(null, session, session.dbms);
 		if (DBMS.SYBASE.equals(session.dbms)) {
 			update = "Update " + dmlTableReference(DEPENDENCY, session) + " set traversed=1" +
-			 " Where " + pkEqualsEntityID(association.source, resultSet, dmlTableReference(DEPENDENCY, session), "FROM_", cellContentConverter) +
+			 " Where " + pkEqualsEntityID(association.source, parentKeys, dmlTableReference(DEPENDENCY, session), "FROM_", cellContentConverter) +
 			 " and " + dmlTableReference(DEPENDENCY, session) + ".from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 			 " and " + dmlTableReference(DEPENDENCY, session) + ".r_entitygraph=" + graphID;
 		} else {
 			update = "Update " + dmlTableReference(DEPENDENCY, session) + " D set traversed=1" +
-			 " Where " + pkEqualsEntityID(association.source, resultSet, "D", "FROM_", cellContentConverter) +
+			 " Where " + pkEqualsEntityID(association.source, parentKeys, "D", "FROM_", cellContentConverter) +
 			 " and D.from_type=" + typeName(association.source) + " and assoc=" + association.getId() +
 			 " and D.r_entitygraph=" + graphID;
 		}
@@ -1244,10 +1248,10 @@ public class RemoteEntityGraph extends EntityGraph {
 	 * Gets a SQL comparison expression for comparing rows with given entity.
 	 *
 	 * @param table the table
-	 * @param resultSet
-	 * @return a SQL comparison expression for comparing rows of <code>table</code> with current row of resultSet
+	 * @param key primary key values of the entity
+	 * @return a SQL comparison expression for comparing rows of <code>table</code> with the entity
 	 */
-	private String pkEqualsEntityID(Table table, ResultSet resultSet, String alias, String columnPrefix, CellContentConverter cellContentConverter) throws SQLException {
+	private String pkEqualsEntityID(Table table, Object[] key, String alias, String columnPrefix, CellContentConverter cellContentConverter) {
 		Map<Column, Column> match = universalPrimaryKey.match(rowIdSupport.getPrimaryKey(table));
 		StringBuffer sb = new StringBuffer();
 		for (Column column: universalPrimaryKey.getColumns()) {
@@ -1264,7 +1268,7 @@ public class RemoteEntityGraph extends EntityGraph {
 					}
 					++i;
 				}
-				Object object = cellContentConverter.getObject(resultSet, "PK" + i);
+				Object object = key[i];
 				if (object == null) {
 					sb.append(" is null");
 				} else {
@@ -1277,6 +1281,39 @@ public class RemoteEntityGraph extends EntityGraph {
 		return sb.toString();
 	}
 
+	/**
+	 * Gets a SQL comparison expression for comparing rows with a block of given entities.
+	 *
+	 * @param table the table
+	 * @param keys primary key values of the entities
+	 * @return a SQL comparison expression which is true for rows of <code>table</code> that are equal to one of the entities
+	 */
+	private String pkEqualsEntityID(Table table, List<Object[]> keys, String alias, String columnPrefix, CellContentConverter cellContentConverter) {
+		StringBuilder sb = new StringBuilder("(");
+		for (Object[] key: keys) {
+			if (sb.length() > 1) {
+				sb.append(" or ");
+			}
+			sb.append("(" + pkEqualsEntityID(table, key, alias, columnPrefix, cellContentConverter) + ")");
+		}
+		return sb.append(")").toString();
+	}
+
+	/**
+	 * Gets a SQL expression for the index of the entity (within a block of given entities) which is equal to a row.
+	 *
+	 * @param table the table
+	 * @param keys primary key values of the entities
+	 * @return SQL expression for the index of the entity
+	 */
+	private String parentIndex(Table table, List<Object[]> keys, String alias, String columnPrefix, CellContentConverter cellContentConverter) {
+		StringBuilder sb = new StringBuilder("case");
+		for (int i = 0; i < keys.size(); ++i) {
+			sb.append(" when " + pkEqualsEntityID(table, keys.get(i), alias, columnPrefix, cellContentConverter) + " then " + i);
+		}
+		return sb.append(" end").toString();
+	}
+
 	/**
 	 * Gets a SQL comparition expression for comparing rows with entities.
 	 *
@@ -1396,6 +1433,21 @@ public class RemoteEntityGraph extends EntityGraph {
 		return totalRowcount;
 	}
 
+	/**
+	 * Number of rows inserted into the dependency table (by all resolving threads).
+	 */
+	private final AtomicLong dependencyRowcount = new AtomicLong();
+
+	/**
+	 * Gets the number of rows inserted into the dependency table.
+	 *
+	 * @return number of rows inserted into the dependency table
+	 */
+	@Override
+	public long getDependencyRowcount() {
+		return dependencyRowcount.get();
+	}
+
 	/**
 	 * Gets the universal primary key.
 	 *
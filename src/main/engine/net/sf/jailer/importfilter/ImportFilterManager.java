@@ -31,6 +31,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -100,7 +101,35 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 		public String newValueColumnName;
 		public String type;
 		public String filterExpression;
+
+		/**
+		 * Recently inserted old values, least recently used first.
+		 * At most {@link Configuration#getValuesPerIFMColumn()} values are remembered. Duplicates of values which are
+		 * no longer remembered are inserted into the local mapping table and removed when the mapping tables are written out.
+		 */
+		private final Map<String, Boolean> insertedValues = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > maxRememberedValues;
+			}
+		};
+
+		/**
+		 * Remembers an old value.
+		 *
+		 * @return <code>false</code> if the value has recently been inserted
+		 */
+		public synchronized boolean isNewValue(String value) {
+			return insertedValues.put(value, Boolean.TRUE) == null;
+		}
 	}
+
+	/**
+	 * Maximum number of old values per mapping column which are remembered in order to avoid inserting duplicates into the local mapping tables.
+	 */
+	private final int maxRememberedValues = Configuration.getInstance().getValuesPerIFMColumn();
 	
 	public static String MAPPINGTABLE_NAME_PREFIX = "JAILER_IFM";
 	
@@ -321,7 +350,7 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 	 * @param dmlResultWriter
 	 */
 	public void fillAndWriteMappingTables(final EntityGraph entityGraph, JobManager jobManager, final OutputStreamWriter dmlResultWriter,
-			int numberOfEntities, final Session targetSession, final DBMS targetDBMSConfiguration) throws CancellationException, SQLException {
+			final int numberOfEntities, final Session targetSession, final DBMS targetDBMSConfiguration) throws CancellationException, SQLException {
 		executionContext.getProgressListenerRegistry().fireNewStage("processing import filters", false, false);
 		
 		Collection<Job> insertJobs = new ArrayList<Job>();
@@ -354,6 +383,9 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 									Object content = cellContentConverter.getObject(resultSet, i + 1);
 									if (content != null) {
 										String value = cellContentConverter.toSql(content);
+										if (!columnMapping.get(columns.get(i)).isNewValue(value)) {
+											continue;
+										}
 										insertStatement.get(columns.get(i)).setString(1, value);
 										insertStatement.get(columns.get(i)).addBatch();
 										++batchSize[i];
@@ -390,6 +422,8 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 
 		final String schema = quotedMappingTablesSchema;
 		AtomicReference<Table> identityInsertTable = new AtomicReference<Table>();
+		// multi-row inserts into these DBMS are "Insert ... Select ... Union all", which doesn't allow filter expressions such as sequences
+		final int mappingInsertBlockSize = DBMS.ORACLE.equals(targetDBMSConfiguration) || DBMS.DB2_ZOS.equals(targetDBMSConfiguration) || DBMS.SQLITE.equals(targetDBMSConfiguration)? 1 : numberOfEntities;
 		
 		for (final ColumnToMappingTable mapping: columnToMappingTableSet) {
 			writeOutJobs.add(new Job() {
@@ -399,7 +433,7 @@ public abstract class ImportFilterManager implements ImportFilterTransformer {
 					Column newValueColumn = new Column(mapping.newValueColumnName, mapping.type, 0, -1);
 					Column oldValueColumn = new Column(mapping.oldValueColumnName, mapping.type, 0, -1);
 					mappingTable.setColumns(Arrays.asList(oldValueColumn, newValueColumn));
-					ResultSetReader scriptFileWriter = new DMLTransformer(mappingTable, dmlResultWriter, false, 1, targetSession, targetDBMSConfiguration, null, identityInsertTable, executionContext) {
+					ResultSetReader scriptFileWriter = new DMLTransformer(mappingTable, dmlResultWriter, false, mappingInsertBlockSize, targetSession, targetDBMSConfiguration, null, identityInsertTable, executionContext) {
 						@Override
 						protected String convertToSql(CellContentConverter cellContentConverter,
 								ResultSet resultSet, int i, Object content, int callerId, String suffix) throws SQLException {
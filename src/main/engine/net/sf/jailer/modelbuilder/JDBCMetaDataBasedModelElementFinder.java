@@ -23,6 +23,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.JailerVersion;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.Session.ResultSetReader;
@@ -55,6 +57,7 @@ import net.sf.jailer.util.CancellationHandler;
 import net.sf.jailer.util.CsvFile;
 import net.sf.jailer.util.CsvFile.Line;
 import net.sf.jailer.util.JSqlParserUtil;
+import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.LogUtil;
 import net.sf.jailer.util.Pair;
 import net.sf.jailer.util.Quoting;
@@ -111,6 +114,14 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		TYPES_WITHOUT_LENGTH.add("HIERARCHYID"); // MSSQL
 	}
 
+	/**
+	 * Indexes of the columns with integer values in the results of {@link DatabaseMetaData#getPrimaryKeys(String, String, String)},
+	 * {@link DatabaseMetaData#getColumns(String, String, String, String)} and {@link DatabaseMetaData#getImportedKeys(String, String, String)}.
+	 */
+	private static final Set<Integer> PRIMARY_KEYS_INT_INDEX = new HashSet<Integer>(Arrays.asList(5));
+	private static final Set<Integer> COLUMNS_INT_INDEX = new HashSet<Integer>(Arrays.asList(5, 7, 9, 10, 11, 14, 15, 16, 17, 22));
+	private static final Set<Integer> IMPORTED_KEYS_INT_INDEX = new HashSet<Integer>(Arrays.asList(9, 10, 11, 14));
+
 	/**
 	 * Set of the names of user defined types.
 	 */
@@ -168,24 +179,35 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		String defaultSchema = getDefaultSchema(session, session.getSchema());
 		Set<Association> toRemove = new HashSet<Association>();
 
+		List<String> tableNames = new ArrayList<String>();
+		for (Table table: dataModel.getTables()) {
+			if (!unchangedTables.contains(table.getName())) {
+				tableNames.add(table.getName());
+			}
+		}
+		ParallelMetaDataReader importedKeysReader = new ParallelMetaDataReader(tableNames, IMPORTED_KEYS_INT_INDEX, getMetaDataJobManager(executionContext), tableName -> {
+			UnderlyingTableInfo uti = underlyingTableInfos.get(tableName);
+			Table child = uti != null? uti.underlyingTable : dataModel.getTable(tableName);
+			String ikSchema = quoting.unquote(child.getOriginalSchema(quoting.quote(defaultSchema)));
+			Session ikSession = session;
+			if (sessionWithPermissionToReadSchema.containsKey(Quoting.normalizeIdentifier(ikSchema))) {
+				ikSession = sessionWithPermissionToReadSchema.get(Quoting.normalizeIdentifier(ikSchema));
+			}
+			return getImportedKeys(ikSession, ikSchema, quoting.unquote(child.getUnqualifiedName()), true);
+		});
+
 		for (Table viewOrTable: dataModel.getTables()) {
+			if (unchangedTables.contains(viewOrTable.getName())) {
+				// associations of unchanged tables are kept in the model
+				continue;
+			}
 			Table table;
-			Table underlyingTable = null;
 			UnderlyingTableInfo uti = null;
 			uti = underlyingTableInfos.get(viewOrTable.getName());
-			if (uti != null) {
-				underlyingTable = uti.underlyingTable;
-			}
 			table = viewOrTable;
 			_log.info("find associations with " + table.getName());
 			try {
-				Table child = underlyingTable != null? underlyingTable : table;
-				String ikSchema = quoting.unquote(child.getOriginalSchema(quoting.quote(defaultSchema)));
-				Session ikSession = session;
-				if (sessionWithPermissionToReadSchema.containsKey(Quoting.normalizeIdentifier(ikSchema))) {
-					ikSession = sessionWithPermissionToReadSchema.get(Quoting.normalizeIdentifier(ikSchema));
-				}
-				resultSet = getImportedKeys(ikSession, ikSchema, quoting.unquote(child.getUnqualifiedName()), true);
+				resultSet = importedKeysReader.get(table.getName());
 			} catch (Exception e) {
 				_log.info("failed. " + e.getMessage());
 				continue;
@@ -290,10 +312,13 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	public static ResultSet getImportedKeys(Session session, String schema, String table, boolean withCaching) throws SQLException {
 		if (withCaching) {
 			final String NAME = "getImportedKeys " + schema;
-			MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
-			if (metaDataCache == null) {
-				metaDataCache = MetaDataCache.readImportedKeys(session, schema);
-				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+			MetaDataCache metaDataCache;
+			synchronized (session.MD_GETCOLUMNS_LOCK) {
+				metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+				if (metaDataCache == null) {
+					metaDataCache = MetaDataCache.getShared(session, NAME, theSession -> MetaDataCache.readImportedKeys(theSession, schema));
+					session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+				}
 			}
 			ResultSet resultSet = metaDataCache.forTable(table);
 			if (resultSet != null) {
@@ -371,6 +396,82 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	private Map<String, UnderlyingTableInfo> underlyingTableInfos = new LinkedHashMap<String, UnderlyingTableInfo>();
 	private Map<String, String> tableTypes = new HashMap<String, String>();
 
+	/**
+	 * Fingerprints of the last run and names of the tables of the current data model
+	 * if only changed tables are to be analyzed, else <code>null</code>.
+	 */
+	private TableFingerprints previousFingerprints = null;
+	private Set<String> knownTables = null;
+
+	/**
+	 * Fingerprints of the tables found.
+	 */
+	private TableFingerprints fingerprints = null;
+
+	/**
+	 * Names of the tables which are not analyzed because they have not been changed since the last run.
+	 */
+	private final Set<String> unchangedTables = new HashSet<String>();
+
+	/**
+	 * Analyzes only tables whose fingerprint differs from the one of the last run.
+	 *
+	 * @param previousFingerprints fingerprints of the last run
+	 * @param knownTables names of the tables of the current data model
+	 */
+	void setIncrementalBuild(TableFingerprints previousFingerprints, Set<String> knownTables) {
+		this.previousFingerprints = previousFingerprints;
+		this.knownTables = knownTables;
+	}
+
+	/**
+	 * Gets the fingerprints of the tables found (in incremental mode only).
+	 *
+	 * @return the fingerprints or <code>null</code>
+	 */
+	TableFingerprints getFingerprints() {
+		return fingerprints;
+	}
+
+	/**
+	 * Gets the names of the tables which are not analyzed because they have not been changed since the last run.
+	 */
+	Set<String> getUnchangedTables() {
+		return unchangedTables;
+	}
+
+	/**
+	 * Reads the meta data of the tables in parallel (see {@link ParallelMetaDataReader}).
+	 * Shared by all readers, so that the connections of its threads are reused.
+	 */
+	private JobManager metaDataJobManager = null;
+
+	/**
+	 * Gets the job manager for reading meta data in parallel.
+	 *
+	 * @return the job manager or <code>null</code> if only one thread is available
+	 */
+	private synchronized JobManager getMetaDataJobManager(ExecutionContext executionContext) {
+		if (metaDataJobManager == null && executionContext.getNumberOfThreads() > 1) {
+			metaDataJobManager = new JobManager(executionContext.getNumberOfThreads()) {
+				@Override
+				protected void onException(Throwable t) {
+				}
+			};
+		}
+		return metaDataJobManager;
+	}
+
+	/**
+	 * Stops the threads reading meta data in parallel.
+	 */
+	synchronized void shutDown() {
+		if (metaDataJobManager != null) {
+			metaDataJobManager.shutdown();
+			metaDataJobManager = null;
+		}
+	}
+
 	/**
 	 * Finds all tables in DB schema.
 	 *
@@ -453,12 +554,20 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 				}
 			}
 		}
-		
+
+		if (previousFingerprints != null && depth == 0) {
+			removeUnchangedTables(session, executionContext, introspectionSchema, tableNames, nonPKPattern, quoting);
+		}
+
+		ParallelMetaDataReader primaryKeysReader = new ParallelMetaDataReader(tableNames, PRIMARY_KEYS_INT_INDEX, getMetaDataJobManager(executionContext), tableName -> {
+			Table tmp = new Table(tableName, null, false, false);
+			return getPrimaryKeys(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), true);
+		});
 		for (String tableName: tableNames) {
 			Table tmp = new Table(tableName, null, false, false);
 			resultSet = null;
 			try {
-				resultSet = getPrimaryKeys(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), true);
+				resultSet = primaryKeysReader.get(tableName);
 			} catch (Exception e) {
 				_log.warn("can't get PK for " + tableName, e);
 			}
@@ -495,10 +604,14 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 			}
 			CancellationHandler.checkForCancellation(null);
 		}
+		ParallelMetaDataReader columnsReader = new ParallelMetaDataReader(tableNames, COLUMNS_INT_INDEX, getMetaDataJobManager(executionContext), tableName -> {
+			Table tmp = new Table(tableName, null, false, false);
+			return getColumns(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), "%", true, false, tableTypes.get(tableName));
+		});
 		for (String tableName: tableNames) {
 			Table tmp = new Table(tableName, null, false, false);
 			_log.info("getting columns for " + quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))) + "." + quoting.unquote(tmp.getUnqualifiedName()));
-			resultSet = getColumns(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), "%", true, false, tableTypes.get(tableName));
+			resultSet = columnsReader.get(tableName);
 			_log.info("done");
 			Map<Integer, Column> pk = pkColumns.get(tableName);
 			while (resultSet.next()) {
@@ -658,6 +771,138 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 		return tables;
 	}
 
+	/**
+	 * Computes the fingerprints of the tables and removes the tables whose fingerprint has not been changed since the last run.
+	 * Views, synonyms and tables without primary key are always analyzed.
+	 */
+	private void removeUnchangedTables(final Session session, ExecutionContext executionContext, final String introspectionSchema, List<String> tableNames, Pattern nonPKPattern, final Quoting quoting) throws SQLException {
+		fingerprints = new TableFingerprints();
+		Map<String, String> lastDDLTimes = findLastDDLTimes(session, introspectionSchema);
+		List<String> candidates = new ArrayList<String>();
+		for (String tableName: tableNames) {
+			String type = tableTypes.get(tableName);
+			if ("TABLE".equals(type) || "BASE TABLE".equals(type)) {
+				candidates.add(tableName);
+			}
+		}
+		JobManager jobManager = getMetaDataJobManager(executionContext);
+		ParallelMetaDataReader primaryKeysReader = new ParallelMetaDataReader(candidates, PRIMARY_KEYS_INT_INDEX, jobManager, tableName -> {
+			Table tmp = new Table(tableName, null, false, false);
+			return getPrimaryKeys(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), true);
+		});
+		ParallelMetaDataReader importedKeysReader = new ParallelMetaDataReader(candidates, IMPORTED_KEYS_INT_INDEX, jobManager, tableName -> {
+			Table tmp = new Table(tableName, null, false, false);
+			return getImportedKeys(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), true);
+		});
+		ParallelMetaDataReader columnsReader = new ParallelMetaDataReader(candidates, COLUMNS_INT_INDEX, jobManager, tableName -> {
+			Table tmp = new Table(tableName, null, false, false);
+			return getColumns(session, quoting.unquote(tmp.getOriginalSchema(quoting.quote(introspectionSchema))), quoting.unquote(tmp.getUnqualifiedName()), "%", true, false, tableTypes.get(tableName));
+		});
+		String context = JailerVersion.VERSION + "\n" + introspectionSchema + "\n" + executionContext.getQualifyNames() + "\n" + nonPKPattern;
+		for (String tableName: candidates) {
+			String unqualifiedName = quoting.unquote(new Table(tableName, null, false, false).getUnqualifiedName());
+			StringBuilder description = new StringBuilder(context);
+			try {
+				description.append("\nDDL ").append(lastDDLTimes.get(unqualifiedName));
+				description.append("\nPK");
+				int numPKColumns = appendRows(description, primaryKeysReader.get(tableName), 3, unqualifiedName, nonPKPattern, 4, 5);
+				description.append("\nColumns");
+				appendRows(description, columnsReader.get(tableName), 3, unqualifiedName, null, 4, 5, 6, 7, 9, 11, 12, 13, 17);
+				description.append("\nFK");
+				appendRows(description, importedKeysReader.get(tableName), 7, unqualifiedName, null, 2, 3, 4, 6, 7, 8, 9, 12, 13);
+				if (numPKColumns == 0) {
+					// the key of the table is based on an unique index, which is not part of the fingerprint
+					continue;
+				}
+			} catch (SQLException e) {
+				_log.info("can't compute fingerprint of " + tableName + ": " + e.getMessage());
+				continue;
+			}
+			String fingerprint = TableFingerprints.fingerprint(description.toString());
+			fingerprints.put(tableName, fingerprint);
+			if (fingerprint.equals(previousFingerprints.get(tableName)) && knownTables.contains(tableName)) {
+				unchangedTables.add(tableName);
+			}
+		}
+		tableNames.removeAll(unchangedTables);
+		_log.info(unchangedTables.size() + " unchanged tables, " + tableNames.size() + " tables to analyze");
+	}
+
+	/**
+	 * Appends the rows of a meta data result set to the description of a table.
+	 *
+	 * @param tableIndex index of the column containing the table name
+	 * @param ignoredColumns pattern for names (column 4) of rows to be ignored, or <code>null</code>
+	 * @param columns indexes of the columns to append
+	 * @return number of rows appended
+	 */
+	private static int appendRows(StringBuilder description, ResultSet resultSet, int tableIndex, String tableName, Pattern ignoredColumns, int... columns) throws SQLException {
+		int numRows = 0;
+		while (resultSet.next()) {
+			if (!Quoting.equalsWROSearchPattern(tableName, resultSet.getString(tableIndex))) {
+				continue;
+			}
+			if (ignoredColumns != null && ignoredColumns.matcher(resultSet.getString(4)).matches()) {
+				continue;
+			}
+			description.append("\n");
+			for (int column: columns) {
+				description.append(resultSet.getObject(column)).append(";");
+			}
+			++numRows;
+		}
+		resultSet.close();
+		return numRows;
+	}
+
+	/**
+	 * Gets the time of the last DDL statement of each table of a schema.
+	 *
+	 * @return map from unquoted table name to the DDL time, empty if the DBMS doesn't provide it
+	 */
+	public static Map<String, String> findLastDDLTimes(Session session, String introspectionSchema) {
+		return readTableAttributes(session, session.dbms.getLastDDLTimeQuery(), introspectionSchema);
+	}
+
+	/**
+	 * Gets a marker of the data modifications of each table of a schema (see {@link DBMS#getTableModificationQuery()}).
+	 *
+	 * @return map from unquoted table name to the marker, or <code>null</code> if the DBMS doesn't provide it
+	 */
+	public static Map<String, String> findTableModifications(Session session, String introspectionSchema) {
+		if (session.dbms.getTableModificationQuery() == null) {
+			return null;
+		}
+		return readTableAttributes(session, session.dbms.getTableModificationQuery(), introspectionSchema);
+	}
+
+	/**
+	 * Executes a query returning the name and an attribute of each table of the schema '${SCHEMA}'.
+	 *
+	 * @return map from unquoted table name to the attribute, empty if the query is <code>null</code> or fails
+	 */
+	private static Map<String, String> readTableAttributes(Session session, String query, String introspectionSchema) {
+		final Map<String, String> attributes = new HashMap<String, String>();
+		if (query != null && introspectionSchema != null) {
+			boolean silent = session.getSilent();
+			try {
+				session.setSilent(true);
+				session.executeQuery(query.replace("${SCHEMA}", introspectionSchema),
+						new Session.AbstractResultSetReader() {
+							@Override
+							public void readCurrentRow(ResultSet resultSet) throws SQLException {
+								attributes.put(resultSet.getString(1), resultSet.getString(2));
+							}
+						});
+			} catch (Exception e) {
+				LogUtil.warn(e);
+			} finally {
+				session.setSilent(silent);
+			}
+		}
+		return attributes;
+	}
+
 	public static Set<String> findPartitions(Session session, String introspectionSchema) {
 		Set<String> partitions = new HashSet<>();
 		String partitionsQuery = session.dbms.getPartitionsQuery();
@@ -881,10 +1126,13 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 	public static ResultSet getPrimaryKeys(Session session, String schema, String table, boolean withCaching) throws SQLException {
 		if (withCaching) {
 			final String NAME = "getPrimaryKeys " + schema;
-			MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
-			if (metaDataCache == null) {
-				metaDataCache = MetaDataCache.readPrimaryKeys(session, schema);
-				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+			MetaDataCache metaDataCache;
+			synchronized (session.MD_GETCOLUMNS_LOCK) {
+				metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+				if (metaDataCache == null) {
+					metaDataCache = MetaDataCache.getShared(session, NAME, theSession -> MetaDataCache.readPrimaryKeys(theSession, schema));
+					session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+				}
 			}
 			ResultSet resultSet = metaDataCache.forTable(table);
 			if (resultSet != null) {
@@ -1006,10 +1254,13 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 
 	private ResultSet getIndexInfo(Session session, String schema, String table, boolean unique, boolean approximate) throws SQLException {
 		final String NAME = "getIndexInfo " + schema;
-		MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
-		if (metaDataCache == null) {
-			metaDataCache = MetaDataCache.readIndexInfo(session, schema);
-			session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+		MetaDataCache metaDataCache;
+		synchronized (session.MD_GETCOLUMNS_LOCK) {
+			metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
+			if (metaDataCache == null) {
+				metaDataCache = MetaDataCache.getShared(session, NAME, theSession -> MetaDataCache.readIndexInfo(theSession, schema));
+				session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
+			}
 		}
 		ResultSet resultSet = metaDataCache.forTable(table);
 		if (resultSet != null) {
@@ -1057,7 +1308,7 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 				synchronized (session.MD_GETCOLUMNS_LOCK) {
 					MetaDataCache metaDataCache = (MetaDataCache) session.getSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME);
 					if (metaDataCache == null) {
-						metaDataCache = MetaDataCache.readColumns(session, schemaPattern);
+						metaDataCache = MetaDataCache.getShared(session, NAME, theSession -> MetaDataCache.readColumns(theSession, schemaPattern));
 						session.setSessionProperty(JDBCMetaDataBasedModelElementFinder.class, NAME, metaDataCache);
 					}
 					ResultSet resultSet = metaDataCache.forTable(tableNamePattern);
@@ -1612,6 +1863,7 @@ public class JDBCMetaDataBasedModelElementFinder implements ModelElementFinder {
 
 	public static void resetCaches(Session session) {
 		session.removeSessionProperties(JDBCMetaDataBasedModelElementFinder.class);
+		MetaDataCache.removeSharedCaches(session);
 	}
 
 	private Map<String, Session> sessionWithPermissionToReadSchema = new HashMap<String, Session>();
@@ -20,17 +20,22 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.modelbuilder.MemorizedResultSet.MemorizedResultSetMetaData;
@@ -39,6 +44,10 @@ import net.sf.jailer.util.Quoting;
 
 /**
  * Reads database meta data directly from meta data views.
+ * <br>
+ * The rows are indexed by table and stored column-wise with shared strings.
+ * Caches can be shared between sessions to the same database and user for a configurable time
+ * (see {@link Configuration#getMetaDataCacheTimeToLive()}).
  *
  * @author Wisser
  */
@@ -50,9 +59,9 @@ public class MetaDataCache {
 	private static final Logger _log = LoggerFactory.getLogger(MetaDataCache.class);
 
 	/**
-	 * The cached rows.
+	 * The cached rows per table.
 	 */
-	private Map<String, List<Object[]>> cache;
+	private Map<String, TableRows> cache;
 
 	/**
 	 * Meta data of cached row set.
@@ -165,7 +174,7 @@ public class MetaDataCache {
 			}
 			Set<Integer> intIndex = new HashSet<Integer>(Arrays.asList(5, 7, 9, 10, 11, 14, 15, 16, 17, 22));
 
-			metaDataCache.cache = new HashMap<String, List<Object[]>>();
+			Map<String, List<Object[]>> rows = new HashMap<String, List<Object[]>>();
 			ResultSetMetaData rsMetaData = rs.getMetaData();
 			int numCol = rsMetaData.getColumnCount();
 			String[] names = new String[numCol];
@@ -200,17 +209,17 @@ public class MetaDataCache {
 				}
 				String table = (String) row[2];
 
-				List<Object[]> rowList = metaDataCache.cache.get(table);
+				List<Object[]> rowList = rows.get(table);
 				if (rowList == null) {
-					rowList = new LinkedList<Object[]>();
-					metaDataCache.cache.put(table, rowList);
+					rowList = new ArrayList<Object[]>();
+					rows.put(table, rowList);
 				}
 				rowList.add(row);
 			}
 			metaDataCache.resultSetMetaData = new MemorizedResultSetMetaData(numCol, names, types, typeNames);
 			rs.close();
-			if (metaDataCache.cache.isEmpty()) {
-				metaDataCache.cache = null;
+			if (!rows.isEmpty()) {
+				metaDataCache.setRows(rows, intIndex);
 			}
 			return metaDataCache;
 		} catch (SQLException e) {
@@ -228,14 +237,7 @@ public class MetaDataCache {
 			return null;
 		}
 
-		List<Object[]> rowList = cache.get(tableName);
-		if (rowList == null) {
-			rowList = new ArrayList<Object[]>();
-		}
-
-		MemorizedResultSet result = new MemorizedResultSet(rowList);
-		result.resultSetMetaData = resultSetMetaData;
-		return result;
+		return new TableRowsResultSet(cache.get(tableName), resultSetMetaData);
 	}
 
 	/**
@@ -243,7 +245,7 @@ public class MetaDataCache {
 	 */
 	private static void readMetaData(final MetaDataCache metaDataCache, Session session, String query,
 			final Set<Integer> intIndex, final int tableIndex) throws SQLException {
-		metaDataCache.cache = new HashMap<String, List<Object[]>>();
+		final Map<String, List<Object[]>> rows = new HashMap<String, List<Object[]>>();
 		boolean wasSilent = session.getSilent();
 		session.setSilent(true);
 		try {
@@ -260,10 +262,10 @@ public class MetaDataCache {
 						}
 					}
 					String table = (String) row[tableIndex];
-					List<Object[]> rowList = metaDataCache.cache.get(table);
+					List<Object[]> rowList = rows.get(table);
 					if (rowList == null) {
-						rowList = new LinkedList<Object[]>();
-						metaDataCache.cache.put(table, rowList);
+						rowList = new ArrayList<Object[]>();
+						rows.put(table, rowList);
 					}
 					rowList.add(row);
 				}
@@ -272,17 +274,323 @@ public class MetaDataCache {
 				throw new SQLException("Nothing found. Fall back to JDBC meta data.");
 			}
 			_log.info(rc + " rows read");
+			metaDataCache.setRows(rows, intIndex);
 		} finally {
 			session.setSilent(wasSilent);
 		}
 	}
+
+	/**
+	 * Indexes rows by table and stores them column-wise.
+	 *
+	 * @param rows rows per table
+	 * @param intIndex indexes of the columns with integer values
+	 */
+	private void setRows(Map<String, List<Object[]>> rows, Set<Integer> intIndex) {
+		Map<String, String> strings = new HashMap<String, String>();
+		cache = new HashMap<String, TableRows>(rows.size() * 2);
+		for (Map.Entry<String, List<Object[]>> e: rows.entrySet()) {
+			cache.put(share(e.getKey(), strings), new TableRows(e.getValue(), intIndex, strings));
+		}
+	}
+
+	/**
+	 * Returns a shared instance of a string.
+	 */
+	private static String share(String s, Map<String, String> strings) {
+		if (s == null) {
+			return null;
+		}
+		String shared = strings.get(s);
+		if (shared == null) {
+			strings.put(s, s);
+			shared = s;
+		}
+		return shared;
+	}
+
+	/**
+	 * Rows of a table, stored column-wise.
+	 */
+	private static class TableRows {
+		private final int size;
+		private final int numCol;
+
+		/**
+		 * Values of the string columns (<code>null</code> for integer columns).
+		 */
+		private final String[][] strings;
+
+		/**
+		 * Values of the integer columns (<code>null</code> for string columns).
+		 */
+		private final int[][] ints;
+
+		/**
+		 * Null-flags of the integer cells, bit <code>row * numCol + column</code>.
+		 */
+		private final BitSet nullInts;
+
+		TableRows(List<Object[]> rows, Set<Integer> intIndex, Map<String, String> sharedStrings) {
+			this.size = rows.size();
+			this.numCol = rows.isEmpty()? 0 : rows.get(0).length;
+			this.strings = new String[numCol][];
+			this.ints = new int[numCol][];
+			this.nullInts = new BitSet();
+			for (int c = 0; c < numCol; ++c) {
+				if (intIndex.contains(c + 1)) {
+					ints[c] = new int[size];
+				} else {
+					strings[c] = new String[size];
+				}
+			}
+			int r = 0;
+			for (Object[] row: rows) {
+				for (int c = 0; c < numCol; ++c) {
+					Object value = row[c];
+					if (ints[c] != null) {
+						if (value == null) {
+							nullInts.set(r * numCol + c);
+						} else {
+							ints[c][r] = (Integer) value;
+						}
+					} else {
+						strings[c][r] = share((String) value, sharedStrings);
+					}
+				}
+				++r;
+			}
+		}
+
+		private TableRows(int size, int numCol, String[][] strings, int[][] ints, BitSet nullInts) {
+			this.size = size;
+			this.numCol = numCol;
+			this.strings = strings;
+			this.ints = ints;
+			this.nullInts = nullInts;
+		}
+
+		private boolean isNull(int row, int column) {
+			if (column >= numCol) {
+				return true;
+			}
+			if (ints[column] != null) {
+				return nullInts.get(row * numCol + column);
+			}
+			return strings[column][row] == null;
+		}
+
+		/**
+		 * Gets the rows having a value in a given column.
+		 *
+		 * @param column the column (0-based)
+		 */
+		TableRows withoutNullRows(int column) {
+			int[] rowIndex = new int[size];
+			int newSize = 0;
+			for (int r = 0; r < size; ++r) {
+				if (!isNull(r, column)) {
+					rowIndex[newSize++] = r;
+				}
+			}
+			if (newSize == size) {
+				return this;
+			}
+			String[][] newStrings = new String[numCol][];
+			int[][] newInts = new int[numCol][];
+			BitSet newNullInts = new BitSet();
+			for (int c = 0; c < numCol; ++c) {
+				if (ints[c] != null) {
+					newInts[c] = new int[newSize];
+					for (int r = 0; r < newSize; ++r) {
+						newInts[c][r] = ints[c][rowIndex[r]];
+						if (nullInts.get(rowIndex[r] * numCol + c)) {
+							newNullInts.set(r * numCol + c);
+						}
+					}
+				} else {
+					newStrings[c] = new String[newSize];
+					for (int r = 0; r < newSize; ++r) {
+						newStrings[c][r] = strings[c][rowIndex[r]];
+					}
+				}
+			}
+			return new TableRows(newSize, numCol, newStrings, newInts, newNullInts);
+		}
+
+		/**
+		 * Gets the rows.
+		 */
+		List<Object[]> getRows() {
+			List<Object[]> rows = new ArrayList<Object[]>(size);
+			for (int r = 0; r < size; ++r) {
+				Object[] row = new Object[numCol];
+				for (int c = 0; c < numCol; ++c) {
+					if (ints[c] != null) {
+						if (!nullInts.get(r * numCol + c)) {
+							row[c] = ints[c][r];
+						}
+					} else {
+						row[c] = strings[c][r];
+					}
+				}
+				rows.add(row);
+			}
+			return rows;
+		}
+	}
+
+	/**
+	 * Result set reading the cells directly from the column-wise stored rows of a table.
+	 */
+	private static class TableRowsResultSet extends MemorizedResultSet {
+		private static final TableRows NO_ROWS = new TableRows(Collections.<Object[]>emptyList(), Collections.<Integer>emptySet(), null);
+
+		private TableRows tableRows;
+		private int index = -1;
+		private boolean wasNull;
+
+		TableRowsResultSet(TableRows tableRows, MemorizedResultSetMetaData resultSetMetaData) {
+			super(Collections.<Object[]>emptyList(), resultSetMetaData);
+			this.tableRows = tableRows == null? NO_ROWS : tableRows;
+		}
+
+		@Override
+		public boolean next() throws SQLException {
+			++index;
+			return index < tableRows.size;
+		}
+
+		@Override
+		public Object getObject(int columnIndex) throws SQLException {
+			Object c = null;
+			if (columnIndex <= tableRows.numCol) {
+				int[] ints = tableRows.ints[columnIndex - 1];
+				if (ints == null) {
+					c = tableRows.strings[columnIndex - 1][index];
+				} else if (!tableRows.nullInts.get(index * tableRows.numCol + columnIndex - 1)) {
+					c = ints[index];
+				}
+			}
+			wasNull = c == null;
+			return c;
+		}
+
+		@Override
+		public int getInt(int columnIndex) throws SQLException {
+			if (columnIndex <= tableRows.numCol) {
+				int[] ints = tableRows.ints[columnIndex - 1];
+				if (ints != null) {
+					wasNull = tableRows.nullInts.get(index * tableRows.numCol + columnIndex - 1);
+					return wasNull? 0 : ints[index];
+				}
+			}
+			return super.getInt(columnIndex);
+		}
+
+		@Override
+		public boolean getBoolean(int columnIndex) throws SQLException {
+			int i = getInt(columnIndex);
+			return i != 0 && !wasNull;
+		}
+
+		@Override
+		public boolean wasNull() throws SQLException {
+			return wasNull;
+		}
+
+		@Override
+		public void reset() {
+			index = -1;
+		}
+
+		@Override
+		public int getSize() {
+			return tableRows.size;
+		}
+
+		@Override
+		public List<Object[]> getRowList() {
+			return tableRows.getRows();
+		}
+
+		@Override
+		public void removeNullRows(int columnIndex) {
+			// the rows are shared with the cache, filter a copy
+			tableRows = tableRows.withoutNullRows(columnIndex - 1);
+		}
+	}
+
+	/**
+	 * Cache shared between sessions.
+	 */
+	private static class SharedCache {
+		MetaDataCache metaDataCache;
+		long readTime;
+	}
+
+	/**
+	 * Caches shared between sessions, keyed by kind of meta data, schema, URL and user.
+	 */
+	private static final Map<String, SharedCache> sharedCaches = new ConcurrentHashMap<String, SharedCache>();
+
+	/**
+	 * Gets a cache that has recently been read by a session to the same database and user, or reads it.
+	 *
+	 * @param session the session
+	 * @param name kind of meta data and schema
+	 * @param reader reads the cache
+	 * @return the cache
+	 */
+	public static MetaDataCache getShared(Session session, String name, Function<Session, MetaDataCache> reader) {
+		long timeToLive = Configuration.getInstance().getMetaDataCacheTimeToLive() * 1000L;
+		if (timeToLive <= 0 || session.dbUrl == null) {
+			return reader.apply(session);
+		}
+		long now = System.currentTimeMillis();
+		for (Iterator<SharedCache> i = sharedCaches.values().iterator(); i.hasNext(); ) {
+			SharedCache sharedCache = i.next();
+			if (sharedCache.metaDataCache != null && now - sharedCache.readTime > timeToLive) {
+				i.remove();
+			}
+		}
+		SharedCache sharedCache = sharedCaches.computeIfAbsent(sharedCacheKey(session) + name, key -> new SharedCache());
+		synchronized (sharedCache) {
+			if (sharedCache.metaDataCache == null || System.currentTimeMillis() - sharedCache.readTime > timeToLive) {
+				MetaDataCache metaDataCache = reader.apply(session);
+				if (metaDataCache.cache == null) {
+					// nothing read, don't keep the failure
+					return metaDataCache;
+				}
+				sharedCache.metaDataCache = metaDataCache;
+				sharedCache.readTime = System.currentTimeMillis();
+			}
+			return sharedCache.metaDataCache;
+		}
+	}
+
+	/**
+	 * Removes all shared caches of the database and user of a session.
+	 *
+	 * @param session the session
+	 */
+	public static void removeSharedCaches(Session session) {
+		if (session.dbUrl != null) {
+			String prefix = sharedCacheKey(session);
+			sharedCaches.keySet().removeIf(key -> key.startsWith(prefix));
+		}
+	}
+
+	private static String sharedCacheKey(Session session) {
+		return session.dbUrl + "\n" + session.getSchema() + "\n";
+	}
 	
 	public String info(String subject) {
 		try {
 			Set<String> schema = new HashSet<String>();
-			cache.forEach((k, v) -> v.forEach(c-> schema.add(c[0] + "." + c[1])));
-			return "MetaDataCache [cache=" + cache.entrySet().stream().map(e -> e.getValue().size()).collect(Collectors.summarizingInt(n -> n)) + "/" + schema + "]" +
-				cache.get(subject);
+			cache.forEach((k, v) -> v.getRows().forEach(c-> schema.add(c[0] + "." + c[1])));
+			return "MetaDataCache [cache=" + cache.entrySet().stream().map(e -> e.getValue().size).collect(Collectors.summarizingInt(n -> n)) + "/" + schema + "]" +
+				(cache.get(subject) == null? null : cache.get(subject).getRows());
 		} catch (Throwable t) {
 			return t.getMessage();
 		}
@@ -142,11 +142,15 @@ public class ModelBuilder {
 	 * @param warnings string-buffer to print warnings into, may be <code>null</code>
 	 */
 	public static void buildAndMerge(DataSource dataSource, DBMS dbms, String schema, StringBuffer warnings, ExecutionContext executionContext) throws Exception {
-		build(dataSource, dbms, schema, warnings, executionContext);
+		TableFingerprints fingerprints = buildModel(dataSource, dbms, schema, warnings, executionContext);
 		merge(getModelBuilderTablesFilename(executionContext), DataModel.getTablesFile(executionContext), 0, TABLE_HEADER);
 		merge(getModelBuilderAssociationsFilename(executionContext), DataModel.getAssociationsFile(executionContext), 5, ASSOC_HEADER);
 		merge(getModelBuilderColumnsFilename(executionContext), DataModel.getColumnsFile(executionContext), 0, COLUMN_HEADER);
 		merge(getModelBuilderCommentsFilename(executionContext), DataModel.getCommentsFile(executionContext), 0, COMMENT_HEADER);
+		if (fingerprints != null) {
+			// the model now reflects the catalog state of the fingerprints
+			fingerprints.write(executionContext);
+		}
 		cleanUp(executionContext);
 	}
 
@@ -182,11 +186,25 @@ public class ModelBuilder {
 	 * @param warnings string-buffer to print warnings into, may be <code>null</code>
 	 */
 	public static void build(DataSource dataSource, DBMS dbms, String schema, StringBuffer warnings, ExecutionContext executionContext) throws Exception {
+		buildModel(dataSource, dbms, schema, warnings, executionContext);
+	}
+
+	/**
+	 * Builds model.
+	 *
+	 * @param warnings string-buffer to print warnings into, may be <code>null</code>
+	 * @return the fingerprints of the tables if {@link ExecutionContext#isIncrementalModelBuild()}, else <code>null</code>
+	 */
+	private static TableFingerprints buildModel(DataSource dataSource, DBMS dbms, String schema, StringBuffer warnings, ExecutionContext executionContext) throws Exception {
 		session = new Session(dataSource, dbms, executionContext.getIsolationLevel());
 		session.disableMetaDataChecking();
+		// analyze the current catalog state, not the one other sessions have read
+		MetaDataCache.removeSharedCaches(session);
+		JDBCMetaDataBasedModelElementFinder finder = new JDBCMetaDataBasedModelElementFinder();
 		try {
-			build(schema, warnings, executionContext);
+			return build(finder, schema, warnings, executionContext);
 		} finally {
+			finder.shutDown();
 			try {
 				session.shutDown();
 			} catch (Exception e) {
@@ -196,7 +214,7 @@ public class ModelBuilder {
 		}
 	}
 
-	private static void build(String schema, StringBuffer warnings, ExecutionContext executionContext) throws Exception {
+	private static TableFingerprints build(JDBCMetaDataBasedModelElementFinder finder, String schema, StringBuffer warnings, ExecutionContext executionContext) throws Exception {
 		session.setIntrospectionSchema(schema);
 
 		resetFiles(executionContext);
@@ -205,10 +223,37 @@ public class ModelBuilder {
 
 		Collection<Table> tables = new ArrayList<Table>();
 
-		ModelElementFinder finder = new JDBCMetaDataBasedModelElementFinder();
+		// lines of the current model, keyed by table name
+		Map<String, Line> modelTableLines = new HashMap<String, Line>();
+		Map<String, Line> modelColumnLines = new HashMap<String, Line>();
+		if (executionContext.isIncrementalModelBuild()) {
+			modelTableLines = readLines(DataModel.getTablesFile(executionContext));
+			modelColumnLines = readLines(DataModel.getColumnsFile(executionContext));
+			finder.setIncrementalBuild(TableFingerprints.read(executionContext), modelTableLines.keySet());
+		}
+
 		_log.info("find tables with " + finder);
 		tables.addAll(finder.findTables(session, executionContext));
 
+		// unchanged tables are not analyzed again, their definitions are taken from the current model
+		Map<String, String> unchangedTableLines = new TreeMap<String, String>();
+		Map<String, String> unchangedColumnLines = new TreeMap<String, String>();
+		CsvFile excludedTablesCSV = getExcludeTablesCSV(executionContext);
+		for (String tableName: finder.getUnchangedTables()) {
+			if (excludedTablesCSV.contains(new String[] { tableName }) || excludedTablesCSV.contains(new String[] { tableName.toUpperCase(Locale.ENGLISH) })) {
+				continue;
+			}
+			knownIdentifiers.putTableName(tableName);
+			unchangedTableLines.put(tableName, modelTableLines.get(tableName).toString() + PrintUtil.LINE_SEPARATOR);
+			Line columnLine = modelColumnLines.get(tableName);
+			if (columnLine != null) {
+				unchangedColumnLines.put(tableName, columnLine.toString() + PrintUtil.LINE_SEPARATOR);
+				for (int i = 1; i < columnLine.cells.size() && columnLine.cells.get(i).length() > 0; ++i) {
+					knownIdentifiers.putColumnName(tableName, Column.parse(columnLine.cells.get(i).trim()).name);
+				}
+			}
+		}
+
 		
 		Optional<Table> x = ((ArrayList<Table>) tables).stream().filter( t -> t.getName().equals("VA")).findFirst();
 		
@@ -224,7 +269,7 @@ public class ModelBuilder {
 			}
 		}
 
-		String tableDefinitions = "";
+		Map<String, String> tableLines = new TreeMap<String, String>(unchangedTableLines);
 		List<Table> sortedTables = new ArrayList<Table>(tables);
 		Collections.sort(sortedTables, new Comparator<Table>() {
 			@Override
@@ -237,7 +282,7 @@ public class ModelBuilder {
 
 		Quoting quoting = Quoting.getQuoting(session);
 
-		StringBuilder columnsDefinition = new StringBuilder();
+		Map<String, String> columnLines = new TreeMap<String, String>(unchangedColumnLines);
 		CsvFile excludeTablesCSV = getExcludeTablesCSV(executionContext);
 		Map<String, Table> allTablesSet = new TreeMap<String, Table>();
 		for (Table table: allTables) {
@@ -251,16 +296,22 @@ public class ModelBuilder {
 				List<Column> columns = finder.findColumns(table, session, executionContext);
 				if (!columns.isEmpty()) {
 					columnPerTable.put(table, columns);
+					StringBuilder columnsDefinition = new StringBuilder();
 					columnsDefinition.append(CsvFile.encodeCell(table.getName()) + "; ");
 					for (Column c: columns) {
 						columnsDefinition.append(CsvFile.encodeCell(c.toSQL(null) + (c.isIdentityColumn? " identity" : "") + (c.isVirtual? " virtual" : "") + (c.isNullable? " null" : "")) + "; ");
 						knownIdentifiers.putColumnName(table.getName(), c.name);
 					}
 					columnsDefinition.append(PrintUtil.LINE_SEPARATOR);
+					columnLines.put(table.getName(), columnsDefinition.toString());
 				}
 			}
 		}
-		resetColumnsFile(columnsDefinition.toString(), executionContext);
+		StringBuilder columnsDefinitions = new StringBuilder();
+		for (String line: columnLines.values()) {
+			columnsDefinitions.append(line);
+		}
+		resetColumnsFile(columnsDefinitions.toString(), executionContext);
 
 		DataModel dataModel = new DataModel(knownIdentifiers, executionContext);
 
@@ -295,15 +346,20 @@ public class ModelBuilder {
 					}
 					_log.warn(warning);
 				}
-				tableDefinitions += CsvFile.encodeCell(table.getName()) + "; N; ";
+				String tableDefinition = CsvFile.encodeCell(table.getName()) + "; N; ";
 				for (Column pk: table.primaryKey.getColumns()) {
-					tableDefinitions += CsvFile.encodeCell(pk.toString()) + (pk.isNullable? " null" : "") + ";";
+					tableDefinition += CsvFile.encodeCell(pk.toString()) + (pk.isNullable? " null" : "") + ";";
 				}
-				tableDefinitions += "   ;" + CsvFile.encodeCell(table.getAuthor()) + ";" + PrintUtil.LINE_SEPARATOR;
+				tableDefinition += "   ;" + CsvFile.encodeCell(table.getAuthor()) + ";" + PrintUtil.LINE_SEPARATOR;
+				tableLines.put(table.getName(), tableDefinition);
 			}
 		}
+		StringBuilder tableDefinitions = new StringBuilder();
+		for (String line: tableLines.values()) {
+			tableDefinitions.append(line);
+		}
 
-		resetTableFile(tableDefinitions, executionContext);
+		resetTableFile(tableDefinitions.toString(), executionContext);
 
 		// re-read data model with new tables
 		dataModel = new DataModel(getModelBuilderTablesFilename(executionContext), getModelBuilderAssociationsFilename(executionContext), new HashMap<String, String>(), assocFilter, new PrimaryKeyFactory(executionContext), executionContext, false, knownIdentifiers);
@@ -403,6 +459,24 @@ public class ModelBuilder {
 			commentsDefinitions.append(line + PrintUtil.LINE_SEPARATOR);
 		});
 		resetCommentsFile(commentsDefinitions.toString(), executionContext);
+
+		return finder.getFingerprints();
+	}
+
+	/**
+	 * Reads the lines of a model file.
+	 *
+	 * @return map from the first cell to the line
+	 */
+	private static Map<String, Line> readLines(String fileName) throws IOException {
+		Map<String, Line> lines = new HashMap<String, Line>();
+		File file = new File(fileName);
+		if (file.exists()) {
+			for (Line line: new CsvFile(file).getLines()) {
+				lines.put(line.cells.get(0), line);
+			}
+		}
+		return lines;
 	}
 
 	private static String ASSOC_HEADER = "# Table A; Table B; First-insert; Cardinality (opt); Join-condition; Name; Author" + PrintUtil.LINE_SEPARATOR;
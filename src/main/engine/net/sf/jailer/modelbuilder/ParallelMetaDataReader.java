@@ -0,0 +1,168 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.modelbuilder;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.util.CancellationException;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Reads meta data of many tables (primary keys, columns, imported keys) in parallel.
+ * <br>
+ * The jobs are executed by a job manager which is shared by all readers of a model-building run.
+ * Each of its threads uses its own connection of the session, so the number of threads bounds the number of connections.
+ * The result sets are kept in memory until they are consumed in the order of the caller, so that
+ * the outcome doesn't depend on the number of threads.
+ * Without a job manager, the meta data of a table is read when it is requested.
+ *
+ * @author Ralf Wisser
+ */
+class ParallelMetaDataReader {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(ParallelMetaDataReader.class);
+
+	/**
+	 * Reads the meta data of a table.
+	 */
+	interface Reader {
+		ResultSet read(String tableName) throws SQLException;
+	}
+
+	private final Reader reader;
+
+	/**
+	 * Indexes of the columns with integer values.
+	 */
+	private final Set<Integer> intIndex;
+
+	/**
+	 * Memorized result sets or exceptions per table name.
+	 */
+	private final Map<String, Object> results = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * Constructor. Reads the meta data of all tables if a job manager is given.
+	 *
+	 * @param tableNames names of the tables
+	 * @param intIndex indexes of the columns with integer values
+	 * @param jobManager executes the jobs reading the meta data, or <code>null</code> to read on demand
+	 * @param reader reads the meta data of a table
+	 */
+	ParallelMetaDataReader(Collection<String> tableNames, Set<Integer> intIndex, JobManager jobManager, Reader reader) throws SQLException {
+		this.reader = reader;
+		this.intIndex = intIndex;
+		if (jobManager != null && tableNames.size() > 1) {
+			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			for (final String tableName: tableNames) {
+				jobs.add(new JobManager.Job() {
+					@Override
+					public void run() throws SQLException, CancellationException {
+						results.put(tableName, memorize(tableName));
+					}
+				});
+			}
+			jobManager.executeJobs(jobs);
+		}
+	}
+
+	/**
+	 * Gets the meta data of a table. The meta data of each table can only be got once.
+	 *
+	 * @param tableName the table name
+	 * @return the meta data
+	 */
+	ResultSet get(String tableName) throws SQLException {
+		Object result = results.remove(tableName);
+		if (result == null) {
+			return reader.read(tableName);
+		}
+		if (result instanceof SQLException) {
+			throw (SQLException) result;
+		}
+		if (result instanceof RuntimeException) {
+			throw (RuntimeException) result;
+		}
+		return (ResultSet) result;
+	}
+
+	/**
+	 * Reads the meta data of a table into memory.
+	 *
+	 * @return the memorized result set or the exception
+	 */
+	private Object memorize(String tableName) {
+		try {
+			ResultSet resultSet = reader.read(tableName);
+			if (resultSet instanceof MemorizedResultSet) {
+				return resultSet;
+			}
+			try {
+				ResultSetMetaData metaData = resultSet.getMetaData();
+				int numCol = metaData.getColumnCount();
+				String[] names = new String[numCol];
+				int[] types = new int[numCol];
+				for (int i = 0; i < numCol; ++i) {
+					names[i] = metaData.getColumnName(i + 1);
+					types[i] = metaData.getColumnType(i + 1);
+				}
+				List<Object[]> rowList = new ArrayList<Object[]>();
+				while (resultSet.next()) {
+					Object[] row = new Object[numCol];
+					for (int i = 1; i <= numCol; ++i) {
+						try {
+							if (intIndex.contains(i)) {
+								int value = resultSet.getInt(i);
+								row[i - 1] = resultSet.wasNull()? null : value;
+							} else {
+								row[i - 1] = resultSet.getString(i);
+							}
+						} catch (SQLException e) {
+							// some drivers fail to read optional columns
+							row[i - 1] = null;
+						}
+					}
+					rowList.add(row);
+				}
+				return new MemorizedResultSet(rowList, numCol, names, types);
+			} finally {
+				resultSet.close();
+			}
+		} catch (SQLException e) {
+			return e;
+		} catch (RuntimeException e) {
+			return e;
+		} catch (Throwable t) {
+			_log.warn("can't read meta data of " + tableName, t);
+			return new RuntimeException(t);
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.modelbuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.datamodel.DataModel;
+import net.sf.jailer.util.CsvFile;
+import net.sf.jailer.util.PrintUtil;
+
+/**
+ * Fingerprints of the catalog state (columns, keys and DDL time) of the tables of a data model.
+ * Allows the {@link ModelBuilder} to skip the analysis of tables which have not been changed since the last run.
+ *
+ * @author Ralf Wisser
+ */
+class TableFingerprints {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(TableFingerprints.class);
+
+	private static final String HEADER = "# Table; Fingerprint" + PrintUtil.LINE_SEPARATOR;
+
+	/**
+	 * Fingerprint per table name.
+	 */
+	private final Map<String, String> fingerprints = new TreeMap<String, String>();
+
+	/**
+	 * Gets the file containing the fingerprints of the data model.
+	 */
+	static File getFile(ExecutionContext executionContext) {
+		return new File(DataModel.getDatamodelFolder(executionContext) + File.separator + "table-fingerprints.csv");
+	}
+
+	/**
+	 * Reads the fingerprints of the data model.
+	 *
+	 * @return the fingerprints, empty if there are none
+	 */
+	static TableFingerprints read(ExecutionContext executionContext) {
+		TableFingerprints result = new TableFingerprints();
+		File file = getFile(executionContext);
+		if (file.exists()) {
+			try {
+				for (CsvFile.Line line: new CsvFile(file).getLines()) {
+					result.fingerprints.put(line.cells.get(0), line.cells.get(1));
+				}
+			} catch (IOException e) {
+				_log.warn("can't read " + file + ": " + e.getMessage());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the fingerprints of the data model.
+	 */
+	void write(ExecutionContext executionContext) throws IOException {
+		StringBuilder content = new StringBuilder(HEADER);
+		for (Map.Entry<String, String> e: fingerprints.entrySet()) {
+			content.append(CsvFile.encodeCell(e.getKey()) + "; " + CsvFile.encodeCell(e.getValue()) + PrintUtil.LINE_SEPARATOR);
+		}
+		File file = getFile(executionContext);
+		PrintWriter out = new PrintWriter(new FileOutputStream(file));
+		out.print(content);
+		out.close();
+		_log.info("file '" + file + "' written");
+	}
+
+	/**
+	 * Gets the fingerprint of a table.
+	 *
+	 * @return the fingerprint or <code>null</code> if the table is unknown
+	 */
+	String get(String tableName) {
+		return fingerprints.get(tableName);
+	}
+
+	/**
+	 * Sets the fingerprint of a table.
+	 */
+	void put(String tableName, String fingerprint) {
+		fingerprints.put(tableName, fingerprint);
+	}
+
+	/**
+	 * Computes a fingerprint of a description of the catalog state of a table.
+	 */
+	static String fingerprint(String description) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			StringBuilder result = new StringBuilder();
+			for (byte b: digest.digest(description.getBytes(Charset.forName("UTF-8")))) {
+				result.append(String.format("%02x", b & 0xff));
+			}
+			return result.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -16,7 +16,18 @@
 package net.sf.jailer.progress;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import net.sf.jailer.datamodel.ModelElement;
 import net.sf.jailer.datamodel.Table;
@@ -24,12 +35,129 @@ import net.sf.jailer.util.CancellationException;
 
 /**
  * Registry for {@link ProgressListener}.
+ * <br>
+ * Collection and export events are published into a lock-free queue and delivered
+ * {@link #DISPATCH_INTERVAL_MS} later by a single dispatcher thread shared by all registries.
+ * The "exported" events of the same table are coalesced, all other events are delivered one by one.
+ * Stage changes are delivered synchronously after all pending events.
+ * Listeners are never called concurrently.
  *
  * @author Ralf Wisser
  */
 public class ProgressListenerRegistry {
 
-	private List<ProgressListener> progressListeners = new ArrayList<ProgressListener>();
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(ProgressListenerRegistry.class);
+
+	/**
+	 * Time in milliseconds during which events are coalesced.
+	 */
+	private static final long DISPATCH_INTERVAL_MS = 100;
+
+	private final List<ProgressListener> progressListeners = new CopyOnWriteArrayList<ProgressListener>();
+
+	/**
+	 * Pending events.
+	 */
+	private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<Event>();
+
+	/**
+	 * Whether the delivery of the pending events is scheduled.
+	 */
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	/**
+	 * Time (in nanoseconds) at which the scheduled delivery is due.
+	 */
+	private volatile long dueTime;
+
+	/**
+	 * Registries whose delivery is scheduled, in the order of their due times.
+	 */
+	private static final BlockingQueue<ProgressListenerRegistry> scheduledRegistries = new LinkedBlockingQueue<ProgressListenerRegistry>();
+
+	static {
+		Thread dispatcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (;;) {
+					try {
+						ProgressListenerRegistry registry = scheduledRegistries.take();
+						long delay = registry.dueTime - System.nanoTime();
+						if (delay > 0) {
+							TimeUnit.NANOSECONDS.sleep(delay);
+						}
+						// events published from now on schedule the next delivery
+						registry.scheduled.set(false);
+						registry.flush();
+					} catch (InterruptedException e) {
+						// ignore
+					} catch (Throwable t) {
+						_log.warn("progress event delivery failed", t);
+					}
+				}
+			}
+		}, "progress-dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	/**
+	 * Serializes the delivery of events.
+	 */
+	private final Object deliveryLock = new Object();
+
+	private enum EventType {
+		ENQUEUED, STARTED, COLLECTED, EXPORTED
+	}
+
+	/**
+	 * A pending event.
+	 */
+	private static class Event {
+		final EventType type;
+		final int day;
+		final ModelElement modelElement;
+		long numberOfRows;
+
+		Event(EventType type, int day, ModelElement modelElement, long numberOfRows) {
+			this.type = type;
+			this.day = day;
+			this.modelElement = modelElement;
+			this.numberOfRows = numberOfRows;
+		}
+	}
+
+	/**
+	 * Key of coalescable events.
+	 */
+	private static class EventKey {
+		final EventType type;
+		final int day;
+		final ModelElement modelElement;
+
+		EventKey(Event event) {
+			this.type = event.type;
+			this.day = event.day;
+			this.modelElement = event.modelElement;
+		}
+
+		@Override
+		public int hashCode() {
+			return (type.hashCode() * 31 + day) * 31 + System.identityHashCode(modelElement);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof EventKey)) {
+				return false;
+			}
+			EventKey other = (EventKey) obj;
+			return type == other.type && day == other.day && modelElement == other.modelElement;
+		}
+	}
 
 	/**
 	 * Adds a {@link ProgressListener}.
@@ -37,43 +165,101 @@ public class ProgressListenerRegistry {
 	 * @param theProgressListener
 	 *            to add
 	 */
-	public synchronized void addProgressListener(ProgressListener theProgressListener) {
+	public void addProgressListener(ProgressListener theProgressListener) {
 		progressListeners.add(theProgressListener);
 	}
 
-	public synchronized void fireCollectionJobEnqueued(int day, ModelElement modelElement) {
-		for (ProgressListener listener : progressListeners) {
-			listener.collectionJobEnqueued(day, modelElement);
-		}
+	public void fireCollectionJobEnqueued(int day, ModelElement modelElement) {
+		publish(new Event(EventType.ENQUEUED, day, modelElement, 0));
+	}
+
+	public void fireCollectionJobStarted(int day, ModelElement modelElement) {
+		publish(new Event(EventType.STARTED, day, modelElement, 0));
+	}
+
+	public void fireCollected(int day, ModelElement modelElement, long numberOfRows) {
+		publish(new Event(EventType.COLLECTED, day, modelElement, numberOfRows));
+	}
+
+	public void fireExported(Table table, long rc) {
+		publish(new Event(EventType.EXPORTED, 0, table, rc));
 	}
 
-	public synchronized void fireCollectionJobStarted(int day, ModelElement modelElement) {
-		for (ProgressListener listener : progressListeners) {
-			listener.collectionJobStarted(day, modelElement);
+	public void fireNewStage(String stage, boolean isErrorStage, boolean isFinalStage) {
+		synchronized (deliveryLock) {
+			deliverPendingEvents();
+			for (ProgressListener listener : progressListeners) {
+				listener.newStage(stage, isErrorStage, isFinalStage);
+			}
 		}
 	}
 
-	public synchronized void fireCollected(int day, ModelElement modelElement, long numberOfRows) {
-		for (ProgressListener listener : progressListeners) {
-			listener.collected(day, modelElement, numberOfRows);
+	public void firePrepareExport() throws CancellationException {
+		synchronized (deliveryLock) {
+			deliverPendingEvents();
+			for (ProgressListener listener : progressListeners) {
+				listener.prepareExport();
+			}
 		}
 	}
 
-	public synchronized void fireExported(Table table, long rc) {
-		for (ProgressListener listener : progressListeners) {
-			listener.exported(table, rc);
+	/**
+	 * Delivers all pending events to the listeners.
+	 */
+	public void flush() {
+		synchronized (deliveryLock) {
+			deliverPendingEvents();
 		}
 	}
 
-	public synchronized void fireNewStage(String stage, boolean isErrorStage, boolean isFinalStage) {
-		for (ProgressListener listener : progressListeners) {
-			listener.newStage(stage, isErrorStage, isFinalStage);
+	private void publish(Event event) {
+		if (progressListeners.isEmpty()) {
+			return;
+		}
+		events.add(event);
+		if (scheduled.compareAndSet(false, true)) {
+			dueTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DISPATCH_INTERVAL_MS);
+			scheduledRegistries.add(this);
 		}
 	}
 
-	public synchronized void firePrepareExport() throws CancellationException {
-		for (ProgressListener listener : progressListeners) {
-			listener.prepareExport();
+	/**
+	 * Delivers the pending events, coalescing the "exported" events of the same table.
+	 * "collected" events are not coalesced, as listeners count the finished collection jobs.
+	 * Caller must hold the {@link #deliveryLock}.
+	 */
+	private void deliverPendingEvents() {
+		if (events.isEmpty()) {
+			return;
+		}
+		List<Event> toDeliver = new ArrayList<Event>();
+		Map<EventKey, Event> coalesced = new LinkedHashMap<EventKey, Event>();
+		Event event;
+		while ((event = events.poll()) != null) {
+			if (event.type == EventType.EXPORTED) {
+				EventKey key = new EventKey(event);
+				Event pending = coalesced.get(key);
+				if (pending != null) {
+					pending.numberOfRows += event.numberOfRows;
+					continue;
+				}
+				coalesced.put(key, event);
+			}
+			toDeliver.add(event);
+		}
+		for (Event e: toDeliver) {
+			for (ProgressListener listener : progressListeners) {
+				try {
+					switch (e.type) {
+					case ENQUEUED: listener.collectionJobEnqueued(e.day, e.modelElement); break;
+					case STARTED: listener.collectionJobStarted(e.day, e.modelElement); break;
+					case COLLECTED: listener.collected(e.day, e.modelElement, e.numberOfRows); break;
+					case EXPORTED: listener.exported((Table) e.modelElement, e.numberOfRows); break;
+					}
+				} catch (RuntimeException ex) {
+					_log.warn("progress listener " + listener + " failed on " + e.type + " event", ex);
+				}
+			}
 		}
 	}
 
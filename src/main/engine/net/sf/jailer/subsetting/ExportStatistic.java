@@ -18,6 +18,7 @@ package net.sf.jailer.subsetting;
 import java.util.HashMap;
 import java.util.Map;
 
+import net.sf.jailer.database.InlineViewBlockSize;
 import net.sf.jailer.datamodel.Table;
 
 /**
@@ -29,6 +30,7 @@ public class ExportStatistic {
 
 	private Map<Table, Long> exportedRows = new HashMap<Table, Long>();
 	private long total;
+	private Map<String, InlineViewBlockSize> inlineViewBlockSizes = new HashMap<String, InlineViewBlockSize>();
 
 	/**
 	 * Gets number of exported rows per table.
@@ -65,5 +67,23 @@ public class ExportStatistic {
 	public void setTotal(long total) {
 		this.total = total;
 	}
+
+	/**
+	 * Gets sizes of the inline-views used for transferring rows between databases.
+	 * 
+	 * @return block sizes per database
+	 */
+	public Map<String, InlineViewBlockSize> getInlineViewBlockSizes() {
+		return inlineViewBlockSizes;
+	}
+
+	/**
+	 * Sets sizes of the inline-views used for transferring rows between databases.
+	 * 
+	 * @param inlineViewBlockSizes block sizes per database
+	 */
+	public void setInlineViewBlockSizes(Map<String, InlineViewBlockSize> inlineViewBlockSizes) {
+		this.inlineViewBlockSizes = inlineViewBlockSizes;
+	}
 	
 }
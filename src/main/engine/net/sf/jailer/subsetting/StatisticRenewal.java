@@ -0,0 +1,185 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.subsetting;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.SqlScriptBasedStatisticRenovator;
+import net.sf.jailer.entitygraph.EntityGraph;
+
+/**
+ * Renews the DB table statistics for the working-tables in the background,
+ * so that the collection of rows doesn't wait for the renewal.
+ * <br>
+ * The statistics of a working-table are renewed when the number of rows inserted into it since the last renewal
+ * exceeds its threshold (see {@link ExecutionContext#getStatisticRenewalThresholds()}). The statistics of the
+ * tables without threshold are renewed each time the total number of inserted rows has doubled.
+ * Requests made while a renewal is running are ignored.
+ *
+ * @author Ralf Wisser
+ */
+class StatisticRenewal {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger _log = LoggerFactory.getLogger(StatisticRenewal.class);
+
+	private static final String ENTITY = "JAILER_ENTITY";
+	private static final String DEPENDENCY = "JAILER_DEPENDENCY";
+
+	/**
+	 * The working-tables.
+	 */
+	private static final List<String> WORKING_TABLES = Arrays.asList(ENTITY, "JAILER_GRAPH", DEPENDENCY, "JAILER_SET");
+
+	private final ExecutionContext executionContext;
+
+	/**
+	 * Threshold per working-table.
+	 */
+	private final Map<String, Long> thresholds = new HashMap<String, Long>();
+
+	/**
+	 * Number of rows per working-table at last renewal.
+	 */
+	private final Map<String, Long> lastRowcount = new HashMap<String, Long>();
+
+	/**
+	 * Total row-count at last renewal of the tables without threshold.
+	 */
+	private long lastTotalRowcount = 0;
+
+	private ExecutorService executor;
+	private Future<?> renewal;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param executionContext the execution context
+	 */
+	StatisticRenewal(ExecutionContext executionContext) {
+		this.executionContext = executionContext;
+		String rawThresholds = executionContext.getStatisticRenewalThresholds();
+		if (rawThresholds != null && rawThresholds.trim().length() > 0) {
+			for (String item: rawThresholds.split(",")) {
+				String[] tableAndRows = item.split("=");
+				String table = tableAndRows[0].trim().toUpperCase();
+				if (tableAndRows.length != 2 || !(ENTITY.equals(table) || DEPENDENCY.equals(table))) {
+					throw new IllegalArgumentException("invalid statistic renewal threshold \"" + item.trim() + "\", expected " + ENTITY + "=<rows> or " + DEPENDENCY + "=<rows>");
+				}
+				thresholds.put(table, Long.parseLong(tableAndRows[1].trim()));
+			}
+		}
+	}
+
+	/**
+	 * Renews the statistics of the working-tables whose thresholds are exceeded.
+	 * Doesn't wait for the renewal.
+	 *
+	 * @param entityGraph the entity graph
+	 */
+	synchronized void request(EntityGraph entityGraph) {
+		if (renewal != null && !renewal.isDone()) {
+			return;
+		}
+		final Session session = entityGraph.getSession();
+		final SqlScriptBasedStatisticRenovator statisticRenovator = session.dbms.getStatisticRenovator();
+		long totalRowcount = entityGraph.getTotalRowcount();
+		boolean renewAll = lastTotalRowcount == 0 || (lastTotalRowcount * 2 <= totalRowcount && totalRowcount > 1000);
+		if (renewAll) {
+			lastTotalRowcount = totalRowcount;
+		}
+		final Set<String> tables = new LinkedHashSet<String>();
+		for (String table: WORKING_TABLES) {
+			Long threshold = thresholds.get(table);
+			if (threshold == null) {
+				if (renewAll) {
+					tables.add(table);
+				}
+			} else {
+				long rowcount = DEPENDENCY.equals(table)? entityGraph.getDependencyRowcount() : totalRowcount - entityGraph.getDependencyRowcount();
+				Long last = lastRowcount.get(table);
+				if (last == null || rowcount - last >= threshold) {
+					lastRowcount.put(table, rowcount);
+					tables.add(table);
+				}
+			}
+		}
+		if (tables.isEmpty() || statisticRenovator == null) {
+			return;
+		}
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "statistic-renewal");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		final long rowcount = totalRowcount;
+		renewal = executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				_log.info("gather statistics of " + tables + " after " + rowcount + " inserted rows...");
+				try {
+					statisticRenovator.renew(session, executionContext, tables.size() == WORKING_TABLES.size()? null : tables);
+				} catch (Throwable t) {
+					_log.warn("unable to update table statistics: " + t.getMessage());
+				}
+			}
+		});
+	}
+
+	/**
+	 * Waits until the running renewal (if any) is finished and releases the thread.
+	 * Must be called before the working-tables are cleaned up.
+	 */
+	void finish() {
+		ExecutorService theExecutor;
+		synchronized (this) {
+			theExecutor = executor;
+			executor = null;
+			renewal = null;
+		}
+		if (theExecutor != null) {
+			theExecutor.shutdown();
+			try {
+				theExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
@@ -18,11 +18,14 @@ package net.sf.jailer.subsetting;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -35,6 +38,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -68,10 +72,10 @@ import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.DMLTransformer;
 import net.sf.jailer.database.DeletionTransformer;
+import net.sf.jailer.database.InlineViewBlockSize;
 import net.sf.jailer.database.LocalDatabase;
 import net.sf.jailer.database.Session;
 import net.sf.jailer.database.SqlException;
-import net.sf.jailer.database.StatisticRenovator;
 import net.sf.jailer.database.WorkingTableScope;
 import net.sf.jailer.datamodel.AggregationSchema;
 import net.sf.jailer.datamodel.Association;
@@ -96,11 +100,13 @@ import net.sf.jailer.liquibase.LiquibaseXMLTransformer;
 import net.sf.jailer.progress.ProgressListener;
 import net.sf.jailer.util.CancellationException;
 import net.sf.jailer.util.CancellationHandler;
+import net.sf.jailer.util.ChunkedOutputStream;
 import net.sf.jailer.util.CycleFinder;
 import net.sf.jailer.util.JobManager;
 import net.sf.jailer.util.JobManager.Job;
 import net.sf.jailer.util.PrintUtil;
 import net.sf.jailer.util.Quoting;
+import net.sf.jailer.util.SpillOutputStream;
 import net.sf.jailer.util.SqlUtil;
 import net.sf.jailer.xml.XmlExportTransformer;
 import net.sf.jailer.xml.XmlUtil;
@@ -120,6 +126,7 @@ public class SubsettingEngine {
 	public SubsettingEngine(ExecutionContext executionContext) {
 		this.executionContext = executionContext;
 		this.collectedRowsCounter = new CollectedRowsCounter();
+		this.statisticRenewal = new StatisticRenewal(executionContext);
 		this.executionContext.getProgressListenerRegistry().addProgressListener(collectedRowsCounter);
 		jobManager = new JobManager(executionContext.getNumberOfThreads()) {
 			@Override
@@ -156,6 +163,16 @@ public class SubsettingEngine {
 
 	private final CollectedRowsCounter collectedRowsCounter;
 
+	/**
+	 * Renews the DB-statistics of the working tables in the background.
+	 */
+	private final StatisticRenewal statisticRenewal;
+
+	/**
+	 * Folder into which the content of LOBs is written (if {@link ExecutionContext#isLobFiles()}).
+	 */
+	private File lobFolder;
+
 	/**
 	 * The job-manager to be used for concurrent execution of jobs.
 	 */
@@ -250,12 +267,17 @@ public class SubsettingEngine {
 		}
 		Set<Table> totalProgress = new HashSet<Table>();
 
-		while (!progress.isEmpty()) {
-			totalProgress.addAll(progress.keySet());
-			_log.info("day " + today + ", progress: " + asString(progress.keySet()));
-			++today;
+		if (executionContext.isPipelinedCollection() && executionContext.getNumberOfThreads() > 1 && !progress.isEmpty()) {
+			today = new CollectionPipeline(completedTables).run(today + 1, progress, totalProgress);
 			entityGraph.setAge(today + 1);
-			progress = resolveAssociations(today, progress, completedTables);
+		} else {
+			while (!progress.isEmpty()) {
+				totalProgress.addAll(progress.keySet());
+				_log.info("day " + today + ", progress: " + asString(progress.keySet()));
+				++today;
+				entityGraph.setAge(today + 1);
+				progress = resolveAssociations(today, progress, completedTables);
+			}
 		}
 
 		_log.info("exported " + datamodel.getDisplayName(table) + " Where " + condition.replace('\n', ' ').replace('\r', ' '));
@@ -263,6 +285,7 @@ public class SubsettingEngine {
 		_log.info("export statistic:");
 
 		exportStatistic = new ExportStatistic();
+		executionContext.getProgressListenerRegistry().flush();
 		for (String line: collectedRowsCounter.createStatistic(false, datamodel, exportStatistic)) {
 			appendCommentHeader(line);
 			_log.info(line);
@@ -446,16 +469,7 @@ public class SubsettingEngine {
 
 		for (final Table table : progressOfYesterday.keySet()) {
 			for (final Association association : table.associations) {
-				Collection<Association> as = progressOfYesterday.get(table);
-				if (as != null && as.size() == 1 && as.iterator().next() == association.reversalAssociation) {
-					if (association.getCardinality() == Cardinality.MANY_TO_ONE || association.getCardinality() == Cardinality.ONE_TO_ONE) {
-						_log.info("skip reversal association " + datamodel.getDisplayName(table) + " -> " + datamodel.getDisplayName(association.destination));
-						continue;
-					}
-				}
-
-				if (completedTables.contains(association.destination)) {
-					_log.info("skip association " + datamodel.getDisplayName(table) + " -> " + datamodel.getDisplayName(association.destination) + ". All rows exported.");
+				if (!isToBeResolved(table, association, progressOfYesterday.get(table), completedTables)) {
 					continue;
 				}
 
@@ -466,17 +480,7 @@ public class SubsettingEngine {
 				JobManager.Job job = new JobManager.Job() {
 					@Override
 					public void run() throws SQLException {
-						runstats();
-						if (association.getJoinCondition() != null) {
-							_log.info("resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true) + "...");
-						}
-						executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, association);
-						long rc = entityGraph.resolveAssociation(table, association, today);
-						executionContext.getProgressListenerRegistry().fireCollected(today, association, rc);
-						if (rc >= 0) {
-							_log.info(rc + " entities found resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true));
-						}
-						checkRowLimit(rc);
+						long rc = resolveAssociation(today, table, association);
 						synchronized (progress) {
 							if (rc > 0) {
 								Collection<Association> as = progress.get(association.destination);
@@ -514,6 +518,300 @@ public class SubsettingEngine {
 		return progress;
 	}
 
+	/**
+	 * Decides whether an association has to be resolved.
+	 *
+	 * @param table
+	 *            source of the association
+	 * @param association
+	 *            the association
+	 * @param associationsOfYesterday
+	 *            all associations which lead to the entities of yesterday in table
+	 * @param completedTables
+	 *            tables from which all rows are collected
+	 */
+	private boolean isToBeResolved(Table table, Association association, Collection<Association> associationsOfYesterday, Set<Table> completedTables) {
+		if (associationsOfYesterday != null && associationsOfYesterday.size() == 1 && associationsOfYesterday.iterator().next() == association.reversalAssociation) {
+			if (association.getCardinality() == Cardinality.MANY_TO_ONE || association.getCardinality() == Cardinality.ONE_TO_ONE) {
+				_log.info("skip reversal association " + datamodel.getDisplayName(table) + " -> " + datamodel.getDisplayName(association.destination));
+				return false;
+			}
+		}
+
+		if (completedTables.contains(association.destination)) {
+			_log.info("skip association " + datamodel.getDisplayName(table) + " -> " + datamodel.getDisplayName(association.destination) + ". All rows exported.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves an association.
+	 *
+	 * @param today
+	 *            birthday of newly created entities
+	 * @param table
+	 *            source of the association
+	 * @param association
+	 *            the association
+	 *
+	 * @return row-count or -1, if association has no join-condition
+	 */
+	private long resolveAssociation(int today, Table table, Association association) throws SQLException {
+		runstats();
+		if (association.getJoinCondition() != null) {
+			_log.info("resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true) + "...");
+		}
+		executionContext.getProgressListenerRegistry().fireCollectionJobStarted(today, association);
+		long rc = entityGraph.resolveAssociation(table, association, today);
+		executionContext.getProgressListenerRegistry().fireCollected(today, association, rc);
+		if (rc >= 0) {
+			_log.info(rc + " entities found resolving " + datamodel.getDisplayName(table) + " -> " + association.toString(0, true));
+		}
+		checkRowLimit(rc);
+		return rc;
+	}
+
+	/**
+	 * Resolves associations without a barrier between the collection days.
+	 * <br>
+	 * The associations of day <code>d</code> having table <code>T</code> as source are resolved
+	 * as soon as all associations of day <code>d - 1</code> having <code>T</code> as destination are resolved.
+	 * Associations having the same destination are resolved sequentially and in the order of the days,
+	 * so that the collected entities (including their birthdays) are the same as those of {@link SubsettingEngine#resolveAssociations(int, Map, Set)}.
+	 */
+	private class CollectionPipeline {
+
+		/**
+		 * Association to be resolved at a given day.
+		 */
+		private class Task {
+			final int day;
+			final Table table;
+			final Association association;
+
+			Task(int day, Table table, Association association) {
+				this.day = day;
+				this.table = table;
+				this.association = association;
+			}
+		}
+
+		/**
+		 * Tables from which all rows are collected.
+		 */
+		private final Set<Table> completedTables;
+
+		/**
+		 * Per day: map from tables from which entities are added to all associations which lead to the entities.
+		 */
+		private final Map<Integer, Map<Table, Collection<Association>>> progress = new HashMap<Integer, Map<Table, Collection<Association>>>();
+
+		/**
+		 * Per day: tables whose associations are already scheduled.
+		 */
+		private final Map<Integer, Set<Table>> scheduledTables = new HashMap<Integer, Set<Table>>();
+
+		/**
+		 * Per day: number of unresolved associations.
+		 */
+		private final Map<Integer, Integer> pendingTasks = new HashMap<Integer, Integer>();
+
+		/**
+		 * Per day: number of unresolved associations per destination.
+		 */
+		private final Map<Integer, Map<Table, Integer>> pendingTasksPerDestination = new HashMap<Integer, Map<Table, Integer>>();
+
+		/**
+		 * Scheduled but not yet started tasks.
+		 */
+		private final List<Task> waitingTasks = new LinkedList<Task>();
+
+		/**
+		 * Destinations of the running tasks.
+		 */
+		private final Set<Table> busyDestinations = new HashSet<Table>();
+
+		/**
+		 * All associations of this day and of the days before are resolved.
+		 */
+		private int completedDay;
+
+		/**
+		 * <code>true</code> if no more entities will be added.
+		 */
+		private boolean finished = false;
+
+		CollectionPipeline(Set<Table> completedTables) {
+			this.completedTables = completedTables;
+		}
+
+		/**
+		 * Resolves the associations.
+		 *
+		 * @param firstDay
+		 *            birthday of the first newly created entities
+		 * @param progressOfYesterday
+		 *            set of tables to account for resolvation
+		 * @param totalProgress
+		 *            collects the tables from which entities are added
+		 *
+		 * @return the first day on which no entities were added
+		 */
+		int run(int firstDay, Map<Table, Collection<Association>> progressOfYesterday, Set<Table> totalProgress) throws CancellationException, SQLException {
+			List<JobManager.Job> jobs;
+			synchronized (this) {
+				completedDay = firstDay - 1;
+				progress.put(completedDay, progressOfYesterday);
+				_log.info("day " + completedDay + ", progress: " + asString(progressOfYesterday.keySet()));
+				for (Table table: progressOfYesterday.keySet()) {
+					schedule(table, firstDay);
+				}
+				advance();
+				jobs = dispatch();
+			}
+			jobManager.executeJobs(jobs);
+			synchronized (this) {
+				for (Map<Table, Collection<Association>> p: progress.values()) {
+					totalProgress.addAll(p.keySet());
+				}
+				return completedDay + 1;
+			}
+		}
+
+		/**
+		 * Schedules the resolution of all associations of a table.
+		 */
+		private void schedule(Table table, int day) {
+			Set<Table> scheduled = scheduledTables.get(day);
+			if (scheduled == null) {
+				scheduled = new HashSet<Table>();
+				scheduledTables.put(day, scheduled);
+			}
+			if (!scheduled.add(table)) {
+				return;
+			}
+			Map<Table, Collection<Association>> progressOfYesterday = progress.get(day - 1);
+			if (progressOfYesterday == null || !progressOfYesterday.containsKey(table)) {
+				return;
+			}
+			for (Association association: table.associations) {
+				if (!isToBeResolved(table, association, progressOfYesterday.get(table), completedTables)) {
+					continue;
+				}
+				if (association.getJoinCondition() != null) {
+					executionContext.getProgressListenerRegistry().fireCollectionJobEnqueued(day, association);
+				}
+				waitingTasks.add(new Task(day, table, association));
+				pendingTasks.put(day, getPendingTasks(day) + 1);
+				Map<Table, Integer> perDestination = pendingTasksPerDestination.get(day);
+				if (perDestination == null) {
+					perDestination = new HashMap<Table, Integer>();
+					pendingTasksPerDestination.put(day, perDestination);
+				}
+				perDestination.put(association.destination, getPendingTasks(day, association.destination) + 1);
+			}
+		}
+
+		private int getPendingTasks(int day) {
+			Integer pending = pendingTasks.get(day);
+			return pending == null? 0 : pending;
+		}
+
+		private int getPendingTasks(int day, Table destination) {
+			Map<Table, Integer> perDestination = pendingTasksPerDestination.get(day);
+			if (perDestination == null) {
+				return 0;
+			}
+			Integer pending = perDestination.get(destination);
+			return pending == null? 0 : pending;
+		}
+
+		/**
+		 * Creates jobs for all tasks which are ready to run.
+		 */
+		private List<JobManager.Job> dispatch() {
+			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			for (Iterator<Task> i = waitingTasks.iterator(); i.hasNext(); ) {
+				final Task task = i.next();
+				Table destination = task.association.destination;
+				if (!busyDestinations.contains(destination) && getPendingTasks(task.day - 1, destination) == 0) {
+					i.remove();
+					busyDestinations.add(destination);
+					jobs.add(new JobManager.Job() {
+						@Override
+						public void run() throws SQLException {
+							long rc = resolveAssociation(task.day, task.table, task.association);
+							for (JobManager.Job job: taskDone(task, rc)) {
+								jobManager.addJob(job);
+							}
+						}
+					});
+				}
+			}
+			return jobs;
+		}
+
+		/**
+		 * Updates the state after a task is done.
+		 *
+		 * @return jobs for all tasks which are now ready to run
+		 */
+		private synchronized List<JobManager.Job> taskDone(Task task, long rc) {
+			Table destination = task.association.destination;
+			if (rc > 0) {
+				Map<Table, Collection<Association>> progressOfToday = progress.get(task.day);
+				if (progressOfToday == null) {
+					progressOfToday = new HashMap<Table, Collection<Association>>();
+					progress.put(task.day, progressOfToday);
+				}
+				Collection<Association> as = progressOfToday.get(destination);
+				if (as == null) {
+					as = new ArrayList<Association>();
+					progressOfToday.put(destination, as);
+				}
+				as.add(task.association);
+			}
+			pendingTasks.put(task.day, getPendingTasks(task.day) - 1);
+			pendingTasksPerDestination.get(task.day).put(destination, getPendingTasks(task.day, destination) - 1);
+			busyDestinations.remove(destination);
+
+			// all tasks of the day are known if the day before is completed
+			if (completedDay >= task.day - 1 && getPendingTasks(task.day, destination) == 0) {
+				schedule(destination, task.day + 1);
+			}
+			advance();
+			return dispatch();
+		}
+
+		/**
+		 * Advances the completed day.
+		 */
+		private void advance() {
+			while (!finished && getPendingTasks(completedDay + 1) == 0) {
+				int day = completedDay + 1;
+				Map<Table, Collection<Association>> progressOfDay = progress.get(day);
+				if (progressOfDay == null || progressOfDay.isEmpty()) {
+					finished = true;
+					break;
+				}
+				completedDay = day;
+				_log.info("day " + day + ", progress: " + asString(progressOfDay.keySet()));
+				for (Table table: progressOfDay.keySet()) {
+					schedule(table, day + 1);
+				}
+				Map<Table, Collection<Association>> progressOfNextDay = progress.get(day + 1);
+				if (progressOfNextDay != null) {
+					for (Table table: progressOfNextDay.keySet()) {
+						if (getPendingTasks(day + 1, table) == 0) {
+							schedule(table, day + 2);
+						}
+					}
+				}
+			}
+		}
+	}
+
 	/**
 	 * Adds all dependencies.
 	 *
@@ -637,17 +935,88 @@ public class SubsettingEngine {
 						targetSession,
 						executionContext);
 			} else {
-				return new DMLTransformer.Factory(outputWriter, executionContext.getUpsertOnly(), executionContext.getNumberOfEntities(), targetSession, targetDBMSConfiguration(targetSession), executionContext);
+				DMLTransformer.Factory factory = new DMLTransformer.Factory(outputWriter, executionContext.getUpsertOnly(), executionContext.getNumberOfEntities(), targetSession, targetDBMSConfiguration(targetSession), executionContext);
+				factory.setLobFolder(lobFolder);
+				return factory;
 			}
 		} else {
 			return new DeletionTransformer.Factory(outputWriter, executionContext.getNumberOfEntities(), targetSession, targetDBMSConfiguration(targetSession), executionContext);
 		}
 	}
 
+	/**
+	 * Opens an export file for writing. Compresses the content if the file name ends with ".zip" or ".gz".
+	 * <br>
+	 * If more than one thread is used and the stream will be closed explicitly,
+	 * compression and writing is done asynchronously (".gz"-files are compressed in parallel).
+	 *
+	 * @param file the file
+	 * @param closedExplicitly whether the stream will be closed explicitly
+	 * @return output stream for the file
+	 */
+	private OutputStream openOutputFile(File file, boolean closedExplicitly) throws IOException {
+		String fileName = file.getName();
+		boolean async = closedExplicitly && executionContext.getNumberOfThreads() > 1;
+		FileOutputStream fileOutputStream = new FileOutputStream(file);
+		if (fileName.toLowerCase(Locale.ENGLISH).endsWith(".zip")) {
+			ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream);
+			zipOutputStream.putNextEntry(new ZipEntry(fileName.substring(0, fileName.length() - 4)));
+			if (async) {
+				return registerAsyncOutputStream(new ChunkedOutputStream(Channels.newChannel(zipOutputStream), null, 1));
+			}
+			return zipOutputStream;
+		} else if (fileName.toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
+			if (async) {
+				return registerAsyncOutputStream(new ChunkedOutputStream(fileOutputStream.getChannel(), ChunkedOutputStream.GZIP, executionContext.getNumberOfThreads()));
+			}
+			return new GZIPOutputStream(fileOutputStream);
+		}
+		if (async) {
+			return registerAsyncOutputStream(new ChunkedOutputStream(fileOutputStream.getChannel(), null, 1));
+		}
+		return fileOutputStream;
+	}
+
+	/**
+	 * Asynchronously written export files.
+	 */
+	private final List<ChunkedOutputStream> asyncOutputStreams = new ArrayList<ChunkedOutputStream>();
+
+	private synchronized ChunkedOutputStream registerAsyncOutputStream(ChunkedOutputStream outputStream) {
+		asyncOutputStreams.add(outputStream);
+		return outputStream;
+	}
+
+	/**
+	 * Stops writing the export files after failure or cancellation.
+	 */
+	private synchronized void abortAsyncOutputStreams() {
+		for (ChunkedOutputStream outputStream: asyncOutputStreams) {
+			outputStream.abort();
+		}
+		asyncOutputStreams.clear();
+	}
+
 	private interface WriteAction {
 		void run() throws SQLException;
 	}
 
+	/**
+	 * Removes the LOB files of a previous export into the same script file.
+	 *
+	 * @param lobFolder the folder containing the LOB files
+	 */
+	private void clearLobFolder(File lobFolder) {
+		File[] files = lobFolder.listFiles();
+		if (files != null) {
+			for (File lobFile: files) {
+				if (lobFile.isFile() && !lobFile.delete()) {
+					_log.warn("can't delete LOB file " + lobFile);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Writes entities into extract-SQL-script.
 	 *
@@ -667,16 +1036,14 @@ public class SubsettingEngine {
 		if (parentFile != null) {
 			parentFile.mkdirs();
 		}
-		OutputStream outputStream = new FileOutputStream(file);
-		if (sqlScriptFile.toLowerCase(Locale.ENGLISH).endsWith(".zip")) {
-			outputStream = new ZipOutputStream(outputStream); // lgtm [java/output-resource-leak]
-			String zipFileName = file.getName();
-			((ZipOutputStream)outputStream).putNextEntry(new ZipEntry(zipFileName.substring(0, zipFileName.length() - 4)));
-		} else {
-			if (sqlScriptFile.toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
-				outputStream = new GZIPOutputStream(outputStream); // lgtm [java/output-resource-leak]
-			}
+		lobFolder = scriptType == ScriptType.INSERT && executionContext.isLobFiles()? new File(file.getAbsolutePath() + ".lobs") : null;
+		if (lobFolder != null) {
+			clearLobFolder(lobFolder);
 		}
+		boolean toXml = scriptType == ScriptType.INSERT &&
+				(ScriptFormat.DBUNIT_FLAT_XML.equals(executionContext.getScriptFormat())
+				|| ScriptFormat.LIQUIBASE_XML.equals(executionContext.getScriptFormat()));
+		OutputStream outputStream = openOutputFile(file, !toXml); // lgtm [java/output-resource-leak]
 		TransformerHandler transformerHandler = null;
 		ImportFilterManager importFilterManager = null;
 		result = null;
@@ -802,27 +1169,17 @@ public class SubsettingEngine {
 					}
 				}
 				Set<Table> independentTables = datamodel.getIndependentTables(remaining, relevantAssociations);
-				rest = entityGraph.getSize(dependentTables);
 				while (!independentTables.isEmpty()) {
 					_log.info("independent tables: " + asString(independentTables));
 					for (final Table independentTable : independentTables) {
-						rest = entityGraph.getSize(dependentTables);
-						for (;;) {
-							entityGraph.markIndependentEntities(independentTable);
-							// don't use jobManager, export rows sequentially, don't
-							// mix rows of different tables in a dataset!
-							entityGraph.readMarkedEntities(independentTable, true);
-							entityGraph.deleteIndependentEntities(independentTable);
-							long newRest = entityGraph.getSize(dependentTables);
-							if (rest == newRest) {
-								break;
-							}
-							rest = newRest;
-						}
+						// don't use jobManager, export rows sequentially, don't
+						// mix rows of different tables in a dataset!
+						writeEntitiesOfIndependentTable(independentTable);
 					}
 					remaining.removeAll(independentTables);
 					independentTables = datamodel.getIndependentTables(remaining, relevantAssociations);
 				}
+				rest = entityGraph.getSize(dependentTables);
 			} else {
 				rest = writeIndependentEntities(result, dependentTables, entityGraph);
 				appendSync(result);
@@ -1036,16 +1393,23 @@ public class SubsettingEngine {
 			throws SQLException, IOException {
 		long rest;
 		rest = theEntityGraph.getSize(dependentTables);
+		if (executionContext.isSortInMemory() && rest > 0) {
+			List<Set<Table>> levels = theEntityGraph.markInsertionLevels(dependentTables, executionContext.getMaxRowsToSortInMemory());
+			if (levels != null) {
+				return writeInsertionLevels(result, dependentTables, levels, theEntityGraph);
+			}
+			_log.info("rows of " + asString(dependentTables) + " can't be sorted in memory (limit is " + executionContext.getMaxRowsToSortInMemory() + " rows), writing them round by round");
+		}
 		for (;;) {
 			for (final Table table : dependentTables) {
 				theEntityGraph.markIndependentEntities(table);
 			}
-			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			Map<Table, JobManager.Job> jobs = new LinkedHashMap<Table, JobManager.Job>();
 			for (final Table table : dependentTables) {
 				if (executionContext.getOrderByPK()) {
 					theEntityGraph.readMarkedEntities(table, true);
 				} else {
-					jobs.add(new JobManager.Job() {
+					jobs.put(table, new JobManager.Job() {
 						@Override
 						public void run() throws SQLException {
 							theEntityGraph.readMarkedEntities(table, false);
@@ -1056,7 +1420,7 @@ public class SubsettingEngine {
 			if (result != null && !jobs.isEmpty()) {
 				appendSync(result);
 			}
-			jobManager.executeJobs(jobs);
+			executeWriteJobs(result, theEntityGraph, jobs);
 			for (final Table table : dependentTables) {
 				theEntityGraph.deleteIndependentEntities(table);
 			}
@@ -1073,6 +1437,110 @@ public class SubsettingEngine {
 		return rest;
 	}
 
+	/**
+	 * Writes out all entities of a table which depend on already written entities only (ordered by primary key).
+	 * Rows of tables without reflexive associations are written in a single round,
+	 * rows of other tables are sorted topologically in memory if "-sort-in-memory" is set
+	 * and written round by round otherwise.
+	 *
+	 * @param table the table
+	 */
+	private void writeEntitiesOfIndependentTable(Table table) throws SQLException {
+		boolean hasReflexiveAssociation = false;
+		for (Association a : table.associations) {
+			if (a.destination == table) {
+				hasReflexiveAssociation = true;
+				break;
+			}
+		}
+		if (hasReflexiveAssociation) {
+			List<Set<Table>> levels = null;
+			if (executionContext.isSortInMemory()) {
+				levels = entityGraph.markInsertionLevels(Collections.singleton(table), executionContext.getMaxRowsToSortInMemory());
+				if (levels == null) {
+					_log.info("rows of " + asString(Collections.singleton(table)) + " can't be sorted in memory (limit is " + executionContext.getMaxRowsToSortInMemory() + " rows), writing them round by round");
+				}
+			}
+			if (levels == null) {
+				long rest = entityGraph.countEntities(table);
+				for (;;) {
+					entityGraph.markIndependentEntities(table);
+					entityGraph.readMarkedEntities(table, true);
+					entityGraph.deleteIndependentEntities(table);
+					long newRest = entityGraph.countEntities(table);
+					if (rest == newRest) {
+						break;
+					}
+					rest = newRest;
+				}
+				return;
+			}
+			if (!levels.isEmpty()) {
+				for (int level = 0; level < levels.size(); ++level) {
+					entityGraph.markEntitiesOfInsertionLevel(table, level);
+					entityGraph.readMarkedEntities(table, true);
+					entityGraph.markWrittenEntities(table);
+				}
+				entityGraph.unmarkWrittenEntities(table);
+				entityGraph.deleteIndependentEntities(table);
+				return;
+			}
+		}
+		entityGraph.markIndependentEntities(table);
+		entityGraph.readMarkedEntities(table, true);
+		entityGraph.deleteIndependentEntities(table);
+	}
+
+	/**
+	 * Writes out entities level by level after they have been sorted topologically
+	 * (see {@link EntityGraph#markInsertionLevels(Set, long)}).
+	 *
+	 * @param result writer to output file
+	 * @param dependentTables tables to consider
+	 * @param levels for each level the tables having entities of this level
+	 * @param theEntityGraph the entity graph
+	 * @return number of remaining entities
+	 */
+	private long writeInsertionLevels(OutputStreamWriter result, Set<Table> dependentTables, List<Set<Table>> levels, final EntityGraph theEntityGraph)
+			throws SQLException, IOException {
+		for (int level = 0; level < levels.size(); ++level) {
+			List<Table> tables = new ArrayList<Table>();
+			for (Table table : dependentTables) {
+				if (levels.get(level).contains(table)) {
+					tables.add(table);
+				}
+			}
+			for (final Table table : tables) {
+				theEntityGraph.markEntitiesOfInsertionLevel(table, level);
+			}
+			Map<Table, JobManager.Job> jobs = new LinkedHashMap<Table, JobManager.Job>();
+			for (final Table table : tables) {
+				if (executionContext.getOrderByPK()) {
+					theEntityGraph.readMarkedEntities(table, true);
+				} else {
+					jobs.put(table, new JobManager.Job() {
+						@Override
+						public void run() throws SQLException {
+							theEntityGraph.readMarkedEntities(table, false);
+						}
+					});
+				}
+			}
+			if (result != null && !jobs.isEmpty()) {
+				appendSync(result);
+			}
+			executeWriteJobs(result, theEntityGraph, jobs);
+			for (final Table table : tables) {
+				theEntityGraph.markWrittenEntities(table);
+			}
+		}
+		for (final Table table : dependentTables) {
+			theEntityGraph.unmarkWrittenEntities(table);
+			theEntityGraph.deleteIndependentEntities(table);
+		}
+		return theEntityGraph.getSize(dependentTables);
+	}
+
 	/**
 	 * Gets set of all tables, which are no parents (recursiv).
 	 *
@@ -1143,16 +1611,7 @@ public class SubsettingEngine {
 	private void writeEntitiesAsXml(String xmlFile, final Set<Table> progress, final Set<Table> subjects, Session session) throws IOException, CancellationException, SQLException, SAXException {
 		_log.info("writing file '" + xmlFile + "'...");
 
-		OutputStream outputStream = new FileOutputStream(new File(xmlFile));
-		if (xmlFile.toLowerCase(Locale.ENGLISH).endsWith(".zip")) {
-			outputStream = new ZipOutputStream(outputStream);
-			String zipFileName = new File(xmlFile).getName();
-			((ZipOutputStream)outputStream).putNextEntry(new ZipEntry(zipFileName.substring(0, zipFileName.length() - 4)));
-		} else {
-			if (xmlFile.toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
-				outputStream = new GZIPOutputStream(outputStream);
-			}
-		}
+		OutputStream outputStream = openOutputFile(new File(xmlFile), true);
 
 		// then write entities of tables having cyclic-dependencies
 		_log.info("create hierarchy for: " + asString(progress));
@@ -1312,7 +1771,7 @@ public class SubsettingEngine {
 		Set<Table> independentTables = datamodel.getIndependentTables(tables);
 		while (!independentTables.isEmpty()) {
 			_log.info("independent tables: " + asString(independentTables));
-			List<JobManager.Job> jobs = new ArrayList<JobManager.Job>();
+			Map<Table, JobManager.Job> jobs = new LinkedHashMap<Table, JobManager.Job>();
 			for (final Table independentTable : independentTables) {
 				if (executionContext.getOrderByPK()
 						|| ScriptFormat.DBUNIT_FLAT_XML.equals(executionContext.getScriptFormat())
@@ -1321,7 +1780,7 @@ public class SubsettingEngine {
 					// tables in a dataset!
 					writeEntities(independentTable, true);
 				} else {
-					jobs.add(new JobManager.Job() {
+					jobs.put(independentTable, new JobManager.Job() {
 						@Override
 						public void run() throws SQLException {
 							writeEntities(independentTable, false);
@@ -1333,7 +1792,7 @@ public class SubsettingEngine {
 				if (result != null) {
 					appendSync(result);
 				}
-				jobManager.executeJobs(jobs);
+				executeWriteJobs(result, entityGraph, jobs);
 			}
 			tables.removeAll(independentTables);
 			independentTables = datamodel.getIndependentTables(tables);
@@ -1342,6 +1801,108 @@ public class SubsettingEngine {
 		return tables;
 	}
 
+	/**
+	 * Maximum number of bytes of all script segments kept in memory.
+	 */
+	private static final long SEGMENTS_MEMORY_BUDGET = Math.min(64L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 16);
+
+	/**
+	 * Executes jobs writing the rows of a table each.
+	 * <br>
+	 * If more than one thread is used, the rows of each table are written into a separate segment
+	 * and the segments are appended to the script in the order of the jobs afterwards.
+	 * So the jobs don't compete for the script file writer.
+	 * The segments share a memory budget, a segment exceeding it is continued in a temporary file
+	 * which is closed as soon as the job is done.
+	 *
+	 * @param result writer to output file
+	 * @param theEntityGraph the entity graph
+	 * @param jobs the jobs per table
+	 */
+	private void executeWriteJobs(OutputStreamWriter result, EntityGraph theEntityGraph, Map<Table, JobManager.Job> jobs) throws SQLException, IOException {
+		final TransformerFactory transformerFactory = theEntityGraph.getTransformerFactory();
+		final ScriptType scriptType;
+		if (transformerFactory instanceof DMLTransformer.Factory) {
+			scriptType = ScriptType.INSERT;
+		} else if (transformerFactory instanceof DeletionTransformer.Factory) {
+			scriptType = ScriptType.DELETE;
+		} else {
+			scriptType = null;
+		}
+		if (result == null || scriptType == null || jobs.size() < 2 || executionContext.getNumberOfThreads() < 2) {
+			jobManager.executeJobs(new ArrayList<JobManager.Job>(jobs.values()));
+			return;
+		}
+
+		Charset charset = Charset.forName(result.getEncoding());
+		AtomicLong memoryBudget = new AtomicLong(SEGMENTS_MEMORY_BUDGET);
+		Map<Table, SpillOutputStream> segments = new LinkedHashMap<Table, SpillOutputStream>();
+		List<OutputStreamWriter> segmentWriters = new ArrayList<OutputStreamWriter>();
+		List<JobManager.Job> segmentJobs = new ArrayList<JobManager.Job>();
+		final Map<Table, TransformerFactory> segmentTransformerFactories = new HashMap<Table, TransformerFactory>();
+		try {
+			for (Map.Entry<Table, JobManager.Job> entry: jobs.entrySet()) {
+				Table table = entry.getKey();
+				SpillOutputStream segment = new SpillOutputStream(memoryBudget);
+				segments.put(table, segment);
+				final OutputStreamWriter segmentWriter = new OutputStreamWriter(segment, charset);
+				segmentWriters.add(segmentWriter);
+				final JobManager.Job job = entry.getValue();
+				segmentJobs.add(new JobManager.Job() {
+					@Override
+					public void run() throws SQLException, CancellationException {
+						try {
+							job.run();
+						} finally {
+							try {
+								segmentWriter.close();
+							} catch (IOException e) {
+								throw new RuntimeException(e);
+							}
+						}
+					}
+				});
+				TransformerFactory segmentTransformerFactory = createTransformerFactory(segmentWriter, null, scriptType, null);
+				if (segmentTransformerFactory instanceof DMLTransformer.Factory && theEntityGraph.getImportFilterManager() != null) {
+					((DMLTransformer.Factory) segmentTransformerFactory).setImportFilterTransformer(theEntityGraph.getImportFilterManager());
+				}
+				segmentTransformerFactories.put(table, segmentTransformerFactory);
+			}
+			theEntityGraph.setTransformerFactory(new TransformerFactory() {
+				@Override
+				public Session.ResultSetReader create(Table table) throws SQLException {
+					TransformerFactory segmentTransformerFactory = segmentTransformerFactories.get(table);
+					return (segmentTransformerFactory != null? segmentTransformerFactory : transformerFactory).create(table);
+				}
+			});
+			try {
+				jobManager.executeJobs(segmentJobs);
+			} finally {
+				theEntityGraph.setTransformerFactory(transformerFactory);
+				for (OutputStreamWriter segmentWriter: segmentWriters) {
+					segmentWriter.close();
+				}
+			}
+
+			char[] buffer = new char[64 * 1024];
+			for (SpillOutputStream segment: segments.values()) {
+				Reader in = new InputStreamReader(segment.openInputStream(), charset);
+				try {
+					int n;
+					while ((n = in.read(buffer)) > 0) {
+						result.write(buffer, 0, n);
+					}
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			for (SpillOutputStream segment: segments.values()) {
+				segment.delete();
+			}
+		}
+	}
+
 	private AtomicBoolean syncWritten = new AtomicBoolean(false);
 
 	private void appendSync(OutputStreamWriter result) throws IOException {
@@ -1388,29 +1949,12 @@ public class SubsettingEngine {
 	}
 
 	/**
-	 * Total row-count at last runstats run.
-	 */
-	private long lastRunstats = 0;
-
-	/**
-	 * Runs script for updating the DB-statistics.
+	 * Runs script for updating the DB-statistics in the background if necessary.
 	 */
-	private synchronized void runstats() {
-		if (entityGraph != null) {
-			Session session = entityGraph.getSession();
-			if (lastRunstats == 0 || (lastRunstats * 2 <= entityGraph.getTotalRowcount() && entityGraph.getTotalRowcount() > 1000)) {
-				lastRunstats = entityGraph.getTotalRowcount();
-
-				StatisticRenovator statisticRenovator = session.dbms.getStatisticRenovator();
-				if (statisticRenovator != null) {
-					_log.info("gather statistics after " + lastRunstats + " inserted rows...");
-					try {
-						statisticRenovator.renew(session, executionContext);
-					} catch (Throwable t) {
-						_log.warn("unable to update table statistics: " + t.getMessage());
-					}
-				}
-			}
+	private void runstats() {
+		EntityGraph graph = getEntityGraph();
+		if (graph != null) {
+			statisticRenewal.request(graph);
 		}
 	}
 
@@ -1710,7 +2254,13 @@ public class SubsettingEngine {
 					}
 				}
 
+				exportStatistic.setInlineViewBlockSizes(entityGraph.getInlineViewBlockSizes());
+				for (Map.Entry<String, InlineViewBlockSize> e: exportStatistic.getInlineViewBlockSizes().entrySet()) {
+					_log.info("inline-views (" + e.getKey() + "): " + e.getValue());
+				}
+
 				datamodel.deriveFilters();
+				statisticRenewal.finish();
 				entityGraph.truncate(executionContext, true);
 				entityGraph.delete();
 				entityGraph.getSession().commitAll();
@@ -1719,6 +2269,8 @@ public class SubsettingEngine {
 				try {
 					_log.info("cleaning up after cancellation...");
 					CancellationHandler.reset(null);
+					abortAsyncOutputStreams();
+					statisticRenewal.finish();
 					entityGraph.getSession().rollbackAll();
 					entityGraph.truncate(executionContext, false);
 					entityGraph.delete();
@@ -1747,6 +2299,8 @@ public class SubsettingEngine {
 							// ignore
 						}
 					};
+					abortAsyncOutputStreams();
+					statisticRenewal.finish();
 					tryAndIgnore.accept(() -> entityGraph.truncate(executionContext, false));
 					tryAndIgnore.accept(() -> entityGraph.delete());
 					if (exportedEntities != null) {
@@ -2066,6 +2620,7 @@ public class SubsettingEngine {
 
 		appendCommentHeader("");
 
+		executionContext.getProgressListenerRegistry().flush();
 		for (String line: collectedRowsCounter.createStatistic(true, datamodel, null)) {
 			appendCommentHeader(line);
 			_log.info(line);
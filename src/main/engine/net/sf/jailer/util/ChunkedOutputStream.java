@@ -0,0 +1,333 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Output stream that collects the content in chunks and
+ * writes them asynchronously into a channel.
+ * <br>
+ * Chunks can be compressed in parallel by a {@link ChunkCompressor}.
+ * The compressed chunks are written in the original order.
+ *
+ * @author Ralf Wisser
+ */
+public class ChunkedOutputStream extends OutputStream {
+
+	/**
+	 * Compresses a chunk.
+	 */
+	public interface ChunkCompressor {
+
+		/**
+		 * Compresses a chunk.
+		 *
+		 * @param chunk the chunk
+		 * @param length number of bytes in chunk
+		 * @return the compressed chunk
+		 */
+		byte[] compress(byte[] chunk, int length) throws IOException;
+	}
+
+	/**
+	 * Compresses each chunk into a gzip member. The concatenation of gzip members is a valid gzip file.
+	 */
+	public static final ChunkCompressor GZIP = new ChunkCompressor() {
+		@Override
+		public byte[] compress(byte[] chunk, int length) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 64);
+			GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+			gzip.write(chunk, 0, length);
+			gzip.close();
+			return out.toByteArray();
+		}
+	};
+
+	/**
+	 * Default size of a chunk.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+	/**
+	 * A chunk to be written.
+	 */
+	private static class Chunk {
+		final byte[] content;
+		final int length;
+		final Future<byte[]> compressed;
+
+		Chunk(byte[] content, int length, Future<byte[]> compressed) {
+			this.content = content;
+			this.length = length;
+			this.compressed = compressed;
+		}
+	}
+
+	/**
+	 * Tells the writer to stop.
+	 */
+	private static final Chunk END = new Chunk(null, 0, null);
+
+	private final WritableByteChannel channel;
+	private final ChunkCompressor compressor;
+	private final ExecutorService compressorService;
+	private final int chunkSize;
+
+	/**
+	 * Chunks waiting to be written.
+	 */
+	private final BlockingQueue<Chunk> pendingChunks;
+
+	/**
+	 * Reusable chunk buffers.
+	 */
+	private final BlockingQueue<byte[]> freeBuffers = new LinkedBlockingQueue<byte[]>();
+
+	private final Thread writer;
+	private volatile Throwable error;
+	private volatile boolean aborted = false;
+
+	private byte[] buffer;
+	private int position;
+	private boolean anyChunkWritten = false;
+	private boolean closed = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param channel the channel to write into
+	 * @param compressor compresses the chunks, <code>null</code> if chunks are written uncompressed
+	 * @param compressorThreads number of threads compressing the chunks
+	 * @param chunkSize size of a chunk
+	 */
+	public ChunkedOutputStream(WritableByteChannel channel, ChunkCompressor compressor, int compressorThreads, int chunkSize) {
+		this.channel = channel;
+		this.compressor = compressor;
+		this.chunkSize = chunkSize;
+		int threads = Math.max(1, compressorThreads);
+		this.pendingChunks = new ArrayBlockingQueue<Chunk>(2 * threads + 2);
+		if (compressor != null) {
+			compressorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "compressor");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			compressorService = null;
+		}
+		buffer = new byte[chunkSize];
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeChunks();
+			}
+		}, "chunk-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param channel the channel to write into
+	 * @param compressor compresses the chunks, <code>null</code> if chunks are written uncompressed
+	 * @param compressorThreads number of threads compressing the chunks
+	 */
+	public ChunkedOutputStream(WritableByteChannel channel, ChunkCompressor compressor, int compressorThreads) {
+		this(channel, compressor, compressorThreads, DEFAULT_CHUNK_SIZE);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (position == chunkSize) {
+			submitChunk();
+		}
+		buffer[position++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (position == chunkSize) {
+				submitChunk();
+			}
+			int n = Math.min(len, chunkSize - position);
+			System.arraycopy(b, off, buffer, position, n);
+			position += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Content is written asynchronously. Use {@link #close()} to ensure that all content is written.
+	 */
+	@Override
+	public void flush() throws IOException {
+		checkError();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (position > 0 || !anyChunkWritten) {
+				submitChunk();
+			}
+			pendingChunks.put(END);
+			writer.join();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} finally {
+			if (compressorService != null) {
+				compressorService.shutdown();
+			}
+			channel.close();
+		}
+		checkError();
+	}
+
+	/**
+	 * Discards all content which is not yet written and stops the writer and the compressor threads.
+	 * Used instead of {@link #close()} if the export has failed or has been cancelled.
+	 */
+	public void abort() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		aborted = true;
+		if (compressorService != null) {
+			compressorService.shutdownNow();
+		}
+		do {
+			pendingChunks.clear();
+		} while (!pendingChunks.offer(END));
+		writer.interrupt();
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	/**
+	 * Hands the current chunk over to the writer.
+	 */
+	private void submitChunk() throws IOException {
+		checkError();
+		if (aborted) {
+			throw new IOException("export aborted");
+		}
+		final byte[] content = buffer;
+		final int length = position;
+		Future<byte[]> compressed = null;
+		if (compressor != null) {
+			compressed = compressorService.submit(new Callable<byte[]>() {
+				@Override
+				public byte[] call() throws Exception {
+					try {
+						return compressor.compress(content, length);
+					} finally {
+						freeBuffers.offer(content);
+					}
+				}
+			});
+		}
+		try {
+			pendingChunks.put(new Chunk(content, length, compressed));
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+		anyChunkWritten = true;
+		byte[] free = freeBuffers.poll();
+		buffer = free != null? free : new byte[chunkSize];
+		position = 0;
+	}
+
+	/**
+	 * Writes the chunks into the channel (writer thread).
+	 */
+	private void writeChunks() {
+		for (;;) {
+			Chunk chunk;
+			try {
+				chunk = pendingChunks.take();
+			} catch (InterruptedException e) {
+				error = e;
+				return;
+			}
+			if (chunk == END) {
+				return;
+			}
+			if (error != null || aborted) {
+				// discard
+				continue;
+			}
+			try {
+				ByteBuffer content;
+				if (chunk.compressed != null) {
+					content = ByteBuffer.wrap(chunk.compressed.get());
+				} else {
+					content = ByteBuffer.wrap(chunk.content, 0, chunk.length);
+				}
+				while (content.hasRemaining()) {
+					channel.write(content);
+				}
+				if (chunk.compressed == null) {
+					freeBuffers.offer(chunk.content);
+				}
+			} catch (ExecutionException e) {
+				error = e.getCause();
+			} catch (Throwable t) {
+				error = t;
+			}
+		}
+	}
+
+	private void checkError() throws IOException {
+		Throwable e = error;
+		if (e != null) {
+			if (e instanceof IOException) {
+				throw (IOException) e;
+			}
+			throw new IOException(e);
+		}
+	}
+
+}
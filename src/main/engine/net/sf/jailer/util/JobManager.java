@@ -20,13 +20,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Executes a job-list in a concurrent way.
- *  
+ * <br>
+ * Jobs are handed over to the runner threads through a blocking queue,
+ * so idle runners wake up as soon as a job is available and
+ * {@link #executeJobs(Collection)} returns as soon as the last job is done.
+ *
  * @author Ralf Wisser
  */
 public abstract class JobManager {
@@ -35,7 +42,7 @@ public abstract class JobManager {
 	 * A job to be managed by a {@link JobManager}.
 	 */
 	public interface Job {
-		
+
 		/**
 		 * Runs the job.
 		 */
@@ -51,75 +58,72 @@ public abstract class JobManager {
 	 * The runners list.
 	 */
 	private final List<JobRunner> runnersList;
-	
+
 	/**
 	 * Maximum number of threads.
 	 */
 	private final int threads;
-	
+
 	/**
-	 * Thread for executing jobs.
+	 * Jobs waiting for execution.
 	 */
-	private class JobRunner implements Runnable {
+	private final BlockingQueue<QueuedJob> jobQueue = new LinkedBlockingQueue<QueuedJob>();
 
-		/**
-		 * For shutting down the runner.
-		 */
-		private boolean isRunning = true;
-		
-		/**
-		 * Shuts the runner down.
-		 */
-		public synchronized void shutdown() {
-			isRunning = false;
-		}
+	/**
+	 * A job in the job queue.
+	 */
+	private static class QueuedJob {
+		final Job job;
+		final long enqueueTime;
 
-		/**
-		 * Still running?
-		 */
-		public synchronized boolean isRunning() {
-			return isRunning;
+		QueuedJob(Job job, long enqueueTime) {
+			this.job = job;
+			this.enqueueTime = enqueueTime;
 		}
-		
+	}
+
+	/**
+	 * Tells a runner to shut down.
+	 */
+	private static final QueuedJob SHUTDOWN = new QueuedJob(null, 0);
+
+	/**
+	 * Thread for executing jobs.
+	 */
+	private class JobRunner implements Runnable {
+
 		/**
 		 * Executes jobs.
 		 */
 		@Override
 		public void run() {
 			_log.debug("start up");
-			while (isRunning()) {
-				Job job = nextJob();
-				if (job == null) {
-					try {
-						Thread.sleep(100);
-					} catch (InterruptedException e) {
-					}
-				} else {
-					try {
-						incrementJobsInExecutionCounter();
-						job.run();
-						incrementJobsDoneCounter();
-					} catch (Throwable e) {
-						setException(e);
-					} finally {
-						decrementJobsInExecutionCounter();
-					}
+			for (;;) {
+				QueuedJob queuedJob;
+				try {
+					queuedJob = jobQueue.take();
+				} catch (InterruptedException e) {
+					break;
+				}
+				if (queuedJob == SHUTDOWN) {
+					break;
 				}
+				execute(queuedJob);
 			}
 			_log.debug("shutting down");
 		}
 	}
-	
+
 	/**
 	 * Constructor.
-	 * 
+	 *
 	 * @param threads number of threads
 	 */
 	public JobManager(int threads) {
 		this.threads = threads;
 		runnersList = new ArrayList<JobRunner>(threads);
 	}
-	
+
 	private void ensureThreadCapacity(int capacity) {
 		if (threads > 1) {
 			while (runnersList.size() < Math.min(capacity, threads)) {
@@ -136,51 +140,77 @@ public abstract class JobManager {
 
 	/**
 	 * Executes a list of jobs.
-	 * 
+	 *
 	 * @param jobs the job-list
 	 */
 	public void executeJobs(Collection<Job> jobs) throws CancellationException, SQLException {
 		int jobCount = jobs.size();
 		ensureThreadCapacity(jobCount);
 		_log.info("starting " + jobCount + " jobs");
+		long jobsCountBefore = getTotalJobsCount();
+		long waitTimeBefore = getTotalWaitTime();
+		long runTimeBefore = getTotalRunTime();
 		if (runnersList.isEmpty()) {
-			for (Job job: jobs) {
-				job.run();
+			inlineJobs = new LinkedList<Job>(jobs);
+			try {
+				while (!inlineJobs.isEmpty()) {
+					Job job = inlineJobs.removeFirst();
+					long startTime = System.nanoTime();
+					job.run();
+					jobExecuted(job, 0, System.nanoTime() - startTime);
+				}
+			} finally {
+				inlineJobs = null;
 			}
 		} else {
-			setJobs(new LinkedList<Job>(jobs));
-			while (getJobsDoneCounter() < jobCount || getJobsInExecutionCounter() > 0) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e1) {
-					throw new RuntimeException(e1);
+			setJobs(jobCount);
+			long now = System.nanoTime();
+			for (Job job: jobs) {
+				jobQueue.add(new QueuedJob(job, now));
+			}
+			Exception e = waitForJobs();
+			if (e != null) {
+				if (!(e instanceof CancellationException)) {
+					_log.error("Job-error", e);
 				}
-				Exception e = getException();
-				if (e != null) {
-					if (!(e instanceof CancellationException)) {
-						_log.error("Job-error", e);
-					}
-					// wait for other jobs
-					while (getJobsInExecutionCounter() > 0) {
-						try {
-							Thread.sleep(50);
-						} catch (InterruptedException e1) {
-							throw new RuntimeException(e1);
-						}
-					}
-					if (e instanceof CancellationException) {
-						throw (CancellationException) e;
-					}
-					if (e instanceof SQLException) {
-						throw (SQLException) e;
-					}
-					throw new RuntimeException(e);
+				if (e instanceof CancellationException) {
+					throw (CancellationException) e;
+				}
+				if (e instanceof SQLException) {
+					throw (SQLException) e;
+				}
+				throw new RuntimeException(e);
+			}
+		}
+		_log.info("executed " + (getTotalJobsCount() - jobsCountBefore) + " jobs (wait " + TimeUnit.NANOSECONDS.toMillis(getTotalWaitTime() - waitTimeBefore)
+				+ " ms, run " + TimeUnit.NANOSECONDS.toMillis(getTotalRunTime() - runTimeBefore) + " ms)");
+	}
+
+	/**
+	 * Adds a job to the job-list currently being executed.
+	 * {@link #executeJobs(Collection)} does not return before the added job is done.
+	 * <br>
+	 * Must only be called from within a job of the job-list currently being executed.
+	 *
+	 * @param job the job
+	 */
+	public void addJob(Job job) {
+		if (runnersList.isEmpty()) {
+			if (inlineJobs != null) {
+				inlineJobs.add(job);
+			}
+		} else {
+			synchronized (this) {
+				if (exception != null) {
+					// job-list has been discarded
+					return;
 				}
+				++pendingJobsCounter;
 			}
+			jobQueue.add(new QueuedJob(job, System.nanoTime()));
 		}
-		_log.info("executed " + jobCount + " jobs");
 	}
-	
+
 	/**
 	 * Shuts the manager down.
 	 */
@@ -188,158 +218,174 @@ public abstract class JobManager {
 		for (int i = 0; i < runnersList.size(); ++i) {
 			String threadName = "job- " + (i + 1);
 			_log.debug("shutting down " + threadName);
-			runnersList.get(i).shutdown();
+			jobQueue.add(SHUTDOWN);
 		}
 	}
-	
-	/**
-	 * Number of executed jobs.
-	 */
-	private int jobsDoneCounter;
-	
-	/**
-	 * Number of jobs waiting for primary cause.
-	 */
-	private int jobsWaitingForPrimaryCauseCounter;
-	
-	/**
-	 * Number of jobs currently executed.
-	 */
-	private int jobsInExecutionCounter;
-	
+
 	/**
-	 * The job-list.
+	 * Job-list currently being executed by the calling thread (single threaded mode).
 	 */
-	private List<Job> jobs;
+	private LinkedList<Job> inlineJobs;
 
 	/**
-	 * Exception during job-execution.
+	 * Number of jobs neither executed nor discarded.
 	 */
-	private Exception exception;
+	private int pendingJobsCounter;
 
 	/**
-	 * Sets the job-list.
-	 * Resets the job-counter to 0.
+	 * Number of jobs waiting for primary cause.
 	 */
-	private synchronized void setJobs(List<Job> jobs) {
-		jobsDoneCounter = 0;
-		jobsWaitingForPrimaryCauseCounter = 0;
-		jobsInExecutionCounter = 0;
-		this.jobs = jobs;
-		exception = null;
-	}
+	private int jobsWaitingForPrimaryCauseCounter;
 
 	/**
-	 * Gets the Number of executed jobs.
+	 * Number of jobs currently executed.
 	 */
-	private synchronized int getJobsDoneCounter() {
-		return jobsDoneCounter;
-	}
+	private int jobsInExecutionCounter;
 
 	/**
-	 * Gets the Number of jobs waiting for primary cause.
+	 * Number of executed jobs (total).
 	 */
-	private synchronized int getJobsWaitingForPrimaryCauseCounter() {
-		return jobsWaitingForPrimaryCauseCounter;
-	}
+	private long totalJobsCounter;
 
 	/**
-	 * Increments the Number of executed jobs.
+	 * Total time (in nanoseconds) the jobs spent in the job queue.
 	 */
-	private synchronized void incrementJobsDoneCounter() {
-		++jobsDoneCounter;
-	}
+	private long totalWaitTime;
 
 	/**
-	 * Increments the Number of jobs Waiting for primary cause.
+	 * Total time (in nanoseconds) the jobs spent in execution.
 	 */
-	private synchronized void incrementJobsWaitingForPrimaryCauseCounter() {
-		++jobsWaitingForPrimaryCauseCounter;
-	}
+	private long totalRunTime;
 
 	/**
-	 * Decrements the Number of jobs Waiting for primary cause.
+	 * Exception during job-execution.
 	 */
-	private synchronized void decrementJobsWaitingForPrimaryCauseCounter() {
-		--jobsWaitingForPrimaryCauseCounter;
-	}
+	private Exception exception;
 
 	/**
-	 * Gets the Number of jobs currently executed.
+	 * Resets the job-counters.
+	 *
+	 * @param jobCount number of jobs to be executed
 	 */
-	private synchronized int getJobsInExecutionCounter() {
-		return jobsInExecutionCounter;
+	private synchronized void setJobs(int jobCount) {
+		pendingJobsCounter = jobCount;
+		jobsWaitingForPrimaryCauseCounter = 0;
+		jobsInExecutionCounter = 0;
+		exception = null;
 	}
 
 	/**
-	 * Increments the Number of jobs currently executed.
+	 * Waits until all jobs are executed or discarded.
+	 *
+	 * @return exception during job-execution or <code>null</code>
 	 */
-	private synchronized void incrementJobsInExecutionCounter() {
-		++jobsInExecutionCounter;
+	private synchronized Exception waitForJobs() {
+		while (pendingJobsCounter > 0) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		return exception;
 	}
 
 	/**
-	 * Decrements the Number of jobs currently executed.
+	 * Executes a job taken from the job queue.
 	 */
-	private synchronized void decrementJobsInExecutionCounter() {
-		--jobsInExecutionCounter;
+	private void execute(QueuedJob queuedJob) {
+		synchronized (this) {
+			if (exception != null) {
+				// job-list has been discarded
+				--pendingJobsCounter;
+				notifyAll();
+				return;
+			}
+			++jobsInExecutionCounter;
+		}
+		long startTime = System.nanoTime();
+		try {
+			queuedJob.job.run();
+		} catch (Throwable e) {
+			setException(e);
+		} finally {
+			long endTime = System.nanoTime();
+			try {
+				// update the statistic before waking up the waiting thread
+				jobExecuted(queuedJob.job, startTime - queuedJob.enqueueTime, endTime - startTime);
+			} finally {
+				synchronized (this) {
+					--jobsInExecutionCounter;
+					--pendingJobsCounter;
+					notifyAll();
+				}
+			}
+		}
 	}
 
 	/**
-	 * Gets the exception.
+	 * Removes all jobs from the job queue.
 	 */
-	private synchronized Exception getException() {
-		return exception;
+	private synchronized void discardQueuedJobs() {
+		List<QueuedJob> discarded = new ArrayList<QueuedJob>();
+		jobQueue.drainTo(discarded);
+		for (QueuedJob queuedJob: discarded) {
+			if (queuedJob == SHUTDOWN) {
+				jobQueue.add(SHUTDOWN);
+			} else {
+				--pendingJobsCounter;
+			}
+		}
+		notifyAll();
 	}
-	
+
 	/**
-	 * Gets next job.
+	 * Updates the job statistic.
 	 */
-	private synchronized Job nextJob() {
-		if (jobs != null && !jobs.isEmpty()) {
-			return jobs.remove(0);
+	private void jobExecuted(Job job, long waitTime, long runTime) {
+		synchronized (this) {
+			++totalJobsCounter;
+			totalWaitTime += waitTime;
+			totalRunTime += runTime;
 		}
-		return null;
+		onJobExecuted(job, waitTime, runTime);
 	}
-	
+
 	/**
 	 * Sets an exception.
 	 */
 	private void setException(Throwable e) {
 		if (isPotentiallyConsequentialError(e)) {
 			synchronized (this) {
-				jobs = null;
-			}
-			// wait for primary error
-			// wait for other jobs
-			incrementJobsWaitingForPrimaryCauseCounter();
-			int i = 0;
-			while (getJobsInExecutionCounter() - getJobsWaitingForPrimaryCauseCounter() > 0) {
-				try {
-					Thread.sleep(50);
-				} catch (InterruptedException e1) {
-					throw new RuntimeException(e1);
-				}
-				++i;
-				if (getException() != null) {
-					break;
-				}
-				if (i > (1000 * 20) / 50 /* 20 sec */) {
-					LogUtil.warn(new RuntimeException("No prim. cause. " + getJobsInExecutionCounter() + " " + getJobsWaitingForPrimaryCauseCounter()));
-					break;
+				discardQueuedJobs();
+				// wait for primary error
+				// wait for other jobs
+				++jobsWaitingForPrimaryCauseCounter;
+				long deadline = System.currentTimeMillis() + 1000 * 20 /* 20 sec */;
+				while (jobsInExecutionCounter - jobsWaitingForPrimaryCauseCounter > 0 && exception == null) {
+					long timeout = deadline - System.currentTimeMillis();
+					if (timeout <= 0) {
+						LogUtil.warn(new RuntimeException("No prim. cause. " + jobsInExecutionCounter + " " + jobsWaitingForPrimaryCauseCounter));
+						break;
+					}
+					try {
+						wait(timeout);
+					} catch (InterruptedException e1) {
+						throw new RuntimeException(e1);
+					}
 				}
+				--jobsWaitingForPrimaryCauseCounter;
 			}
-			decrementJobsWaitingForPrimaryCauseCounter();
 		}
 		synchronized (this) {
 			if (exception == null) {
-				exception = e == null? null : (e instanceof CancellationException || e instanceof SQLException)? (Exception) e 
+				exception = e == null? null : (e instanceof CancellationException || e instanceof SQLException)? (Exception) e
 					: new RuntimeException(Thread.currentThread().getName() + " failed", e);
 				if (e != null && !(e instanceof CancellationException)) {
 					onException(e);
 				}
 			}
-			jobs = null;
+			discardQueuedJobs();
 		}
 	}
 
@@ -354,6 +400,37 @@ public abstract class JobManager {
 		return false;
 	}
 
+	/**
+	 * Gets the number of executed jobs.
+	 */
+	public synchronized long getTotalJobsCount() {
+		return totalJobsCounter;
+	}
+
+	/**
+	 * Gets the total time (in nanoseconds) the jobs spent waiting in the job queue.
+	 */
+	public synchronized long getTotalWaitTime() {
+		return totalWaitTime;
+	}
+
+	/**
+	 * Gets the total time (in nanoseconds) the jobs spent in execution.
+	 */
+	public synchronized long getTotalRunTime() {
+		return totalRunTime;
+	}
+
 	protected abstract void onException(Throwable t);
 
+	/**
+	 * Called after a job has been executed (successfully or not).
+	 *
+	 * @param job the job
+	 * @param waitTime time (in nanoseconds) the job spent waiting in the job queue
+	 * @param runTime time (in nanoseconds) the job spent in execution
+	 */
+	protected void onJobExecuted(Job job, long waitTime, long runTime) {
+	}
+
 }
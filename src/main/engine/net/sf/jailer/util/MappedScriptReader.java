@@ -0,0 +1,425 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the lines of an uncompressed SQL-script from memory mapped windows of the file.
+ * <br>
+ * Lines are scanned and trimmed on the byte level. Statements are kept as {@link Slice}s
+ * of the mapped buffer and are decoded on demand, so that decoding can be done by the threads executing the statements.
+ * <br>
+ * Windows are unmapped explicitly by {@link #releaseRetiredWindows()} and {@link #release()}, so that the file
+ * is not kept locked (on Windows) until the buffers are garbage collected.
+ * If the JVM doesn't allow unmapping, scripts are not mapped on Windows.
+ *
+ * @author Ralf Wisser
+ */
+class MappedScriptReader {
+
+	/**
+	 * Smaller files are read with a {@link java.io.BufferedReader}.
+	 */
+	static final long MIN_FILE_SIZE = 8L * 1024 * 1024;
+
+	/**
+	 * Size of a mapped window.
+	 */
+	private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private final int windowSize;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long fileSize;
+	private final Charset encoding;
+
+	/**
+	 * The current window and its offset in the file.
+	 */
+	private ByteBuffer buffer;
+	private long base;
+
+	/**
+	 * Windows which have been replaced by the current one and may still be referenced by {@link Slice}s.
+	 */
+	private final List<ByteBuffer> retiredWindows = new ArrayList<ByteBuffer>();
+
+	/**
+	 * Start of the next line (relative to {@link #base}).
+	 */
+	private int position;
+
+	/**
+	 * Bounds of the current line (relative to {@link #base}).
+	 */
+	private int lineStart;
+	private int lineEnd;
+	private int trimmedStart;
+	private int trimmedEnd;
+
+	/**
+	 * Position in the file which must stay within the current window, or <code>-1</code>.
+	 */
+	private long pinnedPosition = -1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scriptFile the script file
+	 * @param encoding the encoding
+	 */
+	MappedScriptReader(File scriptFile, Charset encoding) throws IOException {
+		this(scriptFile, encoding, WINDOW_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scriptFile the script file
+	 * @param encoding the encoding
+	 * @param windowSize size of a mapped window
+	 */
+	MappedScriptReader(File scriptFile, Charset encoding, int windowSize) throws IOException {
+		this.windowSize = windowSize;
+		this.file = new RandomAccessFile(scriptFile, "r");
+		this.channel = file.getChannel();
+		this.fileSize = channel.size();
+		this.encoding = encoding;
+		this.base = 0;
+		this.buffer = map(0, Math.min(windowSize, fileSize));
+	}
+
+	/**
+	 * Checks whether a script can be read with a {@link MappedScriptReader}.
+	 * That's the case for large uncompressed files in an encoding in which line terminators, white spaces, '-' and ';'
+	 * are encoded as in ASCII and are never part of multi-byte characters.
+	 *
+	 * @param scriptFile the script file
+	 * @param encoding the encoding
+	 */
+	static boolean isApplicable(File scriptFile, Charset encoding) {
+		String name = scriptFile.getName().toLowerCase(Locale.ENGLISH);
+		if (name.endsWith(".gz") || name.endsWith(".zip") || scriptFile.length() < MIN_FILE_SIZE) {
+			return false;
+		}
+		if (!Unmapper.AVAILABLE && System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH).startsWith("windows")) {
+			// the file would stay locked
+			return false;
+		}
+		if ("UTF-8".equals(encoding.name())) {
+			return true;
+		}
+		if (!encoding.canEncode() || encoding.newEncoder().maxBytesPerChar() != 1.0f) {
+			return false;
+		}
+		String ascii = " \t\r\n-;";
+		return Arrays.equals(ascii.getBytes(encoding), ascii.getBytes(Charset.forName("US-ASCII")));
+	}
+
+	private ByteBuffer map(long offset, long size) throws IOException {
+		if (size == 0) {
+			return ByteBuffer.allocate(0);
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+	}
+
+	/**
+	 * Moves the window forward such that it starts with the next line or the pinned position.
+	 */
+	private void remap() throws IOException {
+		long newBase = base + position;
+		if (pinnedPosition >= 0 && pinnedPosition < newBase) {
+			newBase = pinnedPosition;
+		}
+		long size = windowSize;
+		if (newBase == base) {
+			// the window is filled by a single line or statement
+			size = Math.max(size, 2L * buffer.limit());
+		}
+		size = Math.min(Math.min(size, Integer.MAX_VALUE), fileSize - newBase);
+		if (newBase == base && size <= buffer.limit()) {
+			throw new IOException("Statement too long (> " + buffer.limit() + " bytes)");
+		}
+		retiredWindows.add(buffer);
+		buffer = map(newBase, size);
+		position -= (int) (newBase - base);
+		base = newBase;
+	}
+
+	/**
+	 * Reads the next line.
+	 *
+	 * @return <code>false</code> if the end of the file has been reached
+	 */
+	boolean nextLine() throws IOException {
+		for (;;) {
+			int limit = buffer.limit();
+			int i = position;
+			while (i < limit) {
+				byte b = buffer.get(i);
+				if (b == '\n' || b == '\r') {
+					break;
+				}
+				++i;
+			}
+			boolean endOfFile = base + limit >= fileSize;
+			if (!endOfFile && i >= limit - 1) {
+				// line (or "\r\n") might be continued in the next window
+				remap();
+				continue;
+			}
+			if (position >= limit) {
+				return false;
+			}
+			lineStart = position;
+			lineEnd = i;
+			if (i < limit) {
+				position = buffer.get(i) == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n'? i + 2 : i + 1;
+			} else {
+				position = i;
+			}
+			trimmedStart = lineStart;
+			trimmedEnd = lineEnd;
+			while (trimmedStart < trimmedEnd && (buffer.get(trimmedStart) & 0xff) <= ' ') {
+				++trimmedStart;
+			}
+			while (trimmedEnd > trimmedStart && (buffer.get(trimmedEnd - 1) & 0xff) <= ' ') {
+				--trimmedEnd;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Whether the current line contains white spaces only.
+	 */
+	boolean isBlank() {
+		return trimmedStart == trimmedEnd;
+	}
+
+	/**
+	 * Whether the current line is a comment.
+	 */
+	boolean isComment() {
+		return trimmedEnd - trimmedStart >= 2 && buffer.get(trimmedStart) == '-' && buffer.get(trimmedStart + 1) == '-';
+	}
+
+	/**
+	 * Whether the current line ends with ';'.
+	 */
+	boolean endsWithSemicolon() {
+		return trimmedEnd > trimmedStart && buffer.get(trimmedEnd - 1) == ';';
+	}
+
+	/**
+	 * Gets the trimmed current line.
+	 */
+	String getLine() {
+		return decode(buffer, trimmedStart, trimmedEnd, encoding);
+	}
+
+	/**
+	 * Gets the current line.
+	 */
+	String getRawLine() {
+		return decode(buffer, lineStart, lineEnd, encoding);
+	}
+
+	/**
+	 * Gets the position of the trimmed current line in the file.
+	 */
+	long getLineStart() {
+		return base + trimmedStart;
+	}
+
+	/**
+	 * Gets the end position of the trimmed current line in the file.
+	 */
+	long getLineEnd() {
+		return base + trimmedEnd;
+	}
+
+	/**
+	 * Gets the number of bytes read.
+	 */
+	long getPosition() {
+		return base + position;
+	}
+
+	/**
+	 * Keeps a position within the mapped window until it is released by pinning <code>-1</code>.
+	 *
+	 * @param pinnedPosition position in the file or <code>-1</code>
+	 */
+	void setPinnedPosition(long pinnedPosition) {
+		this.pinnedPosition = pinnedPosition;
+	}
+
+	/**
+	 * Gets a part of the file. The start position must have been pinned before.
+	 *
+	 * @param start start position in the file
+	 * @param end end position in the file
+	 */
+	Slice getSlice(long start, long end) {
+		return new Slice(buffer, (int) (start - base), (int) (end - base), encoding);
+	}
+
+	/**
+	 * Closes the file. The mapped windows stay valid until they are released.
+	 */
+	void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Unmaps the windows preceding the current one.
+	 * Must only be called if no {@link Slice} of these windows is used anymore.
+	 */
+	void releaseRetiredWindows() {
+		for (ByteBuffer window: retiredWindows) {
+			Unmapper.unmap(window);
+		}
+		retiredWindows.clear();
+	}
+
+	/**
+	 * Unmaps all windows. Must only be called if no {@link Slice} is used anymore.
+	 */
+	void release() {
+		releaseRetiredWindows();
+		Unmapper.unmap(buffer);
+		buffer = ByteBuffer.allocate(0);
+		base = fileSize;
+		position = 0;
+	}
+
+	private static String decode(ByteBuffer buffer, int start, int end, Charset encoding) {
+		ByteBuffer bytes = buffer.duplicate();
+		((Buffer) bytes).limit(end);
+		((Buffer) bytes).position(start);
+		return encoding.decode(bytes).toString();
+	}
+
+	/**
+	 * Part of a script consisting of trimmed lines.
+	 */
+	static class Slice {
+		private final ByteBuffer buffer;
+		private final int start;
+		private final int end;
+		private final Charset encoding;
+
+		private Slice(ByteBuffer buffer, int start, int end, Charset encoding) {
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
+			this.encoding = encoding;
+		}
+
+		/**
+		 * Gets the length in bytes.
+		 */
+		int length() {
+			return end - start;
+		}
+
+		/**
+		 * Gets the text of a statement (without the terminating ';').
+		 * Lines are trimmed and joined by line feeds, blank lines are omitted.
+		 */
+		String getStatement() {
+			return normalize(false);
+		}
+
+		/**
+		 * Gets the lines, each trimmed and terminated by a line feed. Blank lines are omitted.
+		 */
+		String getLines() {
+			return normalize(true);
+		}
+
+		/**
+		 * Gets the (undecorated) text up to a maximum length in bytes.
+		 */
+		String getPrefix(int maxLength) {
+			return decode(buffer, start, Math.min(end, start + maxLength), encoding);
+		}
+
+		/**
+		 * Checks whether the slice contains an ASCII word, ignoring case.
+		 */
+		boolean containsIgnoreCase(String word) {
+			int n = word.length();
+			for (int i = start; i + n <= end; ++i) {
+				int j = 0;
+				while (j < n && Character.toUpperCase((char) (buffer.get(i + j) & 0xff)) == Character.toUpperCase(word.charAt(j))) {
+					++j;
+				}
+				if (j == n) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private String normalize(boolean allLines) {
+			String text = decode(buffer, start, end, encoding);
+			if (text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+				return allLines? text + "\n" : text;
+			}
+			StringBuilder sb = new StringBuilder(text.length());
+			int n = text.length();
+			int i = 0;
+			for (;;) {
+				int e = i;
+				while (e < n && text.charAt(e) != '\n' && text.charAt(e) != '\r') {
+					++e;
+				}
+				if (e >= n && !allLines) {
+					// last line of a statement: ends with the ';'
+					int s = i;
+					while (s < e && text.charAt(s) <= ' ') {
+						++s;
+					}
+					sb.append(text, s, e);
+					break;
+				}
+				String line = text.substring(i, e).trim();
+				if (line.length() > 0) {
+					sb.append(line).append('\n');
+				}
+				if (e >= n) {
+					break;
+				}
+				i = e + (text.charAt(e) == '\r' && e + 1 < n && text.charAt(e + 1) == '\n'? 2 : 1);
+			}
+			return sb.toString();
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.jailer.configuration.Configuration;
+
+/**
+ * Output stream that keeps its content in memory
+ * until a memory budget shared with other streams is exhausted and then continues in a temporary file.
+ * The file is closed when the stream is closed and reopened for reading the content.
+ *
+ * @author Ralf Wisser
+ */
+public class SpillOutputStream extends OutputStream {
+
+	/**
+	 * Number of bytes which may still be kept in memory by all streams sharing the budget.
+	 */
+	private final AtomicLong memoryBudget;
+
+	/**
+	 * In-memory content.
+	 */
+	private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+	/**
+	 * Temporary file, <code>null</code> if content is kept in memory.
+	 */
+	private File file;
+
+	/**
+	 * Stream into the temporary file.
+	 */
+	private OutputStream fileStream;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param memoryBudget number of bytes which may still be kept in memory, shared with other streams
+	 */
+	public SpillOutputStream(AtomicLong memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		target(1).write(b);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		target(len).write(b, off, len);
+	}
+
+	private OutputStream target(int len) throws IOException {
+		if (fileStream == null && file == null) {
+			if (memoryBudget.addAndGet(-len) >= 0) {
+				return memory;
+			}
+			memoryBudget.addAndGet(len + memory.size());
+			file = Configuration.getInstance().createTempFile();
+			fileStream = new BufferedOutputStream(new FileOutputStream(file));
+			memory.writeTo(fileStream);
+			memory = null;
+		}
+		if (fileStream == null) {
+			throw new IOException("stream closed");
+		}
+		return fileStream;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (fileStream != null) {
+			fileStream.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (fileStream != null) {
+			fileStream.close();
+			fileStream = null;
+		}
+	}
+
+	/**
+	 * Opens an input stream for reading the content.
+	 * The stream must be closed before.
+	 *
+	 * @return input stream for the content
+	 */
+	public InputStream openInputStream() throws IOException {
+		if (file != null) {
+			return new FileInputStream(file);
+		}
+		return new ByteArrayInputStream(memory.toByteArray());
+	}
+
+	/**
+	 * Releases the content.
+	 */
+	public void delete() {
+		if (memory != null) {
+			memoryBudget.addAndGet(memory.size());
+			memory = null;
+		}
+		if (fileStream != null) {
+			try {
+				fileStream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+			fileStream = null;
+		}
+		if (file != null) {
+			file.delete();
+			file = null;
+		}
+	}
+
+}
@@ -28,7 +28,13 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -37,6 +43,7 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
@@ -50,6 +57,13 @@ import net.sf.jailer.database.SqlException;
 
 /**
  * Reads in and executes SQL-scripts.
+ * <br>
+ * Statements between two synchronization points ("-- sync") are independent of each other and
+ * are executed concurrently. Optionally, these statements are grouped by table and each
+ * group is executed as JDBC batch, with identity-inserts enabled per group.
+ * <br>
+ * Large uncompressed scripts are read via a {@link MappedScriptReader}. Statements
+ * are then decoded by the threads executing them.
  * 
  * @author Ralf Wisser
  */
@@ -64,6 +78,15 @@ public class SqlScriptExecutor {
 	 * Comment prefix for last line of a multi-line comment.
 	 */
 	public static final String FINISHED_MULTILINE_COMMENT = "--.";
+
+	/**
+	 * Command (after {@link #UNFINISHED_MULTILINE_COMMENT}) which imports the content of a LOB from a side-car file.
+	 * Syntax: <code>LOBFILE &lt;CLOB|BLOB|XML&gt; &lt;length&gt; &lt;file relative to script&gt;, &lt;table&gt;, &lt;column&gt;, &lt;condition&gt;</code>
+	 * <br>
+	 * The file name is enclosed in double quotes (quotes inside the name are doubled), see {@link #quoteLobFileName(String)}.
+	 * Unquoted file names must not contain commas.
+	 */
+	public static final String LOB_FILE = "LOBFILE";
 	
 	/**
 	 * The logger.
@@ -79,6 +102,11 @@ public class SqlScriptExecutor {
 	 * Executes the statements.
 	 */
 	private BoundedExecutor executor;
+
+	/**
+	 * Reader of the memory mapped script being executed, or <code>null</code>.
+	 */
+	private MappedScriptReader mappedReader;
 	
 	/**
 	 * Threads number of threads to use.
@@ -90,19 +118,137 @@ public class SqlScriptExecutor {
 	 */
 	private final boolean logStatements;
 
+	/**
+	 * Group statements by table and execute them in batches?
+	 */
+	private final boolean groupByTable;
+
 	private RuntimeException exception;
-	
+
+	/**
+	 * Maximum number of statements per batch.
+	 */
+	private static final int MAX_BATCH_SIZE = 100;
+
+	/**
+	 * Maximum total length of the statements of a batch.
+	 */
+	private static final int MAX_BATCH_LENGTH = 1024 * 1024;
+
+	/**
+	 * Statement containing an identity-insert switch.
+	 */
+	private static final Pattern IDENTITY_INSERT = Pattern.compile(".*SET\\s+IDENTITY_INSERT.*", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Number of bytes of a statement that are looked at to find its table.
+	 */
+	private static final int PREFIX_LENGTH = 1024;
+
+	/**
+	 * Enables or disables identity-inserts for a table.
+	 */
+	private static final Pattern IDENTITY_INSERT_TABLE = Pattern.compile("\\s*SET\\s+IDENTITY_INSERT\\s+(.+?)\\s+(ON|OFF)\\s*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	/**
+	 * Table of a DML statement.
+	 */
+	private static final Pattern DML_TABLE = Pattern.compile("\\s*(?:insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+((?:\"[^\"]*\"|\\[[^\\]]*\\]|`[^`]*`|[^\\s(\"\\[`])+)", Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * A statement of the script. Statements of memory mapped scripts are decoded on demand.
+	 */
+	private static class ScriptStatement {
+		private final String text;
+		private final MappedScriptReader.Slice slice;
+
+		ScriptStatement(String text) {
+			this.text = text;
+			this.slice = null;
+		}
+
+		ScriptStatement(MappedScriptReader.Slice slice) {
+			this.text = null;
+			this.slice = slice;
+		}
+
+		String getText() {
+			return text != null? text : slice.getStatement();
+		}
+
+		/**
+		 * Gets the beginning of the statement.
+		 */
+		String getPrefix() {
+			return text != null? text : slice.getPrefix(PREFIX_LENGTH);
+		}
+
+		int length() {
+			return text != null? text.length() : slice.length();
+		}
+
+		boolean isIdentityInsert() {
+			if (text != null) {
+				return IDENTITY_INSERT.matcher(text).matches();
+			}
+			return slice.containsIgnoreCase("IDENTITY_INSERT") && IDENTITY_INSERT.matcher(slice.getStatement()).matches();
+		}
+	}
+
+	/**
+	 * Statements of a table to be executed as batch.
+	 */
+	private static class TableBatch {
+		final String table;
+		final List<ScriptStatement> statements = new ArrayList<ScriptStatement>();
+		final List<Integer> lineNumbers = new ArrayList<Integer>();
+		int length;
+
+		TableBatch(String table) {
+			this.table = table;
+		}
+
+		void add(ScriptStatement statement, int lineNumber) {
+			statements.add(statement);
+			lineNumbers.add(lineNumber);
+			length += statement.length();
+		}
+	}
+
+	/**
+	 * Batches not yet submitted, per table.
+	 */
+	private final Map<String, TableBatch> pendingBatches = new LinkedHashMap<String, TableBatch>();
+
+	/**
+	 * Tables for which identity-inserts are enabled in the script.
+	 */
+	private final Set<String> identityInsertTables = new HashSet<String>();
+
 	/**
 	 * Constructor.
 	 * 
 	 * @param session for execution of statements
 	 * @param threads number of threads to use
 	 * @param logStatements log statements?
+	 * @param groupByTable group statements between synchronization points by table and execute them in batches?
 	 */
-	public SqlScriptExecutor(Session session, int threads, boolean logStatements) {
+	public SqlScriptExecutor(Session session, int threads, boolean logStatements, boolean groupByTable) {
 		this.session = session;
 		this.threads = threads;
 		this.logStatements = logStatements;
+		this.groupByTable = groupByTable;
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param session for execution of statements
+	 * @param threads number of threads to use
+	 * @param logStatements log statements?
+	 */
+	public SqlScriptExecutor(Session session, int threads, boolean logStatements) {
+		this(session, threads, logStatements, false);
 	}
 
 	/**
@@ -175,18 +321,28 @@ public class SqlScriptExecutor {
 			}
 		}
 
-		public void shutdown() {
+		/**
+		 * Shuts down the executor and waits for the tasks.
+		 *
+		 * @return <code>true</code> if all tasks are done
+		 */
+		public boolean shutdown() {
 			exec.shutdown();
 			try {
-				exec.awaitTermination(1, TimeUnit.MINUTES);
+				return exec.awaitTermination(1, TimeUnit.MINUTES);
 			} catch (InterruptedException e) {
-				// ignore
+				return false;
 			}
 		}
 	}
 	
 	private long submittedTasks;
 	private AtomicLong executedTasks;
+	private AtomicLong executedBatches;
+	private AtomicLong linesRead;
+	private AtomicLong totalRowCount;
+	private AtomicInteger count;
+	private String scriptFileName;
 	
 	/**
 	 * Reads in and executes a SQL-script.
@@ -197,13 +353,16 @@ public class SqlScriptExecutor {
 	 */
 	public Pair<Integer, Long> executeScript(String scriptFileName) throws IOException, SQLException {
 		_log.info("reading file '" + scriptFileName + "'");
+		this.scriptFileName = scriptFileName;
 		BufferedReader bufferedReader;
 		long fileSize = 0;
 		final long[] bytesRead = new long[1];
 		Charset encoding = SqlUtil.retrieveEncoding(scriptFileName);
 		
 		File file = new File(scriptFileName);
-		InputStream inputStream = new FileInputStream(file);
+		final MappedScriptReader mappedReader = MappedScriptReader.isApplicable(file, encoding)? new MappedScriptReader(file, encoding) : null;
+		this.mappedReader = mappedReader;
+		InputStream inputStream = mappedReader != null? null : new FileInputStream(file);
 		inputStream = new FilterInputStream(inputStream) { // lgtm [java/input-resource-leak]
 			@Override
 			public int read() throws IOException {
@@ -224,7 +383,9 @@ public class SqlScriptExecutor {
 		};
 		bytesRead[0] = 0;
 		fileSize = file.length();
-		if (scriptFileName.toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
+		if (mappedReader != null) {
+			bufferedReader = null;
+		} else if (scriptFileName.toLowerCase(Locale.ENGLISH).endsWith(".gz")) {
 			bufferedReader = new BufferedReader(new InputStreamReader(new GZIPInputStream(inputStream), encoding));
 		} else if (scriptFileName.toLowerCase(Locale.ENGLISH).endsWith(".zip")){
 			ZipInputStream zis = new ZipInputStream(inputStream); // lgtm [java/input-resource-leak]
@@ -236,14 +397,17 @@ public class SqlScriptExecutor {
 		
 		String line = null;
 		StringBuffer currentStatement = new StringBuffer();
-		final AtomicLong linesRead = new AtomicLong(0);
-		final AtomicLong totalRowCount = new AtomicLong(0);
+		linesRead = new AtomicLong(0);
+		totalRowCount = new AtomicLong(0);
 		final AtomicLong t = new AtomicLong(System.currentTimeMillis());
-		final AtomicInteger count = new AtomicInteger(0);
+		count = new AtomicInteger(0);
 		submittedTasks = 0;
 		executedTasks = new AtomicLong(0);
+		executedBatches = new AtomicLong(0);
+		pendingBatches.clear();
+		identityInsertTables.clear();
 		final long finalFileSize = fileSize;
-		LineReader lineReader = new LineReader(bufferedReader);
+		LineReader lineReader = mappedReader != null? new LineReader(mappedReader) : new LineReader(bufferedReader);
 		boolean inSync = false;
 		synchronized (this) {
 			exception = null;
@@ -257,7 +421,7 @@ public class SqlScriptExecutor {
 					t.set(System.currentTimeMillis());
 					long p = -1;
 					if (finalFileSize > 0) {
-						p = (1000 * bytesRead[0]) / finalFileSize;
+						p = (1000 * (mappedReader != null? mappedReader.getPosition() : bytesRead[0])) / finalFileSize;
 						if (p > 999) {
 							p = 999;
 						}
@@ -270,18 +434,60 @@ public class SqlScriptExecutor {
 		executor = threads > 1? new BoundedExecutor(
 				new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MINUTES, new LinkedBlockingQueue<Runnable>()), threads + 3) : null; 
 		try {
-			final Pattern IDENTITY_INSERT = Pattern.compile(".*SET\\s+IDENTITY_INSERT.*", Pattern.CASE_INSENSITIVE);
 			boolean tryMode = false;
 			int lineNumber = 0;
 			int currentStatementlineNumber = 1;
-			while ((line = lineReader.readLine()) != null) {
-				++lineNumber;
-				line = line.trim();
-				if (line.length() == 0) {
-					if (currentStatement.length() == 0) {
-						++currentStatementlineNumber;
+			// bounds of the current statement in a memory mapped script, if it has been read as slice
+			long sliceStart = -1;
+			long sliceEnd = -1;
+			for (;;) {
+				if (mappedReader != null && mappedReader.nextLine()) {
+					++lineNumber;
+					if (mappedReader.isBlank()) {
+						if (currentStatement.length() == 0 && sliceStart < 0) {
+							++currentStatementlineNumber;
+						}
+						continue;
+					}
+					if (!mappedReader.isComment() && currentStatement.length() == 0 && !tryMode) {
+						if (sliceStart < 0) {
+							sliceStart = mappedReader.getLineStart();
+							mappedReader.setPinnedPosition(sliceStart);
+						}
+						if (mappedReader.endsWithSemicolon()) {
+							ScriptStatement stmt = new ScriptStatement(mappedReader.getSlice(sliceStart, mappedReader.getLineEnd() - 1));
+							sliceStart = -1;
+							mappedReader.setPinnedPosition(-1);
+							submitStatement(stmt, false, inSync, currentStatementlineNumber);
+							currentStatementlineNumber = lineNumber + 1;
+							logProgress.run();
+						} else {
+							sliceEnd = mappedReader.getLineEnd();
+						}
+						CancellationHandler.checkForCancellation(null);
+						checkForException();
+						continue;
 					}
-					continue;
+					line = mappedReader.getLine();
+				} else {
+					line = lineReader.readLine();
+					if (line == null) {
+						break;
+					}
+					++lineNumber;
+					line = line.trim();
+					if (line.length() == 0) {
+						if (currentStatement.length() == 0 && sliceStart < 0) {
+							++currentStatementlineNumber;
+						}
+						continue;
+					}
+				}
+				if (sliceStart >= 0) {
+					// statement is continued by a comment or is terminated by the end of the file
+					currentStatement.append(mappedReader.getSlice(sliceStart, sliceEnd).getLines());
+					sliceStart = -1;
+					mappedReader.setPinnedPosition(-1);
 				}
 				if (line.startsWith("--")) {
 					if (currentStatement.length() == 0) {
@@ -304,6 +510,9 @@ public class SqlScriptExecutor {
 							if (cmd.startsWith("BLOB")) {
 								importBLob(cmd.substring(4).trim(), lineReader);
 							}
+							if (cmd.startsWith(LOB_FILE)) {
+								importLobFile(cmd.substring(LOB_FILE.length()).trim());
+							}
 						} else if (uncommentedLine.equals("sync")) {
 							inSync = true;
 							sync();
@@ -316,74 +525,7 @@ public class SqlScriptExecutor {
 				}
 				if (line.endsWith(";")) {
 					currentStatement.append(line.substring(0, line.length() - 1));
-					if (IDENTITY_INSERT.matcher(currentStatement).matches()) {
-						sync();
-						if (executor != null) {
-							executor.shutdown();
-							executor = null;
-						}
-					}
-					final String stmt = currentStatement.toString();
-					final boolean finalTryMode = tryMode;
-					final int finalCurrentStatementlineNumber = currentStatementlineNumber;
-					execute(new Runnable() {
-						@Override
-						public void run() {
-							boolean startsWithDrop = stmt.trim().toLowerCase(Locale.ENGLISH).startsWith("drop");
-							boolean silent = session.getSilent();
-							session.setSilent(silent || finalTryMode || startsWithDrop);
-							boolean oldLogStatements = session.getLogStatements();
-							session.setLogStatements(logStatements);
-							try {
-								if (stmt.trim().length() > 0) {
-									boolean done = false;
-									long rc = 0;
-									if (startsWithDrop) {
-										// [bugs:#37] PostreSQL: transactional execution
-										String withExists = stmt.replaceFirst("(?is)(DROP\\s+TABLE\\s+)", "$1IF EXISTS ");
-										if (!withExists.equals(stmt)) {
-											try {
-												rc = session.execute(withExists);
-											} catch (SQLException e) {
-												rc = session.execute(stmt);
-											}
-											done = true;
-										}
-									}
-									if (!done) {
-										rc = session.execute(stmt, null, true);
-									}
-									totalRowCount.addAndGet(rc);
-									linesRead.getAndIncrement();
-									if (!startsWithDrop) {
-										count.getAndIncrement();
-									}
-								}
-							} catch (SQLException e) {
-								try {
-									// [bugs:#37] PostreSQL: transactional execution
-									session.getConnection().rollback();
-								} catch (SQLException e1) {
-									// ignore
-								}
-								// drop may fail
-								if (!finalTryMode && !startsWithDrop) {
-									// fix for bug [2946477]
-									if (!stmt.trim().toUpperCase(Locale.ENGLISH).contains("DROP TABLE JAILER_DUAL")) {
-										Session._log.warn(stmt, e);
-										if (e instanceof SqlException) {
-											String message = (scriptFileName.matches("(tmp|temp).*")? "" : "Error in file: \"" + scriptFileName + "\" line: " + finalCurrentStatementlineNumber + "\n") + ((SqlException) e).getMessage();
-											e = new SqlException(message, ((SqlException) e).sqlStatement, e);
-										}
-										throw new RuntimeException("Error in file: \"" + scriptFileName + "\" line: " + finalCurrentStatementlineNumber, e);
-									}
-								}
-							} finally {
-								session.setSilent(silent);
-								session.setLogStatements(oldLogStatements);
-							}
-						}
-					}, inSync);
+					submitStatement(new ScriptStatement(currentStatement.toString()), tryMode, inSync, currentStatementlineNumber);
 					currentStatement.setLength(0);
 					currentStatementlineNumber = lineNumber + 1;
 					logProgress.run();
@@ -392,18 +534,11 @@ public class SqlScriptExecutor {
 					currentStatement.append(line + "\n");
 				}
 				CancellationHandler.checkForCancellation(null);
-				synchronized (this) {
-					if (exception != null) {
-						if (exception.getCause() instanceof SQLException) {
-							throw (SQLException) exception.getCause();
-						}
-						throw exception;
-					}
-				}
+				checkForException();
 			}
-			bufferedReader.close();
+			lineReader.close();
 			sync();
-			_log.info(linesRead + " statements (100%)");
+			_log.info(linesRead + " statements (100%)" + (groupByTable && executedBatches.get() > 0? ", " + executedBatches + " batches" : ""));
 			_log.info("successfully read file '" + scriptFileName + "'");
 			Pair<Integer, Long> r = new Pair<Integer, Long>(count.get(), totalRowCount.get());
 			synchronized (SqlScriptExecutor.class) {
@@ -419,8 +554,16 @@ public class SqlScriptExecutor {
 			}
 			throw new RuntimeException(e);
 		} finally {
+			boolean done = true;
 			if (executor != null) {
-				executor.shutdown();
+				done = executor.shutdown();
+			}
+			if (mappedReader != null) {
+				mappedReader.close();
+				if (done) {
+					mappedReader.release();
+				}
+				this.mappedReader = null;
 			}
 			synchronized (this) {
 				if (exception != null) {
@@ -433,6 +576,219 @@ public class SqlScriptExecutor {
 		}
 	}
 
+	/**
+	 * Executes a statement or adds it to a batch.
+	 * 
+	 * @param stmt the statement
+	 * @param tryMode ignore errors?
+	 * @param inSync <code>true</code> if statement is between two synchronization points
+	 * @param lineNumber line number of the statement
+	 */
+	private void submitStatement(final ScriptStatement stmt, final boolean tryMode, boolean inSync, final int lineNumber) {
+		boolean batched = false;
+		if (groupByTable && executor != null && (inSync || !stmt.isIdentityInsert())) {
+			batched = addToBatch(stmt, tryMode, inSync, lineNumber);
+		} else if (stmt.isIdentityInsert()) {
+			sync();
+			if (executor != null) {
+				executor.shutdown();
+				executor = null;
+			}
+		}
+		if (!batched) {
+			execute(new Runnable() {
+				@Override
+				public void run() {
+					executeStatement(stmt.getText(), tryMode, lineNumber);
+				}
+			}, inSync);
+		}
+	}
+
+	private synchronized void checkForException() throws SQLException {
+		if (exception != null) {
+			if (exception.getCause() instanceof SQLException) {
+				throw (SQLException) exception.getCause();
+			}
+			throw exception;
+		}
+	}
+
+	/**
+	 * Executes a statement.
+	 * 
+	 * @param stmt the statement
+	 * @param tryMode ignore errors?
+	 * @param lineNumber line number of the statement
+	 */
+	private void executeStatement(String stmt, boolean tryMode, int lineNumber) {
+		boolean startsWithDrop = stmt.trim().toLowerCase(Locale.ENGLISH).startsWith("drop");
+		boolean silent = session.getSilent();
+		session.setSilent(silent || tryMode || startsWithDrop);
+		boolean oldLogStatements = session.getLogStatements();
+		session.setLogStatements(logStatements);
+		try {
+			if (stmt.trim().length() > 0) {
+				boolean done = false;
+				long rc = 0;
+				if (startsWithDrop) {
+					// [bugs:#37] PostreSQL: transactional execution
+					String withExists = stmt.replaceFirst("(?is)(DROP\\s+TABLE\\s+)", "$1IF EXISTS ");
+					if (!withExists.equals(stmt)) {
+						try {
+							rc = session.execute(withExists);
+						} catch (SQLException e) {
+							rc = session.execute(stmt);
+						}
+						done = true;
+					}
+				}
+				if (!done) {
+					rc = session.execute(stmt, null, true);
+				}
+				totalRowCount.addAndGet(rc);
+				linesRead.getAndIncrement();
+				if (!startsWithDrop) {
+					count.getAndIncrement();
+				}
+			}
+		} catch (SQLException e) {
+			try {
+				// [bugs:#37] PostreSQL: transactional execution
+				session.getConnection().rollback();
+			} catch (SQLException e1) {
+				// ignore
+			}
+			// drop may fail
+			if (!tryMode && !startsWithDrop) {
+				// fix for bug [2946477]
+				if (!stmt.trim().toUpperCase(Locale.ENGLISH).contains("DROP TABLE JAILER_DUAL")) {
+					Session._log.warn(stmt, e);
+					if (e instanceof SqlException) {
+						String message = (scriptFileName.matches("(tmp|temp).*")? "" : "Error in file: \"" + scriptFileName + "\" line: " + lineNumber + "\n") + ((SqlException) e).getMessage();
+						e = new SqlException(message, ((SqlException) e).sqlStatement, e);
+					}
+					throw new RuntimeException("Error in file: \"" + scriptFileName + "\" line: " + lineNumber, e);
+				}
+			}
+		} finally {
+			session.setSilent(silent);
+			session.setLogStatements(oldLogStatements);
+		}
+	}
+
+	/**
+	 * Adds a statement to the batch of its table.
+	 * 
+	 * @param stmt the statement
+	 * @param tryMode ignore errors?
+	 * @param inSync <code>true</code> if statement is between two synchronization points
+	 * @param lineNumber line number of the statement
+	 * @return <code>true</code> if the statement must not be executed separately
+	 */
+	private boolean addToBatch(ScriptStatement stmt, boolean tryMode, boolean inSync, int lineNumber) {
+		String prefix = stmt.getPrefix();
+		Matcher matcher = IDENTITY_INSERT_TABLE.matcher(prefix);
+		if (matcher.matches()) {
+			// identity-inserts are enabled per batch on the connection executing the batch
+			String table = matcher.group(1);
+			TableBatch batch = pendingBatches.remove(table);
+			if (batch != null) {
+				submitBatch(batch);
+			}
+			if ("ON".equalsIgnoreCase(matcher.group(2))) {
+				identityInsertTables.add(table);
+			} else {
+				identityInsertTables.remove(table);
+			}
+			return true;
+		}
+		if (!inSync || tryMode) {
+			return false;
+		}
+		matcher = DML_TABLE.matcher(prefix);
+		if (!matcher.lookingAt()) {
+			return false;
+		}
+		String table = matcher.group(1);
+		TableBatch batch = pendingBatches.get(table);
+		if (batch == null) {
+			batch = new TableBatch(table);
+			pendingBatches.put(table, batch);
+		}
+		batch.add(stmt, lineNumber);
+		if (batch.statements.size() >= MAX_BATCH_SIZE || batch.length >= MAX_BATCH_LENGTH) {
+			pendingBatches.remove(table);
+			submitBatch(batch);
+		}
+		return true;
+	}
+
+	/**
+	 * Submits all pending batches.
+	 */
+	private void submitBatches() {
+		for (TableBatch batch: pendingBatches.values()) {
+			submitBatch(batch);
+		}
+		pendingBatches.clear();
+	}
+
+	private void submitBatch(final TableBatch batch) {
+		final boolean identityInsert = identityInsertTables.contains(batch.table);
+		execute(new Runnable() {
+			@Override
+			public void run() {
+				executeBatch(batch, identityInsert);
+			}
+		}, true);
+	}
+
+	/**
+	 * Executes the statements of a table as batch.
+	 * If the batch fails, it is rolled back and its statements are executed again separately.
+	 * 
+	 * @param batch the batch
+	 * @param identityInsert enable identity-inserts for the table?
+	 */
+	private void executeBatch(TableBatch batch, boolean identityInsert) {
+		boolean oldLogStatements = session.getLogStatements();
+		session.setLogStatements(logStatements);
+		try {
+			if (identityInsert) {
+				session.execute("SET IDENTITY_INSERT " + batch.table + " ON");
+			}
+			try {
+				List<String> statements = new ArrayList<String>(batch.statements.size());
+				for (ScriptStatement stmt: batch.statements) {
+					statements.add(stmt.getText());
+				}
+				int[] counts = session.executeBatch(statements);
+				for (int i = 0; i < statements.size(); ++i) {
+					if (counts == null) {
+						executeStatement(statements.get(i), false, batch.lineNumbers.get(i));
+					} else {
+						if (counts[i] > 0) {
+							totalRowCount.addAndGet(counts[i]);
+						}
+						linesRead.getAndIncrement();
+						count.getAndIncrement();
+					}
+				}
+				executedBatches.incrementAndGet();
+			} finally {
+				if (identityInsert) {
+					session.execute("SET IDENTITY_INSERT " + batch.table + " OFF");
+				}
+			}
+		} catch (SQLException e) {
+			Session._log.warn(batch.table, e);
+			throw new RuntimeException("Error in file: \"" + scriptFileName + "\" line: " + batch.lineNumbers.get(0), e);
+		} finally {
+			session.setLogStatements(oldLogStatements);
+		}
+	}
+
 	private void execute(final Runnable task, boolean inSync) {
 		if (!inSync || executor == null) {
 			task.run();
@@ -465,6 +821,7 @@ public class SqlScriptExecutor {
 	}
 
 	private void sync() {
+		submitBatches();
 		if (executor != null) {
 			while (submittedTasks > executedTasks.get()) {
 				try {
@@ -474,25 +831,49 @@ public class SqlScriptExecutor {
 				}
 			}
 		}
+		if (mappedReader != null) {
+			// all statements read so far have been executed
+			mappedReader.releaseRetiredWindows();
+		}
 	}
 
 	private static class LineReader {
 
 		private final BufferedReader reader;
+		private final MappedScriptReader mappedReader;
 		private boolean eofRead = false;
 		
 		public LineReader(BufferedReader reader) {
 			this.reader = reader;
+			this.mappedReader = null;
+		}
+
+		public LineReader(MappedScriptReader mappedReader) {
+			this.reader = null;
+			this.mappedReader = mappedReader;
 		}
 
 		public String readLine() throws IOException {
-			String line = reader.readLine();
+			String line;
+			if (mappedReader != null) {
+				line = mappedReader.nextLine()? mappedReader.getRawLine() : null;
+			} else {
+				line = reader.readLine();
+			}
 			if (line == null && !eofRead) {
 				eofRead = true;
 				return ";";
 			}
 			return line;
 		}
+
+		public void close() throws IOException {
+			if (mappedReader != null) {
+				mappedReader.close();
+			} else {
+				reader.close();
+			}
+		}
 	}
 	
 	/**
@@ -634,6 +1015,72 @@ public class SqlScriptExecutor {
 		lobFile.delete();
 	}
 
+	/**
+	 * Imports a LOB from a side-car file of the script.
+	 * 
+	 * @param lobLocator type, length and file of the LOB, followed by table, column and condition
+	 */
+	private void importLobFile(final String lobLocator) throws IOException, SQLException {
+		int s1 = lobLocator.indexOf(' ');
+		int s2 = lobLocator.indexOf(' ', s1 + 1);
+		final String type = lobLocator.substring(0, s1);
+		final long length = Long.parseLong(lobLocator.substring(s1 + 1, s2));
+		String rest = lobLocator.substring(s2 + 1).trim();
+		final String fileName;
+		int c1;
+		if (rest.startsWith("\"")) {
+			StringBuilder name = new StringBuilder();
+			int i = 1;
+			for (;;) {
+				if (i >= rest.length()) {
+					throw new IOException("unterminated LOB file name: " + lobLocator);
+				}
+				char c = rest.charAt(i++);
+				if (c == '"') {
+					if (i < rest.length() && rest.charAt(i) == '"') {
+						++i;
+					} else {
+						break;
+					}
+				}
+				name.append(c);
+			}
+			fileName = name.toString();
+			c1 = rest.indexOf(',', i);
+		} else {
+			c1 = rest.indexOf(',');
+			fileName = rest.substring(0, c1).trim();
+		}
+		int c2 = rest.indexOf(',', c1 + 1);
+		int c3 = rest.indexOf(',', c2 + 1);
+		final String table = rest.substring(c1 + 1, c2).trim();
+		final String column = rest.substring(c2 + 1, c3).trim();
+		final String where = rest.substring(c3 + 1).trim();
+		File scriptFolder = new File(scriptFileName).getAbsoluteFile().getParentFile();
+		File lobFile = new File(scriptFolder, fileName);
+		if (!lobFile.exists()) {
+			throw new IOException("LOB file \"" + lobFile + "\" not found");
+		}
+		sync();
+		if ("BLOB".equals(type)) {
+			session.insertBlob(table, column, where, lobFile);
+		} else if ("XML".equals(type)) {
+			session.insertSQLXML(table, column, where, lobFile, length);
+		} else {
+			session.insertClob(table, column, where, lobFile, length);
+		}
+	}
+
+	/**
+	 * Quotes the file name of a {@link #LOB_FILE} command.
+	 *
+	 * @param fileName file name relative to the script
+	 * @return the quoted file name
+	 */
+	public static String quoteLobFileName(String fileName) {
+		return "\"" + fileName.replace("\"", "\"\"") + "\"";
+	}
+
 	private static Pair<Integer, Long> lastRowCount = null;
 	
 	public static synchronized Pair<Integer, Long> getLastStatementCount() {
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.util.Arrays;
+
+/**
+ * Directed graph over the nodes <code>0 .. n-1</code> with primitive adjacency arrays.
+ * Computes the level of each node using Kahn's algorithm.
+ * <br>
+ * Nodes without outgoing edges have level 0, the level of any other node is one more than the maximum
+ * level of its successors. Nodes which are part of a cycle or from which a cycle is reachable have no level.
+ *
+ * @author Ralf Wisser
+ */
+public class TopologicalLevels {
+
+	/**
+	 * Level of nodes which cannot be sorted.
+	 */
+	public static final int NO_LEVEL = -1;
+
+	private final int numberOfNodes;
+	private int[] from = new int[1024];
+	private int[] to = new int[1024];
+	private int numberOfEdges = 0;
+
+	/**
+	 * Nodes having an edge to an unknown node.
+	 */
+	private final boolean[] blocked;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param numberOfNodes number of nodes
+	 */
+	public TopologicalLevels(int numberOfNodes) {
+		this.numberOfNodes = numberOfNodes;
+		this.blocked = new boolean[numberOfNodes];
+	}
+
+	/**
+	 * Adds an edge.
+	 *
+	 * @param fromNode source node
+	 * @param toNode destination node
+	 */
+	public void addEdge(int fromNode, int toNode) {
+		if (numberOfEdges == from.length) {
+			from = Arrays.copyOf(from, 2 * from.length);
+			to = Arrays.copyOf(to, 2 * to.length);
+		}
+		from[numberOfEdges] = fromNode;
+		to[numberOfEdges] = toNode;
+		++numberOfEdges;
+	}
+
+	/**
+	 * Adds an edge to a node outside the graph. Such a node never gets a level.
+	 *
+	 * @param fromNode source node
+	 */
+	public void addEdgeToUnknownNode(int fromNode) {
+		blocked[fromNode] = true;
+	}
+
+	/**
+	 * Computes the levels.
+	 *
+	 * @return level of each node or {@link #NO_LEVEL}
+	 */
+	public int[] computeLevels() {
+		int[] outDegree = new int[numberOfNodes];
+		// predecessors of node i are predecessors[predecessorsStart[i] .. predecessorsStart[i + 1] - 1]
+		int[] predecessorsStart = new int[numberOfNodes + 1];
+		for (int e = 0; e < numberOfEdges; ++e) {
+			++outDegree[from[e]];
+			++predecessorsStart[to[e] + 1];
+		}
+		for (int i = 0; i < numberOfNodes; ++i) {
+			predecessorsStart[i + 1] += predecessorsStart[i];
+		}
+		int[] predecessors = new int[numberOfEdges];
+		int[] fill = Arrays.copyOf(predecessorsStart, numberOfNodes);
+		for (int e = 0; e < numberOfEdges; ++e) {
+			predecessors[fill[to[e]]++] = from[e];
+		}
+		from = null;
+		to = null;
+
+		int[] level = new int[numberOfNodes];
+		Arrays.fill(level, NO_LEVEL);
+		int[] queue = new int[numberOfNodes];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < numberOfNodes; ++i) {
+			if (outDegree[i] == 0 && !blocked[i]) {
+				level[i] = 0;
+				queue[tail++] = i;
+			}
+		}
+		// FIFO order ensures that a node is dequeued after all nodes of lower level
+		while (head < tail) {
+			int node = queue[head++];
+			for (int p = predecessorsStart[node]; p < predecessorsStart[node + 1]; ++p) {
+				int predecessor = predecessors[p];
+				if (--outDegree[predecessor] == 0 && !blocked[predecessor]) {
+					level[predecessor] = level[node] + 1;
+					queue[tail++] = predecessor;
+				}
+			}
+		}
+		return level;
+	}
+
+}
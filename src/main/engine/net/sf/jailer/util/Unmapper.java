@@ -0,0 +1,90 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Unmaps mapped buffers explicitly, so that the mapped files can be deleted or replaced
+ * (on Windows) and the address space is released without waiting for the garbage collector.
+ *
+ * @author Ralf Wisser
+ */
+public class Unmapper {
+
+	/**
+	 * <code>sun.misc.Unsafe</code> (Java 9 and above) or <code>null</code>.
+	 */
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	/**
+	 * Whether buffers can be unmapped.
+	 */
+	public static final boolean AVAILABLE;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+		} catch (Throwable t) {
+			// Java 8
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+		boolean available = INVOKE_CLEANER != null;
+		if (!available) {
+			try {
+				Class.forName("sun.misc.Cleaner").getMethod("clean");
+				available = true;
+			} catch (Throwable t) {
+				// not supported
+			}
+		}
+		AVAILABLE = available;
+	}
+
+	/**
+	 * Unmaps a buffer.
+	 */
+	public static void unmap(ByteBuffer buffer) {
+		if (!AVAILABLE || !buffer.isDirect()) {
+			return;
+		}
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (Throwable t) {
+			// the buffer will be unmapped by the garbage collector
+		}
+	}
+}
@@ -21,7 +21,11 @@ import java.nio.charset.Charset;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -49,6 +53,11 @@ import net.sf.jailer.util.Quoting;
 
 /**
  * A {@link ResultSetReader} that writes the read rows into an XML file.
+ * <br>
+ * Rows are read in blocks. The aggregated rows of all rows of a block are read
+ * with one query per aggregation (instead of one query per row and aggregation).
+ * The number and size of the rows read ahead is limited. Beyond that limit,
+ * aggregated rows are read per row when they are written.
  *
  * @author Ralf Wisser
  */
@@ -116,6 +125,90 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 
 	private final Quoting quoting;
 
+	/**
+	 * Maximum number of rows whose aggregated rows are read with one query.
+	 */
+	private static final int BLOCK_SIZE = 100;
+
+	/**
+	 * Maximum number of rows read but not yet written.
+	 */
+	private static final int MAX_BUFFERED_ROWS = 10000;
+
+	/**
+	 * Maximum (estimated) size in bytes of the rows read but not yet written.
+	 */
+	private static final long MAX_BUFFERED_BYTES = 8L * 1024 * 1024;
+
+	/**
+	 * Number and size of the rows read but not yet written.
+	 */
+	private int bufferedRows = 0;
+	private long bufferedBytes = 0;
+
+	/**
+	 * Top-level rows read but not yet written.
+	 */
+	private final List<Row> pendingRows = new ArrayList<Row>();
+
+	/**
+	 * A row together with its aggregated rows.
+	 */
+	private static class Row {
+
+		/**
+		 * The aggregating row, <code>null</code> for top-level rows.
+		 */
+		final Row parent;
+
+		/**
+		 * Textual representation of the table and the primary key.
+		 */
+		final String primaryKey;
+
+		/**
+		 * Primary key values.
+		 */
+		final Object[] keyValues;
+
+		/**
+		 * The values to be written out.
+		 */
+		final String[] values;
+
+		/**
+		 * Primary keys of this row and its ancestors, as far as they belong to cyclic aggregated tables.
+		 * Shared with the parent if this row doesn't add a key.
+		 */
+		final Set<String> ancestorKeys;
+
+		/**
+		 * Aggregated rows per association. Aggregations whose rows have not been read yet are missing.
+		 */
+		final Map<Association, List<Row>> children = new HashMap<Association, List<Row>>();
+
+		Row(Row parent, String primaryKey, Object[] keyValues, String[] values, Set<String> ancestorKeys) {
+			this.parent = parent;
+			this.primaryKey = primaryKey;
+			this.keyValues = keyValues;
+			this.values = values;
+			this.ancestorKeys = ancestorKeys;
+		}
+
+		/**
+		 * Estimated size in bytes.
+		 */
+		long size() {
+			long size = 64 + 2 * primaryKey.length();
+			for (String value: values) {
+				if (value != null) {
+					size += 40 + 2 * value.length();
+				}
+			}
+			return size;
+		}
+	}
+
 	/**
 	 * Constructor.
 	 *
@@ -146,99 +239,291 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	@Override
 	public void readCurrentRow(ResultSet resultSet) throws SQLException {
 		try {
-			writeEntity(table, null, resultSet, new ArrayList<String>(), getCellContentConverter(resultSet, session, session.dbms));
+			Row row = readRow(table, resultSet, getCellContentConverter(resultSet, session, session.dbms));
+			pendingRows.add(row);
+			buffered(row);
+			if (pendingRows.size() >= BLOCK_SIZE || isBufferFull()) {
+				writePendingRows();
+			}
 		} catch (SAXException e) {
 			throw new RuntimeException(e);
-		} catch (ParserConfigurationException e) {
-			throw new RuntimeException(e);
 		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
 	/**
-	 * Writes entity as XML hierarchy.
+	 * Reads the aggregated rows of the pending rows and writes them as XML hierarchies.
+	 */
+	private void writePendingRows() throws SQLException, SAXException, IOException {
+		if (pendingRows.isEmpty()) {
+			return;
+		}
+		readAggregatedRows(table, pendingRows);
+		for (int i = 0; i < pendingRows.size(); ++i) {
+			writeEntity(table, null, pendingRows.get(i));
+			pendingRows.set(i, null);
+		}
+		pendingRows.clear();
+	}
+
+	private void buffered(Row row) {
+		++bufferedRows;
+		bufferedBytes += row.size();
+	}
+
+	private void written(Row row) {
+		--bufferedRows;
+		bufferedBytes -= row.size();
+	}
+
+	/**
+	 * Whether no more rows should be read ahead.
+	 */
+	private boolean isBufferFull() {
+		return bufferedRows >= MAX_BUFFERED_ROWS || bufferedBytes >= MAX_BUFFERED_BYTES;
+	}
+
+	/**
+	 * Reads a row.
 	 *
-	 * @param table entity's table
-	 * @param association association to parent, <code>null</code> for top-level entities
-	 * @param resultSet current row contains entity to write out
-	 * @param ancestors ancestors of entity to write out
+	 * @param table the row's table
+	 * @param resultSet current row is the row to read
+	 * @return the row (without parent)
 	 */
-	private void writeEntity(final Table table, Association association, final ResultSet resultSet, final List<String> ancestors, final CellContentConverter cellContentConverter)
-			throws SQLException, SAXException, ParserConfigurationException, IOException {
+	private Row readRow(Table table, ResultSet resultSet, CellContentConverter cellContentConverter) throws SQLException, SAXException, IOException {
+		List<Column> pkColumns = rowIdSupport.getPrimaryKey(table).getColumns();
+		Object[] keyValues = new Object[pkColumns.size()];
 		StringBuilder sb = new StringBuilder(table.getName() + "(");
-		boolean f = true;
-		int i = 0;
-		for (@SuppressWarnings("unused") Column pk : rowIdSupport.getPrimaryKey(table).getColumns()) {
-			if (!f) {
+		for (int i = 0; i < keyValues.length; ++i) {
+			if (i > 0) {
 				sb.append(", ");
 			}
-			f = false;
-			sb.append(cellContentConverter.toSql(cellContentConverter.getObject(resultSet, "PK" + i++)));
+			keyValues[i] = cellContentConverter.getObject(resultSet, "PK" + i);
+			sb.append(cellContentConverter.toSql(keyValues[i]));
 		}
 		sb.append(")");
 		String primaryKey = sb.toString();
 
-		if (ancestors.contains(primaryKey)) {
-			throw new RuntimeException("cyclic aggregation: " + primaryKey
-					+ " aggregates itself");
-		}
+		TableMapping tableMapping = getTableMapping(table);
+		String[] values = xmlRowWriter.readValues(resultSet, getMetaData(resultSet), table, tableMapping.numberOfValues, cellContentConverter, session);
+		Set<String> ancestorKeys = cyclicAggregatedTables.contains(table)? Collections.singleton(primaryKey) : Collections.<String>emptySet();
+		return new Row(null, primaryKey, keyValues, values, ancestorKeys);
+	}
 
-		ancestors.add(primaryKey);
+	/**
+	 * Reads the aggregated rows of a list of rows (recursively) as long as the buffer is not full.
+	 *
+	 * @param table the table of the rows
+	 * @param rows the rows
+	 */
+	private void readAggregatedRows(Table table, List<Row> rows) throws SQLException, SAXException, IOException {
+		if (rows.isEmpty()) {
+			return;
+		}
+		for (Association association: getTableMapping(table).aggregations) {
+			if (isBufferFull()) {
+				// the remaining aggregated rows are read when they are written
+				return;
+			}
+			List<Row> children = new ArrayList<Row>();
+			// rows of the same entity share one query condition
+			Map<String, List<Row>> block = new LinkedHashMap<String, List<Row>>();
+			for (Row row: rows) {
+				List<Row> rowsOfEntity = block.get(row.primaryKey);
+				if (rowsOfEntity == null) {
+					if (block.size() >= BLOCK_SIZE) {
+						readAggregatedRows(association, block, children);
+						block.clear();
+					}
+					rowsOfEntity = new ArrayList<Row>(1);
+					block.put(row.primaryKey, rowsOfEntity);
+				}
+				rowsOfEntity.add(row);
+			}
+			readAggregatedRows(association, block, children);
+			readAggregatedRows(association.destination, children);
+		}
+	}
 
-		TableMapping tableMapping = getTableMapping(table);
+	/**
+	 * Reads the rows aggregated by a block of entities with one query.
+	 * If the buffer gets full, the read rows are discarded and the aggregated rows of the block
+	 * are read when they are written.
+	 *
+	 * @param association the aggregation
+	 * @param block the aggregating rows per entity
+	 * @param children to add the aggregated rows to
+	 */
+	private void readAggregatedRows(final Association association, Map<String, List<Row>> block, final List<Row> children) throws SQLException, SAXException, IOException {
+		if (block.isEmpty() || isBufferFull()) {
+			return;
+		}
+		final List<List<Row>> parents = new ArrayList<List<Row>>(block.values());
+		List<Object[]> parentKeys = new ArrayList<Object[]>(parents.size());
+		for (List<Row> rowsOfEntity: parents) {
+			parentKeys.add(rowsOfEntity.get(0).keyValues);
+			for (Row parent: rowsOfEntity) {
+				parent.children.put(association, new ArrayList<Row>());
+			}
+		}
+		final List<Row> blockChildren = new ArrayList<Row>();
+		final boolean[] overflow = new boolean[] { false };
+		ResultSetReader reader = new ResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				if (overflow[0]) {
+					return;
+				}
+				try {
+					Row child = readRow(association.destination, resultSet, getCellContentConverter(resultSet, session, session.dbms));
+					for (Row parent: parents.get(resultSet.getInt(EntityGraph.PARENT_INDEX))) {
+						Row row = createChild(association, parent, child);
+						parent.children.get(association).add(row);
+						blockChildren.add(row);
+						buffered(row);
+					}
+					overflow[0] = isBufferFull();
+				} catch (SAXException e) {
+					throw new RuntimeException(e);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			@Override
+			public void close() {
+			}
+		};
+		TableMapping destinationMapping = getTableMapping(association.destination);
+		entityGraph.readDependentEntities(association.destination, association, parentKeys, reader, destinationMapping.selectionSchema, destinationMapping.originalPKAliasPrefix);
+		if (overflow[0]) {
+			for (Row row: blockChildren) {
+				written(row);
+			}
+			for (List<Row> rowsOfEntity: parents) {
+				for (Row parent: rowsOfEntity) {
+					parent.children.remove(association);
+				}
+			}
+			return;
+		}
+		children.addAll(blockChildren);
+		if (cyclicAggregatedTables.contains(association.destination)) {
+			entityGraph.markDependentEntitiesAsTraversed(association, parentKeys);
+		}
+	}
 
-		Map<String, Association> associationMap = associationCache.get(table);
-		if (associationMap == null) {
-			associationMap = new HashMap<String, Association>();
-			for (Association a: table.associations) {
-				associationMap.put(a.getName(), a);
+	/**
+	 * Creates an aggregated row.
+	 *
+	 * @param association the aggregation
+	 * @param parent the aggregating row
+	 * @param child the aggregated row (without parent)
+	 * @return the aggregated row
+	 */
+	private Row createChild(Association association, Row parent, Row child) {
+		Set<String> ancestorKeys = parent.ancestorKeys;
+		if (cyclicAggregatedTables.contains(association.destination)) {
+			// only rows of cyclic aggregated tables can aggregate themselves
+			if (ancestorKeys.contains(child.primaryKey)) {
+				throw new RuntimeException("cyclic aggregation: " + child.primaryKey
+						+ " aggregates itself");
 			}
-			associationCache.put(table, associationMap);
+			ancestorKeys = new HashSet<String>(ancestorKeys);
+			ancestorKeys.add(child.primaryKey);
 		}
-		final Map<String, Association> finalAssociationMap = associationMap;
+		return new Row(parent, child.primaryKey, child.keyValues, child.values, ancestorKeys);
+	}
 
-		XmlUtil.visitDocumentNodes(tableMapping.template, xmlRowWriter.new XmlWritingNodeVisitor(resultSet, getMetaData(resultSet), table, association, session) {
+	/**
+	 * Writes entity as XML hierarchy.
+	 *
+	 * @param table entity's table
+	 * @param association association to parent, <code>null</code> for top-level entities
+	 * @param row the entity to write out
+	 */
+	private void writeEntity(final Table table, Association association, final Row row)
+			throws SQLException, SAXException, IOException {
+		final TableMapping tableMapping = getTableMapping(table);
+		final Map<String, Association> associationMap = getAssociationMap(table);
+
+		XmlUtil.visitDocumentNodes(tableMapping.template, xmlRowWriter.new XmlWritingNodeVisitor(row.values, association) {
 			@Override
 			public void visitAssociationElement(String associationName) {
-				final Association sa = finalAssociationMap.get(associationName);
+				final Association sa = associationMap.get(associationName);
 				if (sa != null) {
-					if (totalProgress.contains(sa.destination)) {
-						if (sa.getAggregationSchema() != AggregationSchema.NONE) {
-							ResultSetReader reader = new ResultSetReader() {
-								@Override
-								public void readCurrentRow(ResultSet resultSet) throws SQLException {
-									try {
-										writeEntity(sa.destination, sa, resultSet, ancestors, getCellContentConverter(resultSet, session, session.dbms));
-									} catch (SAXException e) {
-										throw new RuntimeException(e);
-									} catch (ParserConfigurationException e) {
-										throw new RuntimeException(e);
-									} catch (IOException e) {
-										throw new RuntimeException(e);
-									}
-								}
-								@Override
-								public void close() {
-								}
-							};
-							try {
-								xmlRowWriter.startList(sa);
-								entityGraph.readDependentEntities(sa.destination, sa, resultSet, getMetaData(resultSet), reader, getTypeCache(sa.destination), getTableMapping(sa.destination).selectionSchema, getTableMapping(sa.destination).originalPKAliasPrefix);
-								if (cyclicAggregatedTables.contains(sa.destination)) {
-									entityGraph.markDependentEntitiesAsTraversed(sa, resultSet, getMetaData(resultSet), getTypeCache(sa.destination));
-								}
-								xmlRowWriter.endList(sa);
-							} catch (Exception e) {
-								throw new RuntimeException(e);
+					try {
+						List<Row> children = row.children.get(sa);
+						if (children != null) {
+							xmlRowWriter.startList(sa);
+							for (Row child: children) {
+								writeEntity(sa.destination, sa, child);
 							}
+							xmlRowWriter.endList(sa);
+							children.clear();
+						} else if (tableMapping.aggregations.contains(sa)) {
+							xmlRowWriter.startList(sa);
+							writeAggregatedRows(sa, row);
+							xmlRowWriter.endList(sa);
 						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
 					}
 				}
-
 			}
 		});
-		ancestors.remove(ancestors.size() - 1);
+		written(row);
+	}
+
+	/**
+	 * Reads the rows aggregated by a single row which have not been read ahead
+	 * and writes them while reading.
+	 *
+	 * @param association the aggregation
+	 * @param row the aggregating row
+	 */
+	private void writeAggregatedRows(final Association association, final Row row) throws SQLException, SAXException, IOException {
+		List<Object[]> parentKeys = Collections.singletonList(row.keyValues);
+		ResultSetReader reader = new ResultSetReader() {
+			@Override
+			public void readCurrentRow(ResultSet resultSet) throws SQLException {
+				try {
+					Row child = createChild(association, row, readRow(association.destination, resultSet, getCellContentConverter(resultSet, session, session.dbms)));
+					buffered(child);
+					writeEntity(association.destination, association, child);
+				} catch (SAXException e) {
+					throw new RuntimeException(e);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			@Override
+			public void close() {
+			}
+		};
+		TableMapping destinationMapping = getTableMapping(association.destination);
+		entityGraph.readDependentEntities(association.destination, association, parentKeys, reader, destinationMapping.selectionSchema, destinationMapping.originalPKAliasPrefix);
+		if (cyclicAggregatedTables.contains(association.destination)) {
+			entityGraph.markDependentEntitiesAsTraversed(association, parentKeys);
+		}
+	}
+
+	/**
+	 * Gets the associations of a table by name.
+	 *
+	 * @param table the table
+	 * @return map from association names to associations
+	 */
+	private Map<String, Association> getAssociationMap(Table table) {
+		Map<String, Association> associationMap = associationCache.get(table);
+		if (associationMap == null) {
+			associationMap = new HashMap<String, Association>();
+			for (Association a: table.associations) {
+				associationMap.put(a.getName(), a);
+			}
+			associationCache.put(table, associationMap);
+		}
+		return associationMap;
 	}
 
 	/**
@@ -274,7 +559,14 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 	 * Flushes the export-reader.
 	 */
 	@Override
-	public void close() {
+	public void close() throws SQLException {
+		try {
+			writePendingRows();
+		} catch (SAXException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
 	}
 
 	/**
@@ -296,6 +588,16 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 		 * Prefix of column aliases for selection of unfiltered PK values.
 		 */
 		public String originalPKAliasPrefix;
+
+		/**
+		 * Number of values (columns "C0", "C1", ...) selected by the selection schema.
+		 */
+		public int numberOfValues;
+
+		/**
+		 * The aggregating associations referenced by the template.
+		 */
+		public List<Association> aggregations = new ArrayList<Association>();
 	}
 
 	/**
@@ -371,6 +673,8 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 				sb.append("T." + quoting.requote(pk.name) + " as PK" + i++);
 			}
 		}
+		final Set<String> associationNames = new LinkedHashSet<String>();
+		final int[] numberOfValues = new int[1];
 		XmlUtil.visitDocumentNodes(tableMapping.template, new NodeVisitor() {
 			int nr = 0;
 
@@ -380,10 +684,12 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 						sb.append(", ");
 					}
 					sb.append(text.substring(XmlUtil.SQL_PREFIX.length()) + " as C" + nr++);
+					numberOfValues[0] = nr;
 				}
 			}
 			@Override
 			public void visitAssociationElement(String associationName) {
+				associationNames.add(associationName);
 			}
 			@Override
 			public void visitComment(String comment) {
@@ -404,6 +710,14 @@ public class XmlExportTransformer extends AbstractResultSetReader {
 			}
 		});
 		tableMapping.selectionSchema = sb.toString();
+		tableMapping.numberOfValues = numberOfValues[0];
+		Map<String, Association> associationMap = getAssociationMap(table);
+		for (String associationName: associationNames) {
+			Association association = associationMap.get(associationName);
+			if (association != null && totalProgress.contains(association.destination) && association.getAggregationSchema() != AggregationSchema.NONE) {
+				tableMapping.aggregations.add(association);
+			}
+		}
 
 		return tableMapping;
 	}
@@ -138,58 +138,91 @@ public class XmlRowWriter {
 		}
 	}
 	
+	/**
+	 * Reads the values of the current row which are written out as XML.
+	 * 
+	 * @param resultSet to read the row from
+	 * @param resultSetMetaData meta data
+	 * @param table the table from which the data comes
+	 * @param numberOfValues number of values (columns "C0", "C1", ...)
+	 * @param cellContentConverter converts the cell contents
+	 * @param session the DB session
+	 * @return the values as text, <code>null</code> for SQL-null
+	 */
+	public String[] readValues(ResultSet resultSet, ResultSetMetaData resultSetMetaData, Table table, int numberOfValues, CellContentConverter cellContentConverter, Session session) throws SQLException {
+		String[] values = new String[numberOfValues];
+		Map<String, Integer> typeCache = typeCachesForStringKey.get(table);
+		if (typeCache == null) {
+			typeCache = new HashMap<String, Integer>();
+			typeCachesForStringKey.put(table, typeCache);
+		}
+		for (int nr = 0; nr < numberOfValues; ++nr) {
+			String columnName = "C" + nr;
+			int type = SqlUtil.getColumnType(resultSet, resultSetMetaData, columnName, typeCache);
+			String value = "";
+			if ((type == Types.BLOB || type == Types.CLOB|| type == Types.NCLOB) && !DBMS.SQLITE.equals(session.dbms)) {
+				Object object = resultSet.getObject(columnName);
+				if (object == null || resultSet.wasNull()) {
+					value = null;
+				} else if (object instanceof Blob) {
+					Blob blob = (Blob) object;
+					byte[] blobValue = blob.getBytes(1, (int) blob.length());
+					value = Base64.encodeBytes(blobValue);
+				} else if (object instanceof Clob) {
+					Clob clobValue = (Clob) object;
+					int length = (int) clobValue.length();
+					if (length > 0) {
+						value = clobValue.getSubString(1, length);
+					}
+				}
+			} else {
+				Object o = cellContentConverter.getObject(resultSet, columnName);
+				if (o == null || resultSet.wasNull()) {
+					value = null;
+				} else if (o instanceof Timestamp) {
+					value = timestampPattern.format((Timestamp) o);
+				} else if (o instanceof Date) {
+					value = datePattern.format((Date) o);
+				} else {
+					value = o.toString();
+				}
+			}
+			values[nr] = value;
+		}
+		return values;
+	}
+
 	/**
 	 * Visits nodes of mapping templates and writes data as XML.
 	 */
 	public abstract class XmlWritingNodeVisitor implements NodeVisitor {
 		
 		/**
-		 * To read rows from.
-		 */
-		private final ResultSet resultSet;
-		
-		/**
-		 * Meta data.
-		 */
-		private final ResultSetMetaData resultSetMetaData;
-		
-		/**
-		 * The table from which the data comes.
+		 * The values of the row to write out.
+		 * 
+		 * @see XmlRowWriter#readValues(ResultSet, ResultSetMetaData, Table, int, CellContentConverter, Session)
 		 */
-		private final Table table;
+		private final String[] values;
 		
 		/**
 		 * The association which is currently resolved.
 		 */
 		private final Association association;
 		
-		/**
-		 * The DB session.
-		 */
-		private final Session session;
-		
 		/**
 		 * Next number of column to write out.
 		 */
 		private int nr = 0;
 		
-		/**
-		 * {@link CellContentConverter}.
-		 */
-		protected final CellContentConverter cellContentConverter;
-		
 		/**
 		 * Constructor.
 		 * 
-		 * @param resultSet to read rows from
+		 * @param values the values of the row to write out
+		 * @param association the association which is currently resolved
 		 */
-		public XmlWritingNodeVisitor(ResultSet resultSet, ResultSetMetaData resultSetMetaData, Table table, Association association, Session session) {
-			this.resultSet = resultSet;
-			this.resultSetMetaData = resultSetMetaData;
-			this.table = table;
+		public XmlWritingNodeVisitor(String[] values, Association association) {
+			this.values = values;
 			this.association = association;
-			this.session = session;
-			this.cellContentConverter =  new CellContentConverter(resultSetMetaData, session, session.dbms);
 		}
 
 		/**
@@ -201,56 +234,11 @@ public class XmlRowWriter {
 		 */
 		private String toXml(String text, boolean returnNull) {
 			if (text != null && text.startsWith(XmlUtil.SQL_PREFIX)) {
-				String columnName = "C" + nr++;
-				int type;
-				try {
-					Map<String, Integer> typeCache = typeCachesForStringKey.get(table);
-					if (typeCache == null) {
-						typeCache = new HashMap<String, Integer>();
-						typeCachesForStringKey.put(table, typeCache);
-					}
-					type = SqlUtil.getColumnType(resultSet, resultSetMetaData, columnName, typeCache);
-					if ((type == Types.BLOB || type == Types.CLOB|| type == Types.NCLOB) && !DBMS.SQLITE.equals(session.dbms)) {
-						Object object = resultSet.getObject(columnName);
-						if (returnNull && (object == null || resultSet.wasNull())) {
-							return null;
-						}
-						if (object instanceof Blob) {
-							Blob blob = (Blob) object;
-							byte[] blobValue = blob.getBytes(1, (int) blob.length());
-							return Base64.encodeBytes(blobValue);
-						}
-
-						if (object instanceof Clob) {
-							Clob clobValue = (Clob) object;
-							int length = (int) clobValue.length();
-							if (length > 0) {
-								return clobValue.getSubString(1, length);
-							}
-							return "";
-						}
-					} else {
-						Object o = cellContentConverter.getObject(resultSet, columnName);
-						if (returnNull && (o == null || resultSet.wasNull())) {
-							return null;
-						}
-						if (o != null) {
-							String value;
-							
-							if (o instanceof Timestamp) {
-								value = timestampPattern.format((Timestamp) o);
-							} else if (o instanceof Date) {
-								value = datePattern.format((Date) o);
-							} else {
-								value = o.toString();
-							}
-							return value;
-						}
-					}
+				String value = values[nr++];
+				if (value == null && !returnNull) {
 					return "";
-				} catch (SQLException e) {
-					throw new RuntimeException(e);
 				}
+				return value;
 			}
 			return text;
 		}
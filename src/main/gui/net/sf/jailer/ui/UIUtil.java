@@ -140,6 +140,7 @@ import com.formdev.flatlaf.FlatLightLaf;
 import net.sf.jailer.ExecutionContext;
 import net.sf.jailer.Jailer;
 import net.sf.jailer.JailerVersion;
+import net.sf.jailer.configuration.Configuration;
 import net.sf.jailer.configuration.DBMS;
 import net.sf.jailer.database.BasicDataSource;
 import net.sf.jailer.database.PrimaryKeyValidator;
@@ -1614,8 +1615,14 @@ public class UIUtil {
 						}
 					};
 					try {
-						new PrimaryKeyValidator(cancellationContext) {
+						PrimaryKeyValidator primaryKeyValidator = new PrimaryKeyValidator(cancellationContext) {
 							boolean initialized = false;
+							volatile String lastCheckedTable = null;
+							@Override
+							protected void onTableChecked(Table table, boolean valid, boolean fromCache, boolean sampled) {
+								lastCheckedTable = table.getName() + (sampled? " (sampled)" : "");
+								updateProgressBar();
+							}
 							@Override
 							protected void updateProgressBar() {
 								invokeLater(new Runnable() {
@@ -1635,11 +1642,19 @@ public class UIUtil {
 											concurrentTaskControl.master.cancelButton.setText("Stop");
 											initialized = true;
 										}
-										concurrentTaskControl.master.infoLabel.setText(infoPrefix + "<font size=\"+1\">" + info + "</font></html>");
+										String table = lastCheckedTable;
+										concurrentTaskControl.master.infoLabel.setText(infoPrefix + "<font size=\"+1\">" + info + "</font>"
+												+ (table == null? "" : "<br>" + UIUtil.toHTMLFragment(table, 80)) + "</html>");
 									}
 								});
 							}
-						}.validatePrimaryKey(session, tables, jobManager);
+						};
+						Configuration configuration = Configuration.getInstance();
+						primaryKeyValidator.setSampling(configuration.getPrimaryKeyValidationSamplingMinRows(), configuration.getPrimaryKeyValidationSamplingBuckets());
+						if (configuration.getPrimaryKeyValidationResultCacheFile() != null) {
+							primaryKeyValidator.setResultCacheFile(Environment.newFile(configuration.getPrimaryKeyValidationResultCacheFile()));
+						}
+						primaryKeyValidator.validatePrimaryKey(session, tables, jobManager);
 					} catch (final Throwable t) {
 						invokeLater(new Runnable() {
 							@Override
@@ -17,6 +17,7 @@ package net.sf.jailer;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.dbunit.dataset.IDataSet;
@@ -42,6 +43,7 @@ public class ExportTestCase extends DbmsAwareTestCase {
 	private final String format;
 	private final String scope;
 	private final boolean overwrite;
+	private final String[] additionalArguments;
 		
 	/**
 	 * Constructor.
@@ -50,6 +52,17 @@ public class ExportTestCase extends DbmsAwareTestCase {
 	 * @param initialDataset initial data
 	 */
 	public ExportTestCase(String name, File testDir, File datamodelDir, File initialDataset, File expectedResult, String format, String scope, boolean overwrite) {
+		this(name, testDir, datamodelDir, initialDataset, expectedResult, format, scope, overwrite, new String[0]);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param name test case name
+	 * @param initialDataset initial data
+	 * @param additionalArguments additional arguments of the export command
+	 */
+	public ExportTestCase(String name, File testDir, File datamodelDir, File initialDataset, File expectedResult, String format, String scope, boolean overwrite, String... additionalArguments) {
 		super(name);
 		this.testDir = testDir;
 		this.datamodelDir = datamodelDir;
@@ -58,6 +71,7 @@ public class ExportTestCase extends DbmsAwareTestCase {
 		this.scope = scope;
 		this.format = format;
 		this.overwrite = overwrite;
+		this.additionalArguments = additionalArguments;
 	}
 
 	/**
@@ -144,13 +158,14 @@ public class ExportTestCase extends DbmsAwareTestCase {
 		if (overwrite) {
 			args.add("-upsert-only");
 		}
+		args.addAll(Arrays.asList(additionalArguments));
 		System.out.println(args);
 		Jailer.main(args.toArray(new String[0]));
 		return true;
 	}
 
 	public String toString() {
-		return super.toString() + ": " + testDir + ", " + format + ", " + scope;
+		return super.toString() + ": " + testDir + ", " + format + ", " + scope + (additionalArguments.length > 0? ", " + Arrays.asList(additionalArguments) : "");
 	}
 	
 }
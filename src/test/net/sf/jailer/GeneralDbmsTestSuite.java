@@ -49,6 +49,9 @@ public class GeneralDbmsTestSuite extends TestSuite {
 							suite.addTest(new ExportTestCase("testExport", testDir, new File(baseDir, "datamodel"), new File(baseDir, "initial-dataset.xml"), expectedResult, "SQL", "GLOBAL", false));
 							suite.addTest(new ExportTestCase("testExport", testDir, new File(baseDir, "datamodel"), new File(baseDir, "initial-dataset.xml"), expectedResult, "SQL", "SESSION_LOCAL", true));
 							suite.addTest(new ExportTestCase("testExport", testDir, new File(baseDir, "datamodel"), new File(baseDir, "initial-dataset.xml"), expectedResult, "SQL", "GLOBAL", true));
+							suite.addTest(new ExportTestCase("testExport", testDir, new File(baseDir, "datamodel"), new File(baseDir, "initial-dataset.xml"), expectedResult, "SQL", "GLOBAL", false, "-sort-in-memory"));
+							// more rows than can be sorted in memory
+							suite.addTest(new ExportTestCase("testExport", testDir, new File(baseDir, "datamodel"), new File(baseDir, "initial-dataset.xml"), expectedResult, "SQL", "GLOBAL", false, "-sort-in-memory", "-max-rows-to-sort-in-memory", "1"));
 						}
 						expectedResult = new File(testDir, "expected-xml.xml");
 						if (expectedResult.exists()) {
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the connection pool of {@link BasicDataSource}.
+ *
+ * @author Ralf Wisser
+ */
+public class BasicDataSourceTest extends TestCase {
+
+	private static int dbNumber = 0;
+
+	private BasicDataSource dataSource;
+
+	@Override
+	protected void setUp() throws Exception {
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:bds" + (++dbNumber) + ";DB_CLOSE_DELAY=-1", "sa", "", 1, (File) null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		dataSource.close();
+	}
+
+	public void testStatementsReturnPooledConnection() throws Exception {
+		Connection con = dataSource.getConnection();
+		Statement statement = con.createStatement();
+		PreparedStatement preparedStatement = con.prepareStatement("Select 1");
+		assertSame(con, statement.getConnection());
+		assertSame(con, preparedStatement.getConnection());
+		assertSame(con, con.prepareCall("Select 1").getConnection());
+		assertTrue(preparedStatement.executeQuery().next());
+		statement.close();
+		preparedStatement.close();
+
+		// closing the connection of a statement gives it back to the pool
+		con.createStatement().getConnection().close();
+		assertEquals(0, dataSource.getActiveConnectionCount());
+		assertEquals(1, dataSource.getIdleConnectionCount());
+		Connection reused = dataSource.getConnection();
+		assertEquals(1, dataSource.getCreatedConnectionCount());
+		reused.close();
+	}
+
+	public void testMaxActiveConnections() throws Exception {
+		dataSource.setMaxActiveConnections(1, 100);
+		Connection con = dataSource.getConnection();
+		try {
+			dataSource.getConnection();
+			fail("limit exceeded");
+		} catch (SQLException e) {
+			assertEquals(1, dataSource.getWaitTimeoutCount());
+		}
+		con.close();
+		dataSource.getConnection().close();
+		assertEquals(2, dataSource.getBorrowedConnectionCount());
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.database;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+import net.sf.jailer.ExecutionContext;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.datamodel.Column;
+import net.sf.jailer.datamodel.PrimaryKeyFactory;
+import net.sf.jailer.datamodel.Table;
+import net.sf.jailer.util.JobManager;
+
+/**
+ * Tests {@link PrimaryKeyValidator}
+ *
+ * @author Ralf Wisser
+ */
+public class PrimaryKeyValidatorTest extends TestCase {
+
+	private static int dbNumber = 0;
+
+	private BasicDataSource dataSource;
+	private Session session;
+	private JobManager jobManager;
+	private File resultCacheFile;
+	private String tableModificationQuery;
+
+	/**
+	 * Fails the aggregate query to force the fallback to the separate checks.
+	 */
+	private boolean failAggregateQuery = false;
+
+	/**
+	 * Tables checked during the last validation, tables taken from the result cache are prefixed with "cached ",
+	 * tables checked using a sample are prefixed with "sampled ".
+	 */
+	private TreeMap<String, String> checkedTables = new TreeMap<String, String>();
+
+	@Override
+	protected void setUp() throws Exception {
+		dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:pkv" + (++dbNumber) + ";DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		session = new Session(dataSource, dataSource.dbms, null) {
+			@Override
+			public long executeQuery(String sqlQuery, ResultSetReader reader, String alternativeSQL, Object context, long limit, boolean withExplicitCommit) throws SQLException {
+				if (failAggregateQuery && sqlQuery.contains("JL_COUNT")) {
+					throw new SqlException("not supported", sqlQuery, null);
+				}
+				return super.executeQuery(sqlQuery, reader, alternativeSQL, context, limit, withExplicitCommit);
+			}
+		};
+		jobManager = new JobManager(1) {
+			@Override
+			protected void onException(Throwable t) {
+			}
+		};
+		resultCacheFile = File.createTempFile("pkv", ".txt");
+		resultCacheFile.delete();
+		tableModificationQuery = session.dbms.getTableModificationQuery();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.dbms.setTableModificationQuery(tableModificationQuery);
+		session.executeUpdate("SHUTDOWN");
+		session.shutDown();
+		jobManager.shutdown();
+		resultCacheFile.delete();
+	}
+
+	public void testValid() throws Exception {
+		createTable("T", 100, 0, false);
+		assertNull(validate(createValidator(), "T"));
+	}
+
+	public void testDuplicates() throws Exception {
+		createTable("T", 100, 3, false);
+		SqlException e = validate(createValidator(), "T");
+		assertNotNull(e);
+		assertTrue(e.message, e.message.contains("Primary key of table \"T\" is not unique."));
+		assertFalse(e.message, e.message.contains("contains null"));
+		assertTrue(e.sqlStatement, e.sqlStatement.contains("having count(*) > 1"));
+	}
+
+	public void testNull() throws Exception {
+		createTable("T", 100, 0, true);
+		SqlException e = validate(createValidator(), "T");
+		assertNotNull(e);
+		assertTrue(e.message, e.message.contains("Primary key of table \"T\" contains null."));
+		assertFalse(e.message, e.message.contains("not unique"));
+	}
+
+	public void testFallback() throws Exception {
+		failAggregateQuery = true;
+		createTable("T", 100, 0, false);
+		assertNull(validate(createValidator(), "T"));
+		createTable("D", 100, 1, true);
+		SqlException e = validate(createValidator(), "D");
+		assertNotNull(e);
+		assertTrue(e.message, e.message.contains("Primary key of table \"D\" is not unique."));
+		assertTrue(e.message, e.message.contains("Primary key of table \"D\" contains null."));
+		assertFalse(e.sqlStatement, e.sqlStatement.contains("JL_COUNT"));
+	}
+
+	public void testSampling() throws Exception {
+		final int buckets = 4;
+		createTable("T", 1000, 0, false);
+		// duplicates a key which is not in the sample and then a key which is
+		session.executeUpdate("Insert into T(ID, NAME) Select min(ID), 'dup' From T Where ORA_HASH(CONCAT_WS('|', ID, ''), " + (buckets - 1) + ")<>0");
+		session.executeUpdate("ANALYZE");
+
+		PrimaryKeyValidator validator = createValidator();
+		validator.setSampling(0, buckets);
+		assertNull(validate(validator, "T"));
+		assertEquals("[sampled T]", checkedTables.values().toString());
+
+		validator = createValidator();
+		validator.setSampling(Long.MAX_VALUE, buckets);
+		SqlException e = validate(validator, "T");
+		assertNotNull(e);
+		assertFalse(e.sqlStatement, e.sqlStatement.contains("ORA_HASH"));
+		assertEquals("[T]", checkedTables.values().toString());
+
+		session.executeUpdate("Insert into T(ID, NAME) Select min(ID), 'dup' From T Where ORA_HASH(CONCAT_WS('|', ID, ''), " + (buckets - 1) + ")=0");
+		validator = createValidator();
+		validator.setSampling(0, buckets);
+		e = validate(validator, "T");
+		assertNotNull(e);
+		assertTrue(e.message, e.message.contains("Primary key of table \"T\" is not unique."));
+		assertTrue(e.sqlStatement, e.sqlStatement.contains("ORA_HASH"));
+	}
+
+	public void testResultCache() throws Exception {
+		session.dbms.setTableModificationQuery("SELECT TABLE_NAME, LAST_MODIFICATION FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = '${SCHEMA}'");
+		createTable("T", 100, 0, false);
+		createTable("U", 100, 0, false);
+
+		PrimaryKeyValidator validator = createValidator();
+		validator.setResultCacheFile(resultCacheFile);
+		assertNull(validate(validator, "T", "U"));
+		assertEquals("[T, U]", checkedTables.values().toString());
+
+		validator = createValidator();
+		validator.setResultCacheFile(resultCacheFile);
+		assertNull(validate(validator, "T", "U"));
+		assertEquals("[cached T, cached U]", checkedTables.values().toString());
+
+		// a modification which doesn't change the number of rows
+		session.executeUpdate("Update T Set ID=1 Where ID=2");
+		validator = createValidator();
+		validator.setResultCacheFile(resultCacheFile);
+		SqlException e = validate(validator, "T", "U");
+		assertNotNull(e);
+		assertTrue(e.message, e.message.contains("Primary key of table \"T\" is not unique."));
+		assertEquals("[T, cached U]", checkedTables.values().toString());
+
+		// invalid tables are not remembered
+		validator = createValidator();
+		validator.setResultCacheFile(resultCacheFile);
+		assertNotNull(validate(validator, "T", "U"));
+		assertEquals("[T, cached U]", checkedTables.values().toString());
+	}
+
+	/**
+	 * Creates a table without primary key constraint and an index on the key.
+	 *
+	 * @param numRows number of rows with distinct keys
+	 * @param numDuplicates number of additional rows with existing keys
+	 * @param withNull insert a row with null key
+	 */
+	private void createTable(String name, int numRows, int numDuplicates, boolean withNull) throws SQLException {
+		session.executeUpdate("Create Table " + name + "(ID INTEGER, NAME VARCHAR(100))");
+		session.executeUpdate("Create Index " + name + "_IDX On " + name + "(ID)");
+		session.executeUpdate("Insert into " + name + "(ID, NAME) Select X, 'row ' || X From SYSTEM_RANGE(1, " + numRows + ")");
+		if (numDuplicates > 0) {
+			session.executeUpdate("Insert into " + name + "(ID, NAME) Select X, 'dup ' || X From SYSTEM_RANGE(1, " + numDuplicates + ")");
+		}
+		if (withNull) {
+			session.executeUpdate("Insert into " + name + "(ID, NAME) Values (null, 'null')");
+		}
+		session.executeUpdate("ANALYZE");
+	}
+
+	private PrimaryKeyValidator createValidator() {
+		checkedTables.clear();
+		return new PrimaryKeyValidator(null) {
+			@Override
+			protected void onTableChecked(Table table, boolean valid, boolean fromCache, boolean sampled) {
+				synchronized (checkedTables) {
+					checkedTables.put(table.getName(), (fromCache? "cached " : "") + (sampled? "sampled " : "") + table.getName());
+				}
+			}
+			@Override
+			protected void updateProgressBar() {
+			}
+		};
+	}
+
+	/**
+	 * Validates the primary keys (column "ID") of some tables.
+	 *
+	 * @return the error or <code>null</code> if all primary keys are valid
+	 */
+	private SqlException validate(PrimaryKeyValidator validator, String... tableNames) throws SQLException {
+		PrimaryKeyFactory primaryKeyFactory = new PrimaryKeyFactory(new ExecutionContext());
+		Set<Table> tables = new HashSet<Table>();
+		for (String tableName: tableNames) {
+			List<Column> pk = new ArrayList<Column>();
+			pk.add(new Column("ID", "INTEGER", 0, -1));
+			tables.add(new Table(tableName, primaryKeyFactory.createPrimaryKey(pk, tableName), false, false));
+		}
+		try {
+			validator.validatePrimaryKey(session, tables, jobManager);
+			return null;
+		} catch (SqlException e) {
+			return e;
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.entitygraph.intradatabase;
+
+import java.io.File;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import net.sf.jailer.database.BasicDataSource;
+import net.sf.jailer.database.Session;
+import net.sf.jailer.database.Session.ResultSetReader;
+import net.sf.jailer.database.SqlException;
+import net.sf.jailer.datamodel.Column;
+
+/**
+ * Tests the key ranges of the chunks copied by the {@link IntraDatabaseEntityGraph}.
+ *
+ * @author Ralf Wisser
+ */
+public class ChunkBoundsTest extends TestCase {
+
+	private static int dbNumber = 0;
+
+	private Session session;
+
+	/**
+	 * Fails the queries using window functions to force the fallback to reading all keys.
+	 */
+	private boolean failWindowFunctions = false;
+
+	@Override
+	protected void setUp() throws Exception {
+		BasicDataSource dataSource = new BasicDataSource("org.h2.Driver", "jdbc:h2:mem:chunks" + (++dbNumber) + ";DB_CLOSE_DELAY=-1", "sa", "", 0, (File) null);
+		session = new Session(dataSource, dataSource.dbms, null) {
+			@Override
+			public long executeQuery(String sqlQuery, ResultSetReader reader) throws SQLException {
+				if (failWindowFunctions && sqlQuery.contains("row_number()")) {
+					throw new SqlException("not supported", sqlQuery, null);
+				}
+				return super.executeQuery(sqlQuery, reader);
+			}
+		};
+		// composite key, ordered by A first
+		session.executeUpdate("Create Table ENTITY(A INTEGER, B VARCHAR(10), R INTEGER)");
+		session.executeUpdate("Insert into ENTITY(A, B, R) Select mod(X, 7), 'b' || (X / 7), X From SYSTEM_RANGE(1, 100)");
+		// rows of another graph, not to be chunked
+		session.executeUpdate("Insert into ENTITY(A, B, R) Select X, 'x', -1 From SYSTEM_RANGE(1, 10)");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		session.executeUpdate("SHUTDOWN");
+		session.shutDown();
+	}
+
+	public void testCompositeKey() throws Exception {
+		for (int chunkSize: new int[] { 1, 3, 7, 10, 33, 99, 100 }) {
+			assertChunks(chunkSize, (100 + chunkSize - 1) / chunkSize);
+		}
+	}
+
+	public void testCompositeKeyWithoutWindowFunctions() throws Exception {
+		failWindowFunctions = true;
+		for (int chunkSize: new int[] { 1, 3, 7, 10, 33, 99, 100 }) {
+			assertChunks(chunkSize, (100 + chunkSize - 1) / chunkSize);
+		}
+	}
+
+	public void testSingleChunk() throws Exception {
+		assertEquals(0, readChunkBounds(100).size());
+		assertEquals(0, readChunkBounds(1000).size());
+	}
+
+	public void testNullKey() throws Exception {
+		session.executeUpdate("Insert into ENTITY(A, B, R) Values (1, null, 0)");
+		assertNull(readChunkBounds(10));
+		failWindowFunctions = true;
+		assertNull(readChunkBounds(10));
+	}
+
+	public void testTransientErrors() throws Exception {
+		assertTrue(IntraDatabaseEntityGraph.isTransient(new SQLTransientException("timeout")));
+		assertTrue(IntraDatabaseEntityGraph.isTransient(new SqlException("deadlock", "", new SQLException("deadlock", "40001"))));
+		assertTrue(IntraDatabaseEntityGraph.isTransient(new SqlException("lost", "", new SQLException("connection lost", "08S01"))));
+		assertFalse(IntraDatabaseEntityGraph.isTransient(new SqlException("dup", "", new SQLException("unique constraint", "23505"))));
+		assertFalse(IntraDatabaseEntityGraph.isTransient(new SQLException("syntax error", "42000")));
+		assertFalse(IntraDatabaseEntityGraph.isTransient(new SQLException("unknown")));
+	}
+
+	/**
+	 * Checks that the chunks are complete and disjoint, that all chunks except the last one
+	 * have exactly the given size and that the last one isn't empty.
+	 */
+	private void assertChunks(int chunkSize, int expectedNumberOfChunks) throws SQLException {
+		List<String[]> bounds = readChunkBounds(chunkSize);
+		List<String> conditions = IntraDatabaseEntityGraph.chunkConditions(keyColumns(), bounds, "E.R>=0");
+		assertEquals("chunk size " + chunkSize, expectedNumberOfChunks, conditions.size());
+		final Map<Integer, Integer> chunkOfRow = new HashMap<Integer, Integer>();
+		for (int i = 0; i < conditions.size(); ++i) {
+			final int chunk = i;
+			final int[] size = new int[1];
+			session.executeQuery("Select E.R From ENTITY E Where " + conditions.get(i), new Session.AbstractResultSetReader() {
+				@Override
+				public void readCurrentRow(ResultSet resultSet) throws SQLException {
+					Integer other = chunkOfRow.put(resultSet.getInt(1), chunk);
+					assertNull("row " + resultSet.getInt(1) + " in chunks " + other + " and " + chunk, other);
+					++size[0];
+				}
+			});
+			if (i < conditions.size() - 1) {
+				assertEquals("chunk " + i + " of size " + chunkSize, chunkSize, size[0]);
+			} else {
+				assertTrue("last chunk of size " + chunkSize, size[0] > 0 && size[0] <= chunkSize);
+			}
+		}
+		assertEquals("chunk size " + chunkSize, 100, chunkOfRow.size());
+	}
+
+	private List<String[]> readChunkBounds(int chunkSize) throws SQLException {
+		return IntraDatabaseEntityGraph.readChunkBounds(session, keyColumns(), " From ENTITY E Where (E.R>=0)", chunkSize);
+	}
+
+	private List<Column> keyColumns() {
+		List<Column> keyColumns = new ArrayList<Column>();
+		keyColumns.add(new Column("A", "INTEGER", 0, -1));
+		keyColumns.add(new Column("B", "VARCHAR", 10, -1));
+		return keyColumns;
+	}
+
+}
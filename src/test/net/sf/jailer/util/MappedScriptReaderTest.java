@@ -0,0 +1,150 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link MappedScriptReader}
+ *
+ * @author Ralf Wisser
+ */
+public class MappedScriptReaderTest extends TestCase {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int[] WINDOW_SIZES = { 16, 17, 23, 31, 64, 1000 };
+
+	/**
+	 * Characters encoded with two, three and four bytes.
+	 */
+	private static final String[] MULTI_BYTE = { "", " \u00e4", " \u20ac\u00e4", " \ud83d\ude00", "\u20ac\ud83d\ude00\u00e4" };
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("script", ".sql");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		file.delete();
+	}
+
+	public void testLines() throws Exception {
+		List<String> lines = new ArrayList<String>();
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 200; ++i) {
+			String line = (i % 3 == 0? "  " : "") + "line " + i + MULTI_BYTE[i % MULTI_BYTE.length] + (i % 4 == 0? "\t" : "");
+			if (i % 7 == 0) {
+				line = "";
+			}
+			lines.add(line);
+			script.append(line).append(i % 2 == 0? "\r\n" : "\n");
+		}
+		write(script.toString());
+		for (int windowSize: WINDOW_SIZES) {
+			MappedScriptReader reader = new MappedScriptReader(file, UTF8, windowSize);
+			for (String line: lines) {
+				assertTrue(reader.nextLine());
+				assertEquals("window size " + windowSize, line, reader.getRawLine());
+				assertEquals("window size " + windowSize, line.trim(), reader.getLine());
+				assertEquals(line.trim().isEmpty(), reader.isBlank());
+			}
+			assertFalse(reader.nextLine());
+			reader.close();
+			reader.release();
+		}
+	}
+
+	public void testStatements() throws Exception {
+		List<String> statements = new ArrayList<String>();
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 100; ++i) {
+			if (i % 10 == 0) {
+				script.append("-- sync\n");
+			}
+			String statement = "Insert into T" + i + "(A, B) values (" + i + ", '\u00f6\u00df\u20ac" + i + "')";
+			if (i % 3 == 0) {
+				statement += ",\n(" + (i + 1) + ", '\ud83d\ude00')";
+				script.append("  " + statement.replace("\n", "\n\n   ") + ";\r\n");
+			} else {
+				script.append(statement + ";\n");
+			}
+			statements.add(statement);
+		}
+		write(script.toString());
+		for (int windowSize: WINDOW_SIZES) {
+			assertEquals("window size " + windowSize, statements, readStatements(new MappedScriptReader(file, UTF8, windowSize)));
+		}
+	}
+
+	public void testRelease() throws Exception {
+		StringBuilder script = new StringBuilder();
+		for (int i = 0; i < 100; ++i) {
+			script.append("Insert into T(A) values (" + i + ");\n");
+		}
+		write(script.toString());
+		MappedScriptReader reader = new MappedScriptReader(file, UTF8, 64);
+		while (reader.nextLine()) {
+			reader.releaseRetiredWindows();
+		}
+		reader.close();
+		reader.release();
+		assertTrue(file.delete());
+	}
+
+	/**
+	 * Reads the statements the way the {@link SqlScriptExecutor} does.
+	 */
+	private List<String> readStatements(MappedScriptReader reader) throws IOException {
+		List<String> statements = new ArrayList<String>();
+		long start = -1;
+		while (reader.nextLine()) {
+			if (reader.isBlank() || (start < 0 && reader.isComment())) {
+				continue;
+			}
+			if (start < 0) {
+				start = reader.getLineStart();
+				reader.setPinnedPosition(start);
+			}
+			if (reader.endsWithSemicolon()) {
+				statements.add(reader.getSlice(start, reader.getLineEnd() - 1).getStatement());
+				reader.setPinnedPosition(-1);
+				start = -1;
+			}
+		}
+		reader.close();
+		reader.release();
+		return statements;
+	}
+
+	private void write(String content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes(UTF8));
+		out.close();
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2007 - 2024 Ralf Wisser.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.sf.jailer.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests {@link TopologicalLevels}
+ *
+ * @author Ralf Wisser
+ */
+public class TopologicalLevelsTest extends TestCase {
+
+	private static final int N = TopologicalLevels.NO_LEVEL;
+
+	public void testChain() throws Exception {
+		TopologicalLevels graph = new TopologicalLevels(5);
+		// 4 -> 3 -> 2 -> 1 -> 0
+		for (int i = 4; i > 0; --i) {
+			graph.addEdge(i, i - 1);
+		}
+		assertLevels(new int[] { 0, 1, 2, 3, 4 }, graph.computeLevels());
+	}
+
+	public void testDiamond() throws Exception {
+		TopologicalLevels graph = new TopologicalLevels(5);
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 2);
+		graph.addEdge(1, 3);
+		graph.addEdge(2, 3);
+		graph.addEdge(2, 4);
+		graph.addEdge(4, 3);
+		// parallel edges
+		graph.addEdge(0, 2);
+		assertLevels(new int[] { 3, 1, 2, 0, 1 }, graph.computeLevels());
+	}
+
+	public void testCycles() throws Exception {
+		TopologicalLevels graph = new TopologicalLevels(8);
+		// cycle 1 -> 2 -> 3 -> 1, which depends on 0
+		graph.addEdge(1, 2);
+		graph.addEdge(2, 3);
+		graph.addEdge(3, 1);
+		graph.addEdge(3, 0);
+		// 4 depends on the cycle
+		graph.addEdge(4, 2);
+		// 5 depends on 4 and on 0
+		graph.addEdge(5, 4);
+		graph.addEdge(5, 0);
+		// self reference
+		graph.addEdge(6, 6);
+		// 7 depends on 0 only
+		graph.addEdge(7, 0);
+		assertLevels(new int[] { 0, N, N, N, N, N, N, 1 }, graph.computeLevels());
+	}
+
+	public void testUnknownNodes() throws Exception {
+		TopologicalLevels graph = new TopologicalLevels(4);
+		graph.addEdge(1, 0);
+		graph.addEdgeToUnknownNode(1);
+		graph.addEdge(2, 1);
+		graph.addEdge(3, 0);
+		assertLevels(new int[] { 0, N, N, 1 }, graph.computeLevels());
+	}
+
+	public void testEmpty() throws Exception {
+		assertLevels(new int[0], new TopologicalLevels(0).computeLevels());
+		assertLevels(new int[] { 0, 0, 0 }, new TopologicalLevels(3).computeLevels());
+	}
+
+	/**
+	 * Compares the levels with the rounds in which the entities are written if they are
+	 * peeled off round by round (see SubsettingEngine#writeIndependentEntities).
+	 */
+	public void testAgreementWithRoundByRoundOrder() throws Exception {
+		Random random = new Random(4711);
+		for (int run = 0; run < 200; ++run) {
+			int numberOfNodes = 2 + random.nextInt(run < 100? 20 : 2000);
+			int numberOfEdges = random.nextInt(3 * numberOfNodes);
+			int[] from = new int[numberOfEdges];
+			int[] to = new int[numberOfEdges];
+			boolean[] blocked = new boolean[numberOfNodes];
+			// mostly acyclic (edges to lower nodes only), cycles in every other run
+			boolean acyclic = run % 2 == 0;
+			TopologicalLevels graph = new TopologicalLevels(numberOfNodes);
+			for (int e = 0; e < numberOfEdges; ++e) {
+				from[e] = random.nextInt(numberOfNodes);
+				to[e] = random.nextInt(numberOfNodes);
+				if (acyclic || random.nextInt(50) != 0) {
+					if (from[e] == to[e]) {
+						from[e] = (from[e] + 1) % numberOfNodes;
+					}
+					if (from[e] < to[e]) {
+						int h = from[e];
+						from[e] = to[e];
+						to[e] = h;
+					}
+				}
+				graph.addEdge(from[e], to[e]);
+			}
+			if (!acyclic) {
+				for (int i = 0; i < numberOfNodes / 100; ++i) {
+					int node = random.nextInt(numberOfNodes);
+					blocked[node] = true;
+					graph.addEdgeToUnknownNode(node);
+				}
+			}
+			int[] level = graph.computeLevels();
+			int[] round = roundByRound(numberOfNodes, from, to, blocked);
+			assertLevels(round, level);
+			if (acyclic) {
+				for (int l: level) {
+					assertTrue(l != N);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Peels off the nodes without edges to remaining nodes round by round.
+	 *
+	 * @return the round in which each node is peeled off, or {@link TopologicalLevels#NO_LEVEL}
+	 */
+	private int[] roundByRound(int numberOfNodes, int[] from, int[] to, boolean[] blocked) {
+		int[] round = new int[numberOfNodes];
+		Arrays.fill(round, N);
+		boolean[] remaining = new boolean[numberOfNodes];
+		Arrays.fill(remaining, true);
+		for (int r = 0; ; ++r) {
+			boolean[] dependent = blocked.clone();
+			for (int e = 0; e < from.length; ++e) {
+				if (remaining[to[e]]) {
+					dependent[from[e]] = true;
+				}
+			}
+			boolean peeled = false;
+			for (int i = 0; i < numberOfNodes; ++i) {
+				if (remaining[i] && !dependent[i]) {
+					round[i] = r;
+					peeled = true;
+				}
+			}
+			if (!peeled) {
+				return round;
+			}
+			for (int i = 0; i < numberOfNodes; ++i) {
+				if (round[i] == r) {
+					remaining[i] = false;
+				}
+			}
+		}
+	}
+
+	private void assertLevels(int[] expected, int[] actual) {
+		assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+	}
+
+}